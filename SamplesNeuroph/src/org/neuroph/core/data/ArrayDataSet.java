@@ -0,0 +1,560 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.data;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.RandomAccess;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.exceptions.VectorSizeMismatchException;
+
+/**
+ * Base of data sets that keep their rows in arrays instead of a list of row
+ * objects. Subclasses decide how the values are stored and implement the row
+ * accessors, and this class exposes the rows as light {@link Row} views:
+ * getInput() and getDesiredOutput() copy the values of the row into buffers
+ * owned by the view, and setInput() and setDesiredOutput() copy new values
+ * back into the arrays, which is how the normalizers update rows. Changes
+ * made to the returned arrays without calling the setters are not stored.
+ *
+ * Iterators returned by iterator() and getRows().iterator() reuse a single
+ * view for all rows, so rows taken from an iterator must not be kept after
+ * moving to the next one; use get(int) to get a view bound to one row.
+ */
+public abstract class ArrayDataSet extends DataSet {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of rows stored in the arrays.
+     */
+    protected int rowsCount;
+    private final RowList rowList = new RowList();
+    private transient Random random;
+
+    protected ArrayDataSet(int inputSize, int outputSize) {
+        super(inputSize, outputSize);
+    }
+
+    /**
+     * Copies input values of given row to the target array.
+     */
+    public abstract void copyInput(int rowIdx, double[] target);
+
+    /**
+     * Copies desired output values of given row to the target array.
+     */
+    public abstract void copyDesiredOutput(int rowIdx, double[] target);
+
+    /**
+     * Stores input values of given row, whose size was checked.
+     */
+    protected abstract void writeInput(int rowIdx, double[] input);
+
+    /**
+     * Stores desired output values of given row, whose size was checked.
+     */
+    protected abstract void writeDesiredOutput(int rowIdx, double[] desiredOutput);
+
+    /**
+     * Copies count rows starting at row from to row to, which may overlap.
+     */
+    protected abstract void moveRows(int from, int to, int count);
+
+    /**
+     * Exchanges values of two rows.
+     */
+    protected abstract void swapRows(int i, int j);
+
+    /**
+     * Grows the arrays to hold at least given number of rows.
+     */
+    protected abstract void ensureCapacity(int rows);
+
+    /**
+     * Returns copy of consecutive rows, of the same type as this data set.
+     */
+    public abstract ArrayDataSet subSet(int fromRow, int count);
+
+    @Override
+    public boolean addRow(DataSetRow row) {
+        if (row == null) {
+            throw new IllegalArgumentException("Data set row cannot be null!");
+        }
+        addRow(row.getInput(), row.getDesiredOutput());
+        return true;
+    }
+
+    @Override
+    public boolean add(DataSetRow row) {
+        return addRow(row);
+    }
+
+    @Override
+    public void add(int index, DataSetRow row) {
+        rowList.add(index, row);
+    }
+
+    @Override
+    public DataSetRow set(int index, DataSetRow row) {
+        return rowList.set(index, row);
+    }
+
+    @Override
+    public void removeRowAt(int idx) {
+        rowList.remove(idx);
+    }
+
+    @Override
+    public DataSetRow remove(int index) {
+        return rowList.remove(index);
+    }
+
+    @Override
+    public boolean remove(Object row) {
+        return rowList.remove(row);
+    }
+
+    @Override
+    public Iterator<DataSetRow> iterator() {
+        return new CursorIterator();
+    }
+
+    @Override
+    public List<DataSetRow> getRows() {
+        return rowList;
+    }
+
+    @Override
+    public DataSetRow getRowAt(int idx) {
+        return rowList.get(idx);
+    }
+
+    @Override
+    public DataSetRow get(int index) {
+        return rowList.get(index);
+    }
+
+    @Override
+    public int size() {
+        return rowsCount;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return rowsCount == 0;
+    }
+
+    @Override
+    public void clear() {
+        rowsCount = 0;
+    }
+
+    /**
+     * Shuffles rows in place by swapping their values in the arrays.
+     */
+    @Override
+    public void shuffle() {
+        if (random == null) {
+            random = new Random();
+        }
+        shuffle(random);
+    }
+
+    /**
+     * Shuffles rows in place using the given random generator.
+     */
+    public void shuffle(Random random) {
+        for (int i = rowsCount - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            if (i != j) {
+                swapRows(i, j);
+            }
+        }
+    }
+
+    /**
+     * Shuffles the rows and splits them into data sets of the same type with
+     * given percentages of rows, the same way as SubSampling does for DataSet.
+     */
+    @Override
+    public List<DataSet> split(int... sizePercents) {
+        shuffle();
+        List<DataSet> subSets = new ArrayList<>(sizePercents.length);
+        int from = 0;
+        for (int percent : sizePercents) {
+            int count = Math.min((int) (percent / 100.0 * rowsCount), rowsCount - from);
+            subSets.add(subSet(from, count));
+            from += count;
+        }
+        return subSets;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return rowList.contains(o);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return rowList.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return rowList.toArray(a);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        return rowList.containsAll(c);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends DataSetRow> c) {
+        ensureCapacity(rowsCount + c.size());
+        for (DataSetRow row : c) {
+            addRow(row);
+        }
+        return !c.isEmpty();
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends DataSetRow> c) {
+        return rowList.addAll(index, c);
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return rowList.removeAll(c);
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return rowList.retainAll(c);
+    }
+
+    @Override
+    public int indexOf(Object row) {
+        return rowList.indexOf(row);
+    }
+
+    @Override
+    public int lastIndexOf(Object row) {
+        return rowList.lastIndexOf(row);
+    }
+
+    @Override
+    public ListIterator<DataSetRow> listIterator() {
+        return rowList.listIterator();
+    }
+
+    @Override
+    public ListIterator<DataSetRow> listIterator(int index) {
+        return rowList.listIterator(index);
+    }
+
+    @Override
+    public List<DataSetRow> subList(int fromIndex, int toIndex) {
+        return rowList.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Dataset Label: ").append(getLabel()).append(System.lineSeparator());
+        for (DataSetRow row : this) {
+            sb.append(row).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toCSV() {
+        StringBuilder sb = new StringBuilder();
+        for (DataSetRow row : this) {
+            sb.append(row.toCSV()).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void saveAsTxt(String filePath, String delimiter) {
+        if (filePath == null) {
+            throw new IllegalArgumentException("File path is null!");
+        }
+        if (delimiter == null || delimiter.equals("")) {
+            delimiter = " ";
+        }
+        double[] values = new double[getInputSize() + getOutputSize()];
+        double[] output = new double[getOutputSize()];
+        try (PrintWriter out = new PrintWriter(new FileWriter(new File(filePath)))) {
+            for (int r = 0; r < rowsCount; r++) {
+                copyInput(r, values);
+                copyDesiredOutput(r, output);
+                System.arraycopy(output, 0, values, getInputSize(), output.length);
+                for (int i = 0; i < values.length; i++) {
+                    out.print(values[i]);
+                    if (i < values.length - 1) {
+                        out.print(delimiter);
+                    }
+                }
+                out.println();
+            }
+            out.flush();
+        } catch (IOException ex) {
+            throw new NeurophException("Error saving data set file!", ex);
+        }
+    }
+
+    /**
+     * Copies label, column names and file path of the source data set.
+     */
+    protected void copyAttributes(DataSet source) {
+        setLabel(source.getLabel());
+        if (source.getColumnNames() != null) {
+            setColumnNames(source.getColumnNames().clone());
+        }
+        setFilePath(source.getFilePath());
+    }
+
+    private void checkRow(double[] input, double[] desiredOutput) {
+        if (input == null || input.length != getInputSize()) {
+            throw new VectorSizeMismatchException("Input vector size does not match data set input size!");
+        }
+        if (getOutputSize() > 0 && (desiredOutput == null || desiredOutput.length != getOutputSize())) {
+            throw new VectorSizeMismatchException("Output vector size does not match data set output size!");
+        }
+    }
+
+    /**
+     * View of one row of the data set.
+     */
+    public final class Row extends DataSetRow {
+
+        private static final long serialVersionUID = 1L;
+
+        private int index;
+
+        Row(int index) {
+            super(new double[getInputSize()], getOutputSize() > 0 ? new double[getOutputSize()] : null);
+            this.index = index;
+        }
+
+        /**
+         * Returns index of the row this view is bound to.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        void moveTo(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public double[] getInput() {
+            copyInput(index, input);
+            return input;
+        }
+
+        @Override
+        public void setInput(double[] input) {
+            if (input.length != getInputSize()) {
+                throw new VectorSizeMismatchException("Input vector size does not match data set input size!");
+            }
+            writeInput(index, input);
+        }
+
+        @Override
+        public double[] getDesiredOutput() {
+            double[] output = super.getDesiredOutput();
+            if (output != null) {
+                copyDesiredOutput(index, output);
+            }
+            return output;
+        }
+
+        @Override
+        public void setDesiredOutput(double[] desiredOutput) {
+            if (desiredOutput == null || desiredOutput.length != getOutputSize()) {
+                throw new VectorSizeMismatchException("Output vector size does not match data set output size!");
+            }
+            writeDesiredOutput(index, desiredOutput);
+        }
+
+        @Override
+        public double[] toArray() {
+            double[] values = new double[getInputSize() + getOutputSize()];
+            copyInput(index, values);
+            double[] output = getDesiredOutput();
+            if (output != null) {
+                System.arraycopy(output, 0, values, getInputSize(), output.length);
+            }
+            return values;
+        }
+
+        @Override
+        public String toString() {
+            getInput();
+            getDesiredOutput();
+            return super.toString();
+        }
+
+        @Override
+        public String toCSV() {
+            getInput();
+            getDesiredOutput();
+            return super.toCSV();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof DataSetRow)) {
+                return false;
+            }
+            DataSetRow other = (DataSetRow) obj;
+            return Arrays.equals(getInput(), other.getInput()) && Arrays.equals(getDesiredOutput(), other.getDesiredOutput());
+        }
+
+        @Override
+        public int hashCode() {
+            return 5;
+        }
+    }
+
+    /**
+     * Iterator that moves one row view over all rows.
+     */
+    private final class CursorIterator implements Iterator<DataSetRow> {
+
+        private final Row cursor = new Row(0);
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+            return next < rowsCount;
+        }
+
+        @Override
+        public DataSetRow next() {
+            if (next >= rowsCount) {
+                throw new NoSuchElementException();
+            }
+            cursor.moveTo(next++);
+            return cursor;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Rows cannot be removed while iterating data set!");
+        }
+    }
+
+    /**
+     * List view of the rows, returned by getRows().
+     */
+    private final class RowList extends AbstractList<DataSetRow> implements RandomAccess, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public DataSetRow get(int index) {
+            checkIndex(index, rowsCount);
+            return new Row(index);
+        }
+
+        @Override
+        public DataSetRow set(int index, DataSetRow row) {
+            checkIndex(index, rowsCount);
+            double[] input = row.getInput();
+            double[] desiredOutput = row.getDesiredOutput();
+            checkRow(input, desiredOutput);
+            DataSetRow previous = detached(index);
+            write(index, input, desiredOutput);
+            return previous;
+        }
+
+        @Override
+        public void add(int index, DataSetRow row) {
+            checkIndex(index, rowsCount + 1);
+            double[] input = row.getInput();
+            double[] desiredOutput = row.getDesiredOutput();
+            checkRow(input, desiredOutput);
+            ensureCapacity(rowsCount + 1);
+            moveRows(index, index + 1, rowsCount - index);
+            rowsCount++;
+            modCount++;
+            write(index, input, desiredOutput);
+        }
+
+        @Override
+        public DataSetRow remove(int index) {
+            checkIndex(index, rowsCount);
+            DataSetRow removed = detached(index);
+            moveRows(index + 1, index, rowsCount - index - 1);
+            rowsCount--;
+            modCount++;
+            return removed;
+        }
+
+        @Override
+        public Iterator<DataSetRow> iterator() {
+            return new CursorIterator();
+        }
+
+        @Override
+        public int size() {
+            return rowsCount;
+        }
+
+        private void write(int index, double[] input, double[] desiredOutput) {
+            writeInput(index, input);
+            if (getOutputSize() > 0) {
+                writeDesiredOutput(index, desiredOutput);
+            }
+        }
+
+        private DataSetRow detached(int index) {
+            double[] input = new double[getInputSize()];
+            copyInput(index, input);
+            if (getOutputSize() == 0) {
+                return new DataSetRow(input);
+            }
+            double[] output = new double[getOutputSize()];
+            copyDesiredOutput(index, output);
+            return new DataSetRow(input, output);
+        }
+
+        private void checkIndex(int index, int limit) {
+            if (index < 0 || index >= limit) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + rowsCount);
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.exceptions.VectorSizeMismatchException;
+
+/**
+ * Data set for classification problems that stores a class index for each row
+ * instead of its desired output vector. Desired outputs, such as one-hot
+ * encoded classes, are kept once per class in a small table, and every row
+ * keeps only the index of its entry: one byte while there are at most 256
+ * classes and two bytes up to 65536. Inputs are kept in one row major array,
+ * the same way as in {@link PackedDataSet}.
+ *
+ * A class is any distinct desired output vector, so files with extra output
+ * columns next to the one-hot ones are stored without loss. Setting the desired
+ * output of a row, as the normalizers do, adds a class for the new vector if
+ * there is none yet.
+ *
+ * Rows are exposed as views whose getDesiredOutput() copies the target of
+ * their class into a buffer owned by the view. Iterators reuse a single view
+ * for all rows, see {@link ArrayDataSet}.
+ */
+public class ClassIndexDataSet extends ArrayDataSet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * Maximum number of different desired outputs.
+     */
+    public static final int MAX_CLASSES_COUNT = 1 << 16;
+
+    private double[] inputs;
+    private byte[] byteIndexes;
+    private short[] shortIndexes;
+    private final List<double[]> targets;
+    private transient Map<TargetKey, Integer> classIndexes;
+
+    public ClassIndexDataSet(int inputSize, int outputSize) {
+        this(inputSize, outputSize, DEFAULT_CAPACITY);
+    }
+
+    public ClassIndexDataSet(int inputSize, int outputSize, int capacity) {
+        super(inputSize, outputSize);
+        if (inputSize <= 0) {
+            throw new IllegalArgumentException("Input size cannot be <= 0 : " + inputSize);
+        }
+        if (outputSize <= 0) {
+            throw new IllegalArgumentException("Output size cannot be <= 0 : " + outputSize);
+        }
+        this.inputs = new double[Math.max(capacity, 1) * inputSize];
+        this.byteIndexes = new byte[Math.max(capacity, 1)];
+        this.targets = new ArrayList<>();
+    }
+
+    /**
+     * Creates data set with the given rows and classes, without copying the
+     * arrays.
+     */
+    private ClassIndexDataSet(int inputSize, int outputSize, double[] inputs, byte[] byteIndexes, short[] shortIndexes, int rowsCount, List<double[]> targets) {
+        super(inputSize, outputSize);
+        this.inputs = inputs;
+        this.byteIndexes = byteIndexes;
+        this.shortIndexes = shortIndexes;
+        this.rowsCount = rowsCount;
+        this.targets = targets;
+    }
+
+    /**
+     * Creates class index copy of the given supervised data set.
+     */
+    public static ClassIndexDataSet from(DataSet dataSet) {
+        if (dataSet instanceof ClassIndexDataSet) {
+            return ((ClassIndexDataSet) dataSet).copy();
+        }
+        ClassIndexDataSet compact = new ClassIndexDataSet(dataSet.getInputSize(), dataSet.getOutputSize(), dataSet.size());
+        for (DataSetRow row : dataSet.getRows()) {
+            compact.addRow(row);
+        }
+        compact.copyAttributes(dataSet);
+        return compact;
+    }
+
+    /**
+     * Returns copy of this data set with its own arrays.
+     */
+    public ClassIndexDataSet copy() {
+        return subSet(0, rowsCount);
+    }
+
+    /**
+     * Returns the array holding the inputs of all rows. Inputs of row i start
+     * at i * getInputSize(), only the first size() * getInputSize() values are
+     * used.
+     */
+    public double[] getInputData() {
+        return inputs;
+    }
+
+    /**
+     * Returns number of different desired outputs added so far.
+     */
+    public int getClassesCount() {
+        return targets.size();
+    }
+
+    /**
+     * Returns class index of given row.
+     */
+    public int getClassIndex(int rowIdx) {
+        return byteIndexes != null ? byteIndexes[rowIdx] & 0xFF : shortIndexes[rowIdx] & 0xFFFF;
+    }
+
+    /**
+     * Returns copy of the desired output of given class.
+     */
+    public double[] getTarget(int classIdx) {
+        return targets.get(classIdx).clone();
+    }
+
+    /**
+     * Replaces desired output of given class for all its rows. Targets of two
+     * classes should stay different, since rows added later are assigned to
+     * the first class with their desired output.
+     */
+    public void setTarget(int classIdx, double[] target) {
+        if (target == null || target.length != getOutputSize()) {
+            throw new VectorSizeMismatchException("Output vector size does not match data set output size!");
+        }
+        Map<TargetKey, Integer> indexes = getClassIndexes();
+        TargetKey previous = new TargetKey(targets.get(classIdx));
+        if (Integer.valueOf(classIdx).equals(indexes.get(previous))) {
+            indexes.remove(previous);
+        }
+        double[] copy = target.clone();
+        targets.set(classIdx, copy);
+        TargetKey key = new TargetKey(copy);
+        if (!indexes.containsKey(key)) {
+            indexes.put(key, classIdx);
+        }
+    }
+
+    /**
+     * Returns index of the class with the given desired output, adding the
+     * class if there is none yet.
+     */
+    public int classIndexOf(double[] desiredOutput) {
+        if (desiredOutput == null || desiredOutput.length != getOutputSize()) {
+            throw new VectorSizeMismatchException("Output vector size does not match data set output size!");
+        }
+        Map<TargetKey, Integer> indexes = getClassIndexes();
+        Integer classIdx = indexes.get(new TargetKey(desiredOutput));
+        if (classIdx != null) {
+            return classIdx;
+        }
+        if (targets.size() == MAX_CLASSES_COUNT) {
+            throw new NeurophException("Class index data set cannot hold more than " + MAX_CLASSES_COUNT + " different desired outputs!");
+        }
+        double[] target = desiredOutput.clone();
+        targets.add(target);
+        indexes.put(new TargetKey(target), targets.size() - 1);
+        return targets.size() - 1;
+    }
+
+    @Override
+    public void copyInput(int rowIdx, double[] target) {
+        System.arraycopy(inputs, rowIdx * getInputSize(), target, 0, getInputSize());
+    }
+
+    @Override
+    public void copyDesiredOutput(int rowIdx, double[] target) {
+        System.arraycopy(targets.get(getClassIndex(rowIdx)), 0, target, 0, getOutputSize());
+    }
+
+    /**
+     * Appends row given as one array of inputs followed by desired outputs.
+     */
+    public void appendRow(double[] values) {
+        ensureCapacity(rowsCount + 1);
+        System.arraycopy(values, 0, inputs, rowsCount * getInputSize(), getInputSize());
+        setClassIndex(rowsCount, classIndexOf(Arrays.copyOfRange(values, getInputSize(), getInputSize() + getOutputSize())));
+        rowsCount++;
+    }
+
+    @Override
+    public void addRow(double[] input) {
+        throw new NeurophException("Cannot add unsupervised row to supervised data set!");
+    }
+
+    @Override
+    public void addRow(double[] input, double[] output) {
+        if (input == null || input.length != getInputSize()) {
+            throw new VectorSizeMismatchException("Input vector size does not match data set input size!");
+        }
+        int classIdx = classIndexOf(output);
+        ensureCapacity(rowsCount + 1);
+        System.arraycopy(input, 0, inputs, rowsCount * getInputSize(), input.length);
+        setClassIndex(rowsCount, classIdx);
+        rowsCount++;
+    }
+
+    /**
+     * Returns copy of consecutive rows, with the same classes.
+     */
+    @Override
+    public ClassIndexDataSet subSet(int fromRow, int count) {
+        double[] subInputs = Arrays.copyOfRange(inputs, fromRow * getInputSize(), (fromRow + count) * getInputSize());
+        byte[] subByteIndexes = byteIndexes != null ? Arrays.copyOfRange(byteIndexes, fromRow, fromRow + count) : null;
+        short[] subShortIndexes = shortIndexes != null ? Arrays.copyOfRange(shortIndexes, fromRow, fromRow + count) : null;
+        // targets are never changed once added, so the copy can share them
+        ClassIndexDataSet subSet = new ClassIndexDataSet(getInputSize(), getOutputSize(), subInputs, subByteIndexes, subShortIndexes, count, new ArrayList<>(targets));
+        subSet.copyAttributes(this);
+        return subSet;
+    }
+
+    @Override
+    protected void writeInput(int rowIdx, double[] input) {
+        System.arraycopy(input, 0, inputs, rowIdx * getInputSize(), getInputSize());
+    }
+
+    /**
+     * Assigns the row to the class of the desired output, adding the class if
+     * there is none yet.
+     */
+    @Override
+    protected void writeDesiredOutput(int rowIdx, double[] desiredOutput) {
+        setClassIndex(rowIdx, classIndexOf(desiredOutput));
+    }
+
+    @Override
+    protected void moveRows(int from, int to, int count) {
+        int inputSize = getInputSize();
+        System.arraycopy(inputs, from * inputSize, inputs, to * inputSize, count * inputSize);
+        if (byteIndexes != null) {
+            System.arraycopy(byteIndexes, from, byteIndexes, to, count);
+        } else {
+            System.arraycopy(shortIndexes, from, shortIndexes, to, count);
+        }
+    }
+
+    @Override
+    protected void swapRows(int i, int j) {
+        int inputSize = getInputSize();
+        for (int a = i * inputSize, b = j * inputSize, end = a + inputSize; a < end; a++, b++) {
+            double value = inputs[a];
+            inputs[a] = inputs[b];
+            inputs[b] = value;
+        }
+        int classIdx = getClassIndex(i);
+        setClassIndex(i, getClassIndex(j));
+        setClassIndex(j, classIdx);
+    }
+
+    private void setClassIndex(int rowIdx, int classIdx) {
+        if (byteIndexes != null && classIdx > 0xFF) {
+            shortIndexes = new short[byteIndexes.length];
+            for (int i = 0; i < rowsCount; i++) {
+                shortIndexes[i] = (short) (byteIndexes[i] & 0xFF);
+            }
+            byteIndexes = null;
+        }
+        if (byteIndexes != null) {
+            byteIndexes[rowIdx] = (byte) classIdx;
+        } else {
+            shortIndexes[rowIdx] = (short) classIdx;
+        }
+    }
+
+    @Override
+    protected void ensureCapacity(int rows) {
+        int capacity = byteIndexes != null ? byteIndexes.length : shortIndexes.length;
+        if (rows > capacity) {
+            long newCapacity = Math.max(rows, (long) capacity + (capacity >> 1));
+            long maxRows = (Integer.MAX_VALUE - 8) / getInputSize();
+            if (newCapacity > maxRows) {
+                if (rows > maxRows) {
+                    throw new NeurophException("Class index data set cannot hold more than " + maxRows + " rows!");
+                }
+                newCapacity = maxRows;
+            }
+            inputs = Arrays.copyOf(inputs, (int) newCapacity * getInputSize());
+            if (byteIndexes != null) {
+                byteIndexes = Arrays.copyOf(byteIndexes, (int) newCapacity);
+            } else {
+                shortIndexes = Arrays.copyOf(shortIndexes, (int) newCapacity);
+            }
+        }
+    }
+
+    private Map<TargetKey, Integer> getClassIndexes() {
+        if (classIndexes == null) {
+            classIndexes = new HashMap<>();
+            for (int i = 0; i < targets.size(); i++) {
+                classIndexes.put(new TargetKey(targets.get(i)), i);
+            }
+        }
+        return classIndexes;
+    }
+
+    /**
+     * Desired output vector used as hash map key.
+     */
+    private static final class TargetKey {
+
+        private final double[] target;
+
+        TargetKey(double[] target) {
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof TargetKey && Arrays.equals(target, ((TargetKey) obj).target);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(target);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Source of data set rows split into chunks that can be read independently
+ * and in any order, used by {@link StreamingDataSet} to train on data that
+ * does not fit in memory.
+ */
+public interface DataSetChunkSource extends Closeable {
+
+    int getInputSize();
+
+    int getOutputSize();
+
+    /**
+     * Returns total number of rows in all chunks.
+     */
+    int getRowsCount();
+
+    int getChunksCount();
+
+    /**
+     * Returns number of rows in given chunk.
+     */
+    int getChunkRowsCount(int chunkIdx);
+
+    /**
+     * Reads all rows of given chunk into target data set, replacing its
+     * previous rows.
+     *
+     * @param chunkIdx index of chunk to read
+     * @param target packed data set with the same input and output size
+     */
+    void readChunk(int chunkIdx, PackedDataSet target) throws IOException;
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.data;
+
+import java.io.Serializable;
+
+/**
+ * Single precision copy of the rows of a data set, kept in one contiguous row
+ * major array like {@link PackedDataSet}, for learning and inference in float.
+ * It takes half the memory of a packed data set, but it is not a DataSet:
+ * rows are read with copyInput() and copyDesiredOutput().
+ */
+public class FloatPackedDataSet implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int inputSize;
+    private final int outputSize;
+    private final int stride;
+    private final float[] data;
+    private final int rowsCount;
+
+    public FloatPackedDataSet(int inputSize, int outputSize, float[] data, int rowsCount) {
+        if (data.length < rowsCount * (inputSize + outputSize)) {
+            throw new IllegalArgumentException("Data array is too short for " + rowsCount + " rows");
+        }
+        this.inputSize = inputSize;
+        this.outputSize = outputSize;
+        this.stride = inputSize + outputSize;
+        this.data = data;
+        this.rowsCount = rowsCount;
+    }
+
+    /**
+     * Rounds values of the rows of given data set to float, in iteration
+     * order.
+     */
+    public static FloatPackedDataSet from(DataSet dataSet) {
+        int inputSize = dataSet.getInputSize();
+        int outputSize = dataSet.getOutputSize();
+        int stride = inputSize + outputSize;
+        float[] data = new float[dataSet.size() * stride];
+        int offset = 0;
+        for (DataSetRow row : dataSet) {
+            double[] input = row.getInput();
+            for (int i = 0; i < inputSize; i++) {
+                data[offset + i] = (float) input[i];
+            }
+            if (outputSize > 0) {
+                double[] output = row.getDesiredOutput();
+                for (int i = 0; i < outputSize; i++) {
+                    data[offset + inputSize + i] = (float) output[i];
+                }
+            }
+            offset += stride;
+        }
+        return new FloatPackedDataSet(inputSize, outputSize, data, dataSet.size());
+    }
+
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    public int size() {
+        return rowsCount;
+    }
+
+    /**
+     * Returns the array holding the rows, which is not copied.
+     */
+    public float[] getData() {
+        return data;
+    }
+
+    public int getStride() {
+        return stride;
+    }
+
+    public void copyInput(int rowIdx, float[] target) {
+        System.arraycopy(data, rowIdx * stride, target, 0, inputSize);
+    }
+
+    public void copyDesiredOutput(int rowIdx, float[] target) {
+        System.arraycopy(data, rowIdx * stride + inputSize, target, 0, outputSize);
+    }
+}
@@ -0,0 +1,395 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.data;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.RandomAccess;
+
+/**
+ * Data set view that selects rows of another data set through an array of row
+ * indexes. Shuffling permutes the indexes instead of the rows, and splitting
+ * returns views with copies of consecutive parts of the index array, so
+ * training and test sets share the rows of the original data set and each
+ * costs only its part of the indexes.
+ *
+ * Views of an {@link ArrayDataSet}, such as {@link PackedDataSet} and
+ * {@link ClassIndexDataSet}, iterate with a single reused row, the same way as
+ * those data sets do. Rows of other data sets are returned as they are. Rows
+ * cannot be added to or removed from a view, but changing row values changes
+ * them in the viewed data set.
+ */
+public class IndexedDataSet extends DataSet {
+
+    private static final long serialVersionUID = 1L;
+
+    private final DataSet dataSet;
+    private final int[] indexes;
+    private final int from;
+    private final int count;
+    private final RowList rowList = new RowList();
+    private transient Random random;
+
+    /**
+     * Creates view of all rows of the data set, in their original order.
+     */
+    public IndexedDataSet(DataSet dataSet) {
+        this(dataSet, identity(dataSet.size()), 0, dataSet.size());
+    }
+
+    /**
+     * Creates view of rows given by indexes [from, from + count) of the
+     * array, which is used without copying.
+     */
+    public IndexedDataSet(DataSet dataSet, int[] indexes, int from, int count) {
+        super(dataSet.getInputSize(), dataSet.getOutputSize());
+        if (from < 0 || count < 0 || from + count > indexes.length) {
+            throw new IllegalArgumentException("Invalid index range: from " + from + ", count " + count);
+        }
+        this.dataSet = dataSet;
+        this.indexes = indexes;
+        this.from = from;
+        this.count = count;
+        setLabel(dataSet.getLabel());
+        if (dataSet.getColumnNames() != null) {
+            setColumnNames(dataSet.getColumnNames());
+        }
+        setFilePath(dataSet.getFilePath());
+    }
+
+    private static int[] identity(int size) {
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        return indexes;
+    }
+
+    /**
+     * Returns data set whose rows are viewed.
+     */
+    public DataSet getDataSet() {
+        return dataSet;
+    }
+
+    /**
+     * Returns index of given row of this view in the viewed data set.
+     */
+    public int getRowIndex(int idx) {
+        if (idx < 0 || idx >= count) {
+            throw new IndexOutOfBoundsException("Index: " + idx + ", Size: " + count);
+        }
+        return indexes[from + idx];
+    }
+
+    /**
+     * Shuffles the rows of this view by permuting its part of the index array.
+     * Views returned by {@link #subSet(int, int)}, {@link #split(int...)} and
+     * {@link #partition(int)} have indexes of their own, so they keep their
+     * rows in their order.
+     */
+    @Override
+    public void shuffle() {
+        if (random == null) {
+            random = new Random();
+        }
+        shuffle(random);
+    }
+
+    /**
+     * Shuffles the rows of this view using the given random generator.
+     */
+    public void shuffle(Random random) {
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = indexes[from + i];
+            indexes[from + i] = indexes[from + j];
+            indexes[from + j] = temp;
+        }
+    }
+
+    /**
+     * Shuffles the rows and splits them into views with given percentages of
+     * rows, without copying any of them.
+     */
+    @Override
+    public List<DataSet> split(int... sizePercents) {
+        shuffle();
+        List<DataSet> subSets = new ArrayList<>(sizePercents.length);
+        int start = 0;
+        for (int percent : sizePercents) {
+            int subCount = Math.min((int) (percent / 100.0 * count), count - start);
+            subSets.add(subSet(start, subCount));
+            start += subCount;
+        }
+        return subSets;
+    }
+
+    /**
+     * Splits the rows, in their current order, into given number of
+     * consecutive views whose sizes differ by at most one row.
+     */
+    public List<IndexedDataSet> partition(int partsCount) {
+        if (partsCount <= 0) {
+            throw new IllegalArgumentException("Parts count cannot be <= 0 : " + partsCount);
+        }
+        List<IndexedDataSet> parts = new ArrayList<>(partsCount);
+        for (int i = 0; i < partsCount; i++) {
+            int start = (int) ((long) count * i / partsCount);
+            int end = (int) ((long) count * (i + 1) / partsCount);
+            parts.add(subSet(start, end - start));
+        }
+        return parts;
+    }
+
+    /**
+     * Returns view of consecutive rows of this view, with a copy of their
+     * indexes, so that shuffling either view does not change the other.
+     */
+    public IndexedDataSet subSet(int fromRow, int rowsCount) {
+        if (fromRow < 0 || rowsCount < 0 || fromRow + rowsCount > count) {
+            throw new IndexOutOfBoundsException("Rows " + fromRow + " to " + (fromRow + rowsCount) + " out of " + count);
+        }
+        int start = from + fromRow;
+        return new IndexedDataSet(dataSet, Arrays.copyOfRange(indexes, start, start + rowsCount), 0, rowsCount);
+    }
+
+    @Override
+    public Iterator<DataSetRow> iterator() {
+        if (dataSet instanceof ArrayDataSet) {
+            return new CursorIterator(((ArrayDataSet) dataSet).new Row(0));
+        }
+        return rowList.iterator();
+    }
+
+    @Override
+    public List<DataSetRow> getRows() {
+        return rowList;
+    }
+
+    @Override
+    public DataSetRow getRowAt(int idx) {
+        return rowList.get(idx);
+    }
+
+    @Override
+    public DataSetRow get(int index) {
+        return rowList.get(index);
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public boolean addRow(DataSetRow row) {
+        throw new UnsupportedOperationException("Rows cannot be added to data set view!");
+    }
+
+    @Override
+    public void addRow(double[] input) {
+        throw new UnsupportedOperationException("Rows cannot be added to data set view!");
+    }
+
+    @Override
+    public void addRow(double[] input, double[] output) {
+        throw new UnsupportedOperationException("Rows cannot be added to data set view!");
+    }
+
+    @Override
+    public boolean add(DataSetRow row) {
+        throw new UnsupportedOperationException("Rows cannot be added to data set view!");
+    }
+
+    @Override
+    public void add(int index, DataSetRow row) {
+        throw new UnsupportedOperationException("Rows cannot be added to data set view!");
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends DataSetRow> c) {
+        throw new UnsupportedOperationException("Rows cannot be added to data set view!");
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends DataSetRow> c) {
+        throw new UnsupportedOperationException("Rows cannot be added to data set view!");
+    }
+
+    @Override
+    public DataSetRow set(int index, DataSetRow row) {
+        throw new UnsupportedOperationException("Rows of data set view cannot be replaced!");
+    }
+
+    @Override
+    public void removeRowAt(int idx) {
+        throw new UnsupportedOperationException("Rows cannot be removed from data set view!");
+    }
+
+    @Override
+    public DataSetRow remove(int index) {
+        throw new UnsupportedOperationException("Rows cannot be removed from data set view!");
+    }
+
+    @Override
+    public boolean remove(Object row) {
+        throw new UnsupportedOperationException("Rows cannot be removed from data set view!");
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException("Rows cannot be removed from data set view!");
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException("Rows cannot be removed from data set view!");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Rows cannot be removed from data set view!");
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return rowList.contains(o);
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        return rowList.containsAll(c);
+    }
+
+    @Override
+    public int indexOf(Object row) {
+        return rowList.indexOf(row);
+    }
+
+    @Override
+    public int lastIndexOf(Object row) {
+        return rowList.lastIndexOf(row);
+    }
+
+    @Override
+    public ListIterator<DataSetRow> listIterator() {
+        return rowList.listIterator();
+    }
+
+    @Override
+    public ListIterator<DataSetRow> listIterator(int index) {
+        return rowList.listIterator(index);
+    }
+
+    @Override
+    public List<DataSetRow> subList(int fromIndex, int toIndex) {
+        return rowList.subList(fromIndex, toIndex);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return rowList.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return rowList.toArray(a);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Dataset Label: ").append(getLabel()).append(System.lineSeparator());
+        for (DataSetRow row : this) {
+            sb.append(row).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toCSV() {
+        StringBuilder sb = new StringBuilder();
+        for (DataSetRow row : this) {
+            sb.append(row.toCSV()).append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Iterator that moves one row view of an array data set over the rows
+     * selected by the indexes.
+     */
+    private final class CursorIterator implements Iterator<DataSetRow> {
+
+        private final ArrayDataSet.Row cursor;
+        private int next;
+
+        CursorIterator(ArrayDataSet.Row cursor) {
+            this.cursor = cursor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        public DataSetRow next() {
+            if (next >= count) {
+                throw new NoSuchElementException();
+            }
+            cursor.moveTo(indexes[from + next++]);
+            return cursor;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Rows cannot be removed from data set view!");
+        }
+    }
+
+    /**
+     * Read only list view of the rows, returned by getRows().
+     */
+    private final class RowList extends AbstractList<DataSetRow> implements RandomAccess, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public DataSetRow get(int index) {
+            return dataSet.getRowAt(getRowIndex(index));
+        }
+
+        @Override
+        public int size() {
+            return count;
+        }
+    }
+}
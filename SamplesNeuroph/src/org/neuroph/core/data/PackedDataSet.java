@@ -0,0 +1,235 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.data;
+
+import java.util.Arrays;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.exceptions.VectorSizeMismatchException;
+
+/**
+ * Data set that keeps all rows in one contiguous row major array instead of a
+ * list of row objects. Each row occupies {@link #getStride()} values, the
+ * inputs followed by the desired outputs.
+ *
+ * It can be used wherever a DataSet is used. Rows are exposed as light views,
+ * see {@link ArrayDataSet}, so rows taken from an iterator must not be kept
+ * after moving to the next one; use get(int) to get a view bound to one row.
+ */
+public class PackedDataSet extends ArrayDataSet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final int stride;
+    private double[] data;
+
+    public PackedDataSet(int inputSize, int outputSize) {
+        this(inputSize, outputSize, DEFAULT_CAPACITY);
+    }
+
+    public PackedDataSet(int inputSize, int outputSize, int capacity) {
+        super(inputSize, outputSize);
+        if (inputSize <= 0) {
+            throw new IllegalArgumentException("Input size cannot be <= 0 : " + inputSize);
+        }
+        if (outputSize < 0) {
+            throw new IllegalArgumentException("Output size cannot be < 0 : " + outputSize);
+        }
+        this.stride = inputSize + outputSize;
+        this.data = new double[Math.max(capacity, 1) * stride];
+    }
+
+    /**
+     * Creates data set backed by the given array, without copying it.
+     *
+     * @param data row major values, inputs followed by outputs for each row
+     * @param rowsCount number of rows stored in array
+     */
+    public PackedDataSet(int inputSize, int outputSize, double[] data, int rowsCount) {
+        super(inputSize, outputSize);
+        this.stride = inputSize + outputSize;
+        if ((long) rowsCount * stride > data.length) {
+            throw new IllegalArgumentException("Array is too small for " + rowsCount + " rows!");
+        }
+        this.data = data;
+        this.rowsCount = rowsCount;
+    }
+
+    /**
+     * Creates packed copy of the given data set.
+     */
+    public static PackedDataSet from(DataSet dataSet) {
+        if (dataSet instanceof PackedDataSet) {
+            return ((PackedDataSet) dataSet).copy();
+        }
+        PackedDataSet packed = new PackedDataSet(dataSet.getInputSize(), dataSet.getOutputSize(), dataSet.size());
+        for (DataSetRow row : dataSet.getRows()) {
+            packed.addRow(row);
+        }
+        packed.copyAttributes(dataSet);
+        return packed;
+    }
+
+    /**
+     * Returns copy of this data set with its own array.
+     */
+    public PackedDataSet copy() {
+        PackedDataSet copy = new PackedDataSet(getInputSize(), getOutputSize(), Arrays.copyOf(data, rowsCount * stride), rowsCount);
+        copy.copyAttributes(this);
+        return copy;
+    }
+
+    /**
+     * Returns the array holding the values of all rows. Values of row i start
+     * at i * getStride(), only the first size() * getStride() values are used.
+     */
+    public double[] getData() {
+        return data;
+    }
+
+    /**
+     * Returns number of values stored for each row.
+     */
+    public int getStride() {
+        return stride;
+    }
+
+    /**
+     * Returns index of the first input value of given row in the data array.
+     */
+    public int getInputOffset(int rowIdx) {
+        return rowIdx * stride;
+    }
+
+    /**
+     * Returns index of the first desired output value of given row in the data
+     * array.
+     */
+    public int getOutputOffset(int rowIdx) {
+        return rowIdx * stride + getInputSize();
+    }
+
+    @Override
+    public void copyInput(int rowIdx, double[] target) {
+        System.arraycopy(data, rowIdx * stride, target, 0, getInputSize());
+    }
+
+    @Override
+    public void copyDesiredOutput(int rowIdx, double[] target) {
+        System.arraycopy(data, rowIdx * stride + getInputSize(), target, 0, getOutputSize());
+    }
+
+    /**
+     * Appends row given as one array of inputs followed by desired outputs.
+     */
+    public void appendRow(double[] values) {
+        ensureCapacity(rowsCount + 1);
+        System.arraycopy(values, 0, data, rowsCount * stride, stride);
+        rowsCount++;
+    }
+
+    @Override
+    public void addRow(double[] input) {
+        if (input == null) {
+            throw new IllegalArgumentException("Input for dataset row cannot be null!");
+        }
+        if (isSupervised()) {
+            throw new NeurophException("Cannot add unsupervised row to supervised data set!");
+        }
+        addRow(input, null);
+    }
+
+    @Override
+    public void addRow(double[] input, double[] output) {
+        if (input.length != getInputSize()) {
+            throw new VectorSizeMismatchException("Input vector size does not match data set input size!");
+        }
+        if (getOutputSize() > 0 && (output == null || output.length != getOutputSize())) {
+            throw new VectorSizeMismatchException("Output vector size does not match data set output size!");
+        }
+        ensureCapacity(rowsCount + 1);
+        int offset = rowsCount * stride;
+        System.arraycopy(input, 0, data, offset, input.length);
+        if (getOutputSize() > 0) {
+            System.arraycopy(output, 0, data, offset + input.length, output.length);
+        }
+        rowsCount++;
+    }
+
+    /**
+     * Sets number of rows, growing the array if needed. Values of added rows
+     * are whatever the array held before, so callers write them through
+     * getData().
+     */
+    public void resize(int rowsCount) {
+        if (rowsCount < 0) {
+            throw new IllegalArgumentException("Number of rows cannot be < 0 : " + rowsCount);
+        }
+        ensureCapacity(rowsCount);
+        this.rowsCount = rowsCount;
+    }
+
+    /**
+     * Returns packed copy of consecutive rows.
+     */
+    @Override
+    public PackedDataSet subSet(int fromRow, int count) {
+        double[] subData = Arrays.copyOfRange(data, fromRow * stride, (fromRow + count) * stride);
+        PackedDataSet subSet = new PackedDataSet(getInputSize(), getOutputSize(), subData, count);
+        subSet.copyAttributes(this);
+        return subSet;
+    }
+
+    @Override
+    protected void ensureCapacity(int rows) {
+        long required = (long) rows * stride;
+        if (required > data.length) {
+            long newLength = Math.max(required, (long) data.length + (data.length >> 1));
+            if (newLength > Integer.MAX_VALUE - 8) {
+                if (required > Integer.MAX_VALUE - 8) {
+                    throw new NeurophException("Packed data set cannot hold more than " + (Integer.MAX_VALUE - 8) / stride + " rows!");
+                }
+                newLength = Integer.MAX_VALUE - 8;
+            }
+            data = Arrays.copyOf(data, (int) newLength);
+        }
+    }
+
+    @Override
+    protected void writeInput(int rowIdx, double[] input) {
+        System.arraycopy(input, 0, data, rowIdx * stride, getInputSize());
+    }
+
+    @Override
+    protected void writeDesiredOutput(int rowIdx, double[] desiredOutput) {
+        System.arraycopy(desiredOutput, 0, data, rowIdx * stride + getInputSize(), getOutputSize());
+    }
+
+    @Override
+    protected void moveRows(int from, int to, int count) {
+        System.arraycopy(data, from * stride, data, to * stride, count * stride);
+    }
+
+    @Override
+    protected void swapRows(int i, int j) {
+        for (int a = i * stride, b = j * stride, end = a + stride; a < end; a++, b++) {
+            double value = data[a];
+            data[a] = data[b];
+            data[b] = value;
+        }
+    }
+}
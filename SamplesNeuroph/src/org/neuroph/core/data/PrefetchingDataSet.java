@@ -0,0 +1,290 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.data;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.util.data.norm.Normalizer;
+
+/**
+ * Streaming data set that reads chunks on a background thread, so that the
+ * next chunks are loaded and normalized while the learning rule trains on the
+ * current one.
+ *
+ * Loaded chunks wait in a bounded queue of prefetchChunks. When it is full the
+ * loader blocks until training takes a chunk out, so besides the chunk being
+ * trained on and the one being loaded at most prefetchChunks chunks are kept
+ * in memory. Chunk buffers are reused from pass to pass.
+ *
+ * The normalizer, if set, is applied to each chunk separately, so it should
+ * use parameters computed for the whole data set rather than computing them
+ * from the rows it is given.
+ */
+public class PrefetchingDataSet extends StreamingDataSet {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_PREFETCH_CHUNKS = 1;
+
+    private static final long OFFER_TIMEOUT_MILLIS = 10;
+
+    private final int prefetchChunks;
+    private transient Normalizer normalizer;
+    private final transient ConcurrentLinkedQueue<PackedDataSet> spareBuffers = new ConcurrentLinkedQueue<>();
+    private transient PrefetchIterator activePass;
+
+    public PrefetchingDataSet(DataSetChunkSource source) {
+        this(source, DEFAULT_PREFETCH_CHUNKS);
+    }
+
+    /**
+     * Creates data set that loads up to given number of chunks ahead.
+     */
+    public PrefetchingDataSet(DataSetChunkSource source, int prefetchChunks) {
+        super(source);
+        if (prefetchChunks <= 0) {
+            throw new IllegalArgumentException("Number of prefetched chunks must be > 0 : " + prefetchChunks);
+        }
+        this.prefetchChunks = prefetchChunks;
+    }
+
+    public int getPrefetchChunks() {
+        return prefetchChunks;
+    }
+
+    public Normalizer getNormalizer() {
+        return normalizer;
+    }
+
+    /**
+     * Sets normalizer applied to every chunk on the loading thread.
+     */
+    public void setNormalizer(Normalizer normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    @Override
+    protected PackedDataSet takeBuffer() {
+        PackedDataSet buffer = spareBuffers.poll();
+        return buffer != null ? buffer : new PackedDataSet(getInputSize(), getOutputSize());
+    }
+
+    @Override
+    protected void releaseBuffer(PackedDataSet buffer) {
+        spareBuffers.add(buffer);
+    }
+
+    /**
+     * Reads chunk into buffer and normalizes it.
+     */
+    @Override
+    protected void readChunk(int chunkIdx, PackedDataSet buffer) {
+        super.readChunk(chunkIdx, buffer);
+        if (normalizer != null) {
+            normalizer.normalize(buffer);
+        }
+    }
+
+    /**
+     * Starts a new pass, stopping the loader of a pass that was left
+     * unfinished.
+     */
+    @Override
+    public synchronized Iterator<DataSetRow> iterator() {
+        if (activePass != null) {
+            activePass.cancel();
+        }
+        activePass = new PrefetchIterator();
+        return activePass;
+    }
+
+    @Override
+    public String toString() {
+        return "Prefetching data set: " + size() + " rows in " + getSource().getChunksCount() + " chunks";
+    }
+
+    /**
+     * Stops the loading thread and closes the chunk source.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (activePass != null) {
+                activePass.cancel();
+                activePass = null;
+            }
+        }
+        super.close();
+    }
+
+    /**
+     * Chunk handed from the loading thread to training, or the end of a pass.
+     */
+    private static final class Chunk {
+
+        static final Chunk END = new Chunk(null, null);
+
+        final PackedDataSet rows;
+        final Throwable error;
+
+        Chunk(PackedDataSet rows, Throwable error) {
+            this.rows = rows;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Iterates one pass over the data, taking chunks from the queue filled by
+     * its loading thread.
+     */
+    private final class PrefetchIterator implements Iterator<DataSetRow>, Runnable {
+
+        private final int[] order = nextChunkOrder();
+        private final BlockingQueue<Chunk> loaded = new ArrayBlockingQueue<>(prefetchChunks);
+        private final Thread loader;
+        private PackedDataSet current;
+        private Iterator<DataSetRow> rows;
+        private volatile boolean finished;
+
+        PrefetchIterator() {
+            loader = new Thread(this, "DataSet prefetch");
+            loader.setDaemon(true);
+            loader.start();
+        }
+
+        @Override
+        public void run() {
+            for (int chunkIdx : order) {
+                if (finished) {
+                    return;
+                }
+                PackedDataSet buffer = takeBuffer();
+                try {
+                    readChunk(chunkIdx, buffer);
+                } catch (RuntimeException | Error ex) {
+                    releaseBuffer(buffer);
+                    offer(new Chunk(null, ex));
+                    return;
+                }
+                if (!offer(new Chunk(buffer, null))) {
+                    releaseBuffer(buffer);
+                    return;
+                }
+            }
+            offer(Chunk.END);
+        }
+
+        /**
+         * Waits until the chunk fits in the queue, checking now and then
+         * whether the pass was cancelled. The loader is never interrupted,
+         * because an interrupt during channel I/O closes the channel shared
+         * by all passes. Returns false if the pass was cancelled.
+         */
+        private boolean offer(Chunk chunk) {
+            try {
+                while (!finished) {
+                    if (loaded.offer(chunk, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (rows == null || !rows.hasNext()) {
+                if (finished) {
+                    return false;
+                }
+                if (current != null) {
+                    releaseBuffer(current);
+                    current = null;
+                    rows = null;
+                }
+
+                Chunk chunk;
+                try {
+                    chunk = loaded.take();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    cancel();
+                    throw new NeurophException("Interrupted while waiting for data set chunk!", ex);
+                }
+
+                if (chunk == Chunk.END) {
+                    finished = true;
+                    return false;
+                }
+                if (chunk.error != null) {
+                    finished = true;
+                    if (chunk.error instanceof Error) {
+                        throw (Error) chunk.error;
+                    }
+                    throw new NeurophException("Error loading data set chunk!", chunk.error);
+                }
+                current = chunk.rows;
+                rows = current.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public DataSetRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return rows.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Rows cannot be removed from streaming data set!");
+        }
+
+        /**
+         * Stops loading thread of an unfinished pass, which first finishes the
+         * chunk it is reading, and takes back its buffers.
+         */
+        void cancel() {
+            finished = true;
+            try {
+                loader.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            Chunk chunk;
+            while ((chunk = loaded.poll()) != null) {
+                if (chunk.rows != null) {
+                    releaseBuffer(chunk.rows);
+                }
+            }
+            if (current != null) {
+                releaseBuffer(current);
+                current = null;
+            }
+            rows = null;
+        }
+    }
+}
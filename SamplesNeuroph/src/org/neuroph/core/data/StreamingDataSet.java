@@ -0,0 +1,302 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+import org.neuroph.core.exceptions.NeurophException;
+
+/**
+ * Data set that streams its rows from a {@link DataSetChunkSource} instead of
+ * keeping them in memory. Every call to iterator() starts a new pass over the
+ * data, reading one chunk at a time into a reused buffer, so it can be given to
+ * neuralNet.learn(...) with any supervised learning rule and memory use stays
+ * bounded by the chunk size no matter how big the file is.
+ *
+ * With chunk shuffling enabled every pass visits the chunks in a new random
+ * order, which for rows shuffled at export time gives most of the benefit of
+ * a full shuffle without random access to single rows.
+ *
+ * Rows returned by the iterator are reused, the same way as for
+ * {@link PackedDataSet}. get(int) is supported but reads the whole chunk the
+ * row belongs to, and the rows cannot be changed, shuffled or split.
+ */
+public class StreamingDataSet extends DataSet implements Closeable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient DataSetChunkSource source;
+    private final int[] chunkStarts;
+    private boolean shuffleChunks;
+    private transient Random random = new Random();
+    private final transient AtomicReference<PackedDataSet> spareBuffer = new AtomicReference<>();
+    private transient PackedDataSet randomAccessChunk;
+    private transient int randomAccessChunkIdx = -1;
+    private final RowList rowList = new RowList();
+
+    public StreamingDataSet(DataSetChunkSource source) {
+        super(source.getInputSize(), source.getOutputSize());
+        this.source = source;
+        this.chunkStarts = new int[source.getChunksCount() + 1];
+        for (int i = 0; i < source.getChunksCount(); i++) {
+            chunkStarts[i + 1] = chunkStarts[i] + source.getChunkRowsCount(i);
+        }
+    }
+
+    public DataSetChunkSource getSource() {
+        return source;
+    }
+
+    public boolean isShuffleChunks() {
+        return shuffleChunks;
+    }
+
+    /**
+     * Sets whether each pass reads the chunks in a new random order.
+     */
+    public void setShuffleChunks(boolean shuffleChunks) {
+        this.shuffleChunks = shuffleChunks;
+    }
+
+    /**
+     * Sets random generator used to shuffle the chunk order.
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Returns order in which the next pass reads the chunks.
+     */
+    protected int[] nextChunkOrder() {
+        int[] order = new int[source.getChunksCount()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        if (shuffleChunks) {
+            for (int i = order.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int temp = order[i];
+                order[i] = order[j];
+                order[j] = temp;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Takes a chunk buffer, reusing the one released by the previous pass.
+     */
+    protected PackedDataSet takeBuffer() {
+        PackedDataSet buffer = spareBuffer.getAndSet(null);
+        return buffer != null ? buffer : new PackedDataSet(getInputSize(), getOutputSize());
+    }
+
+    /**
+     * Releases chunk buffer after a pass so the next pass can reuse it.
+     */
+    protected void releaseBuffer(PackedDataSet buffer) {
+        spareBuffer.set(buffer);
+    }
+
+    /**
+     * Reads chunk into buffer.
+     */
+    protected void readChunk(int chunkIdx, PackedDataSet buffer) {
+        try {
+            source.readChunk(chunkIdx, buffer);
+        } catch (IOException ex) {
+            throw new NeurophException("Error reading data set file!", ex);
+        }
+    }
+
+    @Override
+    public Iterator<DataSetRow> iterator() {
+        return new ChunkIterator();
+    }
+
+    @Override
+    public List<DataSetRow> getRows() {
+        return rowList;
+    }
+
+    @Override
+    public DataSetRow getRowAt(int idx) {
+        return rowList.get(idx);
+    }
+
+    @Override
+    public DataSetRow get(int index) {
+        return rowList.get(index);
+    }
+
+    @Override
+    public int size() {
+        return chunkStarts[chunkStarts.length - 1];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean addRow(DataSetRow row) {
+        throw new UnsupportedOperationException("Rows cannot be added to streaming data set!");
+    }
+
+    @Override
+    public boolean add(DataSetRow row) {
+        throw new UnsupportedOperationException("Rows cannot be added to streaming data set!");
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException("Rows cannot be removed from streaming data set!");
+    }
+
+    @Override
+    public void shuffle() {
+        throw new UnsupportedOperationException("Streaming data set cannot be shuffled, use setShuffleChunks(true) instead!");
+    }
+
+    @Override
+    public Object[] toArray() {
+        return rowList.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return rowList.toArray(a);
+    }
+
+    @Override
+    public String toString() {
+        return "Streaming data set: " + size() + " rows in " + source.getChunksCount() + " chunks";
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    /**
+     * Returns detached copy of given row, reading its chunk if needed.
+     */
+    private synchronized DataSetRow readRow(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        // last chunk starting at or before the row, which skips empty chunks
+        int chunkIdx = 0;
+        int high = chunkStarts.length - 2;
+        while (chunkIdx < high) {
+            int mid = (chunkIdx + high + 1) >>> 1;
+            if (chunkStarts[mid] <= index) {
+                chunkIdx = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (chunkIdx != randomAccessChunkIdx) {
+            if (randomAccessChunk == null) {
+                randomAccessChunk = new PackedDataSet(getInputSize(), getOutputSize());
+            }
+            readChunk(chunkIdx, randomAccessChunk);
+            randomAccessChunkIdx = chunkIdx;
+        }
+        PackedDataSet chunk = randomAccessChunk;
+        int row = index - chunkStarts[chunkIdx];
+        double[] input = new double[getInputSize()];
+        chunk.copyInput(row, input);
+        if (getOutputSize() == 0) {
+            return new DataSetRow(input);
+        }
+        double[] output = new double[getOutputSize()];
+        chunk.copyDesiredOutput(row, output);
+        return new DataSetRow(input, output);
+    }
+
+    /**
+     * Iterates all rows chunk by chunk, in one pass over the data.
+     */
+    private final class ChunkIterator implements Iterator<DataSetRow> {
+
+        private final int[] order = nextChunkOrder();
+        private int nextChunk;
+        private PackedDataSet buffer;
+        private Iterator<DataSetRow> rows;
+
+        @Override
+        public boolean hasNext() {
+            while (rows == null || !rows.hasNext()) {
+                if (nextChunk == order.length) {
+                    if (buffer != null) {
+                        releaseBuffer(buffer);
+                        buffer = null;
+                    }
+                    return false;
+                }
+                if (buffer == null) {
+                    buffer = takeBuffer();
+                }
+                readChunk(order[nextChunk++], buffer);
+                rows = buffer.iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public DataSetRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return rows.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Rows cannot be removed from streaming data set!");
+        }
+    }
+
+    /**
+     * Read only list view of the rows, returned by getRows().
+     */
+    private final class RowList extends AbstractList<DataSetRow> {
+
+        @Override
+        public DataSetRow get(int index) {
+            return readRow(index);
+        }
+
+        @Override
+        public Iterator<DataSetRow> iterator() {
+            return StreamingDataSet.this.iterator();
+        }
+
+        @Override
+        public int size() {
+            return StreamingDataSet.this.size();
+        }
+    }
+}
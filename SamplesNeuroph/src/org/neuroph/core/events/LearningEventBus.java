@@ -0,0 +1,280 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.events;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Learning event listener that passes events to other listeners on a
+ * separate thread, so slow listeners, for example ones printing to the
+ * console, do not slow learning down. Events are copied into
+ * {@link LearningEventSnapshot}s on the learning thread, and listeners should
+ * read the iteration and error from them rather than from the learning rule.
+ *
+ * Epoch events can be sampled: with an iteration interval of N only every Nth
+ * iteration is passed on, and with a time interval of T ms at most one event
+ * per T ms. Learning never waits for the listeners. Events wait in a bounded
+ * lock free queue, and when it is full they are coalesced: only the latest
+ * one is kept until the queue is emptied, and the others are counted by
+ * getCoalescedCount(). Learning stopped events are never sampled out or
+ * coalesced.
+ *
+ * The dispatching thread is a daemon, started by the first event. Call
+ * close() after learning to let listeners handle the remaining events.
+ */
+public class LearningEventBus implements LearningEventListener {
+
+    private static final Logger LOGGER = Logger.getLogger(LearningEventBus.class.getName());
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final List<LearningEventListener> listeners = new CopyOnWriteArrayList<>();
+    private final int capacity;
+    private volatile int iterationInterval = 1;
+    private volatile long timeInterval;
+
+    private final ConcurrentLinkedQueue<LearningEventSnapshot> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicReference<LearningEventSnapshot> overflow = new AtomicReference<>();
+    private final AtomicLong nextTime = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong handled = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicReference<Thread> dispatcher = new AtomicReference<>();
+    private volatile boolean closed;
+
+    public LearningEventBus(LearningEventListener... listeners) {
+        this(DEFAULT_CAPACITY, listeners);
+    }
+
+    public LearningEventBus(int capacity, LearningEventListener... listeners) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity cannot be <= 0 : " + capacity);
+        }
+        this.capacity = capacity;
+        for (LearningEventListener listener : listeners) {
+            addListener(listener);
+        }
+    }
+
+    public void addListener(LearningEventListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("listener is null!");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(LearningEventListener listener) {
+        listeners.remove(listener);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getIterationInterval() {
+        return iterationInterval;
+    }
+
+    /**
+     * Passes on only epoch events of iterations divisible by given interval,
+     * by default 1.
+     */
+    public void setIterationInterval(int iterationInterval) {
+        if (iterationInterval <= 0) {
+            throw new IllegalArgumentException("Iteration interval cannot be <= 0 : " + iterationInterval);
+        }
+        this.iterationInterval = iterationInterval;
+    }
+
+    public long getTimeInterval() {
+        return timeInterval;
+    }
+
+    /**
+     * Passes on at most one epoch event per given number of milliseconds, by
+     * default 0 for no limit.
+     */
+    public void setTimeInterval(long timeInterval) {
+        if (timeInterval < 0) {
+            throw new IllegalArgumentException("Time interval cannot be < 0 : " + timeInterval);
+        }
+        this.timeInterval = timeInterval;
+    }
+
+    /**
+     * Returns number of events dropped because a newer one replaced them.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Samples and queues the event, called on the learning thread. Events
+     * coming after close() are ignored.
+     */
+    @Override
+    public void handleLearningEvent(LearningEvent event) {
+        if (closed) {
+            return;
+        }
+        boolean stopped = event.getEventType() == LearningEvent.Type.LEARNING_STOPPED;
+        if (!stopped && !isSampled(event)) {
+            return;
+        }
+        LearningEventSnapshot snapshot = LearningEventSnapshot.of(event);
+        accepted.incrementAndGet();
+        if (stopped) {
+            // keeps order: the coalesced event is older than this one
+            LearningEventSnapshot latest = overflow.getAndSet(null);
+            if (latest != null) {
+                offer(latest);
+            }
+            offer(snapshot);
+        } else if (overflow.get() != null || !tryOffer(snapshot)) {
+            // while an event waits outside the queue newer ones replace it,
+            // so they are not passed on before it
+            if (overflow.getAndSet(snapshot) != null) {
+                coalesced.incrementAndGet();
+                handled.incrementAndGet();
+            }
+        }
+        LockSupport.unpark(getDispatcher());
+    }
+
+    private boolean isSampled(LearningEvent event) {
+        int interval = iterationInterval;
+        if (interval > 1 && LearningEventSnapshot.iterationOf(event) % interval != 0) {
+            return false;
+        }
+        long period = timeInterval;
+        if (period > 0) {
+            long now = System.nanoTime();
+            long next = nextTime.get();
+            if (next != Long.MIN_VALUE && now - next < 0) {
+                return false;
+            }
+            return nextTime.compareAndSet(next, now + TimeUnit.MILLISECONDS.toNanos(period));
+        }
+        return true;
+    }
+
+    private boolean tryOffer(LearningEventSnapshot snapshot) {
+        if (size.incrementAndGet() > capacity) {
+            size.decrementAndGet();
+            return false;
+        }
+        queue.offer(snapshot);
+        return true;
+    }
+
+    private void offer(LearningEventSnapshot snapshot) {
+        size.incrementAndGet();
+        queue.offer(snapshot);
+    }
+
+    private Thread getDispatcher() {
+        Thread thread = dispatcher.get();
+        if (thread == null) {
+            thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    dispatch();
+                }
+            }, "learning-events");
+            thread.setDaemon(true);
+            if (dispatcher.compareAndSet(null, thread)) {
+                thread.start();
+            } else {
+                thread = dispatcher.get();
+            }
+        }
+        return thread;
+    }
+
+    private void dispatch() {
+        while (true) {
+            LearningEventSnapshot snapshot = queue.poll();
+            if (snapshot != null) {
+                size.decrementAndGet();
+            } else {
+                snapshot = overflow.getAndSet(null);
+            }
+            if (snapshot != null) {
+                deliver(snapshot);
+                handled.incrementAndGet();
+            } else if (closed) {
+                return;
+            } else {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    private void deliver(LearningEventSnapshot snapshot) {
+        for (LearningEventListener listener : listeners) {
+            try {
+                listener.handleLearningEvent(snapshot);
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Learning event listener failed", ex);
+            }
+        }
+    }
+
+    /**
+     * Waits until listeners have handled the events given so far, or until
+     * the calling thread is interrupted.
+     */
+    public void flush() {
+        while (handled.get() < accepted.get()) {
+            Thread thread = dispatcher.get();
+            if (closed && (thread == null || !thread.isAlive())) {
+                return;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+    }
+
+    /**
+     * Lets listeners handle the remaining events and stops the dispatching
+     * thread. Later events are ignored. If the calling thread is interrupted
+     * it stops waiting, and the remaining events are still handled.
+     */
+    public void close() {
+        closed = true;
+        Thread thread = dispatcher.get();
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.events;
+
+import org.neuroph.core.learning.IterativeLearning;
+import org.neuroph.core.learning.LearningRule;
+import org.neuroph.core.learning.SupervisedLearning;
+
+/**
+ * Learning event with the iteration and total network error of its learning
+ * rule copied when the event was fired. Listeners called on another thread,
+ * see {@link LearningEventBus}, read these instead of the learning rule, which
+ * has moved on by then.
+ */
+public class LearningEventSnapshot extends LearningEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int iteration;
+    private final double totalNetworkError;
+    private final long time;
+
+    public LearningEventSnapshot(LearningRule source, Type eventType, int iteration, double totalNetworkError, long time) {
+        super(source, eventType);
+        this.iteration = iteration;
+        this.totalNetworkError = totalNetworkError;
+        this.time = time;
+    }
+
+    /**
+     * Copies the state of the event's learning rule. Iteration is 0 for rules
+     * that are not iterative, and total error is NaN for rules that are not
+     * supervised.
+     */
+    public static LearningEventSnapshot of(LearningEvent event) {
+        if (event instanceof LearningEventSnapshot) {
+            return (LearningEventSnapshot) event;
+        }
+        LearningRule learningRule = (LearningRule) event.getSource();
+        int iteration = iterationOf(event);
+        double totalNetworkError = Double.NaN;
+        if (learningRule instanceof SupervisedLearning) {
+            totalNetworkError = ((SupervisedLearning) learningRule).getTotalNetworkError();
+        }
+        return new LearningEventSnapshot(learningRule, event.getEventType(), iteration, totalNetworkError, System.currentTimeMillis());
+    }
+
+    static int iterationOf(LearningEvent event) {
+        if (event instanceof LearningEventSnapshot) {
+            return ((LearningEventSnapshot) event).getIteration();
+        }
+        if (event.getSource() instanceof IterativeLearning) {
+            return ((IterativeLearning) event.getSource()).getCurrentIteration();
+        }
+        return 0;
+    }
+
+    public LearningRule getLearningRule() {
+        return (LearningRule) getSource();
+    }
+
+    public int getIteration() {
+        return iteration;
+    }
+
+    public double getTotalNetworkError() {
+        return totalNetworkError;
+    }
+
+    /**
+     * Returns time the event was fired, in milliseconds since the epoch.
+     */
+    public long getTime() {
+        return time;
+    }
+}
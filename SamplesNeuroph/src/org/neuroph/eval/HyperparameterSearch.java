@@ -0,0 +1,448 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.eval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.learning.error.MeanSquaredError;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.RangeRandomizer;
+
+/**
+ * Searches hidden layer sizes, transfer function, learning rate and momentum
+ * of a MultiLayerPerceptron trained with MomentumBackpropagation. Candidates
+ * are made from the values to search, either all their combinations or a
+ * number of random ones, and are compared by mean squared error on a
+ * validation set.
+ *
+ * Weak candidates are dropped early by successive halving: all candidates
+ * are trained for the min number of epochs, the best 1 / reductionFactor of
+ * them are trained further until they have reductionFactor times as many
+ * epochs, and so on until one candidate is left or the max number of epochs
+ * is reached. Most epochs are thus spent on the promising candidates.
+ * Training continues from the weights of the previous round, but momentum
+ * starts again from zero in every round.
+ *
+ * Candidates are trained at the same time in a fixed size thread pool. They
+ * share the training and validation sets, which are only read. Each
+ * candidate initializes its weights from its own seed, so results do not
+ * depend on the number of threads.
+ */
+public class HyperparameterSearch {
+
+    private final DataSet trainingSet;
+    private final DataSet validationSet;
+    private final List<int[]> hiddenLayers = new ArrayList<>();
+    private final List<TransferFunctionType> transferFunctions = new ArrayList<>();
+    private double[] learningRates = {0.1};
+    private double[] momentums = {0.25};
+    private int minEpochs = 10;
+    private int maxEpochs = 270;
+    private int reductionFactor = 3;
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+    private Random random = new Random();
+    private List<Candidate> candidates;
+
+    public HyperparameterSearch(DataSet trainingSet, DataSet validationSet) {
+        if (!trainingSet.isSupervised() || trainingSet.getOutputSize() != validationSet.getOutputSize()
+                || trainingSet.getInputSize() != validationSet.getInputSize()) {
+            throw new IllegalArgumentException("Training and validation sets must have the same inputs and outputs!");
+        }
+        this.trainingSet = trainingSet;
+        this.validationSet = validationSet;
+        hiddenLayers.add(new int[]{trainingSet.getInputSize()});
+        transferFunctions.add(TransferFunctionType.SIGMOID);
+    }
+
+    /**
+     * Sets sizes of the hidden layers to search, one array per candidate
+     * topology, for example {20, 15} for two hidden layers.
+     */
+    public void setHiddenLayers(int[]... hiddenLayers) {
+        if (hiddenLayers.length == 0) {
+            throw new IllegalArgumentException("At least one topology is needed!");
+        }
+        this.hiddenLayers.clear();
+        for (int[] sizes : hiddenLayers) {
+            for (int size : sizes) {
+                if (size <= 0) {
+                    throw new IllegalArgumentException("Layer size cannot be <= 0 : " + size);
+                }
+            }
+            this.hiddenLayers.add(sizes.clone());
+        }
+    }
+
+    public void setTransferFunctions(TransferFunctionType... transferFunctions) {
+        if (transferFunctions.length == 0) {
+            throw new IllegalArgumentException("At least one transfer function is needed!");
+        }
+        this.transferFunctions.clear();
+        this.transferFunctions.addAll(Arrays.asList(transferFunctions));
+    }
+
+    /**
+     * Sets learning rates to search. Random candidates take rates between the
+     * smallest and the largest of them, uniformly on log scale.
+     */
+    public void setLearningRates(double... learningRates) {
+        for (double learningRate : learningRates) {
+            if (learningRate <= 0) {
+                throw new IllegalArgumentException("Learning rate cannot be <= 0 : " + learningRate);
+            }
+        }
+        this.learningRates = checkValues(learningRates);
+    }
+
+    /**
+     * Sets momentums to search. Random candidates take momentums uniformly
+     * between the smallest and the largest of them.
+     */
+    public void setMomentums(double... momentums) {
+        for (double momentum : momentums) {
+            if (momentum < 0 || momentum >= 1) {
+                throw new IllegalArgumentException("Momentum must be in [0, 1) : " + momentum);
+            }
+        }
+        this.momentums = checkValues(momentums);
+    }
+
+    private static double[] checkValues(double[] values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("At least one value is needed!");
+        }
+        return values.clone();
+    }
+
+    public int getMinEpochs() {
+        return minEpochs;
+    }
+
+    /**
+     * Sets number of epochs all candidates are trained for before the first
+     * of them are dropped.
+     */
+    public void setMinEpochs(int minEpochs) {
+        if (minEpochs <= 0) {
+            throw new IllegalArgumentException("Min epochs cannot be <= 0 : " + minEpochs);
+        }
+        this.minEpochs = minEpochs;
+    }
+
+    public int getMaxEpochs() {
+        return maxEpochs;
+    }
+
+    /**
+     * Sets number of epochs the best candidates are trained for, the budget
+     * of one full training run.
+     */
+    public void setMaxEpochs(int maxEpochs) {
+        if (maxEpochs <= 0) {
+            throw new IllegalArgumentException("Max epochs cannot be <= 0 : " + maxEpochs);
+        }
+        this.maxEpochs = maxEpochs;
+    }
+
+    public int getReductionFactor() {
+        return reductionFactor;
+    }
+
+    /**
+     * Sets factor by which the number of candidates is divided, and their
+     * epochs multiplied, in every round.
+     */
+    public void setReductionFactor(int reductionFactor) {
+        if (reductionFactor < 2) {
+            throw new IllegalArgumentException("Reduction factor must be at least 2 : " + reductionFactor);
+        }
+        this.reductionFactor = reductionFactor;
+    }
+
+    public int getThreadsCount() {
+        return threadsCount;
+    }
+
+    /**
+     * Sets number of candidates trained at the same time.
+     */
+    public void setThreadsCount(int threadsCount) {
+        if (threadsCount <= 0) {
+            throw new IllegalArgumentException("Number of threads cannot be <= 0 : " + threadsCount);
+        }
+        this.threadsCount = threadsCount;
+    }
+
+    /**
+     * Sets random generator used for random candidates and for the seeds of
+     * candidate weights.
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Creates candidates for all combinations of the values to search.
+     */
+    public List<Candidate> gridCandidates() {
+        List<Candidate> grid = new ArrayList<>();
+        for (int[] layers : hiddenLayers) {
+            for (TransferFunctionType transferFunction : transferFunctions) {
+                for (double learningRate : learningRates) {
+                    for (double momentum : momentums) {
+                        grid.add(new Candidate(grid.size(), layers, transferFunction, learningRate, momentum, random.nextLong()));
+                    }
+                }
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Creates given number of candidates with random values from the search
+     * space.
+     */
+    public List<Candidate> randomCandidates(int count) {
+        double minRate = Math.log(min(learningRates));
+        double maxRate = Math.log(max(learningRates));
+        double minMomentum = min(momentums);
+        double maxMomentum = max(momentums);
+        List<Candidate> sampled = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int[] layers = hiddenLayers.get(random.nextInt(hiddenLayers.size()));
+            TransferFunctionType transferFunction = transferFunctions.get(random.nextInt(transferFunctions.size()));
+            double learningRate = Math.exp(minRate + random.nextDouble() * (maxRate - minRate));
+            double momentum = minMomentum + random.nextDouble() * (maxMomentum - minMomentum);
+            sampled.add(new Candidate(i, layers, transferFunction, learningRate, momentum, random.nextLong()));
+        }
+        return sampled;
+    }
+
+    private static double min(double[] values) {
+        double min = values[0];
+        for (double value : values) {
+            min = Math.min(min, value);
+        }
+        return min;
+    }
+
+    private static double max(double[] values) {
+        double max = values[0];
+        for (double value : values) {
+            max = Math.max(max, value);
+        }
+        return max;
+    }
+
+    /**
+     * Trains and compares given candidates with successive halving, and
+     * returns them from best to worst: candidates that lasted more rounds
+     * first, and then by validation error.
+     */
+    public List<Candidate> search(List<Candidate> candidates) throws InterruptedException, ExecutionException {
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("No candidates to search!");
+        }
+        List<Candidate> alive = new ArrayList<>(candidates);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadsCount, candidates.size()));
+        try {
+            int epochs = Math.min(minEpochs, maxEpochs);
+            while (true) {
+                List<Callable<Void>> tasks = new ArrayList<>(alive.size());
+                for (Candidate candidate : alive) {
+                    tasks.add(candidate.trainingTask(epochs));
+                }
+                for (Future<Void> future : executor.invokeAll(tasks)) {
+                    future.get();
+                }
+                Collections.sort(alive, BY_ERROR);
+                if (alive.size() == 1 || epochs >= maxEpochs) {
+                    break;
+                }
+                int kept = (alive.size() + reductionFactor - 1) / reductionFactor;
+                alive = new ArrayList<>(alive.subList(0, kept));
+                epochs = (int) Math.min(maxEpochs, (long) epochs * reductionFactor);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Candidate> ranked = new ArrayList<>(candidates);
+        Collections.sort(ranked, new Comparator<Candidate>() {
+            @Override
+            public int compare(Candidate first, Candidate second) {
+                int byEpochs = Integer.compare(second.epochs, first.epochs);
+                return byEpochs != 0 ? byEpochs : BY_ERROR.compare(first, second);
+            }
+        });
+        this.candidates = ranked;
+        return ranked;
+    }
+
+    /**
+     * Returns candidates of the last search from best to worst.
+     */
+    public List<Candidate> getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Returns best candidate of the last search.
+     */
+    public Candidate getBest() {
+        return candidates != null ? candidates.get(0) : null;
+    }
+
+    /**
+     * Orders candidates by validation error, failed ones last, and by index
+     * when errors are equal.
+     */
+    private static final Comparator<Candidate> BY_ERROR = new Comparator<Candidate>() {
+        @Override
+        public int compare(Candidate first, Candidate second) {
+            int byError = Double.compare(first.error, second.error);
+            return byError != 0 ? byError : Integer.compare(first.index, second.index);
+        }
+    };
+
+    /**
+     * Hyperparameters of one network and the results of its training.
+     */
+    public final class Candidate {
+
+        private final int index;
+        private final int[] hiddenLayers;
+        private final TransferFunctionType transferFunction;
+        private final double learningRate;
+        private final double momentum;
+        private final long seed;
+        private MultiLayerPerceptron neuralNetwork;
+        private int epochs;
+        private double error = Double.NaN;
+
+        Candidate(int index, int[] hiddenLayers, TransferFunctionType transferFunction, double learningRate, double momentum, long seed) {
+            this.index = index;
+            this.hiddenLayers = hiddenLayers;
+            this.transferFunction = transferFunction;
+            this.learningRate = learningRate;
+            this.momentum = momentum;
+            this.seed = seed;
+        }
+
+        public int[] getHiddenLayers() {
+            return hiddenLayers.clone();
+        }
+
+        public TransferFunctionType getTransferFunction() {
+            return transferFunction;
+        }
+
+        public double getLearningRate() {
+            return learningRate;
+        }
+
+        public double getMomentum() {
+            return momentum;
+        }
+
+        /**
+         * Returns number of epochs the candidate was trained for before it
+         * was dropped or the search ended.
+         */
+        public int getEpochs() {
+            return epochs;
+        }
+
+        /**
+         * Returns mean squared error on the validation set after the last
+         * round the candidate was trained in.
+         */
+        public double getValidationError() {
+            return error;
+        }
+
+        /**
+         * Returns trained network, or null if the candidate was not trained.
+         */
+        public MultiLayerPerceptron getNeuralNetwork() {
+            return neuralNetwork;
+        }
+
+        private Callable<Void> trainingTask(final int totalEpochs) {
+            return new Callable<Void>() {
+                @Override
+                public Void call() {
+                    train(totalEpochs);
+                    return null;
+                }
+            };
+        }
+
+        /**
+         * Trains the network until it has given number of epochs and
+         * evaluates it.
+         */
+        private void train(int totalEpochs) {
+            if (neuralNetwork == null) {
+                int[] layers = new int[hiddenLayers.length + 2];
+                layers[0] = trainingSet.getInputSize();
+                System.arraycopy(hiddenLayers, 0, layers, 1, hiddenLayers.length);
+                layers[layers.length - 1] = trainingSet.getOutputSize();
+                neuralNetwork = new MultiLayerPerceptron(transferFunction, layers);
+                neuralNetwork.randomizeWeights(new RangeRandomizer(-0.7, 0.7, new Random(seed)));
+                MomentumBackpropagation learningRule = new MomentumBackpropagation();
+                learningRule.setLearningRate(learningRate);
+                learningRule.setMomentum(momentum);
+                // train for the whole budget of the round
+                learningRule.setMaxError(0);
+                neuralNetwork.setLearningRule(learningRule);
+            }
+            if (totalEpochs > epochs) {
+                neuralNetwork.getLearningRule().setMaxIterations(totalEpochs - epochs);
+                neuralNetwork.learn(trainingSet);
+                epochs = totalEpochs;
+            }
+
+            MeanSquaredError mse = new MeanSquaredError();
+            for (DataSetRow row : validationSet) {
+                neuralNetwork.setInput(row.getInput());
+                neuralNetwork.calculate();
+                mse.addPatternError(neuralNetwork.getOutput(), row.getDesiredOutput());
+            }
+            error = mse.getTotalError();
+        }
+
+        @Override
+        public String toString() {
+            return "hidden layers " + Arrays.toString(hiddenLayers) + ", " + transferFunction
+                    + ", learning rate " + learningRate + ", momentum " + momentum
+                    + ", epochs " + epochs + ", validation error " + error;
+        }
+    }
+}
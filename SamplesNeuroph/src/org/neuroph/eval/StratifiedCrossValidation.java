@@ -0,0 +1,375 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.eval;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.data.ClassIndexDataSet;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.IndexedDataSet;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.learning.error.MeanSquaredError;
+import org.neuroph.eval.classification.ConfusionMatrix;
+import org.neuroph.eval.classification.Utils;
+
+/**
+ * Stratified k-fold cross validation that trains the folds concurrently. Rows
+ * of each class are spread evenly over the folds: for one output the class is
+ * whether the desired output is positive, for more outputs it is the index of
+ * the largest desired output.
+ *
+ * Folds are trained on copies of the given network in a fixed size thread
+ * pool. All folds share the data set, which is only read, and select their
+ * training and test rows with {@link IndexedDataSet} views, so each fold costs
+ * an index array instead of a copy of the data. Fold results are merged into
+ * one confusion matrix and mean squared error, and also collected into a
+ * {@link CrossValidationResult} with averaged classification metrics.
+ */
+public class StratifiedCrossValidation {
+
+    private final NeuralNetwork<?> neuralNetwork;
+    private final DataSet dataSet;
+    private final int foldsCount;
+    private int threadsCount;
+    private double threshold = 0.5;
+    private String[] classLabels;
+    private Random random = new Random();
+    private List<EvaluationResult> foldResults;
+    private ConfusionMatrix confusionMatrix;
+    private double meanSquareError;
+    private CrossValidationResult result;
+
+    public StratifiedCrossValidation(NeuralNetwork<?> neuralNetwork, DataSet dataSet, int foldsCount) {
+        if (foldsCount < 2) {
+            throw new IllegalArgumentException("Number of folds must be at least 2 : " + foldsCount);
+        }
+        if (dataSet.size() < foldsCount) {
+            throw new IllegalArgumentException("Data set has less rows than folds!");
+        }
+        if (!dataSet.isSupervised() || dataSet.getOutputSize() != neuralNetwork.getOutputsCount()) {
+            throw new IllegalArgumentException("Data set outputs do not match network outputs!");
+        }
+        this.neuralNetwork = neuralNetwork;
+        this.dataSet = dataSet;
+        this.foldsCount = foldsCount;
+        this.threadsCount = Math.min(foldsCount, Runtime.getRuntime().availableProcessors());
+    }
+
+    public int getThreadsCount() {
+        return threadsCount;
+    }
+
+    /**
+     * Sets number of folds trained at the same time.
+     */
+    public void setThreadsCount(int threadsCount) {
+        if (threadsCount <= 0) {
+            throw new IllegalArgumentException("Number of threads cannot be <= 0 : " + threadsCount);
+        }
+        this.threadsCount = threadsCount;
+    }
+
+    /**
+     * Sets output value above which network output of binary classifier
+     * counts as the positive class.
+     */
+    public void setThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Sets class labels used in the confusion matrix. By default they are
+     * the output column names for more outputs, and True and False for one.
+     */
+    public void setClassLabels(String[] classLabels) {
+        this.classLabels = classLabels;
+    }
+
+    /**
+     * Sets random generator used to assign rows to folds.
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Trains and evaluates all folds and merges their results.
+     */
+    public CrossValidationResult run() throws InterruptedException, ExecutionException {
+        int[] order = new int[dataSet.size()];
+        int[] foldStarts = assignFolds(order);
+        byte[] network = serialize(neuralNetwork);
+        String[] labels = getClassLabels();
+        int classesCount = dataSet.getOutputSize() == 1 ? 2 : dataSet.getOutputSize();
+        if (labels.length != classesCount) {
+            throw new IllegalArgumentException("Expected " + classesCount + " class labels!");
+        }
+
+        List<FoldWorker> workers = new ArrayList<>(foldsCount);
+        for (int foldIdx = 0; foldIdx < foldsCount; foldIdx++) {
+            workers.add(new FoldWorker(network, labels, order, foldStarts[foldIdx], foldStarts[foldIdx + 1]));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threadsCount, foldsCount));
+        List<EvaluationResult> results = new ArrayList<>(foldsCount);
+        try {
+            for (Future<EvaluationResult> future : executor.invokeAll(workers)) {
+                results.add(future.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        MergedConfusionMatrix merged = new MergedConfusionMatrix(labels);
+        double squaredErrorSum = 0;
+        result = new CrossValidationResult();
+        result.numberOfFolds = foldsCount;
+        result.numberOfInstances = dataSet.size();
+        for (EvaluationResult foldResult : results) {
+            merged.add(foldResult.getConfusionMatrix());
+            // mean squared error of a fold is averaged over its rows
+            squaredErrorSum += foldResult.getMeanSquareError() * foldResult.getDataSet().size();
+            result.addEvaluationResult(foldResult);
+        }
+        result.calculateStatistics();
+
+        foldResults = results;
+        confusionMatrix = merged;
+        meanSquareError = squaredErrorSum / dataSet.size();
+        return result;
+    }
+
+    /**
+     * Returns results of the folds, in fold order.
+     */
+    public List<EvaluationResult> getFoldResults() {
+        return foldResults;
+    }
+
+    /**
+     * Returns sum of the fold confusion matrices, which counts every row once.
+     */
+    public ConfusionMatrix getConfusionMatrix() {
+        return confusionMatrix;
+    }
+
+    /**
+     * Returns mean squared error over the rows of all folds.
+     */
+    public double getMeanSquareError() {
+        return meanSquareError;
+    }
+
+    public CrossValidationResult getResult() {
+        return result;
+    }
+
+    /**
+     * Fills order with row indexes grouped by fold, and returns start of each
+     * fold in it followed by the number of rows. Rows of each class are
+     * shuffled and dealt to the folds in turn, continuing with the next fold
+     * for the next class, so fold sizes differ by at most one row.
+     */
+    private int[] assignFolds(int[] order) {
+        int classesCount = dataSet.getOutputSize() == 1 ? 2 : dataSet.getOutputSize();
+        int[] classes = new int[dataSet.size()];
+        int[] classCounts = new int[classesCount];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = classOf(i);
+            classCounts[classes[i]]++;
+        }
+
+        int[][] classRows = new int[classesCount][];
+        for (int k = 0; k < classesCount; k++) {
+            classRows[k] = new int[classCounts[k]];
+        }
+        int[] filled = new int[classesCount];
+        for (int i = 0; i < classes.length; i++) {
+            classRows[classes[i]][filled[classes[i]]++] = i;
+        }
+
+        int[] folds = new int[dataSet.size()];
+        int[] foldSizes = new int[foldsCount];
+        int fold = 0;
+        for (int[] rows : classRows) {
+            for (int i = rows.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int temp = rows[i];
+                rows[i] = rows[j];
+                rows[j] = temp;
+            }
+            for (int row : rows) {
+                folds[row] = fold;
+                foldSizes[fold]++;
+                fold = (fold + 1) % foldsCount;
+            }
+        }
+
+        int[] foldStarts = new int[foldsCount + 1];
+        for (int f = 0; f < foldsCount; f++) {
+            foldStarts[f + 1] = foldStarts[f] + foldSizes[f];
+        }
+        int[] next = Arrays.copyOf(foldStarts, foldsCount);
+        for (int[] rows : classRows) {
+            for (int row : rows) {
+                order[next[folds[row]]++] = row;
+            }
+        }
+        return foldStarts;
+    }
+
+    private int classOf(int rowIdx) {
+        if (dataSet instanceof ClassIndexDataSet && dataSet.getOutputSize() > 1) {
+            ClassIndexDataSet compact = (ClassIndexDataSet) dataSet;
+            return Utils.maxIdx(compact.getTarget(compact.getClassIndex(rowIdx)));
+        }
+        double[] desiredOutput = dataSet.getRowAt(rowIdx).getDesiredOutput();
+        if (desiredOutput.length == 1) {
+            // same rule as ClassifierEvaluator.Binary, positive class first
+            return desiredOutput[0] > 0 ? 0 : 1;
+        }
+        return Utils.maxIdx(desiredOutput);
+    }
+
+    private String[] getClassLabels() {
+        if (classLabels != null) {
+            return classLabels;
+        }
+        if (dataSet.getOutputSize() == 1) {
+            return ClassifierEvaluator.Binary.CLASS_LABELS;
+        }
+        String[] columnNames = dataSet.getColumnNames();
+        int inputSize = dataSet.getInputSize();
+        if (columnNames != null && columnNames.length == inputSize + dataSet.getOutputSize()) {
+            return Arrays.copyOfRange(columnNames, inputSize, columnNames.length);
+        }
+        String[] labels = new String[dataSet.getOutputSize()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = String.valueOf(i + 1);
+        }
+        return labels;
+    }
+
+    private static byte[] serialize(NeuralNetwork<?> neuralNetwork) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(neuralNetwork);
+        } catch (IOException ex) {
+            throw new NeurophException("Could not copy neural network!", ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static NeuralNetwork<?> deserialize(byte[] network) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(network))) {
+            return (NeuralNetwork<?>) in.readObject();
+        } catch (IOException | ClassNotFoundException ex) {
+            throw new NeurophException("Could not copy neural network!", ex);
+        }
+    }
+
+    /**
+     * Trains copy of the network on all folds except one and evaluates it on
+     * that fold.
+     */
+    private final class FoldWorker implements Callable<EvaluationResult> {
+
+        private final byte[] network;
+        private final String[] labels;
+        private final int[] order;
+        private final int testFrom;
+        private final int testTo;
+
+        FoldWorker(byte[] network, String[] labels, int[] order, int testFrom, int testTo) {
+            this.network = network;
+            this.labels = labels;
+            this.order = order;
+            this.testFrom = testFrom;
+            this.testTo = testTo;
+        }
+
+        @Override
+        public EvaluationResult call() {
+            int[] trainingRows = new int[order.length - (testTo - testFrom)];
+            System.arraycopy(order, 0, trainingRows, 0, testFrom);
+            System.arraycopy(order, testTo, trainingRows, testFrom, order.length - testTo);
+            DataSet trainingSet = new IndexedDataSet(dataSet, trainingRows, 0, trainingRows.length);
+            DataSet testSet = new IndexedDataSet(dataSet, order, testFrom, testTo - testFrom);
+
+            NeuralNetwork<?> neuralNet = deserialize(network);
+            neuralNet.learn(trainingSet);
+
+            Evaluation evaluation = new Evaluation();
+            evaluation.addEvaluator(new ErrorEvaluator(new MeanSquaredError()));
+            if (dataSet.getOutputSize() == 1) {
+                evaluation.addEvaluator(new ClassifierEvaluator.Binary(threshold));
+            } else {
+                evaluation.addEvaluator(new ClassifierEvaluator.MultiClass(labels));
+            }
+            EvaluationResult evaluationResult = evaluation.evaluateDataSet(neuralNet, testSet);
+            evaluationResult.setNeuralNetwork(neuralNet);
+            return evaluationResult;
+        }
+    }
+
+    /**
+     * Confusion matrix that adds whole cell counts of other matrices instead
+     * of incrementing its cells one by one.
+     */
+    private static final class MergedConfusionMatrix extends ConfusionMatrix {
+
+        private int total;
+
+        MergedConfusionMatrix(String[] classLabels) {
+            super(classLabels);
+        }
+
+        void add(ConfusionMatrix other) {
+            int[][] values = getValues();
+            int[][] counts = other.getValues();
+            for (int actual = 0; actual < values.length; actual++) {
+                for (int predicted = 0; predicted < values[actual].length; predicted++) {
+                    values[actual][predicted] += counts[actual][predicted];
+                }
+            }
+            total += other.getTotal();
+        }
+
+        @Override
+        public void incrementElement(int actual, int predicted) {
+            super.incrementElement(actual, predicted);
+            total++;
+        }
+
+        @Override
+        public int getTotal() {
+            return total;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.events.NeuralNetworkEvent;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.exceptions.VectorSizeMismatchException;
+import org.neuroph.nnet.learning.BaggingLearning;
+
+/**
+ * Neural network made of member networks with the same inputs and outputs,
+ * whose outputs are combined by averaging or voting. It is used like any other
+ * network: setInput(), calculate() and getOutput() run all members, so an
+ * ensemble can be evaluated with Evaluation.evaluateDataSet(). Members are
+ * trained with {@link BaggingLearning}, each on its own bootstrap sample of
+ * the training set.
+ *
+ * Members are calculated at the same time in a pool of daemon threads, which
+ * is started by the first calculation. calculate(double[][]) runs a whole
+ * batch of inputs with one task per member, which pays off much better than
+ * calculating one input at a time.
+ */
+public class Ensemble extends NeuralNetwork<BaggingLearning> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * How member outputs are combined.
+     */
+    public enum Combination {
+        /**
+         * Mean of member outputs.
+         */
+        AVERAGE,
+        /**
+         * Share of members voting for each output. A member with more than
+         * one output votes for its largest output, and a member with one
+         * output votes for it when it is above 0.5.
+         */
+        VOTE
+    }
+
+    private final List<NeuralNetwork<?>> members;
+    private final int inputsCount;
+    private final int outputsCount;
+    private Combination combination = Combination.AVERAGE;
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+
+    private double[] input;
+    private double[] output;
+    private transient ExecutorService executor;
+
+    /**
+     * Creates ensemble of given number of multi layer perceptrons with the
+     * same layers and their own random weights.
+     */
+    public Ensemble(int membersCount, int... neuronsInLayers) {
+        this(createMembers(membersCount, neuronsInLayers));
+    }
+
+    public Ensemble(List<? extends NeuralNetwork<?>> members) {
+        if (members.isEmpty()) {
+            throw new IllegalArgumentException("Ensemble needs at least one member!");
+        }
+        this.members = new ArrayList<NeuralNetwork<?>>(members);
+        inputsCount = members.get(0).getInputsCount();
+        outputsCount = members.get(0).getOutputsCount();
+        for (NeuralNetwork<?> member : members) {
+            if (member.getInputsCount() != inputsCount || member.getOutputsCount() != outputsCount) {
+                throw new IllegalArgumentException("Members must have the same numbers of inputs and outputs!");
+            }
+        }
+        input = new double[inputsCount];
+        output = new double[outputsCount];
+        setLearningRule(new BaggingLearning());
+    }
+
+    private static List<NeuralNetwork<?>> createMembers(int membersCount, int... neuronsInLayers) {
+        if (membersCount <= 0) {
+            throw new IllegalArgumentException("Members count cannot be <= 0 : " + membersCount);
+        }
+        List<NeuralNetwork<?>> members = new ArrayList<>(membersCount);
+        for (int m = 0; m < membersCount; m++) {
+            members.add(new MultiLayerPerceptron(neuronsInLayers));
+        }
+        return members;
+    }
+
+    public List<NeuralNetwork<?>> getMembers() {
+        return Collections.unmodifiableList(members);
+    }
+
+    public Combination getCombination() {
+        return combination;
+    }
+
+    public void setCombination(Combination combination) {
+        if (combination == null) {
+            throw new IllegalArgumentException("Combination cannot be null!");
+        }
+        this.combination = combination;
+    }
+
+    public int getThreadsCount() {
+        return threadsCount;
+    }
+
+    /**
+     * Sets number of threads calculating members, by default number of
+     * processors. With one thread members are calculated by the caller.
+     */
+    public synchronized void setThreadsCount(int threadsCount) {
+        if (threadsCount <= 0) {
+            throw new IllegalArgumentException("Threads count cannot be <= 0 : " + threadsCount);
+        }
+        shutdown();
+        this.threadsCount = threadsCount;
+    }
+
+    @Override
+    public int getInputsCount() {
+        return inputsCount;
+    }
+
+    @Override
+    public int getOutputsCount() {
+        return outputsCount;
+    }
+
+    @Override
+    public void setInput(double... inputVector) throws VectorSizeMismatchException {
+        if (inputVector.length != inputsCount) {
+            throw new VectorSizeMismatchException("Input vector size does not match network input dimension!");
+        }
+        System.arraycopy(inputVector, 0, input, 0, inputsCount);
+    }
+
+    @Override
+    public double[] getOutput() {
+        return output;
+    }
+
+    /**
+     * Calculates members for the input set by setInput() and combines their
+     * outputs.
+     */
+    @Override
+    public void calculate() {
+        double[][] outputs = calculate(new double[][]{input});
+        System.arraycopy(outputs[0], 0, output, 0, outputsCount);
+        fireNetworkEvent(new NeuralNetworkEvent(this, NeuralNetworkEvent.Type.CALCULATED));
+    }
+
+    /**
+     * Calculates combined outputs for a batch of inputs. Each member runs the
+     * whole batch in its own task, and member outputs are combined in member
+     * order, so results do not depend on the number of threads.
+     */
+    public double[][] calculate(final double[][] inputs) {
+        for (double[] row : inputs) {
+            if (row.length != inputsCount) {
+                throw new VectorSizeMismatchException("Input vector size does not match network input dimension!");
+            }
+        }
+        final double[][][] memberOutputs = new double[members.size()][][];
+        List<Callable<Void>> tasks = new ArrayList<>(members.size());
+        for (int m = 0; m < members.size(); m++) {
+            final int memberIdx = m;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    memberOutputs[memberIdx] = calculate(members.get(memberIdx), inputs);
+                    return null;
+                }
+            });
+        }
+        invokeAll(tasks);
+        return combine(memberOutputs, inputs.length);
+    }
+
+    private static double[][] calculate(NeuralNetwork<?> member, double[][] inputs) {
+        double[][] outputs = new double[inputs.length][];
+        for (int r = 0; r < inputs.length; r++) {
+            member.setInput(inputs[r]);
+            member.calculate();
+            outputs[r] = member.getOutput().clone();
+        }
+        return outputs;
+    }
+
+    private double[][] combine(double[][][] memberOutputs, int rowsCount) {
+        double[][] outputs = new double[rowsCount][outputsCount];
+        for (double[][] memberOutput : memberOutputs) {
+            for (int r = 0; r < rowsCount; r++) {
+                double[] sum = outputs[r];
+                double[] values = memberOutput[r];
+                if (combination == Combination.AVERAGE) {
+                    for (int i = 0; i < outputsCount; i++) {
+                        sum[i] += values[i];
+                    }
+                } else if (outputsCount == 1) {
+                    sum[0] += values[0] > 0.5 ? 1 : 0;
+                } else {
+                    sum[maxIndex(values)]++;
+                }
+            }
+        }
+        double scale = 1.0 / memberOutputs.length;
+        for (double[] sum : outputs) {
+            for (int i = 0; i < outputsCount; i++) {
+                sum[i] *= scale;
+            }
+        }
+        return outputs;
+    }
+
+    private static int maxIndex(double[] values) {
+        int maxIdx = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[maxIdx]) {
+                maxIdx = i;
+            }
+        }
+        return maxIdx;
+    }
+
+    private void invokeAll(List<Callable<Void>> tasks) {
+        ExecutorService pool = getExecutor();
+        if (pool == null) {
+            for (Callable<Void> task : tasks) {
+                try {
+                    task.call();
+                } catch (Exception ex) {
+                    throw new NeurophException("Member calculation failed", ex);
+                }
+            }
+            return;
+        }
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks)) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new NeurophException("Ensemble calculation was interrupted", ex);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new NeurophException("Member calculation failed", cause);
+        }
+    }
+
+    private synchronized ExecutorService getExecutor() {
+        int poolSize = Math.min(threadsCount, members.size());
+        if (poolSize == 1) {
+            return null;
+        }
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(poolSize, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ensemble");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Stops threads calculating members. They are started again by the next
+     * calculation. Threads are daemons, so this is not needed before exit.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+}
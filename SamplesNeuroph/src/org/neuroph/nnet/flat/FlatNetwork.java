@@ -0,0 +1,583 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.flat;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.neuroph.core.Connection;
+import org.neuroph.core.Layer;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.Weight;
+import org.neuroph.core.input.WeightedSum;
+import org.neuroph.core.transfer.Linear;
+import org.neuroph.core.transfer.RectifiedLinear;
+import org.neuroph.core.transfer.Sigmoid;
+import org.neuroph.core.transfer.Tanh;
+import org.neuroph.core.transfer.TransferFunction;
+import org.neuroph.nnet.comp.neuron.BiasNeuron;
+
+/**
+ * Layered network compiled into flat arrays instead of Layer, Neuron,
+ * Connection and Weight objects. Each layer after the input layer has one
+ * array holding its weight matrix followed by its bias vector. Rows of the
+ * matrix are the neurons of the layer and columns are the neurons of the
+ * previous layer, so the weights of one neuron are contiguous and a layer is
+ * computed as a matrix product over a {@link Batch} of patterns. Bias neurons
+ * are not neurons of the flat network, their weights are the bias vector.
+ *
+ * The network is compiled from a neural network whose neurons use WeightedSum
+ * and are fully connected to the previous layer, which is how
+ * MultiLayerPerceptron is built. Trained weights are copied back to the
+ * network with {@link #writeBack()}, so it can be saved and evaluated as
+ * usual.
+ */
+public class FlatNetwork {
+
+    static final int LINEAR = 0;
+    static final int SIGMOID = 1;
+    static final int TANH = 2;
+    static final int RELU = 3;
+    static final int OTHER = 4;
+
+    private final NeuralNetwork<?> neuralNetwork;
+    private final int[] layerSizes;
+    private final int[] inputPositions;
+    private final int[] outputPositions;
+    private final double[][] weights;
+    private final Weight<?>[][] weightObjects;
+    private final int[][] functionTypes;
+    private final double[][] slopes;
+    private final double[][] amplitudes;
+    private final TransferFunction[][] functions;
+    private final int[] layerFunctionTypes;
+    private Kernel kernel = Kernel.getDefault();
+
+    private Batch single;
+    private double[] output;
+
+    private FlatNetwork(NeuralNetwork<?> neuralNetwork) {
+        this.neuralNetwork = neuralNetwork;
+        List<Layer> layers = neuralNetwork.getLayers();
+        if (layers.size() < 2) {
+            throw new IllegalArgumentException("Network must have at least two layers!");
+        }
+        int layersCount = layers.size();
+        layerSizes = new int[layersCount];
+        weights = new double[layersCount][];
+        weightObjects = new Weight<?>[layersCount][];
+        functionTypes = new int[layersCount][];
+        slopes = new double[layersCount][];
+        amplitudes = new double[layersCount][];
+        functions = new TransferFunction[layersCount][];
+
+        Map<Neuron, Integer> previousPositions = new IdentityHashMap<>();
+        Neuron previousBias = null;
+        int[] firstLayerPositions = null;
+        for (int l = 0; l < layersCount; l++) {
+            List<Neuron> neurons = layers.get(l).getNeurons();
+            Map<Neuron, Integer> positions = new IdentityHashMap<>();
+            Neuron bias = null;
+            for (Neuron neuron : neurons) {
+                if (!(neuron instanceof BiasNeuron)) {
+                    positions.put(neuron, positions.size());
+                } else if (bias == null) {
+                    bias = neuron;
+                } else {
+                    throw new IllegalArgumentException("Layer can have only one bias neuron!");
+                }
+            }
+
+            int size = positions.size();
+            int previousSize = l > 0 ? layerSizes[l - 1] : 0;
+            layerSizes[l] = size;
+            functionTypes[l] = new int[size];
+            slopes[l] = new double[size];
+            amplitudes[l] = new double[size];
+            functions[l] = new TransferFunction[size];
+
+            if (l > 0) {
+                int biasOffset = size * previousSize;
+                weights[l] = new double[biasOffset + size];
+                weightObjects[l] = new Weight<?>[biasOffset + size];
+                int inputsCount = previousSize + (previousBias != null ? 1 : 0);
+                for (Neuron neuron : neurons) {
+                    if (neuron instanceof BiasNeuron) {
+                        continue;
+                    }
+                    int j = positions.get(neuron);
+                    if (!(neuron.getInputFunction() instanceof WeightedSum)) {
+                        throw new IllegalArgumentException("Only neurons with WeightedSum input function are supported!");
+                    }
+                    setTransferFunction(l, j, neuron.getTransferFunction());
+
+                    List<Connection> connections = neuron.getInputConnections();
+                    if (connections.size() != inputsCount) {
+                        throw new IllegalArgumentException("Neurons must be fully connected to the previous layer!");
+                    }
+                    for (Connection connection : connections) {
+                        Neuron fromNeuron = connection.getFromNeuron();
+                        Integer from = previousPositions.get(fromNeuron);
+                        int k;
+                        if (from != null) {
+                            k = j * previousSize + from;
+                        } else if (fromNeuron == previousBias) {
+                            k = biasOffset + j;
+                        } else {
+                            throw new IllegalArgumentException("Neurons must be fully connected to the previous layer!");
+                        }
+                        if (weightObjects[l][k] != null) {
+                            throw new IllegalArgumentException("Neurons must be fully connected to the previous layer!");
+                        }
+                        weightObjects[l][k] = connection.getWeight();
+                    }
+                }
+            } else {
+                firstLayerPositions = positionsOf(neuralNetwork.getInputNeurons(), positions, "Input neurons must be the first layer!");
+            }
+            previousPositions = positions;
+            previousBias = bias;
+        }
+        inputPositions = firstLayerPositions;
+        outputPositions = positionsOf(neuralNetwork.getOutputNeurons(), previousPositions, "Output neurons must be the last layer!");
+        layerFunctionTypes = new int[layersCount];
+        for (int l = 1; l < layersCount; l++) {
+            layerFunctionTypes[l] = layerFunctionType(l);
+        }
+        readWeights();
+    }
+
+    /**
+     * Compiles the given layered network.
+     *
+     * @throws IllegalArgumentException if the network is not made of fully
+     * connected layers of WeightedSum neurons
+     */
+    public static FlatNetwork compile(NeuralNetwork<?> neuralNetwork) {
+        return new FlatNetwork(neuralNetwork);
+    }
+
+    private static int[] positionsOf(List<Neuron> neurons, Map<Neuron, Integer> positions, String message) {
+        int[] result = new int[neurons.size()];
+        for (int i = 0; i < result.length; i++) {
+            Integer position = positions.get(neurons.get(i));
+            if (position == null) {
+                throw new IllegalArgumentException(message);
+            }
+            result[i] = position;
+        }
+        return result;
+    }
+
+    private void setTransferFunction(int l, int j, TransferFunction function) {
+        Class<?> type = function.getClass();
+        if (type == Linear.class) {
+            functionTypes[l][j] = LINEAR;
+            slopes[l][j] = ((Linear) function).getSlope();
+        } else if (type == Sigmoid.class) {
+            functionTypes[l][j] = SIGMOID;
+            slopes[l][j] = ((Sigmoid) function).getSlope();
+        } else if (type == Tanh.class) {
+            functionTypes[l][j] = TANH;
+            slopes[l][j] = ((Tanh) function).getSlope();
+            amplitudes[l][j] = ((Tanh) function).getAmplitude();
+        } else if (type == RectifiedLinear.class) {
+            functionTypes[l][j] = RELU;
+        } else {
+            // computed by the neuron's own function object, one call at a time
+            functionTypes[l][j] = OTHER;
+            functions[l][j] = function;
+        }
+    }
+
+    /**
+     * Returns type of transfer function shared by all neurons of the layer,
+     * or OTHER if they differ and must be calculated one by one.
+     */
+    private int layerFunctionType(int l) {
+        if (layerSizes[l] == 0) {
+            return OTHER;
+        }
+        int type = functionTypes[l][0];
+        for (int j = 1; j < layerSizes[l]; j++) {
+            if (functionTypes[l][j] != type || slopes[l][j] != slopes[l][0] || amplitudes[l][j] != amplitudes[l][0]) {
+                return OTHER;
+            }
+        }
+        return type;
+    }
+
+    /**
+     * Returns the network this one was compiled from.
+     */
+    public NeuralNetwork<?> getNeuralNetwork() {
+        return neuralNetwork;
+    }
+
+    public Kernel getKernel() {
+        return kernel;
+    }
+
+    /**
+     * Sets kernel used for the calculations, by default
+     * {@link Kernel#getDefault()}.
+     */
+    public void setKernel(Kernel kernel) {
+        if (kernel == null) {
+            throw new IllegalArgumentException("Kernel cannot be null!");
+        }
+        this.kernel = kernel;
+    }
+
+    public int getLayersCount() {
+        return layerSizes.length;
+    }
+
+    /**
+     * Returns number of neurons in given layer, bias neuron excluded.
+     */
+    public int getLayerSize(int layerIdx) {
+        return layerSizes[layerIdx];
+    }
+
+    public int getInputsCount() {
+        return inputPositions.length;
+    }
+
+    public int getOutputsCount() {
+        return outputPositions.length;
+    }
+
+    int getInputPosition(int inputIdx) {
+        return inputPositions[inputIdx];
+    }
+
+    int getOutputPosition(int outputIdx) {
+        return outputPositions[outputIdx];
+    }
+
+    /**
+     * Returns type of transfer function of all neurons of the layer, or OTHER
+     * if they differ.
+     */
+    int getLayerFunctionType(int layerIdx) {
+        return layerFunctionTypes[layerIdx];
+    }
+
+    int getFunctionType(int layerIdx, int neuronIdx) {
+        return functionTypes[layerIdx][neuronIdx];
+    }
+
+    double getSlope(int layerIdx, int neuronIdx) {
+        return slopes[layerIdx][neuronIdx];
+    }
+
+    double getAmplitude(int layerIdx, int neuronIdx) {
+        return amplitudes[layerIdx][neuronIdx];
+    }
+
+    TransferFunction getFunction(int layerIdx, int neuronIdx) {
+        return functions[layerIdx][neuronIdx];
+    }
+
+    /**
+     * Returns weights of given layer, which must be greater than 0. Weight
+     * from neuron i of the previous layer to neuron j is at
+     * j * getLayerSize(layerIdx - 1) + i and bias of neuron j is at
+     * getBiasOffset(layerIdx) + j. Changes are used by the following
+     * calculations and copied to the network by {@link #writeBack()}.
+     */
+    public double[] getWeights(int layerIdx) {
+        return weights[layerIdx];
+    }
+
+    /**
+     * Returns index of the bias vector in the weights of given layer.
+     */
+    public int getBiasOffset(int layerIdx) {
+        return layerSizes[layerIdx] * layerSizes[layerIdx - 1];
+    }
+
+    /**
+     * Copies weights from the network, for example after they were changed
+     * there.
+     */
+    public final void readWeights() {
+        for (int l = 1; l < weights.length; l++) {
+            for (int k = 0; k < weights[l].length; k++) {
+                weights[l][k] = weightObjects[l][k] != null ? weightObjects[l][k].value : 0;
+            }
+        }
+    }
+
+    /**
+     * Copies weights to the network, so that it can be used, saved or
+     * evaluated as usual.
+     */
+    public void writeBack() {
+        for (int l = 1; l < weights.length; l++) {
+            for (int k = 0; k < weights[l].length; k++) {
+                if (weightObjects[l][k] != null) {
+                    weightObjects[l][k].value = weights[l][k];
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates arrays shaped like the layer weights, for gradients and weight
+     * changes. The array for layer 0 is empty.
+     */
+    public double[][] newWeightArrays() {
+        double[][] arrays = new double[weights.length][];
+        arrays[0] = new double[0];
+        for (int l = 1; l < weights.length; l++) {
+            arrays[l] = new double[weights[l].length];
+        }
+        return arrays;
+    }
+
+    /**
+     * Creates buffers for up to given number of patterns.
+     */
+    public Batch newBatch(int capacity) {
+        return new Batch(capacity);
+    }
+
+    /**
+     * Calculates network output for one pattern. Returned array is reused by
+     * the next call, so threads sharing the network must use their own
+     * batches instead.
+     */
+    public double[] calculate(double[] input) {
+        if (single == null) {
+            single = new Batch(1);
+            output = new double[outputPositions.length];
+        }
+        single.setInput(0, input);
+        forward(single, 1);
+        single.getOutput(0, output);
+        return output;
+    }
+
+    /**
+     * Calculates outputs of all layers for the first count patterns of the
+     * batch.
+     */
+    public void forward(Batch batch, int count) {
+        for (int l = 1; l < layerSizes.length; l++) {
+            int size = layerSizes[l];
+            int previousSize = layerSizes[l - 1];
+            int biasOffset = size * previousSize;
+            double[] w = weights[l];
+            double[] inputs = batch.outputs[l - 1];
+            double[] outputs = batch.outputs[l];
+            for (int r = 0; r < count; r++) {
+                // bias is added last, like the connection from a bias neuron
+                kernel.matrixVector(w, size, previousSize, inputs, r * previousSize, outputs, r * size);
+                kernel.axpy(1, w, biasOffset, outputs, r * size, size);
+            }
+            activate(l, outputs, batch.derivatives[l], count * size);
+        }
+    }
+
+    /**
+     * Replaces weighted sums of the layer with neuron outputs and calculates
+     * the derivatives.
+     */
+    private void activate(int l, double[] values, double[] derivatives, int length) {
+        switch (layerFunctionTypes[l]) {
+            case LINEAR:
+                kernel.linear(values, derivatives, 0, length, slopes[l][0]);
+                break;
+            case SIGMOID:
+                kernel.sigmoid(values, derivatives, 0, length, slopes[l][0]);
+                break;
+            case TANH:
+                kernel.tanh(values, derivatives, 0, length, slopes[l][0], amplitudes[l][0]);
+                break;
+            case RELU:
+                kernel.relu(values, derivatives, 0, length);
+                break;
+            default:
+                int size = layerSizes[l];
+                for (int k = 0; k < length; k++) {
+                    activate(l, k % size, values[k], values, derivatives, k);
+                }
+        }
+    }
+
+    private void activate(int l, int j, double net, double[] outputs, double[] derivatives, int k) {
+        double slope = slopes[l][j];
+        switch (functionTypes[l][j]) {
+            case LINEAR:
+                outputs[k] = slope * net;
+                derivatives[k] = slope;
+                break;
+            case SIGMOID:
+                if (net > 100) {
+                    outputs[k] = 1;
+                    derivatives[k] = 0;
+                } else if (net < -100) {
+                    outputs[k] = 0;
+                    derivatives[k] = 0;
+                } else {
+                    double output = 1 / (1 + Math.exp(-slope * net));
+                    outputs[k] = output;
+                    derivatives[k] = slope * output * (1 - output);
+                }
+                break;
+            case TANH:
+                if (Math.abs(net) * slope > 100) {
+                    outputs[k] = Math.signum(net);
+                    derivatives[k] = 0;
+                } else {
+                    double e = Math.exp(2 * slope * net);
+                    double tanh = (e - 1) / (e + 1);
+                    outputs[k] = amplitudes[l][j] * tanh;
+                    derivatives[k] = amplitudes[l][j] * slope * (1 - tanh * tanh);
+                }
+                break;
+            case RELU:
+                outputs[k] = Math.max(0, net);
+                derivatives[k] = net > Double.MIN_VALUE ? 1 : 0;
+                break;
+            default:
+                outputs[k] = functions[l][j].getOutput(net);
+                derivatives[k] = functions[l][j].getDerivative(net);
+        }
+    }
+
+    /**
+     * Propagates output errors set with {@link Batch#setOutputError} back
+     * through the layers, and adds gradients of the first count patterns to
+     * given arrays. Gradient of a weight is the sum over the patterns of the
+     * delta of its neuron times its input, so the weight change of plain
+     * gradient descent is -learningRate * gradient / count.
+     */
+    public void backward(Batch batch, int count, double[][] gradients) {
+        int last = layerSizes.length - 1;
+        kernel.multiply(batch.derivatives[last], 0, batch.deltas[last], 0, count * layerSizes[last]);
+
+        for (int l = last; l > 0; l--) {
+            int size = layerSizes[l];
+            int previousSize = layerSizes[l - 1];
+            int biasOffset = size * previousSize;
+            double[] w = weights[l];
+            double[] deltas = batch.deltas[l];
+            double[] inputs = batch.outputs[l - 1];
+            double[] gradient = gradients[l];
+            double[] previousDeltas = batch.deltas[l - 1];
+            boolean hidden = l > 1;
+
+            if (hidden) {
+                Arrays.fill(previousDeltas, 0, count * previousSize, 0);
+            }
+            for (int r = 0; r < count; r++) {
+                int offset = r * size;
+                int inputOffset = r * previousSize;
+                for (int j = 0; j < size; j++) {
+                    double delta = deltas[offset + j];
+                    if (delta == 0) {
+                        continue;
+                    }
+                    kernel.axpy(delta, inputs, inputOffset, gradient, j * previousSize, previousSize);
+                    gradient[biasOffset + j] += delta;
+                    if (hidden) {
+                        kernel.axpy(delta, w, j * previousSize, previousDeltas, inputOffset, previousSize);
+                    }
+                }
+            }
+            if (hidden) {
+                kernel.multiply(batch.derivatives[l - 1], 0, previousDeltas, 0, count * previousSize);
+            }
+        }
+    }
+
+    /**
+     * Inputs, outputs and deltas of all layers for a number of patterns, each
+     * layer in one array with a row per pattern. A batch belongs to one thread,
+     * while the network weights can be shared.
+     */
+    public final class Batch {
+
+        private final int capacity;
+        private final double[][] outputs;
+        private final double[][] derivatives;
+        private final double[][] deltas;
+
+        private Batch(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Batch capacity cannot be <= 0 : " + capacity);
+            }
+            this.capacity = capacity;
+            int layersCount = layerSizes.length;
+            outputs = new double[layersCount][];
+            derivatives = new double[layersCount][];
+            deltas = new double[layersCount][];
+            for (int l = 0; l < layersCount; l++) {
+                outputs[l] = new double[capacity * layerSizes[l]];
+                derivatives[l] = new double[capacity * layerSizes[l]];
+                deltas[l] = new double[capacity * layerSizes[l]];
+            }
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * Sets network input for given pattern.
+         */
+        public void setInput(int row, double[] input) {
+            double[] layerOutputs = outputs[0];
+            int offset = row * layerSizes[0];
+            for (int i = 0; i < inputPositions.length; i++) {
+                layerOutputs[offset + inputPositions[i]] = input[i];
+            }
+        }
+
+        /**
+         * Copies network output for given pattern to the target array.
+         */
+        public void getOutput(int row, double[] target) {
+            int last = layerSizes.length - 1;
+            double[] layerOutputs = outputs[last];
+            int offset = row * layerSizes[last];
+            for (int i = 0; i < outputPositions.length; i++) {
+                target[i] = layerOutputs[offset + outputPositions[i]];
+            }
+        }
+
+        /**
+         * Sets output error for given pattern, which is network output minus
+         * desired output for the mean squared error.
+         */
+        public void setOutputError(int row, double[] error) {
+            int last = layerSizes.length - 1;
+            double[] layerDeltas = deltas[last];
+            int offset = row * layerSizes[last];
+            for (int j = 0; j < layerSizes[last]; j++) {
+                layerDeltas[offset + j] = 0;
+            }
+            for (int i = 0; i < outputPositions.length; i++) {
+                layerDeltas[offset + outputPositions[i]] = error[i];
+            }
+        }
+    }
+}
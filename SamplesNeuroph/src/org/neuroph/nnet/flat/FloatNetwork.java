@@ -0,0 +1,379 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.flat;
+
+import java.util.Arrays;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.transfer.TransferFunction;
+
+/**
+ * Single precision version of a {@link FlatNetwork}, with the same layout of
+ * weight matrices and bias vectors in float arrays. Weights, layer outputs,
+ * deltas and gradients are float, which halves the memory they take and the
+ * memory traffic of the calculations. It does not make predictions faster on
+ * the HotSpot JVM, which adds up the weighted sums one product at a time in
+ * either precision, so it is meant for networks and data that take too much
+ * memory in double.
+ *
+ * Calculations use the float methods of the {@link Kernel} of the flat
+ * network. Weighted sums of the forward pass are accumulated in float by
+ * default. With setDoubleAccumulation(true) they are accumulated in double and
+ * rounded once, which keeps long sums as accurate as in the double network
+ * while still reading float values. Deltas and gradients are always summed in
+ * float, and transfer functions are always calculated in double.
+ */
+public class FloatNetwork {
+
+    private final FlatNetwork flatNetwork;
+    private final int[] layerSizes;
+    private final float[][] weights;
+    private boolean doubleAccumulation;
+
+    private Batch single;
+    private double[] output;
+
+    /**
+     * Creates float copy of the given flat network, rounding its weights.
+     */
+    public FloatNetwork(FlatNetwork flatNetwork) {
+        this.flatNetwork = flatNetwork;
+        int layersCount = flatNetwork.getLayersCount();
+        layerSizes = new int[layersCount];
+        weights = new float[layersCount][];
+        for (int l = 0; l < layersCount; l++) {
+            layerSizes[l] = flatNetwork.getLayerSize(l);
+            weights[l] = new float[l > 0 ? flatNetwork.getWeights(l).length : 0];
+        }
+        readWeights();
+    }
+
+    /**
+     * Compiles the given layered network, see {@link FlatNetwork#compile}.
+     */
+    public static FloatNetwork compile(NeuralNetwork<?> neuralNetwork) {
+        return new FloatNetwork(FlatNetwork.compile(neuralNetwork));
+    }
+
+    public FlatNetwork getFlatNetwork() {
+        return flatNetwork;
+    }
+
+    public int getLayersCount() {
+        return layerSizes.length;
+    }
+
+    public int getLayerSize(int layerIdx) {
+        return layerSizes[layerIdx];
+    }
+
+    public int getInputsCount() {
+        return flatNetwork.getInputsCount();
+    }
+
+    public int getOutputsCount() {
+        return flatNetwork.getOutputsCount();
+    }
+
+    /**
+     * Returns weights of given layer, laid out as in
+     * {@link FlatNetwork#getWeights(int)}.
+     */
+    public float[] getWeights(int layerIdx) {
+        return weights[layerIdx];
+    }
+
+    public int getBiasOffset(int layerIdx) {
+        return flatNetwork.getBiasOffset(layerIdx);
+    }
+
+    public boolean isDoubleAccumulation() {
+        return doubleAccumulation;
+    }
+
+    /**
+     * Sets whether weighted sums of the forward pass are accumulated in
+     * double.
+     */
+    public void setDoubleAccumulation(boolean doubleAccumulation) {
+        this.doubleAccumulation = doubleAccumulation;
+    }
+
+    /**
+     * Copies weights from the flat network, rounding them to float.
+     */
+    public final void readWeights() {
+        for (int l = 1; l < weights.length; l++) {
+            double[] source = flatNetwork.getWeights(l);
+            for (int k = 0; k < source.length; k++) {
+                weights[l][k] = (float) source[k];
+            }
+        }
+    }
+
+    /**
+     * Copies weights to the flat network and from it to the neural network,
+     * so that it can be saved or evaluated as usual.
+     */
+    public void writeBack() {
+        for (int l = 1; l < weights.length; l++) {
+            double[] target = flatNetwork.getWeights(l);
+            for (int k = 0; k < target.length; k++) {
+                target[k] = weights[l][k];
+            }
+        }
+        flatNetwork.writeBack();
+    }
+
+    /**
+     * Creates arrays shaped like the layer weights, for gradients and weight
+     * changes. The array for layer 0 is empty.
+     */
+    public float[][] newWeightArrays() {
+        float[][] arrays = new float[weights.length][];
+        for (int l = 0; l < weights.length; l++) {
+            arrays[l] = new float[weights[l].length];
+        }
+        return arrays;
+    }
+
+    public Batch newBatch(int capacity) {
+        return new Batch(capacity);
+    }
+
+    /**
+     * Calculates network output for one pattern. Returned array is reused by
+     * the next call, so threads sharing the network must use their own
+     * batches instead.
+     */
+    public double[] calculate(double[] input) {
+        if (single == null) {
+            single = new Batch(1);
+            output = new double[getOutputsCount()];
+        }
+        single.setInput(0, input);
+        predict(single, 1);
+        single.getOutput(0, output);
+        return output;
+    }
+
+    /**
+     * Calculates outputs of all layers for the first count patterns of the
+     * batch, with the kernel of the flat network.
+     */
+    public void forward(Batch batch, int count) {
+        forward(batch, count, true);
+    }
+
+    /**
+     * Calculates outputs of all layers for the first count patterns of the
+     * batch, like forward() but without the derivatives, which only learning
+     * needs.
+     */
+    public void predict(Batch batch, int count) {
+        forward(batch, count, false);
+    }
+
+    private void forward(Batch batch, int count, boolean withDerivatives) {
+        Kernel kernel = flatNetwork.getKernel();
+        for (int l = 1; l < layerSizes.length; l++) {
+            int size = layerSizes[l];
+            int previousSize = layerSizes[l - 1];
+            int biasOffset = size * previousSize;
+            float[] w = weights[l];
+            float[] inputs = batch.outputs[l - 1];
+            float[] outputs = batch.outputs[l];
+            for (int r = 0; r < count; r++) {
+                if (doubleAccumulation) {
+                    kernel.matrixVectorDoubleSums(w, size, previousSize, inputs, r * previousSize, outputs, r * size);
+                } else {
+                    kernel.matrixVector(w, size, previousSize, inputs, r * previousSize, outputs, r * size);
+                }
+                kernel.axpy(1f, w, biasOffset, outputs, r * size, size);
+            }
+            activate(kernel, l, outputs, withDerivatives ? batch.derivatives[l] : null, count * size);
+        }
+    }
+
+    /**
+     * Replaces weighted sums of the layer with neuron outputs and calculates
+     * the derivatives unless they are null, for the whole layer at once when
+     * all its neurons have the same transfer function.
+     */
+    private void activate(Kernel kernel, int l, float[] values, float[] derivatives, int length) {
+        if (flatNetwork.getLayerFunctionType(l) != FlatNetwork.OTHER) {
+            activate(kernel, l, 0, values, derivatives, 0, length);
+        } else {
+            int size = layerSizes[l];
+            for (int k = 0; k < length; k++) {
+                activate(kernel, l, k % size, values, derivatives, k, 1);
+            }
+        }
+    }
+
+    private void activate(Kernel kernel, int l, int j, float[] values, float[] derivatives, int offset, int length) {
+        switch (flatNetwork.getFunctionType(l, j)) {
+            case FlatNetwork.LINEAR:
+                kernel.linear(values, derivatives, offset, length, flatNetwork.getSlope(l, j));
+                break;
+            case FlatNetwork.SIGMOID:
+                kernel.sigmoid(values, derivatives, offset, length, flatNetwork.getSlope(l, j));
+                break;
+            case FlatNetwork.TANH:
+                kernel.tanh(values, derivatives, offset, length, flatNetwork.getSlope(l, j), flatNetwork.getAmplitude(l, j));
+                break;
+            case FlatNetwork.RELU:
+                kernel.relu(values, derivatives, offset, length);
+                break;
+            default:
+                TransferFunction function = flatNetwork.getFunction(l, j);
+                for (int k = offset, end = offset + length; k < end; k++) {
+                    double net = values[k];
+                    values[k] = (float) function.getOutput(net);
+                    if (derivatives != null) {
+                        derivatives[k] = (float) function.getDerivative(net);
+                    }
+                }
+        }
+    }
+
+    /**
+     * Propagates output errors set with {@link Batch#setOutputError} back
+     * through the layers, and adds gradients of the first count patterns to
+     * given arrays, as {@link FlatNetwork#backward} does.
+     */
+    public void backward(Batch batch, int count, float[][] gradients) {
+        Kernel kernel = flatNetwork.getKernel();
+        int last = layerSizes.length - 1;
+        kernel.multiply(batch.derivatives[last], 0, batch.deltas[last], 0, count * layerSizes[last]);
+
+        for (int l = last; l > 0; l--) {
+            int size = layerSizes[l];
+            int previousSize = layerSizes[l - 1];
+            int biasOffset = size * previousSize;
+            float[] w = weights[l];
+            float[] deltas = batch.deltas[l];
+            float[] inputs = batch.outputs[l - 1];
+            float[] gradient = gradients[l];
+            float[] previousDeltas = batch.deltas[l - 1];
+            boolean hidden = l > 1;
+
+            if (hidden) {
+                Arrays.fill(previousDeltas, 0, count * previousSize, 0);
+            }
+            for (int r = 0; r < count; r++) {
+                int offset = r * size;
+                int inputOffset = r * previousSize;
+                for (int j = 0; j < size; j++) {
+                    float delta = deltas[offset + j];
+                    if (delta == 0) {
+                        continue;
+                    }
+                    kernel.axpy(delta, inputs, inputOffset, gradient, j * previousSize, previousSize);
+                    gradient[biasOffset + j] += delta;
+                    if (hidden) {
+                        kernel.axpy(delta, w, j * previousSize, previousDeltas, inputOffset, previousSize);
+                    }
+                }
+            }
+            if (hidden) {
+                kernel.multiply(batch.derivatives[l - 1], 0, previousDeltas, 0, count * previousSize);
+            }
+        }
+    }
+
+    /**
+     * Float inputs, outputs and deltas of all layers for a number of patterns,
+     * laid out as in {@link FlatNetwork.Batch}.
+     */
+    public final class Batch {
+
+        private final int capacity;
+        private final float[][] outputs;
+        private final float[][] derivatives;
+        private final float[][] deltas;
+
+        private Batch(int capacity) {
+            if (capacity <= 0) {
+                throw new IllegalArgumentException("Batch capacity cannot be <= 0 : " + capacity);
+            }
+            this.capacity = capacity;
+            int layersCount = layerSizes.length;
+            outputs = new float[layersCount][];
+            derivatives = new float[layersCount][];
+            deltas = new float[layersCount][];
+            for (int l = 0; l < layersCount; l++) {
+                outputs[l] = new float[capacity * layerSizes[l]];
+                derivatives[l] = new float[capacity * layerSizes[l]];
+                deltas[l] = new float[capacity * layerSizes[l]];
+            }
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * Sets network input for given pattern, rounding it to float.
+         */
+        public void setInput(int row, double[] input) {
+            float[] layerOutputs = outputs[0];
+            int offset = row * layerSizes[0];
+            for (int i = 0; i < input.length; i++) {
+                layerOutputs[offset + flatNetwork.getInputPosition(i)] = (float) input[i];
+            }
+        }
+
+        /**
+         * Sets network input for given pattern from an array of float rows,
+         * such as the data of a FloatPackedDataSet.
+         */
+        public void setInput(int row, float[] data, int dataOffset) {
+            float[] layerOutputs = outputs[0];
+            int offset = row * layerSizes[0];
+            for (int i = 0, n = getInputsCount(); i < n; i++) {
+                layerOutputs[offset + flatNetwork.getInputPosition(i)] = data[dataOffset + i];
+            }
+        }
+
+        /**
+         * Copies network output for given pattern to the target array.
+         */
+        public void getOutput(int row, double[] target) {
+            int last = layerSizes.length - 1;
+            float[] layerOutputs = outputs[last];
+            int offset = row * layerSizes[last];
+            for (int i = 0; i < target.length; i++) {
+                target[i] = layerOutputs[offset + flatNetwork.getOutputPosition(i)];
+            }
+        }
+
+        /**
+         * Sets output error for given pattern, which is network output minus
+         * desired output for the mean squared error.
+         */
+        public void setOutputError(int row, double[] error) {
+            int last = layerSizes.length - 1;
+            float[] layerDeltas = deltas[last];
+            int offset = row * layerSizes[last];
+            for (int j = 0; j < layerSizes[last]; j++) {
+                layerDeltas[offset + j] = 0;
+            }
+            for (int i = 0; i < error.length; i++) {
+                layerDeltas[offset + flatNetwork.getOutputPosition(i)] = (float) error[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,358 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.flat;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Array operations used by the forward and backward passes of a
+ * {@link FlatNetwork}. This class implements them with plain loops, and
+ * subclasses can replace them with faster versions, for example ones using
+ * SIMD instructions.
+ *
+ * The kernel used by new flat networks is chosen with the neuroph.kernel
+ * system property: "scalar" for this class, "unrolled" for
+ * {@link UnrolledKernel}, which is the default, or the name of a Kernel
+ * subclass with a public no argument constructor. If that class cannot be
+ * loaded, for example because a module it needs is missing, the scalar kernel
+ * is used.
+ */
+public class Kernel {
+
+    public static final String KERNEL_PROPERTY = "neuroph.kernel";
+
+    private static final Kernel SCALAR = new Kernel();
+    private static final Kernel UNROLLED = new UnrolledKernel();
+    private static volatile Kernel defaultKernel;
+
+    protected Kernel() {
+    }
+
+    /**
+     * Returns the kernel selected by the neuroph.kernel system property.
+     */
+    public static Kernel getDefault() {
+        Kernel kernel = defaultKernel;
+        if (kernel == null) {
+            kernel = forName(System.getProperty(KERNEL_PROPERTY, "unrolled"));
+            defaultKernel = kernel;
+        }
+        return kernel;
+    }
+
+    /**
+     * Sets the kernel used by flat networks created from now on.
+     */
+    public static void setDefault(Kernel kernel) {
+        if (kernel == null) {
+            throw new IllegalArgumentException("Kernel cannot be null!");
+        }
+        defaultKernel = kernel;
+    }
+
+    /**
+     * Returns kernel for "scalar", "unrolled" or a class name, falling back to
+     * the scalar kernel when the class cannot be used.
+     */
+    public static Kernel forName(String name) {
+        if ("scalar".equals(name)) {
+            return SCALAR;
+        }
+        if ("unrolled".equals(name)) {
+            return UNROLLED;
+        }
+        try {
+            return (Kernel) Class.forName(name).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException | LinkageError ex) {
+            Logger.getLogger(Kernel.class.getName()).log(Level.WARNING, "Kernel " + name + " is not available, using scalar kernel", ex);
+            return SCALAR;
+        }
+    }
+
+    public static Kernel scalar() {
+        return SCALAR;
+    }
+
+    public static Kernel unrolled() {
+        return UNROLLED;
+    }
+
+    /**
+     * Returns sum of products of length elements of the arrays.
+     */
+    public double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * Multiplies row major matrix with rows x columns elements by the vector,
+     * putting rows results into the result array.
+     */
+    public void matrixVector(double[] matrix, int rows, int columns, double[] vector, int vectorOffset, double[] result, int resultOffset) {
+        for (int j = 0; j < rows; j++) {
+            result[resultOffset + j] = dot(matrix, j * columns, vector, vectorOffset, columns);
+        }
+    }
+
+    /**
+     * Adds alpha times x to y.
+     */
+    public void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+    /**
+     * Multiplies elements of y by the elements of x.
+     */
+    public void multiply(double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            y[yOffset + i] *= x[xOffset + i];
+        }
+    }
+
+    /**
+     * Replaces weighted sums with Sigmoid outputs, and puts the derivatives
+     * into the derivatives array at the same positions.
+     */
+    public void sigmoid(double[] values, double[] derivatives, int offset, int length, double slope) {
+        for (int k = offset, end = offset + length; k < end; k++) {
+            double net = values[k];
+            if (net > 100) {
+                values[k] = 1;
+                derivatives[k] = 0;
+            } else if (net < -100) {
+                values[k] = 0;
+                derivatives[k] = 0;
+            } else {
+                double output = 1 / (1 + Math.exp(-slope * net));
+                values[k] = output;
+                derivatives[k] = slope * output * (1 - output);
+            }
+        }
+    }
+
+    /**
+     * Replaces weighted sums with Tanh outputs, and puts the derivatives into
+     * the derivatives array at the same positions.
+     */
+    public void tanh(double[] values, double[] derivatives, int offset, int length, double slope, double amplitude) {
+        for (int k = offset, end = offset + length; k < end; k++) {
+            double net = values[k];
+            if (Math.abs(net) * slope > 100) {
+                values[k] = Math.signum(net);
+                derivatives[k] = 0;
+            } else {
+                double e = Math.exp(2 * slope * net);
+                double tanh = (e - 1) / (e + 1);
+                values[k] = amplitude * tanh;
+                derivatives[k] = amplitude * slope * (1 - tanh * tanh);
+            }
+        }
+    }
+
+    /**
+     * Replaces weighted sums with Linear outputs and sets the derivatives.
+     */
+    public void linear(double[] values, double[] derivatives, int offset, int length, double slope) {
+        for (int k = offset, end = offset + length; k < end; k++) {
+            values[k] = slope * values[k];
+            derivatives[k] = slope;
+        }
+    }
+
+    /**
+     * Replaces weighted sums with RectifiedLinear outputs and sets the
+     * derivatives.
+     */
+    public void relu(double[] values, double[] derivatives, int offset, int length) {
+        for (int k = offset, end = offset + length; k < end; k++) {
+            double net = values[k];
+            values[k] = Math.max(0, net);
+            derivatives[k] = net > Double.MIN_VALUE ? 1 : 0;
+        }
+    }
+
+    /**
+     * Returns sum of products of length elements of the float arrays, summed
+     * in float.
+     */
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+
+    /**
+     * Multiplies row major float matrix by the vector, as
+     * {@link #matrixVector(double[], int, int, double[], int, double[], int)}
+     * does, with sums in float.
+     */
+    public void matrixVector(float[] matrix, int rows, int columns, float[] vector, int vectorOffset, float[] result, int resultOffset) {
+        for (int j = 0; j < rows; j++) {
+            result[resultOffset + j] = dot(matrix, j * columns, vector, vectorOffset, columns);
+        }
+    }
+
+    /**
+     * Multiplies row major float matrix by the vector with sums in double,
+     * rounding each result once.
+     */
+    public void matrixVectorDoubleSums(float[] matrix, int rows, int columns, float[] vector, int vectorOffset, float[] result, int resultOffset) {
+        for (int j = 0; j < rows; j++) {
+            int row = j * columns;
+            double sum = 0;
+            for (int i = 0; i < columns; i++) {
+                sum += (double) matrix[row + i] * vector[vectorOffset + i];
+            }
+            result[resultOffset + j] = (float) sum;
+        }
+    }
+
+    /**
+     * Adds alpha times x to y, in float.
+     */
+    public void axpy(float alpha, float[] x, int xOffset, float[] y, int yOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+    /**
+     * Multiplies elements of float array y by the elements of x.
+     */
+    public void multiply(float[] x, int xOffset, float[] y, int yOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            y[yOffset + i] *= x[xOffset + i];
+        }
+    }
+
+    /**
+     * Float version of {@link #sigmoid(double[], double[], int, int, double)},
+     * calculating the function in double. Derivatives can be null when only
+     * the outputs are needed, for example for predictions.
+     */
+    public void sigmoid(float[] values, float[] derivatives, int offset, int length, double slope) {
+        if (derivatives == null) {
+            for (int k = offset, end = offset + length; k < end; k++) {
+                float net = values[k];
+                if (net > 100) {
+                    values[k] = 1;
+                } else if (net < -100) {
+                    values[k] = 0;
+                } else {
+                    values[k] = (float) (1 / (1 + Math.exp(-slope * net)));
+                }
+            }
+            return;
+        }
+        for (int k = offset, end = offset + length; k < end; k++) {
+            float net = values[k];
+            if (net > 100) {
+                values[k] = 1;
+                derivatives[k] = 0;
+            } else if (net < -100) {
+                values[k] = 0;
+                derivatives[k] = 0;
+            } else {
+                double output = 1 / (1 + Math.exp(-slope * net));
+                values[k] = (float) output;
+                derivatives[k] = (float) (slope * output * (1 - output));
+            }
+        }
+    }
+
+    /**
+     * Float version of
+     * {@link #tanh(double[], double[], int, int, double, double)}, calculating
+     * the function in double. Derivatives can be null when only the outputs
+     * are needed.
+     */
+    public void tanh(float[] values, float[] derivatives, int offset, int length, double slope, double amplitude) {
+        if (derivatives == null) {
+            for (int k = offset, end = offset + length; k < end; k++) {
+                float net = values[k];
+                if (Math.abs(net) * slope > 100) {
+                    values[k] = Math.signum(net);
+                } else {
+                    double e = Math.exp(2 * slope * net);
+                    values[k] = (float) (amplitude * (e - 1) / (e + 1));
+                }
+            }
+            return;
+        }
+        for (int k = offset, end = offset + length; k < end; k++) {
+            float net = values[k];
+            if (Math.abs(net) * slope > 100) {
+                values[k] = Math.signum(net);
+                derivatives[k] = 0;
+            } else {
+                double e = Math.exp(2 * slope * net);
+                double tanh = (e - 1) / (e + 1);
+                values[k] = (float) (amplitude * tanh);
+                derivatives[k] = (float) (amplitude * slope * (1 - tanh * tanh));
+            }
+        }
+    }
+
+    /**
+     * Float version of {@link #linear(double[], double[], int, int, double)}.
+     * Derivatives can be null when only the outputs are needed.
+     */
+    public void linear(float[] values, float[] derivatives, int offset, int length, double slope) {
+        if (derivatives == null) {
+            for (int k = offset, end = offset + length; k < end; k++) {
+                values[k] = (float) (slope * values[k]);
+            }
+            return;
+        }
+        for (int k = offset, end = offset + length; k < end; k++) {
+            values[k] = (float) (slope * values[k]);
+            derivatives[k] = (float) slope;
+        }
+    }
+
+    /**
+     * Float version of {@link #relu(double[], double[], int, int)}.
+     * Derivatives can be null when only the outputs are needed.
+     */
+    public void relu(float[] values, float[] derivatives, int offset, int length) {
+        if (derivatives == null) {
+            for (int k = offset, end = offset + length; k < end; k++) {
+                values[k] = Math.max(0, values[k]);
+            }
+            return;
+        }
+        for (int k = offset, end = offset + length; k < end; k++) {
+            float net = values[k];
+            values[k] = Math.max(0, net);
+            derivatives[k] = net > Double.MIN_VALUE ? 1 : 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "scalar";
+    }
+}
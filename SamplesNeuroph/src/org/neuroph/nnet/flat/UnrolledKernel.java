@@ -0,0 +1,190 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.flat;
+
+/**
+ * Kernel with loops unrolled so that the processor can work on several
+ * independent sums at once and the JIT compiler can use SIMD instructions for
+ * the element wise loops.
+ *
+ * The matrix vector product computes four rows together, each row still
+ * summed from left to right, so it gives exactly the results of the scalar
+ * kernel. Only dot() splits its sum into four partial sums, which can change
+ * the last bits of the result. Float sums are unrolled the same way, while the
+ * float axpy() is left as the plain loop, which the JIT compiler vectorizes
+ * itself and which is several times faster than the unrolled one.
+ */
+public class UnrolledKernel extends Kernel {
+
+    @Override
+    public double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum0 = 0;
+        double sum1 = 0;
+        double sum2 = 0;
+        double sum3 = 0;
+        int i = 0;
+        for (int end = length - 3; i < end; i += 4) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+            sum1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            sum2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            sum3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    @Override
+    public void matrixVector(double[] matrix, int rows, int columns, double[] vector, int vectorOffset, double[] result, int resultOffset) {
+        int j = 0;
+        for (; j + 3 < rows; j += 4) {
+            int row0 = j * columns;
+            int row1 = row0 + columns;
+            int row2 = row1 + columns;
+            int row3 = row2 + columns;
+            double sum0 = 0;
+            double sum1 = 0;
+            double sum2 = 0;
+            double sum3 = 0;
+            for (int i = 0; i < columns; i++) {
+                double x = vector[vectorOffset + i];
+                sum0 += matrix[row0 + i] * x;
+                sum1 += matrix[row1 + i] * x;
+                sum2 += matrix[row2 + i] * x;
+                sum3 += matrix[row3 + i] * x;
+            }
+            result[resultOffset + j] = sum0;
+            result[resultOffset + j + 1] = sum1;
+            result[resultOffset + j + 2] = sum2;
+            result[resultOffset + j + 3] = sum3;
+        }
+        for (; j < rows; j++) {
+            int row = j * columns;
+            double sum = 0;
+            for (int i = 0; i < columns; i++) {
+                sum += matrix[row + i] * vector[vectorOffset + i];
+            }
+            result[resultOffset + j] = sum;
+        }
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        int i = 0;
+        for (int end = length - 3; i < end; i += 4) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+            y[yOffset + i + 1] += alpha * x[xOffset + i + 1];
+            y[yOffset + i + 2] += alpha * x[xOffset + i + 2];
+            y[yOffset + i + 3] += alpha * x[xOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            y[yOffset + i] += alpha * x[xOffset + i];
+        }
+    }
+
+    @Override
+    public float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum0 = 0;
+        float sum1 = 0;
+        float sum2 = 0;
+        float sum3 = 0;
+        int i = 0;
+        for (int end = length - 3; i < end; i += 4) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+            sum1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            sum2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            sum3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+
+    @Override
+    public void matrixVector(float[] matrix, int rows, int columns, float[] vector, int vectorOffset, float[] result, int resultOffset) {
+        int j = 0;
+        for (; j + 3 < rows; j += 4) {
+            int row0 = j * columns;
+            int row1 = row0 + columns;
+            int row2 = row1 + columns;
+            int row3 = row2 + columns;
+            float sum0 = 0;
+            float sum1 = 0;
+            float sum2 = 0;
+            float sum3 = 0;
+            for (int i = 0; i < columns; i++) {
+                float x = vector[vectorOffset + i];
+                sum0 += matrix[row0 + i] * x;
+                sum1 += matrix[row1 + i] * x;
+                sum2 += matrix[row2 + i] * x;
+                sum3 += matrix[row3 + i] * x;
+            }
+            result[resultOffset + j] = sum0;
+            result[resultOffset + j + 1] = sum1;
+            result[resultOffset + j + 2] = sum2;
+            result[resultOffset + j + 3] = sum3;
+        }
+        for (; j < rows; j++) {
+            int row = j * columns;
+            float sum = 0;
+            for (int i = 0; i < columns; i++) {
+                sum += matrix[row + i] * vector[vectorOffset + i];
+            }
+            result[resultOffset + j] = sum;
+        }
+    }
+
+    @Override
+    public void matrixVectorDoubleSums(float[] matrix, int rows, int columns, float[] vector, int vectorOffset, float[] result, int resultOffset) {
+        int j = 0;
+        for (; j + 3 < rows; j += 4) {
+            int row0 = j * columns;
+            int row1 = row0 + columns;
+            int row2 = row1 + columns;
+            int row3 = row2 + columns;
+            double sum0 = 0;
+            double sum1 = 0;
+            double sum2 = 0;
+            double sum3 = 0;
+            for (int i = 0; i < columns; i++) {
+                double x = vector[vectorOffset + i];
+                sum0 += matrix[row0 + i] * x;
+                sum1 += matrix[row1 + i] * x;
+                sum2 += matrix[row2 + i] * x;
+                sum3 += matrix[row3 + i] * x;
+            }
+            result[resultOffset + j] = (float) sum0;
+            result[resultOffset + j + 1] = (float) sum1;
+            result[resultOffset + j + 2] = (float) sum2;
+            result[resultOffset + j + 3] = (float) sum3;
+        }
+        for (; j < rows; j++) {
+            int row = j * columns;
+            double sum = 0;
+            for (int i = 0; i < columns; i++) {
+                sum += (double) matrix[row + i] * vector[vectorOffset + i];
+            }
+            result[resultOffset + j] = (float) sum;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "unrolled";
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * AdaGrad learning rule. Sums the squared gradients of every weight over the
+ * whole learning and changes the weight by
+ *
+ * -learningRate * gradient / (sqrt(sumOfSquaredGradients) + epsilon)
+ *
+ * so steps of frequently changed weights shrink over time. Default learning
+ * rate is 0.01.
+ */
+public class AdaGradBackpropagation extends AdaptiveBackpropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient double[][] squareSums;
+
+    public AdaGradBackpropagation() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public AdaGradBackpropagation(int batchSize) {
+        super(batchSize, 0.01);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        squareSums = getFlatNetwork().newWeightArrays();
+    }
+
+    @Override
+    protected void saveState(List<double[]> state) {
+        super.saveState(state);
+        state.add(concat(squareSums));
+    }
+
+    @Override
+    protected void restoreState(Iterator<double[]> state) {
+        super.restoreState(state);
+        split(nextState(state), squareSums);
+    }
+
+    @Override
+    protected void updateWeights(double[][] gradients, double[][] previousChanges, int count) {
+        for (int l = 1; l < gradients.length; l++) {
+            double[] weights = getFlatNetwork().getWeights(l);
+            double[] gradient = gradients[l];
+            double[] squareSum = squareSums[l];
+            for (int k = 0; k < weights.length; k++) {
+                double g = gradient[k] / count;
+                squareSum[k] += g * g;
+                weights[k] -= learningRate * g / (Math.sqrt(squareSum[k]) + epsilon);
+                gradient[k] = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Adam learning rule. Keeps running averages of the gradients and of the
+ * squared gradients of every weight, corrects their bias towards zero in the
+ * first updates, and changes the weight by
+ *
+ * -learningRate * averageGradient / (sqrt(averageSquaredGradient) + epsilon)
+ *
+ * Default settings are learning rate 0.001, beta1 0.9 and beta2 0.999.
+ */
+public class AdamBackpropagation extends AdaptiveBackpropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    private double beta1 = 0.9;
+    private double beta2 = 0.999;
+
+    private transient double[][] averages;
+    private transient double[][] squareAverages;
+    private transient double beta1Power;
+    private transient double beta2Power;
+
+    public AdamBackpropagation() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public AdamBackpropagation(int batchSize) {
+        super(batchSize, 0.001);
+    }
+
+    public double getBeta1() {
+        return beta1;
+    }
+
+    /**
+     * Sets decay rate of the average gradient.
+     */
+    public void setBeta1(double beta1) {
+        this.beta1 = checkDecay("Beta1", beta1);
+    }
+
+    public double getBeta2() {
+        return beta2;
+    }
+
+    /**
+     * Sets decay rate of the average squared gradient.
+     */
+    public void setBeta2(double beta2) {
+        this.beta2 = checkDecay("Beta2", beta2);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        averages = getFlatNetwork().newWeightArrays();
+        squareAverages = getFlatNetwork().newWeightArrays();
+        beta1Power = 1;
+        beta2Power = 1;
+    }
+
+    @Override
+    protected void saveState(List<double[]> state) {
+        super.saveState(state);
+        state.add(concat(averages));
+        state.add(concat(squareAverages));
+        state.add(new double[]{beta1Power, beta2Power});
+    }
+
+    @Override
+    protected void restoreState(Iterator<double[]> state) {
+        super.restoreState(state);
+        split(nextState(state), averages);
+        split(nextState(state), squareAverages);
+        double[] powers = nextState(state);
+        beta1Power = powers[0];
+        beta2Power = powers[1];
+    }
+
+    @Override
+    protected void updateWeights(double[][] gradients, double[][] previousChanges, int count) {
+        beta1Power *= beta1;
+        beta2Power *= beta2;
+        // bias corrections are folded into the step size
+        double step = learningRate * Math.sqrt(1 - beta2Power) / (1 - beta1Power);
+        double scaledEpsilon = epsilon * Math.sqrt(1 - beta2Power);
+        for (int l = 1; l < gradients.length; l++) {
+            double[] weights = getFlatNetwork().getWeights(l);
+            double[] gradient = gradients[l];
+            double[] average = averages[l];
+            double[] squareAverage = squareAverages[l];
+            for (int k = 0; k < weights.length; k++) {
+                double g = gradient[k] / count;
+                average[k] = beta1 * average[k] + (1 - beta1) * g;
+                squareAverage[k] = beta2 * squareAverage[k] + (1 - beta2) * g * g;
+                weights[k] -= step * average[k] / (Math.sqrt(squareAverage[k]) + scaledEpsilon);
+                gradient[k] = 0;
+            }
+        }
+    }
+}
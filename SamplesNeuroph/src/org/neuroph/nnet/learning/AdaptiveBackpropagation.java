@@ -0,0 +1,81 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Base class for mini batch learning rules that adapt the step of every
+ * weight from the history of its gradients, like Adam, RMSProp and AdaGrad.
+ * Learning rate is the base step size, and momentum is not used. Steps are
+ * divided by the square root of a running sum of squared gradients plus
+ * epsilon, which keeps them finite for weights with no gradient yet.
+ * Previous weight changes are not kept, so subclasses save only their own
+ * state in checkpoints.
+ */
+public abstract class AdaptiveBackpropagation extends MiniBatchBackpropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final double DEFAULT_EPSILON = 1e-8;
+
+    protected double epsilon = DEFAULT_EPSILON;
+
+    protected AdaptiveBackpropagation(int batchSize, double learningRate) {
+        super(batchSize);
+        setLearningRate(learningRate);
+        setMomentum(0);
+    }
+
+    public double getEpsilon() {
+        return epsilon;
+    }
+
+    public void setEpsilon(double epsilon) {
+        if (epsilon <= 0) {
+            throw new IllegalArgumentException("Epsilon must be > 0 : " + epsilon);
+        }
+        this.epsilon = epsilon;
+    }
+
+    /**
+     * Creates only the batch learner, as the steps do not use previous weight
+     * changes.
+     */
+    @Override
+    protected void createLearningState() {
+        createLearner();
+    }
+
+    @Override
+    protected void saveState(List<double[]> state) {
+    }
+
+    @Override
+    protected void restoreState(Iterator<double[]> state) {
+    }
+
+    /**
+     * Returns decay rate checked to be in [0, 1).
+     */
+    static double checkDecay(String name, double decay) {
+        if (decay < 0 || decay >= 1) {
+            throw new IllegalArgumentException(name + " must be in [0, 1) : " + decay);
+        }
+        return decay;
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.IndexedDataSet;
+import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.learning.LearningRule;
+import org.neuroph.nnet.Ensemble;
+
+/**
+ * Bootstrap aggregating for an {@link Ensemble}. Every member is trained by
+ * its own learning rule on a bootstrap sample, which draws as many rows as
+ * the training set has, with replacement. Members are trained at the same
+ * time, one per thread.
+ *
+ * Samples are index views of the training set, or of the data set viewed by
+ * the training set if it is an {@link IndexedDataSet}, so all members share
+ * one copy of the rows, which must not be changed while learning. Samples are
+ * drawn before training starts from the random generator of this rule, so
+ * with seeded members and generator the results do not depend on the number
+ * of threads.
+ */
+public class BaggingLearning extends LearningRule {
+
+    private static final long serialVersionUID = 1L;
+
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+    private Random random = new Random();
+
+    private transient List<IndexedDataSet> samples;
+
+    public int getThreadsCount() {
+        return threadsCount;
+    }
+
+    /**
+     * Sets number of members trained at the same time, by default number of
+     * processors.
+     */
+    public void setThreadsCount(int threadsCount) {
+        if (threadsCount <= 0) {
+            throw new IllegalArgumentException("Threads count cannot be <= 0 : " + threadsCount);
+        }
+        this.threadsCount = threadsCount;
+    }
+
+    /**
+     * Sets random generator used to draw the samples.
+     */
+    public void setRandom(Random random) {
+        if (random == null) {
+            throw new IllegalArgumentException("Random cannot be null!");
+        }
+        this.random = random;
+    }
+
+    /**
+     * Returns samples of the last learning, one per member, or null before
+     * learning.
+     */
+    public List<IndexedDataSet> getSamples() {
+        return samples == null ? null : Collections.unmodifiableList(samples);
+    }
+
+    // the overridden method of the core takes a raw NeuralNetwork
+    @Override
+    @SuppressWarnings("rawtypes")
+    public void setNeuralNetwork(NeuralNetwork neuralNetwork) {
+        if (!(neuralNetwork instanceof Ensemble)) {
+            throw new IllegalArgumentException("Bagging learning needs an Ensemble!");
+        }
+        super.setNeuralNetwork(neuralNetwork);
+    }
+
+    @Override
+    public void learn(DataSet trainingSet) {
+        if (trainingSet.isEmpty()) {
+            throw new IllegalArgumentException("Training set is empty!");
+        }
+        setTrainingSet(trainingSet);
+        onStart();
+        List<NeuralNetwork<?>> members = ((Ensemble) neuralNetwork).getMembers();
+        samples = new ArrayList<>(members.size());
+        for (int m = 0; m < members.size(); m++) {
+            samples.add(bootstrap(trainingSet));
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<>(members.size());
+        for (int m = 0; m < members.size(); m++) {
+            final NeuralNetwork<?> member = members.get(m);
+            final DataSet sample = samples.get(m);
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    if (!isStopped()) {
+                        member.learn(sample);
+                    }
+                    return null;
+                }
+            });
+        }
+        LearningThreads threads = new LearningThreads(Math.min(threadsCount, members.size()), "bagging-learning");
+        try {
+            if (!threads.invokeAll(tasks)) {
+                stopLearning();
+            }
+        } finally {
+            threads.shutdown();
+            onStop();
+        }
+        fireLearningEvent(new LearningEvent(this, LearningEvent.Type.LEARNING_STOPPED));
+    }
+
+    private IndexedDataSet bootstrap(DataSet trainingSet) {
+        int size = trainingSet.size();
+        int[] indexes = new int[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = random.nextInt(size);
+        }
+        if (trainingSet instanceof IndexedDataSet) {
+            IndexedDataSet view = (IndexedDataSet) trainingSet;
+            for (int i = 0; i < size; i++) {
+                indexes[i] = view.getRowIndex(indexes[i]);
+            }
+            return new IndexedDataSet(view.getDataSet(), indexes, 0, size);
+        }
+        return new IndexedDataSet(trainingSet, indexes, 0, size);
+    }
+
+    /**
+     * Stops learning of all members.
+     */
+    @Override
+    public synchronized void stopLearning() {
+        super.stopLearning();
+        if (neuralNetwork != null) {
+            for (NeuralNetwork<?> member : ((Ensemble) neuralNetwork).getMembers()) {
+                if (member.getLearningRule() != null) {
+                    member.stopLearning();
+                }
+            }
+        }
+    }
+}
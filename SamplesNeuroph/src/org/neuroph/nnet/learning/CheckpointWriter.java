@@ -0,0 +1,140 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.io.File;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.events.LearningEventListener;
+import org.neuroph.core.exceptions.NeurophException;
+
+/**
+ * Learning event listener that saves a {@link TrainingCheckpoint} of a
+ * {@link MiniBatchBackpropagation} rule every given number of epochs and when
+ * learning stops. The state is copied on the learning thread and written to
+ * the file by a background thread, so learning does not wait for the disk.
+ * If checkpoints come faster than they can be written, only the latest one
+ * waiting is written. Learning can be continued from the file with
+ *
+ * learningRule.resume(TrainingCheckpoint.read(file))
+ *
+ * A random generator used by the learning, for example to shuffle the
+ * training set, can be saved with the checkpoints too.
+ */
+public class CheckpointWriter implements LearningEventListener {
+
+    private static final Logger LOGGER = Logger.getLogger(CheckpointWriter.class.getName());
+
+    private final File file;
+    private final int interval;
+    private Random random;
+    private final AtomicReference<TrainingCheckpoint> pending = new AtomicReference<>();
+    private final ExecutorService executor;
+
+    public CheckpointWriter(File file, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval cannot be <= 0 : " + interval);
+        }
+        this.file = file;
+        this.interval = interval;
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "checkpoint-writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Sets random generator whose state is saved with the checkpoints.
+     */
+    public void setRandom(Random random) {
+        this.random = random;
+    }
+
+    @Override
+    public void handleLearningEvent(LearningEvent event) {
+        MiniBatchBackpropagation learningRule = (MiniBatchBackpropagation) event.getSource();
+        if (event.getEventType() == LearningEvent.Type.LEARNING_STOPPED
+                || learningRule.getCurrentIteration() % interval == 0) {
+            TrainingCheckpoint checkpoint = learningRule.createCheckpoint();
+            if (random != null) {
+                checkpoint = checkpoint.withRandom(random);
+            }
+            write(checkpoint);
+        }
+    }
+
+    /**
+     * Writes checkpoint in the background, replacing one still waiting.
+     */
+    public void write(TrainingCheckpoint checkpoint) {
+        if (pending.getAndSet(checkpoint) == null) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    TrainingCheckpoint latest = pending.getAndSet(null);
+                    try {
+                        latest.write(file);
+                    } catch (NeurophException ex) {
+                        // learning goes on, the previous checkpoint is intact
+                        LOGGER.log(Level.WARNING, "Checkpoint was not saved", ex);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Waits until checkpoints given so far are written.
+     */
+    public void flush() throws InterruptedException {
+        try {
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get();
+        } catch (ExecutionException ex) {
+            throw new NeurophException("Checkpoint writer failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Writes remaining checkpoints and stops the background thread.
+     */
+    public void close() throws InterruptedException {
+        flush();
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+/**
+ * Solves systems of linear equations with symmetric positive definite
+ * matrices, like the normal equations of least squares problems, by Cholesky
+ * decomposition. Matrices are row major arrays of n x n elements of which
+ * only the upper triangle is read.
+ */
+final class CholeskySolver {
+
+    private final int size;
+    private final double[] factor;
+
+    CholeskySolver(int size) {
+        this.size = size;
+        this.factor = new double[size * size];
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Decomposes given matrix with damping added to its diagonal. Returns
+     * false if the damped matrix is not positive definite, in which case
+     * solve() cannot be used.
+     */
+    boolean decompose(double[] matrix, double damping) {
+        int n = size;
+        double[] u = factor;
+        // upper triangular U with U'U = matrix + damping * I
+        for (int i = 0; i < n; i++) {
+            for (int j = i; j < n; j++) {
+                double sum = matrix[i * n + j];
+                if (i == j) {
+                    sum += damping;
+                }
+                for (int k = 0; k < i; k++) {
+                    sum -= u[k * n + i] * u[k * n + j];
+                }
+                if (i == j) {
+                    if (!(sum > 0)) {
+                        return false;
+                    }
+                    u[i * n + i] = Math.sqrt(sum);
+                } else {
+                    u[i * n + j] = sum / u[i * n + i];
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Puts solution of the last decomposed system for right hand side b into
+     * x, which can be the same array as b.
+     */
+    void solve(double[] b, double[] x) {
+        int n = size;
+        double[] u = factor;
+        // U'y = b
+        for (int i = 0; i < n; i++) {
+            double sum = b[i];
+            for (int k = 0; k < i; k++) {
+                sum -= u[k * n + i] * x[k];
+            }
+            x[i] = sum / u[i * n + i];
+        }
+        // Ux = y
+        for (int i = n - 1; i >= 0; i--) {
+            double sum = x[i];
+            for (int k = i + 1; k < n; k++) {
+                sum -= u[i * n + k] * x[k];
+            }
+            x[i] = sum / u[i * n + i];
+        }
+    }
+}
@@ -0,0 +1,190 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.Iterator;
+import java.util.List;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.FloatPackedDataSet;
+import org.neuroph.nnet.flat.FloatNetwork;
+
+/**
+ * Mini batch backpropagation in single precision. Weights, momentum, layer
+ * outputs and gradients are float, and the training set is copied to a
+ * {@link FloatPackedDataSet} when learning starts, so later changes to its
+ * rows or their order are not seen. Weights are copied back to the network
+ * after every epoch, rounded to float.
+ *
+ * Accumulation of sums in double can be turned on with
+ * setDoubleAccumulation(), see {@link FloatNetwork}.
+ */
+public class FloatMiniBatchBackpropagation extends MiniBatchBackpropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    private boolean doubleAccumulation;
+
+    private transient FloatNetwork floatNetwork;
+    private transient FloatPackedDataSet rows;
+    private transient FloatNetwork.Batch batch;
+    private transient float[][] gradients;
+    private transient float[][] previousChanges;
+    private transient double[] output;
+    private transient double[] desiredOutput;
+
+    public FloatMiniBatchBackpropagation() {
+    }
+
+    public FloatMiniBatchBackpropagation(int batchSize) {
+        super(batchSize);
+    }
+
+    public boolean isDoubleAccumulation() {
+        return doubleAccumulation;
+    }
+
+    /**
+     * Sets whether weighted sums of the forward pass are accumulated in
+     * double.
+     */
+    public void setDoubleAccumulation(boolean doubleAccumulation) {
+        this.doubleAccumulation = doubleAccumulation;
+    }
+
+    /**
+     * Returns float copy of the network used while learning, or null before
+     * learning starts.
+     */
+    public FloatNetwork getFloatNetwork() {
+        return floatNetwork;
+    }
+
+    /**
+     * Creates the float network and buffers instead of the double ones of the
+     * superclass.
+     */
+    @Override
+    protected void createLearningState() {
+        floatNetwork = new FloatNetwork(getFlatNetwork());
+        floatNetwork.setDoubleAccumulation(doubleAccumulation);
+        rows = FloatPackedDataSet.from(getTrainingSet());
+        batch = floatNetwork.newBatch(Math.min(getBatchSize(), Math.max(1, rows.size())));
+        gradients = floatNetwork.newWeightArrays();
+        previousChanges = floatNetwork.newWeightArrays();
+        output = new double[floatNetwork.getOutputsCount()];
+        desiredOutput = new double[floatNetwork.getOutputsCount()];
+    }
+
+    /**
+     * Learns the float copy of the training set given to learn().
+     */
+    @Override
+    public void doLearningEpoch(DataSet trainingSet) {
+        float[] data = rows.getData();
+        int stride = rows.getStride();
+        int count = 0;
+        for (int r = 0; r < rows.size() && !isStopped(); r++) {
+            batch.setInput(count, data, r * stride);
+            count++;
+            if (count == batch.getCapacity()) {
+                learnBatch(r + 1 - count, count);
+                count = 0;
+            }
+        }
+        if (count > 0 && !isStopped()) {
+            learnBatch(rows.size() - count, count);
+        }
+    }
+
+    private void learnBatch(int firstRow, int count) {
+        floatNetwork.forward(batch, count);
+        float[] data = rows.getData();
+        int stride = rows.getStride();
+        int inputSize = rows.getInputSize();
+        for (int r = 0; r < count; r++) {
+            batch.getOutput(r, output);
+            int offset = (firstRow + r) * stride + inputSize;
+            for (int i = 0; i < desiredOutput.length; i++) {
+                desiredOutput[i] = data[offset + i];
+            }
+            double[] patternError = getErrorFunction().addPatternError(output, desiredOutput);
+            batch.setOutputError(r, patternError);
+        }
+        floatNetwork.backward(batch, count, gradients);
+
+        float rate = (float) (learningRate / count);
+        float momentumRate = (float) momentum;
+        for (int l = 1; l < gradients.length; l++) {
+            float[] weights = floatNetwork.getWeights(l);
+            float[] gradient = gradients[l];
+            float[] previousChange = previousChanges[l];
+            for (int k = 0; k < weights.length; k++) {
+                float change = -rate * gradient[k] + momentumRate * previousChange[k];
+                weights[k] += change;
+                previousChange[k] = change;
+                gradient[k] = 0;
+            }
+        }
+    }
+
+    /**
+     * Saves the float previous weight changes, widened to double.
+     */
+    @Override
+    protected void saveState(List<double[]> state) {
+        int length = 0;
+        for (float[] previousChange : previousChanges) {
+            length += previousChange.length;
+        }
+        double[] values = new double[length];
+        int offset = 0;
+        for (float[] previousChange : previousChanges) {
+            for (int k = 0; k < previousChange.length; k++) {
+                values[offset++] = previousChange[k];
+            }
+        }
+        state.add(values);
+    }
+
+    /**
+     * Restores float weights from the flat network weights restored by the
+     * superclass, which were saved from float values and so are exact.
+     */
+    @Override
+    protected void restoreState(Iterator<double[]> state) {
+        floatNetwork.readWeights();
+        double[] values = nextState(state);
+        int length = 0;
+        for (float[] previousChange : previousChanges) {
+            length += previousChange.length;
+        }
+        if (values.length != length) {
+            throw new IllegalArgumentException("Checkpoint does not match the network: " + values.length + " values for " + length);
+        }
+        int offset = 0;
+        for (float[] previousChange : previousChanges) {
+            for (int k = 0; k < previousChange.length; k++) {
+                previousChange[k] = (float) values[offset++];
+            }
+        }
+    }
+
+    @Override
+    protected void afterEpoch() {
+        floatNetwork.writeBack();
+        super.afterEpoch();
+    }
+}
@@ -0,0 +1,248 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.IndexedDataSet;
+import org.neuroph.core.data.PackedDataSet;
+
+/**
+ * Asynchronous data parallel backpropagation in the Hogwild style. The
+ * training set is split into one partition per thread, and every thread
+ * learns its partition in mini batches, changing the shared weights of the
+ * flat network without any locking. Each thread keeps its own momentum.
+ *
+ * Threads read weights while others are changing them, so results are not
+ * repeatable. Staleness can be bounded with setMaxStaleness(): a thread then
+ * waits while it is more than the given number of batches ahead of the
+ * slowest thread. The shared error function is called under its own lock,
+ * once per batch.
+ *
+ * Training sets without random access to rows, such as StreamingDataSet, are
+ * not partitioned. They are read once per epoch, in blocks of rows that go to
+ * whichever thread is free.
+ */
+public class HogwildBackpropagation extends MiniBatchBackpropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Staleness value for threads that never wait for each other.
+     */
+    public static final int UNBOUNDED = -1;
+
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+    private int maxStaleness = UNBOUNDED;
+
+    private transient LearningThreads threads;
+    private transient List<Worker> workers;
+    private transient RowBlocks blocks;
+    private transient AtomicLongArray progress;
+    private transient volatile boolean stopRequested;
+
+    /**
+     * Creates learning rule that updates weights after every pattern.
+     */
+    public HogwildBackpropagation() {
+        super(1);
+    }
+
+    public HogwildBackpropagation(int batchSize) {
+        super(batchSize);
+    }
+
+    public int getThreadsCount() {
+        return threadsCount;
+    }
+
+    /**
+     * Sets number of learning threads, by default number of processors.
+     */
+    public void setThreadsCount(int threadsCount) {
+        if (threadsCount <= 0) {
+            throw new IllegalArgumentException("Threads count cannot be <= 0 : " + threadsCount);
+        }
+        this.threadsCount = threadsCount;
+    }
+
+    public int getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    /**
+     * Sets how many batches a thread can get ahead of the slowest thread, or
+     * UNBOUNDED. With 0 threads take turns batch by batch.
+     */
+    public void setMaxStaleness(int maxStaleness) {
+        if (maxStaleness < 0 && maxStaleness != UNBOUNDED) {
+            throw new IllegalArgumentException("Max staleness cannot be < 0 : " + maxStaleness);
+        }
+        this.maxStaleness = maxStaleness;
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        stopRequested = false;
+        DataSet trainingSet = getTrainingSet();
+        int count = Math.max(1, Math.min(threadsCount, trainingSet.size()));
+        workers = new ArrayList<>(count);
+        if (RowBlocks.isSequential(trainingSet)) {
+            for (int i = 0; i < count; i++) {
+                workers.add(new Worker(i, null, RowBlocks.newBlock(trainingSet)));
+            }
+        } else {
+            IndexedDataSet rows = trainingSet instanceof IndexedDataSet ? (IndexedDataSet) trainingSet : new IndexedDataSet(trainingSet);
+            for (IndexedDataSet partition : rows.partition(count)) {
+                workers.add(new Worker(workers.size(), partition, null));
+            }
+        }
+        progress = new AtomicLongArray(count);
+        threads = new LearningThreads(count, "hogwild-learning");
+    }
+
+    /**
+     * Learns the partitions of the training set given to learn(), in
+     * parallel.
+     */
+    @Override
+    public void doLearningEpoch(DataSet trainingSet) {
+        for (int i = 0; i < progress.length(); i++) {
+            progress.set(i, 0);
+        }
+        blocks = RowBlocks.isSequential(trainingSet) ? new RowBlocks(trainingSet) : null;
+        if (!threads.invokeAll(workers)) {
+            stopLearning();
+        }
+    }
+
+    /**
+     * Adds previous weight changes of every thread, which can be restored
+     * only with the same number of threads.
+     */
+    @Override
+    protected void saveState(List<double[]> state) {
+        super.saveState(state);
+        state.add(new double[]{workers.size()});
+        for (Worker worker : workers) {
+            state.add(concat(worker.previousChanges));
+        }
+    }
+
+    @Override
+    protected void restoreState(Iterator<double[]> state) {
+        super.restoreState(state);
+        if (nextState(state)[0] != workers.size()) {
+            throw new IllegalArgumentException("Checkpoint was created with another number of threads!");
+        }
+        for (Worker worker : workers) {
+            split(nextState(state), worker.previousChanges);
+        }
+    }
+
+    @Override
+    public void stopLearning() {
+        super.stopLearning();
+        stopRequested = true;
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        threads.shutdown();
+    }
+
+    /**
+     * Waits while the thread is more than maxStaleness batches ahead of the
+     * slowest running thread.
+     */
+    private void awaitSlowest(int workerIdx) {
+        long batches = progress.get(workerIdx);
+        while (!stopRequested) {
+            long slowest = Long.MAX_VALUE;
+            for (int i = 0; i < progress.length(); i++) {
+                slowest = Math.min(slowest, progress.get(i));
+            }
+            if (batches - slowest <= maxStaleness) {
+                return;
+            }
+            Thread.yield();
+        }
+    }
+
+    private class Worker implements Callable<Void> {
+
+        private final int index;
+        private final DataSet partition;
+        private final PackedDataSet block;
+        private final BatchLearner learner;
+        private final double[][] previousChanges;
+
+        Worker(int index, DataSet partition, PackedDataSet block) {
+            this.index = index;
+            this.partition = partition;
+            this.block = block;
+            this.learner = new BatchLearner(getBatchSize());
+            this.previousChanges = getFlatNetwork().newWeightArrays();
+        }
+
+        @Override
+        public Void call() {
+            if (blocks == null) {
+                learn(partition);
+            } else {
+                while (!stopRequested && blocks.next(block)) {
+                    learn(block);
+                }
+            }
+            if (learner.getCount() > 0 && !stopRequested) {
+                learnBatch();
+            }
+            // finished threads do not hold back the others
+            progress.set(index, Long.MAX_VALUE);
+            return null;
+        }
+
+        private void learn(DataSet rows) {
+            Iterator<DataSetRow> iterator = rows.iterator();
+            while (iterator.hasNext() && !stopRequested) {
+                if (learner.add(iterator.next())) {
+                    learnBatch();
+                }
+            }
+        }
+
+        private void learnBatch() {
+            if (maxStaleness != UNBOUNDED) {
+                awaitSlowest(index);
+            }
+            learner.calculateOutputs();
+            synchronized (getErrorFunction()) {
+                learner.calculateErrors();
+            }
+            learner.calculateGradients();
+            updateWeights(learner.getGradients(), previousChanges, learner.getCount());
+            learner.clear();
+            progress.incrementAndGet(index);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import org.neuroph.core.exceptions.NeurophException;
+
+/**
+ * Thread pool of a parallel learning rule. Threads are daemons, so a pool
+ * left by learning that ended with an exception does not keep the JVM alive.
+ */
+class LearningThreads {
+
+    private final ExecutorService executor;
+
+    LearningThreads(int threadsCount, final String name) {
+        executor = Executors.newFixedThreadPool(threadsCount, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Runs the tasks and waits for all of them. Returns false if the calling
+     * thread was interrupted, and rethrows exception of a failed task.
+     */
+    boolean invokeAll(Collection<? extends Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException ex) {
+            executor.shutdownNow();
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new NeurophException("Learning thread failed", cause);
+        }
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,311 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import org.neuroph.core.Connection;
+import org.neuroph.core.Layer;
+import org.neuroph.core.Neuron;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.IndexedDataSet;
+import org.neuroph.core.data.PackedDataSet;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.transfer.Linear;
+import org.neuroph.nnet.comp.neuron.BiasNeuron;
+
+/**
+ * Learns the weights of a linear network, like Adaline, by solving the least
+ * squares problem directly instead of with LMS iterations. One pass over the
+ * training set builds the normal equations
+ *
+ * (X'X + ridge * I) w = X'y
+ *
+ * where the rows of X are the inputs followed by 1 for the bias, and solves
+ * them. The bias weight is not regularized. Threads sum X'X and X'y of
+ * consecutive parts of the training set, so they should be able to read its
+ * rows at the same time, and the parts are added in order. Training sets
+ * without random access to rows, such as StreamingDataSet, are read once in
+ * blocks that go to whichever thread is free, so the last bits of the sums
+ * can change from run to run.
+ *
+ * Learning takes a single epoch, which fires the usual events. Total network
+ * error is the mean squared error of the solution, as reported by
+ * MeanSquaredError, calculated from the normal equations without another
+ * pass over the data, so the error function is not used. The network must
+ * have one layer of neurons with Linear transfer functions connected to all
+ * inputs and to the same bias neurons, if any.
+ */
+public class LeastSquaresLearning extends LMS {
+
+    private static final long serialVersionUID = 1L;
+
+    private double ridge;
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+
+    private transient double totalError;
+    private transient int inputsCount;
+    private transient int featuresCount;
+    private transient int outputsCount;
+    private transient Map<Neuron, Integer> features;
+
+    public LeastSquaresLearning() {
+    }
+
+    public LeastSquaresLearning(double ridge) {
+        setRidge(ridge);
+    }
+
+    public double getRidge() {
+        return ridge;
+    }
+
+    /**
+     * Sets ridge regularization, which shrinks weights towards zero and keeps
+     * the equations solvable when inputs are linearly dependent.
+     */
+    public void setRidge(double ridge) {
+        if (ridge < 0) {
+            throw new IllegalArgumentException("Ridge cannot be < 0 : " + ridge);
+        }
+        this.ridge = ridge;
+    }
+
+    public int getThreadsCount() {
+        return threadsCount;
+    }
+
+    /**
+     * Sets number of threads summing the normal equations, by default number
+     * of processors.
+     */
+    public void setThreadsCount(int threadsCount) {
+        if (threadsCount <= 0) {
+            throw new IllegalArgumentException("Threads count cannot be <= 0 : " + threadsCount);
+        }
+        this.threadsCount = threadsCount;
+    }
+
+    /**
+     * Returns mean squared error of the learned weights.
+     */
+    @Override
+    public double getTotalNetworkError() {
+        return totalError;
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (neuralNetwork.getLayersCount() != 2) {
+            throw new IllegalArgumentException("Least squares learning needs a network with one layer of weights");
+        }
+        inputsCount = neuralNetwork.getInputsCount();
+        features = new IdentityHashMap<>();
+        for (Neuron neuron : neuralNetwork.getInputNeurons()) {
+            features.put(neuron, features.size());
+        }
+        List<Neuron> outputNeurons = neuralNetwork.getOutputNeurons();
+        outputsCount = outputNeurons.size();
+        for (Neuron neuron : outputNeurons) {
+            if (!(neuron.getTransferFunction() instanceof Linear)) {
+                throw new IllegalArgumentException("Least squares learning needs neurons with Linear transfer function");
+            }
+            int inputs = 0;
+            for (Connection connection : neuron.getInputConnections()) {
+                Neuron from = connection.getFromNeuron();
+                if (from instanceof BiasNeuron) {
+                    // all bias neurons are the same feature
+                    if (!features.containsKey(from)) {
+                        features.put(from, inputsCount);
+                    }
+                } else if (features.containsKey(from)) {
+                    inputs++;
+                } else {
+                    throw new IllegalArgumentException("Least squares learning needs neurons connected to the network inputs");
+                }
+            }
+            if (inputs != inputsCount) {
+                throw new IllegalArgumentException("Least squares learning needs neurons connected to all inputs");
+            }
+        }
+        featuresCount = features.size() > inputsCount ? inputsCount + 1 : inputsCount;
+        totalError = Double.NaN;
+    }
+
+    @Override
+    public void doLearningEpoch(DataSet trainingSet) {
+        int count = Math.max(1, Math.min(threadsCount, trainingSet.size()));
+        List<SumTask> tasks = new ArrayList<>();
+        if (RowBlocks.isSequential(trainingSet)) {
+            RowBlocks blocks = new RowBlocks(trainingSet);
+            for (int i = 0; i < count; i++) {
+                tasks.add(new SumTask(blocks, RowBlocks.newBlock(trainingSet)));
+            }
+        } else {
+            IndexedDataSet rows = trainingSet instanceof IndexedDataSet ? (IndexedDataSet) trainingSet : new IndexedDataSet(trainingSet);
+            for (IndexedDataSet part : rows.partition(count)) {
+                tasks.add(new SumTask(part));
+            }
+        }
+        LearningThreads threads = new LearningThreads(tasks.size(), "least-squares");
+        boolean done;
+        try {
+            done = threads.invokeAll(tasks);
+        } finally {
+            threads.shutdown();
+        }
+        if (done) {
+            solve(tasks);
+        }
+        // the solution does not change with more epochs
+        stopLearning();
+    }
+
+    private void solve(List<SumTask> tasks) {
+        int n = featuresCount;
+        double[] products = new double[n * n];
+        double[] targets = new double[n * outputsCount];
+        double[] squares = new double[outputsCount];
+        long count = 0;
+        for (SumTask task : tasks) {
+            for (int k = 0; k < products.length; k++) {
+                products[k] += task.products[k];
+            }
+            for (int k = 0; k < targets.length; k++) {
+                targets[k] += task.targets[k];
+            }
+            for (int o = 0; o < outputsCount; o++) {
+                squares[o] += task.squares[o];
+            }
+            count += task.count;
+        }
+
+        // ridge is added to the copy that is solved, the sum of squared
+        // errors is calculated with the original matrix
+        double[] regularized = products.clone();
+        for (int j = 0; j < inputsCount; j++) {
+            regularized[j * n + j] += ridge;
+        }
+        CholeskySolver solver = new CholeskySolver(n);
+        if (!solver.decompose(regularized, 0)) {
+            throw new NeurophException("Least squares equations cannot be solved, inputs may be linearly dependent; set ridge > 0");
+        }
+
+        double squaredErrors = 0;
+        double[] target = new double[n];
+        double[] solution = new double[n];
+        List<Neuron> outputNeurons = neuralNetwork.getOutputNeurons();
+        for (int o = 0; o < outputsCount; o++) {
+            for (int j = 0; j < n; j++) {
+                target[j] = targets[j * outputsCount + o];
+            }
+            solver.solve(target, solution);
+
+            // |y - Xw|^2 = y'y - 2 w'X'y + w'X'Xw
+            double sum = squares[o];
+            for (int a = 0; a < n; a++) {
+                sum -= 2 * solution[a] * target[a];
+                double product = products[a * n + a] * solution[a];
+                for (int b = a + 1; b < n; b++) {
+                    product += 2 * products[a * n + b] * solution[b];
+                }
+                sum += solution[a] * product;
+            }
+            squaredErrors += Math.max(0, sum);
+
+            Neuron neuron = outputNeurons.get(o);
+            double slope = ((Linear) neuron.getTransferFunction()).getSlope();
+            for (Connection connection : neuron.getInputConnections()) {
+                connection.getWeight().setValue(solution[features.get(connection.getFromNeuron())] / slope);
+            }
+        }
+        totalError = count > 0 ? squaredErrors / (2.0 * count) : Double.NaN;
+    }
+
+    /**
+     * Sums X'X, X'y and y'y of part of the training set, or of the blocks of
+     * rows it gets.
+     */
+    private class SumTask implements Callable<Void> {
+
+        private final DataSet part;
+        private final RowBlocks blocks;
+        private final PackedDataSet block;
+        private final double[] products = new double[featuresCount * featuresCount];
+        private final double[] targets = new double[featuresCount * outputsCount];
+        private final double[] squares = new double[outputsCount];
+        private final double[] x = new double[featuresCount];
+        private long count;
+
+        SumTask(DataSet part) {
+            this.part = part;
+            this.blocks = null;
+            this.block = null;
+        }
+
+        SumTask(RowBlocks blocks, PackedDataSet block) {
+            this.part = null;
+            this.blocks = blocks;
+            this.block = block;
+        }
+
+        @Override
+        public Void call() {
+            if (featuresCount > inputsCount) {
+                x[inputsCount] = 1;
+            }
+            if (blocks == null) {
+                sum(part);
+            } else {
+                while (blocks.next(block)) {
+                    sum(block);
+                }
+            }
+            return null;
+        }
+
+        private void sum(DataSet rows) {
+            int n = featuresCount;
+            for (DataSetRow row : rows) {
+                System.arraycopy(row.getInput(), 0, x, 0, inputsCount);
+                double[] y = row.getDesiredOutput();
+                // upper triangle only, the solver does not read the rest
+                for (int a = 0; a < n; a++) {
+                    double xa = x[a];
+                    if (xa == 0) {
+                        continue;
+                    }
+                    int offset = a * n;
+                    for (int b = a; b < n; b++) {
+                        products[offset + b] += xa * x[b];
+                    }
+                    for (int o = 0; o < outputsCount; o++) {
+                        targets[a * outputsCount + o] += xa * y[o];
+                    }
+                }
+                for (int o = 0; o < outputsCount; o++) {
+                    squares[o] += y[o] * y[o];
+                }
+                count++;
+            }
+        }
+    }
+}
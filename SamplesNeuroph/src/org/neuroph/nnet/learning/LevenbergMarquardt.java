@@ -0,0 +1,396 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.nnet.flat.FlatNetwork;
+
+/**
+ * Levenberg-Marquardt learning rule for small networks. Every epoch it
+ * calculates the Jacobian J of the network outputs by the weights and the
+ * output errors e over the whole training set, and tries the weight change
+ *
+ * change = -(J'J + damping * I)^-1 J'e
+ *
+ * The change is kept if it lowers the sum of squared errors, and damping is
+ * then divided by the damping factor, moving towards Gauss-Newton steps.
+ * Otherwise damping is multiplied by the factor, moving towards small
+ * gradient descent steps, and the change is tried again. Learning stops when
+ * damping grows over the max damping.
+ *
+ * Rows of the Jacobian are calculated in parallel, each thread adding its
+ * rows to its own copy of J'J and J'e, which are summed in thread order. The
+ * matrix has as many rows and columns as the network has weights, so this
+ * rule is meant for networks of up to a few hundred weights. The network
+ * must be made of fully connected layers, like MultiLayerPerceptron. This
+ * rule minimizes squared errors whatever error function is set, which only
+ * reports the error, and it does not use the learning rate. Total network
+ * error is the error of the weights after the epoch's change.
+ */
+public class LevenbergMarquardt extends BackPropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    private double initialDamping = 0.001;
+    private double dampingFactor = 10;
+    private double maxDamping = 1e10;
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+
+    private transient double damping;
+    private transient FlatNetwork flatNetwork;
+    private transient LearningThreads threads;
+    private transient List<JacobianTask> jacobianTasks;
+    private transient List<Callable<Void>> errorTasks;
+    private transient double[] inputs;
+    private transient double[] desiredOutputs;
+    private transient int rowsCount;
+    private transient double[] outputs;
+    private transient double[] trialOutputs;
+    private transient int[] layerOffsets;
+    private transient double[] hessian;
+    private transient double[] gradient;
+    private transient double[] savedWeights;
+    private transient double[] change;
+    private transient CholeskySolver solver;
+
+    public LevenbergMarquardt() {
+    }
+
+    public double getInitialDamping() {
+        return initialDamping;
+    }
+
+    /**
+     * Sets damping used by the first epoch.
+     */
+    public void setInitialDamping(double initialDamping) {
+        if (initialDamping <= 0) {
+            throw new IllegalArgumentException("Damping must be > 0 : " + initialDamping);
+        }
+        this.initialDamping = initialDamping;
+    }
+
+    public double getDampingFactor() {
+        return dampingFactor;
+    }
+
+    /**
+     * Sets factor by which damping is divided after a successful change and
+     * multiplied after a failed one.
+     */
+    public void setDampingFactor(double dampingFactor) {
+        if (dampingFactor <= 1) {
+            throw new IllegalArgumentException("Damping factor must be > 1 : " + dampingFactor);
+        }
+        this.dampingFactor = dampingFactor;
+    }
+
+    public double getMaxDamping() {
+        return maxDamping;
+    }
+
+    /**
+     * Sets damping at which learning stops, because no change lowers the
+     * error any more.
+     */
+    public void setMaxDamping(double maxDamping) {
+        if (maxDamping <= 0) {
+            throw new IllegalArgumentException("Max damping must be > 0 : " + maxDamping);
+        }
+        this.maxDamping = maxDamping;
+    }
+
+    public int getThreadsCount() {
+        return threadsCount;
+    }
+
+    /**
+     * Sets number of threads calculating the Jacobian, by default number of
+     * processors.
+     */
+    public void setThreadsCount(int threadsCount) {
+        if (threadsCount <= 0) {
+            throw new IllegalArgumentException("Threads count cannot be <= 0 : " + threadsCount);
+        }
+        this.threadsCount = threadsCount;
+    }
+
+    /**
+     * Returns damping to be used by the next epoch.
+     */
+    public double getDamping() {
+        return damping;
+    }
+
+    /**
+     * Returns flat copy of the network used while learning, or null before
+     * learning starts.
+     */
+    public FlatNetwork getFlatNetwork() {
+        return flatNetwork;
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        flatNetwork = FlatNetwork.compile(neuralNetwork);
+        damping = initialDamping;
+        layerOffsets = new int[flatNetwork.getLayersCount() + 1];
+        for (int l = 1; l < flatNetwork.getLayersCount(); l++) {
+            layerOffsets[l + 1] = layerOffsets[l] + flatNetwork.getWeights(l).length;
+        }
+        int weightsCount = layerOffsets[flatNetwork.getLayersCount()];
+        hessian = new double[weightsCount * weightsCount];
+        gradient = new double[weightsCount];
+        savedWeights = new double[weightsCount];
+        change = new double[weightsCount];
+        solver = new CholeskySolver(weightsCount);
+
+        jacobianTasks = new ArrayList<>(threadsCount);
+        errorTasks = new ArrayList<>(threadsCount);
+        for (int t = 0; t < threadsCount; t++) {
+            final JacobianTask task = new JacobianTask(t, weightsCount);
+            jacobianTasks.add(task);
+            errorTasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    task.calculateError();
+                    return null;
+                }
+            });
+        }
+        threads = new LearningThreads(threadsCount, "levenberg-marquardt");
+    }
+
+    @Override
+    public void doLearningEpoch(DataSet trainingSet) {
+        copyRows(trainingSet);
+        if (!threads.invokeAll(jacobianTasks)) {
+            stopLearning();
+            return;
+        }
+
+        // sum the parts in thread order
+        int n = gradient.length;
+        double error = 0;
+        for (JacobianTask task : jacobianTasks) {
+            for (int a = 0; a < n; a++) {
+                gradient[a] += task.gradientPart[a];
+                for (int b = a; b < n; b++) {
+                    hessian[a * n + b] += task.hessianPart[a * n + b];
+                }
+            }
+            error += task.error;
+        }
+        readWeights(savedWeights);
+
+        double[] acceptedOutputs = outputs;
+        while (!isStopped()) {
+            if (solver.decompose(hessian, damping)) {
+                solver.solve(gradient, change);
+                for (int k = 0; k < n; k++) {
+                    change[k] = savedWeights[k] - change[k];
+                }
+                writeWeights(change);
+                if (!threads.invokeAll(errorTasks)) {
+                    stopLearning();
+                    break;
+                }
+                double trialError = 0;
+                for (JacobianTask task : jacobianTasks) {
+                    trialError += task.error;
+                }
+                if (trialError < error) {
+                    damping = damping / dampingFactor;
+                    acceptedOutputs = trialOutputs;
+                    break;
+                }
+            }
+            damping = damping * dampingFactor;
+            if (damping > maxDamping) {
+                stopLearning();
+            }
+        }
+        if (acceptedOutputs == outputs) {
+            writeWeights(savedWeights);
+        }
+
+        int outputsCount = flatNetwork.getOutputsCount();
+        double[] output = new double[outputsCount];
+        double[] desiredOutput = new double[outputsCount];
+        for (int r = 0; r < rowsCount; r++) {
+            System.arraycopy(acceptedOutputs, r * outputsCount, output, 0, outputsCount);
+            System.arraycopy(desiredOutputs, r * outputsCount, desiredOutput, 0, outputsCount);
+            getErrorFunction().addPatternError(output, desiredOutput);
+        }
+        Arrays.fill(hessian, 0);
+        Arrays.fill(gradient, 0);
+    }
+
+    @Override
+    protected void afterEpoch() {
+        super.afterEpoch();
+        flatNetwork.writeBack();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        threads.shutdown();
+    }
+
+    /**
+     * Copies values of the rows to arrays shared by the threads, as rows of
+     * some data sets are views that cannot be kept or shared.
+     */
+    private void copyRows(DataSet trainingSet) {
+        int inputsCount = flatNetwork.getInputsCount();
+        int outputsCount = flatNetwork.getOutputsCount();
+        rowsCount = trainingSet.size();
+        if (inputs == null || inputs.length < rowsCount * inputsCount) {
+            inputs = new double[rowsCount * inputsCount];
+            desiredOutputs = new double[rowsCount * outputsCount];
+            outputs = new double[rowsCount * outputsCount];
+            trialOutputs = new double[rowsCount * outputsCount];
+        }
+        int r = 0;
+        for (DataSetRow row : trainingSet) {
+            System.arraycopy(row.getInput(), 0, inputs, r * inputsCount, inputsCount);
+            System.arraycopy(row.getDesiredOutput(), 0, desiredOutputs, r * outputsCount, outputsCount);
+            r++;
+        }
+    }
+
+    private void readWeights(double[] target) {
+        for (int l = 1; l < flatNetwork.getLayersCount(); l++) {
+            double[] weights = flatNetwork.getWeights(l);
+            System.arraycopy(weights, 0, target, layerOffsets[l], weights.length);
+        }
+    }
+
+    private void writeWeights(double[] source) {
+        for (int l = 1; l < flatNetwork.getLayersCount(); l++) {
+            double[] weights = flatNetwork.getWeights(l);
+            System.arraycopy(source, layerOffsets[l], weights, 0, weights.length);
+        }
+    }
+
+    /**
+     * Calculates part of J'J, J'e and squared error for a range of rows,
+     * which is the same in every epoch for the same training set size.
+     */
+    private class JacobianTask implements Callable<Void> {
+
+        private final int index;
+        private final double[] hessianPart;
+        private final double[] gradientPart;
+        private final double[] jacobianRow;
+        private final double[][] layerGradients;
+        private final double[] unitError;
+        private final double[] input;
+        private final double[] output;
+        private final FlatNetwork.Batch batch;
+        private double error;
+
+        JacobianTask(int index, int weightsCount) {
+            this.index = index;
+            hessianPart = new double[weightsCount * weightsCount];
+            gradientPart = new double[weightsCount];
+            jacobianRow = new double[weightsCount];
+            layerGradients = flatNetwork.newWeightArrays();
+            unitError = new double[flatNetwork.getOutputsCount()];
+            input = new double[flatNetwork.getInputsCount()];
+            output = new double[flatNetwork.getOutputsCount()];
+            batch = flatNetwork.newBatch(1);
+        }
+
+        private int from() {
+            return (int) ((long) rowsCount * index / jacobianTasks.size());
+        }
+
+        private int to() {
+            return (int) ((long) rowsCount * (index + 1) / jacobianTasks.size());
+        }
+
+        @Override
+        public Void call() {
+            int n = gradientPart.length;
+            Arrays.fill(hessianPart, 0);
+            Arrays.fill(gradientPart, 0);
+            error = 0;
+            for (int r = from(), end = to(); r < end; r++) {
+                calculateOutput(r);
+                System.arraycopy(output, 0, outputs, r * output.length, output.length);
+
+                for (int k = 0; k < output.length; k++) {
+                    double e = output[k] - desiredOutputs[r * output.length + k];
+                    error += e * e;
+                    // derivatives of output k by the weights
+                    unitError[k] = 1;
+                    batch.setOutputError(0, unitError);
+                    unitError[k] = 0;
+                    flatNetwork.backward(batch, 1, layerGradients);
+                    for (int l = 1; l < layerGradients.length; l++) {
+                        double[] layerGradient = layerGradients[l];
+                        System.arraycopy(layerGradient, 0, jacobianRow, layerOffsets[l], layerGradient.length);
+                        Arrays.fill(layerGradient, 0);
+                    }
+
+                    for (int a = 0; a < n; a++) {
+                        double j = jacobianRow[a];
+                        if (j == 0) {
+                            continue;
+                        }
+                        gradientPart[a] += j * e;
+                        int offset = a * n;
+                        for (int b = a; b < n; b++) {
+                            hessianPart[offset + b] += j * jacobianRow[b];
+                        }
+                    }
+                }
+            }
+            return null;
+        }
+
+        private void calculateOutput(int r) {
+            System.arraycopy(inputs, r * input.length, input, 0, input.length);
+            batch.setInput(0, input);
+            flatNetwork.forward(batch, 1);
+            batch.getOutput(0, output);
+        }
+
+        /**
+         * Calculates squared error of the current weights for the rows,
+         * keeping the outputs.
+         */
+        void calculateError() {
+            error = 0;
+            for (int r = from(), end = to(); r < end; r++) {
+                calculateOutput(r);
+                System.arraycopy(output, 0, trialOutputs, r * output.length, output.length);
+                for (int k = 0; k < output.length; k++) {
+                    double e = output[k] - desiredOutputs[r * output.length + k];
+                    error += e * e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,352 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.nnet.flat.FlatNetwork;
+
+/**
+ * Momentum backpropagation that updates weights once per mini batch of
+ * patterns. Patterns of a batch go through the network together as dense
+ * matrix operations on a {@link FlatNetwork}, and the weights are changed by
+ * the average gradient of the batch:
+ *
+ * change = -learningRate * gradient / batchSize + momentum * previousChange
+ *
+ * Batch size 1 is online learning and batch size of at least the training set
+ * size is batch learning, so setBatchMode() is not used by this rule. The
+ * network must be made of fully connected layers, like MultiLayerPerceptron.
+ * Weights are copied to the network after every epoch, before listeners are
+ * notified, so changes made to the network weights during learning are not
+ * seen.
+ *
+ * Learning can be saved after an epoch with createCheckpoint(), and continued
+ * from the same iteration, weights and state with resume().
+ */
+public class MiniBatchBackpropagation extends MomentumBackpropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_BATCH_SIZE = 32;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    private transient FlatNetwork flatNetwork;
+    private transient BatchLearner learner;
+    private transient double[][] previousChanges;
+    private transient TrainingCheckpoint resumeCheckpoint;
+
+    public MiniBatchBackpropagation() {
+    }
+
+    public MiniBatchBackpropagation(int batchSize) {
+        setBatchSize(batchSize);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Sets number of patterns after which weights are updated.
+     */
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size cannot be <= 0 : " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns flat copy of the network used while learning, or null before
+     * learning starts.
+     */
+    public FlatNetwork getFlatNetwork() {
+        return flatNetwork;
+    }
+
+    /**
+     * Returns previous weight changes used by the momentum term.
+     */
+    protected double[][] getPreviousChanges() {
+        return previousChanges;
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        flatNetwork = FlatNetwork.compile(neuralNetwork);
+        createLearningState();
+    }
+
+    /**
+     * Creates the batch learner and previous weight changes of the flat
+     * network. Subclasses that learn with state of their own can override it,
+     * together with saveState() and restoreState(), so that these are not
+     * created, or create only one of them.
+     */
+    protected void createLearningState() {
+        createLearner();
+        createPreviousChanges();
+    }
+
+    /**
+     * Creates the learner of the batches of doLearningEpoch().
+     */
+    protected final void createLearner() {
+        learner = new BatchLearner(batchSize);
+    }
+
+    /**
+     * Creates the previous weight changes used by the momentum term.
+     */
+    protected final void createPreviousChanges() {
+        previousChanges = flatNetwork.newWeightArrays();
+    }
+
+    @Override
+    public void doLearningEpoch(DataSet trainingSet) {
+        Iterator<DataSetRow> iterator = trainingSet.iterator();
+        while (iterator.hasNext() && !isStopped()) {
+            if (learner.add(iterator.next())) {
+                learnBatch();
+            }
+        }
+        if (learner.getCount() > 0 && !isStopped()) {
+            learnBatch();
+        }
+    }
+
+    private void learnBatch() {
+        learner.calculateOutputs();
+        learner.calculateErrors();
+        learner.calculateGradients();
+        updateWeights(learner.getGradients(), previousChanges, learner.getCount());
+        learner.clear();
+    }
+
+    /**
+     * Changes weights by the average of gradients of count patterns, using
+     * and updating given previous weight changes, and clears the gradients.
+     */
+    protected void updateWeights(double[][] gradients, double[][] previousChanges, int count) {
+        double rate = learningRate / count;
+        for (int l = 1; l < gradients.length; l++) {
+            double[] weights = flatNetwork.getWeights(l);
+            double[] gradient = gradients[l];
+            double[] previousChange = previousChanges[l];
+            for (int k = 0; k < weights.length; k++) {
+                double change = -rate * gradient[k] + momentum * previousChange[k];
+                weights[k] += change;
+                previousChange[k] = change;
+                gradient[k] = 0;
+            }
+        }
+    }
+
+    @Override
+    protected void beforeEpoch() {
+        // all onStart() methods have created their state by now
+        if (resumeCheckpoint != null) {
+            restore(resumeCheckpoint);
+            resumeCheckpoint = null;
+        }
+        super.beforeEpoch();
+    }
+
+    @Override
+    protected void afterEpoch() {
+        super.afterEpoch();
+        flatNetwork.writeBack();
+    }
+
+    /**
+     * Saves iteration, weights and learning state after the last epoch. It
+     * should be called between epochs, for example by a learning event
+     * listener.
+     */
+    public TrainingCheckpoint createCheckpoint() {
+        if (flatNetwork == null) {
+            throw new IllegalStateException("Learning has not started!");
+        }
+        List<double[]> state = new ArrayList<>();
+        saveState(state);
+        return new TrainingCheckpoint(getCurrentIteration(), concat(weightArrays()), state, null);
+    }
+
+    /**
+     * Makes the next learn() continue from given checkpoint, created by the
+     * same kind of learning rule for the same network. Iterations are counted
+     * from the checkpoint iteration, so max iterations stays the total number
+     * of epochs.
+     */
+    public void resume(TrainingCheckpoint checkpoint) {
+        this.resumeCheckpoint = checkpoint;
+    }
+
+    private void restore(TrainingCheckpoint checkpoint) {
+        split(checkpoint.getWeights(), weightArrays());
+        currentIteration = checkpoint.getIteration();
+        Iterator<double[]> state = checkpoint.getState().iterator();
+        restoreState(state);
+        if (state.hasNext()) {
+            throw new IllegalArgumentException("Checkpoint was created by another learning rule!");
+        }
+    }
+
+    private double[][] weightArrays() {
+        double[][] weights = new double[flatNetwork.getLayersCount()][];
+        weights[0] = new double[0];
+        for (int l = 1; l < weights.length; l++) {
+            weights[l] = flatNetwork.getWeights(l);
+        }
+        return weights;
+    }
+
+    /**
+     * Adds arrays of learning state to save in a checkpoint. Subclasses with
+     * more state add their arrays after those of the superclass.
+     */
+    protected void saveState(List<double[]> state) {
+        state.add(concat(previousChanges));
+    }
+
+    /**
+     * Restores state saved by saveState() from the checkpoint arrays, in the
+     * same order.
+     */
+    protected void restoreState(Iterator<double[]> state) {
+        split(nextState(state), previousChanges);
+    }
+
+    /**
+     * Returns next checkpoint state array.
+     */
+    protected static double[] nextState(Iterator<double[]> state) {
+        if (!state.hasNext()) {
+            throw new IllegalArgumentException("Checkpoint was created by another learning rule!");
+        }
+        return state.next();
+    }
+
+    /**
+     * Returns values of weight shaped arrays one layer after another.
+     */
+    protected static double[] concat(double[][] arrays) {
+        int length = 0;
+        for (double[] array : arrays) {
+            length += array.length;
+        }
+        double[] values = new double[length];
+        int offset = 0;
+        for (double[] array : arrays) {
+            System.arraycopy(array, 0, values, offset, array.length);
+            offset += array.length;
+        }
+        return values;
+    }
+
+    /**
+     * Copies values saved by concat() back to arrays of the same shape.
+     */
+    protected static void split(double[] values, double[][] arrays) {
+        int length = 0;
+        for (double[] array : arrays) {
+            length += array.length;
+        }
+        if (values.length != length) {
+            throw new IllegalArgumentException("Checkpoint does not match the network: " + values.length + " values for " + length);
+        }
+        int offset = 0;
+        for (double[] array : arrays) {
+            System.arraycopy(values, offset, array, 0, array.length);
+            offset += array.length;
+        }
+    }
+
+    /**
+     * Buffers for one batch of patterns and their summed gradients. Each
+     * learning thread uses its own learner on the shared flat network.
+     */
+    protected class BatchLearner {
+
+        private final FlatNetwork.Batch batch;
+        private final double[][] gradients;
+        private final double[][] desiredOutputs;
+        private final double[] output;
+        private int count;
+
+        public BatchLearner(int capacity) {
+            int patterns = Math.min(capacity, Math.max(1, getTrainingSet().size()));
+            batch = flatNetwork.newBatch(patterns);
+            gradients = flatNetwork.newWeightArrays();
+            desiredOutputs = new double[patterns][flatNetwork.getOutputsCount()];
+            output = new double[flatNetwork.getOutputsCount()];
+        }
+
+        /**
+         * Adds pattern to the batch and returns true if the batch is full.
+         */
+        public boolean add(DataSetRow row) {
+            batch.setInput(count, row.getInput());
+            System.arraycopy(row.getDesiredOutput(), 0, desiredOutputs[count], 0, output.length);
+            count++;
+            return count == batch.getCapacity();
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public double[][] getGradients() {
+            return gradients;
+        }
+
+        public void calculateOutputs() {
+            flatNetwork.forward(batch, count);
+        }
+
+        /**
+         * Passes outputs of the batch to the error function, pattern by
+         * pattern, and sets the returned errors as output errors.
+         */
+        public void calculateErrors() {
+            for (int r = 0; r < count; r++) {
+                batch.getOutput(r, output);
+                double[] patternError = getErrorFunction().addPatternError(output, desiredOutputs[r]);
+                batch.setOutputError(r, patternError);
+            }
+        }
+
+        /**
+         * Adds gradients of the batch to the gradients of this learner.
+         */
+        public void calculateGradients() {
+            flatNetwork.backward(batch, count, gradients);
+        }
+
+        /**
+         * Empties the batch, gradients are cleared by updateWeights().
+         */
+        public void clear() {
+            count = 0;
+        }
+    }
+}
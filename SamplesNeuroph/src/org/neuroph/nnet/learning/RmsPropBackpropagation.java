@@ -0,0 +1,88 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * RMSProp learning rule. Keeps a running average of the squared gradients of
+ * every weight and changes the weight by
+ *
+ * -learningRate * gradient / (sqrt(averageSquaredGradient) + epsilon)
+ *
+ * Default settings are learning rate 0.001 and decay 0.9.
+ */
+public class RmsPropBackpropagation extends AdaptiveBackpropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    private double decay = 0.9;
+
+    private transient double[][] squareAverages;
+
+    public RmsPropBackpropagation() {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public RmsPropBackpropagation(int batchSize) {
+        super(batchSize, 0.001);
+    }
+
+    public double getDecay() {
+        return decay;
+    }
+
+    /**
+     * Sets decay rate of the average squared gradient.
+     */
+    public void setDecay(double decay) {
+        this.decay = checkDecay("Decay", decay);
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        squareAverages = getFlatNetwork().newWeightArrays();
+    }
+
+    @Override
+    protected void saveState(List<double[]> state) {
+        super.saveState(state);
+        state.add(concat(squareAverages));
+    }
+
+    @Override
+    protected void restoreState(Iterator<double[]> state) {
+        super.restoreState(state);
+        split(nextState(state), squareAverages);
+    }
+
+    @Override
+    protected void updateWeights(double[][] gradients, double[][] previousChanges, int count) {
+        for (int l = 1; l < gradients.length; l++) {
+            double[] weights = getFlatNetwork().getWeights(l);
+            double[] gradient = gradients[l];
+            double[] squareAverage = squareAverages[l];
+            for (int k = 0; k < weights.length; k++) {
+                double g = gradient[k] / count;
+                squareAverage[k] = decay * squareAverage[k] + (1 - decay) * g * g;
+                weights[k] -= learningRate * g / (Math.sqrt(squareAverage[k]) + epsilon);
+                gradient[k] = 0;
+            }
+        }
+    }
+}
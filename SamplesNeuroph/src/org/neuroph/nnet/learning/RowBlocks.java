@@ -0,0 +1,73 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.Iterator;
+import java.util.RandomAccess;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.IndexedDataSet;
+import org.neuroph.core.data.PackedDataSet;
+
+/**
+ * Reads the rows of a data set once, with a single iterator, and hands them
+ * out in blocks to the threads of a parallel learning rule. It is used for
+ * data sets without cheap access to single rows, such as StreamingDataSet,
+ * which reads a whole chunk for every row that is not in its last chunk.
+ */
+class RowBlocks {
+
+    /**
+     * Number of rows read for a thread at a time.
+     */
+    static final int BLOCK_ROWS = 1024;
+
+    private final Iterator<DataSetRow> iterator;
+
+    RowBlocks(DataSet dataSet) {
+        this.iterator = dataSet.iterator();
+    }
+
+    /**
+     * Returns true if rows of the data set, or of the data set viewed by it,
+     * cannot be read quickly in any order, so it is better read in blocks.
+     */
+    static boolean isSequential(DataSet dataSet) {
+        if (dataSet instanceof IndexedDataSet) {
+            dataSet = ((IndexedDataSet) dataSet).getDataSet();
+        }
+        return !(dataSet.getRows() instanceof RandomAccess);
+    }
+
+    /**
+     * Creates block to be filled by next(), one for each thread.
+     */
+    static PackedDataSet newBlock(DataSet dataSet) {
+        return new PackedDataSet(dataSet.getInputSize(), dataSet.getOutputSize(), BLOCK_ROWS);
+    }
+
+    /**
+     * Copies the next rows into the block, replacing its rows. Returns false
+     * when all rows have been read.
+     */
+    synchronized boolean next(PackedDataSet block) {
+        block.resize(0);
+        while (block.size() < BLOCK_ROWS && iterator.hasNext()) {
+            block.addRow(iterator.next());
+        }
+        return block.size() > 0;
+    }
+}
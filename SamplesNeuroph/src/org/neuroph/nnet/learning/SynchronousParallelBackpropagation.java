@@ -0,0 +1,225 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+
+/**
+ * Synchronous data parallel mini batch backpropagation with repeatable
+ * results. Patterns of a batch are dealt to a fixed number of shards, threads
+ * calculate the gradients of the shards into their own buffers, and the
+ * buffers are summed in a fixed tree order before one weight update:
+ *
+ * shard 0 + shard 1, shard 2 + shard 3, ... then (0 + 1) + (2 + 3), ...
+ *
+ * Pattern errors are passed to the error function in shard order. Every sum
+ * is therefore done in the same order whatever the number of threads and
+ * their scheduling, so the same initial weights and training set always give
+ * the same weights, bit for bit. Results depend on batch size and shards
+ * count.
+ */
+public class SynchronousParallelBackpropagation extends MiniBatchBackpropagation {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int DEFAULT_SHARDS_COUNT = 8;
+
+    private int threadsCount = Runtime.getRuntime().availableProcessors();
+    private int shardsCount = DEFAULT_SHARDS_COUNT;
+
+    private transient LearningThreads threads;
+    private transient List<BatchLearner> shards;
+    private transient List<Callable<Void>> forwardTasks;
+    private transient List<Callable<Void>> backwardTasks;
+    private transient List<Callable<Void>> updateTasks;
+    private transient int count;
+
+    /**
+     * Creates learning rule with batches of 256 patterns, large enough to
+     * keep the threads busy between updates.
+     */
+    public SynchronousParallelBackpropagation() {
+        super(256);
+    }
+
+    public SynchronousParallelBackpropagation(int batchSize) {
+        super(batchSize);
+    }
+
+    public int getThreadsCount() {
+        return threadsCount;
+    }
+
+    /**
+     * Sets number of learning threads, by default number of processors. It
+     * does not change the results.
+     */
+    public void setThreadsCount(int threadsCount) {
+        if (threadsCount <= 0) {
+            throw new IllegalArgumentException("Threads count cannot be <= 0 : " + threadsCount);
+        }
+        this.threadsCount = threadsCount;
+    }
+
+    public int getShardsCount() {
+        return shardsCount;
+    }
+
+    /**
+     * Sets number of parts a batch is split into. Shards are the unit of
+     * parallel work, so there should be at least as many as threads.
+     */
+    public void setShardsCount(int shardsCount) {
+        if (shardsCount <= 0) {
+            throw new IllegalArgumentException("Shards count cannot be <= 0 : " + shardsCount);
+        }
+        this.shardsCount = shardsCount;
+    }
+
+    /**
+     * Creates only the previous weight changes, as batches are learned by the
+     * shards created in onStart().
+     */
+    @Override
+    protected void createLearningState() {
+        createPreviousChanges();
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        int shardCapacity = (getBatchSize() + shardsCount - 1) / shardsCount;
+        shards = new ArrayList<>(shardsCount);
+        forwardTasks = new ArrayList<>(shardsCount);
+        backwardTasks = new ArrayList<>(shardsCount);
+        for (int s = 0; s < shardsCount; s++) {
+            final BatchLearner shard = new BatchLearner(shardCapacity);
+            shards.add(shard);
+            forwardTasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    shard.calculateOutputs();
+                    return null;
+                }
+            });
+            backwardTasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    shard.calculateGradients();
+                    return null;
+                }
+            });
+        }
+        int slicesCount = Math.min(threadsCount, shardsCount);
+        updateTasks = new ArrayList<>(slicesCount);
+        for (int t = 0; t < slicesCount; t++) {
+            updateTasks.add(new UpdateTask(t, slicesCount));
+        }
+        threads = new LearningThreads(slicesCount, "synchronous-learning");
+    }
+
+    @Override
+    public void doLearningEpoch(DataSet trainingSet) {
+        Iterator<DataSetRow> iterator = trainingSet.iterator();
+        count = 0;
+        while (iterator.hasNext() && !isStopped()) {
+            // deal patterns to shards in turn
+            shards.get(count % shardsCount).add(iterator.next());
+            count++;
+            if (count == getBatchSize()) {
+                learnBatch();
+            }
+        }
+        if (count > 0 && !isStopped()) {
+            learnBatch();
+        }
+    }
+
+    private void learnBatch() {
+        if (threads.invokeAll(forwardTasks)) {
+            for (BatchLearner shard : shards) {
+                shard.calculateErrors();
+            }
+            if (threads.invokeAll(backwardTasks) && threads.invokeAll(updateTasks)) {
+                for (BatchLearner shard : shards) {
+                    shard.clear();
+                }
+                count = 0;
+                return;
+            }
+        }
+        stopLearning();
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        threads.shutdown();
+    }
+
+    /**
+     * Sums shard gradients of a slice of every layer's weights and updates
+     * those weights. Slices do not overlap, and the sum of each weight is
+     * done in the same tree order by whichever task owns it.
+     */
+    private class UpdateTask implements Callable<Void> {
+
+        private final int slice;
+        private final int slicesCount;
+
+        UpdateTask(int slice, int slicesCount) {
+            this.slice = slice;
+            this.slicesCount = slicesCount;
+        }
+
+        @Override
+        public Void call() {
+            double rate = learningRate / count;
+            double[][] previousChanges = getPreviousChanges();
+            for (int l = 1; l < previousChanges.length; l++) {
+                double[] weights = getFlatNetwork().getWeights(l);
+                double[] previousChange = previousChanges[l];
+                int from = (int) ((long) weights.length * slice / slicesCount);
+                int to = (int) ((long) weights.length * (slice + 1) / slicesCount);
+
+                for (int stride = 1; stride < shardsCount; stride *= 2) {
+                    for (int s = 0; s + stride < shardsCount; s += 2 * stride) {
+                        double[] sum = shards.get(s).getGradients()[l];
+                        double[] other = shards.get(s + stride).getGradients()[l];
+                        for (int k = from; k < to; k++) {
+                            sum[k] += other[k];
+                            other[k] = 0;
+                        }
+                    }
+                }
+
+                double[] gradient = shards.get(0).getGradients()[l];
+                for (int k = from; k < to; k++) {
+                    double change = -rate * gradient[k] + momentum * previousChange[k];
+                    weights[k] += change;
+                    previousChange[k] = change;
+                    gradient[k] = 0;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.neuroph.core.exceptions.NeurophException;
+
+/**
+ * State of learning after an epoch: iteration, weights of the flat network
+ * layer after layer, arrays of learning rule state like
+ * previous weight changes, and optionally the state of a random generator.
+ *
+ * It is saved in a compact binary file, written to a temporary file that
+ * replaces the old checkpoint by an atomic rename, so a crash while writing
+ * leaves the previous checkpoint intact. Saving doubles in bulk is much
+ * faster than serializing the network object graph.
+ */
+public final class TrainingCheckpoint {
+
+    private static final int MAGIC = 0x4E434B50;
+    private static final int VERSION = 1;
+
+    private final int iteration;
+    private final double[] weights;
+    private final List<double[]> state;
+    private final byte[] randomState;
+
+    public TrainingCheckpoint(int iteration, double[] weights, List<double[]> state, Random random) {
+        this(iteration, weights, state, random != null ? serialize(random) : null);
+    }
+
+    private TrainingCheckpoint(int iteration, double[] weights, List<double[]> state, byte[] randomState) {
+        this.iteration = iteration;
+        this.weights = weights;
+        this.state = Collections.unmodifiableList(new ArrayList<>(state));
+        this.randomState = randomState;
+    }
+
+    /**
+     * Returns number of epochs learned before the checkpoint.
+     */
+    public int getIteration() {
+        return iteration;
+    }
+
+    /**
+     * Returns weights of all layers of the flat network, one after another.
+     */
+    public double[] getWeights() {
+        return weights;
+    }
+
+    /**
+     * Returns learning rule state arrays, in the order the rule saved them.
+     */
+    public List<double[]> getState() {
+        return state;
+    }
+
+    /**
+     * Returns new random generator in the saved state, or null if none was
+     * saved.
+     */
+    public Random getRandom() {
+        if (randomState == null) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(randomState))) {
+            return (Random) in.readObject();
+        } catch (IOException | ClassNotFoundException ex) {
+            throw new NeurophException("Could not read random generator state!", ex);
+        }
+    }
+
+    /**
+     * Returns a copy with the state of given random generator.
+     */
+    public TrainingCheckpoint withRandom(Random random) {
+        return new TrainingCheckpoint(iteration, weights, state, random);
+    }
+
+    private static byte[] serialize(Random random) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(random);
+        } catch (IOException ex) {
+            throw new NeurophException("Could not save random generator state!", ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes checkpoint to a temporary file next to the given one, forces it
+     * to disk, and renames it to the given file.
+     */
+    public void write(File file) {
+        // magic, version, iteration, weights, state count and random length
+        int size = 6 * 4 + weights.length * 8;
+        for (double[] values : state) {
+            size += 4 + values.length * 8;
+        }
+        size += randomState != null ? randomState.length : 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(iteration);
+        putDoubles(buffer, weights);
+        buffer.putInt(state.size());
+        for (double[] values : state) {
+            putDoubles(buffer, values);
+        }
+        if (randomState != null) {
+            buffer.putInt(randomState.length).put(randomState);
+        } else {
+            buffer.putInt(-1);
+        }
+        buffer.flip();
+
+        File temp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(temp)) {
+                FileChannel channel = out.getChannel();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            throw new NeurophException("Could not write checkpoint " + file, ex);
+        }
+    }
+
+    private static void putDoubles(ByteBuffer buffer, double[] values) {
+        buffer.putInt(values.length);
+        buffer.asDoubleBuffer().put(values);
+        buffer.position(buffer.position() + values.length * 8);
+    }
+
+    /**
+     * Reads checkpoint written by write().
+     */
+    public static TrainingCheckpoint read(File file) {
+        ByteBuffer buffer;
+        try {
+            buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        } catch (IOException ex) {
+            throw new NeurophException("Could not read checkpoint " + file, ex);
+        }
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new NeurophException("File " + file + " is not a checkpoint!");
+            }
+            int iteration = buffer.getInt();
+            double[] weights = getDoubles(buffer);
+            int stateCount = buffer.getInt();
+            List<double[]> state = new ArrayList<>(stateCount);
+            for (int i = 0; i < stateCount; i++) {
+                state.add(getDoubles(buffer));
+            }
+            byte[] randomState = null;
+            int randomLength = buffer.getInt();
+            if (randomLength >= 0) {
+                randomState = new byte[randomLength];
+                buffer.get(randomState);
+            }
+            return new TrainingCheckpoint(iteration, weights, state, randomState);
+        } catch (RuntimeException ex) {
+            if (ex instanceof NeurophException) {
+                throw ex;
+            }
+            throw new NeurophException("Checkpoint " + file + " is damaged!", ex);
+        }
+    }
+
+    private static double[] getDoubles(ByteBuffer buffer) {
+        double[] values = new double[buffer.getInt()];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + values.length * 8);
+        return values;
+    }
+}
@@ -18,10 +18,14 @@ package org.neuroph.samples;
 import java.util.Arrays;
 import java.util.List;
 import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.data.ClassIndexDataSet;
 import org.neuroph.core.data.DataSet;
 import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.IndexedDataSet;
 import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.events.LearningEventBus;
 import org.neuroph.core.events.LearningEventListener;
+import org.neuroph.core.events.LearningEventSnapshot;
 import org.neuroph.core.learning.error.MeanSquaredError;
 import org.neuroph.eval.ClassifierEvaluator;
 import org.neuroph.eval.ErrorEvaluator;
@@ -29,10 +33,13 @@ import org.neuroph.eval.Evaluation;
 import org.neuroph.eval.classification.ClassificationMetrics;
 import org.neuroph.eval.classification.ConfusionMatrix;
 import org.neuroph.nnet.MultiLayerPerceptron;
-import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.neuroph.nnet.learning.HogwildBackpropagation;
 import org.neuroph.util.TransferFunctionType;
-import org.neuroph.util.data.norm.MaxNormalizer;
+import org.neuroph.util.data.norm.ColumnStatistics;
 import org.neuroph.util.data.norm.Normalizer;
+import org.neuroph.util.data.norm.ParallelNormalizer;
+import org.neuroph.util.data.norm.StatisticsNormalizer;
+import org.neuroph.util.io.CachedDataSetLoader;
 
 /**
  *
@@ -92,21 +99,24 @@ public class Abalone implements LearningEventListener {
         int outputsCount = 29;
 
         // create training set from file
-        DataSet dataSet = DataSet.createFromFile(trainingSetFileName, inputsCount, outputsCount, "\t", true);
-        Normalizer norm = new MaxNormalizer();
+        ColumnStatistics statistics = new ColumnStatistics(inputsCount + outputsCount);
+        DataSet dataSet = ClassIndexDataSet.from(CachedDataSetLoader.createPackedFromFile(trainingSetFileName, inputsCount, outputsCount, "\t", true, statistics));
+        Normalizer norm = new ParallelNormalizer(statistics, StatisticsNormalizer.Method.MAX);
         norm.normalize(dataSet);
-        dataSet.shuffle();
-
-        List<DataSet> subSets = dataSet.split(60, 40);
+        List<DataSet> subSets = new IndexedDataSet(dataSet).split(60, 40);
         DataSet trainingSet = subSets.get(0);
         DataSet testSet = subSets.get(1);
 
         System.out.println("Creating neural network...");
         MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(inputsCount, 15, 10, outputsCount);
 
-        neuralNet.setLearningRule(new MomentumBackpropagation());
-        MomentumBackpropagation learningRule = (MomentumBackpropagation) neuralNet.getLearningRule();
-        learningRule.addListener(this);
+        // learn with one thread per processor, each on its part of the training set
+        HogwildBackpropagation learningRule = new HogwildBackpropagation();
+        learningRule.setMomentum(0.25);
+        neuralNet.setLearningRule(learningRule);
+        // print progress on another thread, so printing does not slow learning
+        LearningEventBus events = new LearningEventBus(this);
+        learningRule.addListener(events);
 
         // set learning rate and max error
         learningRule.setLearningRate(0.1);
@@ -115,6 +125,7 @@ public class Abalone implements LearningEventListener {
         System.out.println("Training network...");
         // train the network with training set
         neuralNet.learn(trainingSet);
+        events.close();
         System.out.println("Training completed.");
         System.out.println("Network outputs for test set");
 
@@ -164,7 +175,7 @@ public class Abalone implements LearningEventListener {
 
     @Override
     public void handleLearningEvent(LearningEvent event) {
-        MomentumBackpropagation bp = (MomentumBackpropagation) event.getSource();
-        System.out.println(bp.getCurrentIteration() + ". iteration | Total network error: " + bp.getTotalNetworkError());
+        LearningEventSnapshot snapshot = (LearningEventSnapshot) event;
+        System.out.println(snapshot.getIteration() + ". iteration | Total network error: " + snapshot.getTotalNetworkError());
     }
 }
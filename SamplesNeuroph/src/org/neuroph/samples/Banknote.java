@@ -20,8 +20,11 @@ import java.util.List;
 import org.neuroph.core.NeuralNetwork;
 import org.neuroph.core.data.DataSet;
 import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.IndexedDataSet;
 import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.events.LearningEventBus;
 import org.neuroph.core.events.LearningEventListener;
+import org.neuroph.core.events.LearningEventSnapshot;
 import org.neuroph.core.learning.error.MeanSquaredError;
 import org.neuroph.eval.ClassifierEvaluator;
 import org.neuroph.eval.ErrorEvaluator;
@@ -31,8 +34,11 @@ import org.neuroph.eval.classification.ConfusionMatrix;
 import org.neuroph.nnet.MultiLayerPerceptron;
 import org.neuroph.nnet.learning.MomentumBackpropagation;
 import org.neuroph.util.TransferFunctionType;
-import org.neuroph.util.data.norm.MaxNormalizer;
+import org.neuroph.util.data.norm.ColumnStatistics;
 import org.neuroph.util.data.norm.Normalizer;
+import org.neuroph.util.data.norm.ParallelNormalizer;
+import org.neuroph.util.data.norm.StatisticsNormalizer;
+import org.neuroph.util.io.CachedDataSetLoader;
 
 /**
  *
@@ -86,12 +92,11 @@ public class Banknote implements LearningEventListener {
         int outputsCount = 1;
 
         // create training set from file
-        DataSet dataSet = DataSet.createFromFile(trainingSetFileName, inputsCount, outputsCount, ",", false);
-        Normalizer norm = new MaxNormalizer();
+        ColumnStatistics statistics = new ColumnStatistics(inputsCount + outputsCount);
+        DataSet dataSet = CachedDataSetLoader.createPackedFromFile(trainingSetFileName, inputsCount, outputsCount, ",", false, statistics);
+        Normalizer norm = new ParallelNormalizer(statistics, StatisticsNormalizer.Method.MAX);
         norm.normalize(dataSet);
-        dataSet.shuffle();
-
-        List<DataSet> subSets = dataSet.split(60, 40);
+        List<DataSet> subSets = new IndexedDataSet(dataSet).split(60, 40);
         DataSet trainingSet = subSets.get(0);
         DataSet testSet = subSets.get(1);
 
@@ -100,7 +105,9 @@ public class Banknote implements LearningEventListener {
 
         neuralNet.setLearningRule(new MomentumBackpropagation());
         MomentumBackpropagation learningRule = (MomentumBackpropagation) neuralNet.getLearningRule();
-        learningRule.addListener(this);
+        // print progress on another thread, so printing does not slow learning
+        LearningEventBus events = new LearningEventBus(this);
+        learningRule.addListener(events);
 
         // set learning rate and max error
         learningRule.setLearningRate(0.1);
@@ -108,6 +115,7 @@ public class Banknote implements LearningEventListener {
         System.out.println("Training network...");
         // train the network with training set
         neuralNet.learn(trainingSet);
+        events.close();
         System.out.println("Training completed.");
         System.out.println("Testing network...");
 
@@ -156,8 +164,8 @@ public class Banknote implements LearningEventListener {
 
     @Override
     public void handleLearningEvent(LearningEvent event) {
-        MomentumBackpropagation bp = (MomentumBackpropagation) event.getSource();
-        System.out.println(bp.getCurrentIteration() + ". iteration | Total network error: " + bp.getTotalNetworkError());
+        LearningEventSnapshot snapshot = (LearningEventSnapshot) event;
+        System.out.println(snapshot.getIteration() + ". iteration | Total network error: " + snapshot.getTotalNetworkError());
     }
 
 }
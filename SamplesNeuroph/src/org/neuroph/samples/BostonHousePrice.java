@@ -20,17 +20,23 @@ import java.util.List;
 import org.neuroph.core.NeuralNetwork;
 import org.neuroph.core.data.DataSet;
 import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.IndexedDataSet;
 import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.events.LearningEventBus;
 import org.neuroph.core.events.LearningEventListener;
+import org.neuroph.core.events.LearningEventSnapshot;
 import org.neuroph.core.learning.error.MeanSquaredError;
 import org.neuroph.core.leraning.error.MeanAbsoluteError;
 import org.neuroph.nnet.Adaline;
 import org.neuroph.nnet.MultiLayerPerceptron;
 import org.neuroph.nnet.learning.LMS;
-import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.neuroph.nnet.learning.LevenbergMarquardt;
 import org.neuroph.util.TransferFunctionType;
-import org.neuroph.util.data.norm.MaxNormalizer;
-import org.neuroph.util.data.norm.Normalizer;
+import org.neuroph.util.data.norm.ColumnStatistics;
+import org.neuroph.util.data.norm.NormalizationParameters;
+import org.neuroph.util.data.norm.ParallelNormalizer;
+import org.neuroph.util.data.norm.StatisticsNormalizer;
+import org.neuroph.util.io.CachedDataSetLoader;
 
 /**
  *
@@ -92,25 +98,31 @@ public class BostonHousePrice implements LearningEventListener {
         int outputsCount = 1;
 
         // create training set from file
-        DataSet dataSet = DataSet.createFromFile(trainingSetFileName, inputsCount, outputsCount, ",");
-        Normalizer norm = new MaxNormalizer();
+        ColumnStatistics statistics = new ColumnStatistics(inputsCount + outputsCount);
+        DataSet dataSet = CachedDataSetLoader.createPackedFromFile(trainingSetFileName, inputsCount, outputsCount, ",", false, statistics);
+        StatisticsNormalizer norm = new ParallelNormalizer(statistics, StatisticsNormalizer.Method.MAX);
         norm.normalize(dataSet);
-        dataSet.shuffle();
-
-        List<DataSet> subSets = dataSet.split(60, 40);
+        List<DataSet> subSets = new IndexedDataSet(dataSet).split(60, 40);
         DataSet trainingSet = subSets.get(0);
         DataSet testSet = subSets.get(1);
 
         System.out.println("Creating neural network...");
         MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(TransferFunctionType.TANH, inputsCount, 2, 2, outputsCount);
 
-        neuralNet.setLearningRule(new MomentumBackpropagation());
-        MomentumBackpropagation learningRule = (MomentumBackpropagation) neuralNet.getLearningRule();
-        learningRule.addListener(this);
+        // second order steps reach a low error of this small network in tens
+        // of epochs, where momentum backpropagation needs thousands
+        LevenbergMarquardt learningRule = new LevenbergMarquardt();
+        neuralNet.setLearningRule(learningRule);
+        // print progress on another thread, so printing does not slow learning
+        LearningEventBus events = new LearningEventBus(this);
+        learningRule.addListener(events);
+        learningRule.setMaxError(0.002);
+        learningRule.setMaxIterations(1000);
 
         System.out.println("Training network...");
         // train the network with training set
         neuralNet.learn(trainingSet);
+        events.close();
         System.out.println("Training completed.");
         System.out.println("Network outputs for test set");
 
@@ -120,10 +132,29 @@ public class BostonHousePrice implements LearningEventListener {
         System.out.println("Saving network");
         // save neural network to file
         neuralNet.save("nn1.nnet");
+        // save scaling of the training data, needed to prepare new inputs
+        norm.getParameters().save("nn1.norm");
+
+        System.out.println("Predicting price for the first house in the data set");
+        NeuralNetwork<?> loadedNet = NeuralNetwork.createFromFile("nn1.nnet");
+        NormalizationParameters parameters = NormalizationParameters.load("nn1.norm");
+        double[] house = {0.00632, 18.00, 2.310, 0, 0.5380, 6.5750, 65.20, 4.0900, 1, 296.0, 15.30, 396.90, 4.98};
+        System.out.println("Predicted price: " + predict(loadedNet, parameters, house) + " (actual 24.00)");
 
         System.out.println("Done.");
     }
 
+    /**
+     * Returns price predicted for raw house attributes, which are normalized
+     * in place, so the call does not allocate.
+     */
+    public double predict(NeuralNetwork<?> neuralNet, NormalizationParameters parameters, double[] input) {
+        parameters.normalizeInput(input);
+        neuralNet.setInput(input);
+        neuralNet.calculate();
+        return parameters.denormalizeOutput(0, neuralNet.getOutput()[0]);
+    }
+
     public void testNeuralNetwork(NeuralNetwork neuralNet, DataSet testSet) {
 
         for (DataSetRow testSetRow : testSet.getRows()) {
@@ -159,7 +190,7 @@ public class BostonHousePrice implements LearningEventListener {
 
     @Override
     public void handleLearningEvent(LearningEvent event) {
-        MomentumBackpropagation bp = (MomentumBackpropagation) event.getSource();
-        System.out.println(bp.getCurrentIteration() + ". iteration | Total network error: " + bp.getTotalNetworkError());
+        LearningEventSnapshot snapshot = (LearningEventSnapshot) event;
+        System.out.println(snapshot.getIteration() + ". iteration | Total network error: " + snapshot.getTotalNetworkError());
     }
 }
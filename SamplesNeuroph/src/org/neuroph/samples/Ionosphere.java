@@ -20,19 +20,26 @@ import java.util.List;
 import org.neuroph.core.NeuralNetwork;
 import org.neuroph.core.data.DataSet;
 import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.IndexedDataSet;
 import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.events.LearningEventBus;
 import org.neuroph.core.events.LearningEventListener;
+import org.neuroph.core.events.LearningEventSnapshot;
 import org.neuroph.core.learning.error.MeanSquaredError;
 import org.neuroph.eval.ClassifierEvaluator;
 import org.neuroph.eval.ErrorEvaluator;
 import org.neuroph.eval.Evaluation;
 import org.neuroph.eval.classification.ClassificationMetrics;
 import org.neuroph.eval.classification.ConfusionMatrix;
+import org.neuroph.nnet.Ensemble;
 import org.neuroph.nnet.MultiLayerPerceptron;
 import org.neuroph.nnet.learning.MomentumBackpropagation;
 import org.neuroph.util.TransferFunctionType;
-import org.neuroph.util.data.norm.MaxNormalizer;
+import org.neuroph.util.data.norm.ColumnStatistics;
 import org.neuroph.util.data.norm.Normalizer;
+import org.neuroph.util.data.norm.ParallelNormalizer;
+import org.neuroph.util.data.norm.StatisticsNormalizer;
+import org.neuroph.util.io.CachedDataSetLoader;
 
 /**
  *
@@ -79,28 +86,35 @@ public class Ionosphere implements LearningEventListener {
         int outputsCount = 1;
 
         // create training set from file
-        DataSet dataSet = DataSet.createFromFile(trainingSetFileName, inputsCount, outputsCount, ",", false);
-        Normalizer norm = new MaxNormalizer();
+        ColumnStatistics statistics = new ColumnStatistics(inputsCount + outputsCount);
+        DataSet dataSet = CachedDataSetLoader.createPackedFromFile(trainingSetFileName, inputsCount, outputsCount, ",", false, statistics);
+        Normalizer norm = new ParallelNormalizer(statistics, StatisticsNormalizer.Method.MAX);
         norm.normalize(dataSet);
-        dataSet.shuffle();
-
-        List<DataSet> subSets = dataSet.split(60, 40);
+        List<DataSet> subSets = new IndexedDataSet(dataSet).split(60, 40);
         DataSet trainingSet = subSets.get(0);
         DataSet testSet = subSets.get(1);
 
         System.out.println("Creating neural network...");
-        MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(inputsCount, 30, 25, outputsCount);
-
-        neuralNet.setLearningRule(new MomentumBackpropagation());
-        MomentumBackpropagation learningRule = (MomentumBackpropagation) neuralNet.getLearningRule();
-        learningRule.addListener(this);
-
-        // set learning rate and max error
-        learningRule.setLearningRate(0.1);
-        learningRule.setMaxError(0.01);
+        // bagging: members learn on bootstrap samples of the small training
+        // set at the same time, and their outputs are averaged
+        Ensemble neuralNet = new Ensemble(5, inputsCount, 30, 25, outputsCount);
+
+        // print progress on another thread, so printing does not slow learning
+        LearningEventBus events = new LearningEventBus(this);
+        for (NeuralNetwork<?> member : neuralNet.getMembers()) {
+            MomentumBackpropagation learningRule = new MomentumBackpropagation();
+            ((MultiLayerPerceptron) member).setLearningRule(learningRule);
+            learningRule.addListener(events);
+
+            // set learning rate and max error
+            learningRule.setLearningRate(0.1);
+            learningRule.setMaxError(0.01);
+            learningRule.setMaxIterations(1000);
+        }
         System.out.println("Training network...");
         // train the network with training set
         neuralNet.learn(trainingSet);
+        events.close();
         System.out.println("Training completed.");
         System.out.println("Testing network...");
 
@@ -149,7 +163,7 @@ public class Ionosphere implements LearningEventListener {
 
     @Override
     public void handleLearningEvent(LearningEvent event) {
-        MomentumBackpropagation bp = (MomentumBackpropagation) event.getSource();
-        System.out.println(bp.getCurrentIteration() + ". iteration | Total network error: " + bp.getTotalNetworkError());
+        LearningEventSnapshot snapshot = (LearningEventSnapshot) event;
+        System.out.println(snapshot.getIteration() + ". iteration | Total network error: " + snapshot.getTotalNetworkError());
     }
 }
@@ -17,15 +17,21 @@ package org.neuroph.samples;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 import org.neuroph.core.NeuralNetwork;
 import org.neuroph.core.data.DataSet;
 import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.IndexedDataSet;
 import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.events.LearningEventBus;
 import org.neuroph.core.events.LearningEventListener;
+import org.neuroph.core.events.LearningEventSnapshot;
+import org.neuroph.core.exceptions.NeurophException;
 import org.neuroph.core.learning.error.MeanSquaredError;
 import org.neuroph.eval.ClassifierEvaluator;
 import org.neuroph.eval.ErrorEvaluator;
 import org.neuroph.eval.Evaluation;
+import org.neuroph.eval.StratifiedCrossValidation;
 import org.neuroph.eval.classification.ClassificationMetrics;
 import org.neuroph.eval.classification.ConfusionMatrix;
 import org.neuroph.nnet.MultiLayerPerceptron;
@@ -33,6 +39,7 @@ import org.neuroph.nnet.learning.MomentumBackpropagation;
 import org.neuroph.util.TransferFunctionType;
 import org.neuroph.util.data.norm.MaxNormalizer;
 import org.neuroph.util.data.norm.Normalizer;
+import org.neuroph.util.io.CachedDataSetLoader;
 
 /**
  *
@@ -84,10 +91,8 @@ public class IrisFlowers implements LearningEventListener {
         int outputsCount = 3;
 
         // create training set from file
-        DataSet dataSet = DataSet.createFromFile(trainingSetFileName, inputsCount, outputsCount, ",");
-        dataSet.shuffle();
-
-        List<DataSet> subSets = dataSet.split(60, 40);
+        DataSet dataSet = CachedDataSetLoader.createPackedFromFile(trainingSetFileName, inputsCount, outputsCount, ",", false);
+        List<DataSet> subSets = new IndexedDataSet(dataSet).split(60, 40);
         DataSet trainingSet = subSets.get(0);
         DataSet testSet = subSets.get(1);
 
@@ -96,7 +101,9 @@ public class IrisFlowers implements LearningEventListener {
 
         neuralNet.setLearningRule(new MomentumBackpropagation());
         MomentumBackpropagation learningRule = (MomentumBackpropagation) neuralNet.getLearningRule();
-        learningRule.addListener(this);
+        // print progress on another thread, so printing does not slow learning
+        LearningEventBus events = new LearningEventBus(this);
+        learningRule.addListener(events);
 
         // set learning rate and max error
         learningRule.setLearningRate(0.2);
@@ -104,6 +111,7 @@ public class IrisFlowers implements LearningEventListener {
         System.out.println("Training network...");
         // train the network with training set
         neuralNet.learn(trainingSet);
+        events.close();
         System.out.println("Training completed.");
         System.out.println("Testing network...");
 
@@ -114,9 +122,35 @@ public class IrisFlowers implements LearningEventListener {
         // save neural network to file
         neuralNet.save("nn1.nnet");
 
+        System.out.println("Cross validating network...");
+        crossValidate(dataSet);
+
         System.out.println("Done.");
     }
 
+    /**
+     * Runs stratified 10-fold cross validation, training the folds in
+     * parallel on copies of a new network.
+     */
+    public void crossValidate(DataSet dataSet) {
+        MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(TransferFunctionType.TANH, dataSet.getInputSize(), 2, dataSet.getOutputSize());
+        MomentumBackpropagation learningRule = new MomentumBackpropagation();
+        learningRule.setLearningRate(0.2);
+        learningRule.setMaxError(0.03);
+        neuralNet.setLearningRule(learningRule);
+
+        StratifiedCrossValidation crossValidation = new StratifiedCrossValidation(neuralNet, dataSet, 10);
+        crossValidation.setClassLabels(new String[]{"Virginica", "Setosa", "Versicolor"});
+        try {
+            crossValidation.run().printResult();
+        } catch (InterruptedException | ExecutionException ex) {
+            throw new NeurophException("Cross validation failed!", ex);
+        }
+        System.out.println("Merged confusion matrix:\r\n");
+        System.out.println(crossValidation.getConfusionMatrix().toString());
+        System.out.println("Mean squared error: " + crossValidation.getMeanSquareError());
+    }
+
     public void testNeuralNetwork(NeuralNetwork neuralNet, DataSet testSet) {
 
         for (DataSetRow testSetRow : testSet.getRows()) {
@@ -153,8 +187,8 @@ public class IrisFlowers implements LearningEventListener {
 
     @Override
     public void handleLearningEvent(LearningEvent event) {
-        MomentumBackpropagation bp = (MomentumBackpropagation) event.getSource();
-        System.out.println(bp.getCurrentIteration() + ". iteration | Total network error: " + bp.getTotalNetworkError());
+        LearningEventSnapshot snapshot = (LearningEventSnapshot) event;
+        System.out.println(snapshot.getIteration() + ". iteration | Total network error: " + snapshot.getTotalNetworkError());
     }
 
 }
@@ -20,16 +20,22 @@ import java.util.List;
 import org.neuroph.core.NeuralNetwork;
 import org.neuroph.core.data.DataSet;
 import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.IndexedDataSet;
 import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.events.LearningEventBus;
 import org.neuroph.core.events.LearningEventListener;
+import org.neuroph.core.events.LearningEventSnapshot;
 import org.neuroph.core.learning.error.MeanSquaredError;
 import org.neuroph.core.leraning.error.MeanAbsoluteError;
 import org.neuroph.eval.ErrorEvaluator;
 import org.neuroph.eval.Evaluation;
 import org.neuroph.nnet.Adaline;
-import org.neuroph.nnet.learning.LMS;
-import org.neuroph.util.data.norm.MaxNormalizer;
+import org.neuroph.nnet.learning.LeastSquaresLearning;
+import org.neuroph.util.data.norm.ColumnStatistics;
 import org.neuroph.util.data.norm.Normalizer;
+import org.neuroph.util.data.norm.ParallelNormalizer;
+import org.neuroph.util.data.norm.StatisticsNormalizer;
+import org.neuroph.util.io.CachedDataSetLoader;
 
 /**
  *
@@ -74,25 +80,28 @@ public class SwedishAutoInsurance implements LearningEventListener {
         int outputsCount = 1;
 
         // create training set from file
-        DataSet dataSet = DataSet.createFromFile(dataSetFileName, inputsCount, outputsCount, ",", false);
-        Normalizer norm = new MaxNormalizer();
+        ColumnStatistics statistics = new ColumnStatistics(inputsCount + outputsCount);
+        DataSet dataSet = CachedDataSetLoader.createPackedFromFile(dataSetFileName, inputsCount, outputsCount, ",", false, statistics);
+        Normalizer norm = new ParallelNormalizer(statistics, StatisticsNormalizer.Method.MAX);
         norm.normalize(dataSet);
-        dataSet.shuffle();
-
-        List<DataSet> subSets = dataSet.split(60, 40);
+        List<DataSet> subSets = new IndexedDataSet(dataSet).split(60, 40);
         DataSet trainingSet = subSets.get(0);
         DataSet testSet = subSets.get(1);
 
         System.out.println("Creating neural network...");
         Adaline neuralNet = new Adaline(1);
 
-        neuralNet.setLearningRule(new LMS());
-        LMS learningRule = (LMS) neuralNet.getLearningRule();
-        learningRule.addListener(this);
+        // solve the linear model directly, in one pass over the training set
+        LeastSquaresLearning learningRule = new LeastSquaresLearning();
+        neuralNet.setLearningRule(learningRule);
+        // print progress on another thread, so printing does not slow learning
+        LearningEventBus events = new LearningEventBus(this);
+        learningRule.addListener(events);
 
         // train the network with training set
         System.out.println("Training network...");
         neuralNet.learn(trainingSet);
+        events.close();
         System.out.println("Training completed.");
 
         System.out.println("Network outputs for test set");
@@ -140,8 +149,8 @@ public class SwedishAutoInsurance implements LearningEventListener {
 
     @Override
     public void handleLearningEvent(LearningEvent event) {
-        LMS bp = (LMS) event.getSource();
-        System.out.println(bp.getCurrentIteration() + ". iteration | Total network error: " + bp.getTotalNetworkError());
+        LearningEventSnapshot snapshot = (LearningEventSnapshot) event;
+        System.out.println(snapshot.getIteration() + ". iteration | Total network error: " + snapshot.getTotalNetworkError());
     }
 
 }
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.flat.FlatNetwork;
+import org.neuroph.nnet.flat.FloatNetwork;
+import org.neuroph.nnet.flat.Kernel;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+/**
+ * Times forward and backward passes of a flat network with a given kernel,
+ * on random batches, in double or with a {@link FloatNetwork} in float. Run
+ * main() with kernel names or Kernel class names as arguments to compare them
+ * with the scalar kernel, for example
+ *
+ * java org.neuroph.util.benchmark.KernelBenchmark unrolled
+ */
+public class KernelBenchmark extends BenchmarkTask {
+
+    private static final int BATCH_SIZE = 32;
+    private static final int BATCHES_COUNT = 200;
+
+    private final Kernel kernel;
+    private final boolean singlePrecision;
+    private final int[] layerSizes;
+    private FlatNetwork flatNetwork;
+    private FlatNetwork.Batch batch;
+    private double[][] gradients;
+    private FloatNetwork floatNetwork;
+    private FloatNetwork.Batch floatBatch;
+    private float[][] floatGradients;
+    private double[] error;
+
+    public KernelBenchmark(Kernel kernel, int... layerSizes) {
+        this(kernel, false, layerSizes);
+    }
+
+    /**
+     * Creates benchmark of the float network when singlePrecision is true.
+     */
+    public KernelBenchmark(Kernel kernel, boolean singlePrecision, int... layerSizes) {
+        super(kernel + (singlePrecision ? " float " : " ") + Arrays.toString(layerSizes));
+        this.kernel = kernel;
+        this.singlePrecision = singlePrecision;
+        this.layerSizes = layerSizes;
+        setWarmupIterations(20);
+        setTestIterations(50);
+    }
+
+    @Override
+    public void prepareTest() {
+        MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(TransferFunctionType.SIGMOID, layerSizes);
+        neuralNet.randomizeWeights(new WeightsRandomizer(new Random(1)));
+        flatNetwork = FlatNetwork.compile(neuralNet);
+        flatNetwork.setKernel(kernel);
+        batch = flatNetwork.newBatch(BATCH_SIZE);
+        gradients = flatNetwork.newWeightArrays();
+        floatNetwork = new FloatNetwork(flatNetwork);
+        floatBatch = floatNetwork.newBatch(BATCH_SIZE);
+        floatGradients = floatNetwork.newWeightArrays();
+
+        Random random = new Random(1);
+        double[] input = new double[flatNetwork.getInputsCount()];
+        for (int r = 0; r < BATCH_SIZE; r++) {
+            for (int i = 0; i < input.length; i++) {
+                input[i] = random.nextDouble();
+            }
+            batch.setInput(r, input);
+            floatBatch.setInput(r, input);
+        }
+        error = new double[flatNetwork.getOutputsCount()];
+        Arrays.fill(error, 0.1);
+    }
+
+    @Override
+    public void runTest() {
+        if (singlePrecision) {
+            runFloatTest();
+            return;
+        }
+        for (int b = 0; b < BATCHES_COUNT; b++) {
+            flatNetwork.forward(batch, BATCH_SIZE);
+            for (int r = 0; r < BATCH_SIZE; r++) {
+                batch.setOutputError(r, error);
+            }
+            flatNetwork.backward(batch, BATCH_SIZE, gradients);
+        }
+    }
+
+    private void runFloatTest() {
+        for (int b = 0; b < BATCHES_COUNT; b++) {
+            floatNetwork.forward(floatBatch, BATCH_SIZE);
+            for (int r = 0; r < BATCH_SIZE; r++) {
+                floatBatch.setOutputError(r, error);
+            }
+            floatNetwork.backward(floatBatch, BATCH_SIZE, floatGradients);
+        }
+    }
+
+    public static void main(String[] args) {
+        String[] names = args.length > 0 ? args : new String[]{"unrolled"};
+        int[][] networks = {{60, 15, 10, 1}, {11, 20, 15, 10}, {60, 256, 128, 1}};
+
+        Benchmark benchmark = new Benchmark();
+        for (int[] layerSizes : networks) {
+            benchmark.addTask(new KernelBenchmark(Kernel.scalar(), layerSizes));
+            for (String name : names) {
+                benchmark.addTask(new KernelBenchmark(Kernel.forName(name), layerSizes));
+                benchmark.addTask(new KernelBenchmark(Kernel.forName(name), true, layerSizes));
+            }
+        }
+        benchmark.run();
+    }
+}
@@ -0,0 +1,238 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.data.norm;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+import org.neuroph.core.data.ArrayDataSet;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.PackedDataSet;
+
+/**
+ * Minimum, maximum, mean and variance of each data set column, collected in a
+ * single pass. Columns are the inputs followed by the desired outputs, the same
+ * way as in data set files, so the statistics can be filled while a file is
+ * parsed and used by {@link StatisticsNormalizer} without reading the rows
+ * again.
+ *
+ * Mean and variance are updated with Welford's method, which stays accurate
+ * for large row counts, and statistics collected separately for parts of the
+ * data can be merged.
+ */
+public class ColumnStatistics implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long[] counts;
+    private final double[] min;
+    private final double[] max;
+    private final double[] mean;
+    private final double[] m2;
+
+    public ColumnStatistics(int columnsCount) {
+        if (columnsCount <= 0) {
+            throw new IllegalArgumentException("Number of columns cannot be <= 0 : " + columnsCount);
+        }
+        this.counts = new long[columnsCount];
+        this.min = new double[columnsCount];
+        this.max = new double[columnsCount];
+        this.mean = new double[columnsCount];
+        this.m2 = new double[columnsCount];
+        Arrays.fill(min, Double.POSITIVE_INFINITY);
+        Arrays.fill(max, Double.NEGATIVE_INFINITY);
+    }
+
+    /**
+     * Collects statistics of all input and output columns of given data set.
+     */
+    public static ColumnStatistics of(DataSet dataSet) {
+        return of(dataSet, 0, dataSet.size());
+    }
+
+    /**
+     * Collects statistics of all columns for rows [fromRow, toRow) of given
+     * data set.
+     */
+    public static ColumnStatistics of(DataSet dataSet, int fromRow, int toRow) {
+        int inputSize = dataSet.getInputSize();
+        int outputSize = dataSet.getOutputSize();
+        ColumnStatistics statistics = new ColumnStatistics(inputSize + outputSize);
+        if (dataSet instanceof PackedDataSet) {
+            PackedDataSet packed = (PackedDataSet) dataSet;
+            double[] data = packed.getData();
+            for (int r = fromRow; r < toRow; r++) {
+                statistics.add(data, r * packed.getStride());
+            }
+            return statistics;
+        }
+
+        double[] values = new double[inputSize + outputSize];
+        if (dataSet instanceof ArrayDataSet) {
+            ArrayDataSet arrays = (ArrayDataSet) dataSet;
+            double[] output = new double[outputSize];
+            for (int r = fromRow; r < toRow; r++) {
+                arrays.copyInput(r, values);
+                arrays.copyDesiredOutput(r, output);
+                System.arraycopy(output, 0, values, inputSize, outputSize);
+                statistics.add(values);
+            }
+            return statistics;
+        }
+
+        List<DataSetRow> rows = dataSet.getRows();
+        for (int r = fromRow; r < toRow; r++) {
+            DataSetRow row = rows.get(r);
+            System.arraycopy(row.getInput(), 0, values, 0, inputSize);
+            if (outputSize > 0) {
+                System.arraycopy(row.getDesiredOutput(), 0, values, inputSize, outputSize);
+            }
+            statistics.add(values);
+        }
+        return statistics;
+    }
+
+    public int getColumnsCount() {
+        return counts.length;
+    }
+
+    /**
+     * Returns number of rows added.
+     */
+    public long getCount() {
+        return counts[0];
+    }
+
+    /**
+     * Adds row given as inputs followed by desired outputs.
+     */
+    public void add(double[] values) {
+        add(values, 0);
+    }
+
+    /**
+     * Adds row whose values start at given offset of the array.
+     */
+    public void add(double[] values, int offset) {
+        for (int c = 0; c < counts.length; c++) {
+            double value = values[offset + c];
+            long n = ++counts[c];
+            double delta = value - mean[c];
+            mean[c] += delta / n;
+            m2[c] += delta * (value - mean[c]);
+            if (value < min[c]) {
+                min[c] = value;
+            }
+            if (value > max[c]) {
+                max[c] = value;
+            }
+        }
+    }
+
+    /**
+     * Adds values of one column for consecutive rows, which is how columnar
+     * files are read. All columns must be given the same number of values
+     * before the statistics are used.
+     */
+    public void addColumn(int column, double[] values, int count) {
+        if (count == 0) {
+            return;
+        }
+        double chunkMin = Double.POSITIVE_INFINITY;
+        double chunkMax = Double.NEGATIVE_INFINITY;
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += values[i];
+            if (values[i] < chunkMin) {
+                chunkMin = values[i];
+            }
+            if (values[i] > chunkMax) {
+                chunkMax = values[i];
+            }
+        }
+        double chunkMean = sum / count;
+        double chunkM2 = 0;
+        for (int i = 0; i < count; i++) {
+            double delta = values[i] - chunkMean;
+            chunkM2 += delta * delta;
+        }
+        merge(column, count, chunkMin, chunkMax, chunkMean, chunkM2);
+    }
+
+    /**
+     * Adds statistics collected for other rows with the same columns.
+     */
+    public void merge(ColumnStatistics other) {
+        if (other.getColumnsCount() != getColumnsCount()) {
+            throw new IllegalArgumentException("Statistics have different number of columns!");
+        }
+        for (int c = 0; c < counts.length; c++) {
+            if (other.counts[c] > 0) {
+                merge(c, other.counts[c], other.min[c], other.max[c], other.mean[c], other.m2[c]);
+            }
+        }
+    }
+
+    /**
+     * Merges statistics of other rows into one column, using the pairwise
+     * update of Chan et al.
+     */
+    private void merge(int c, long otherCount, double otherMin, double otherMax, double otherMean, double otherM2) {
+        long n = counts[c] + otherCount;
+        double delta = otherMean - mean[c];
+        mean[c] += delta * otherCount / n;
+        m2[c] += otherM2 + delta * delta * ((double) counts[c] * otherCount / n);
+        counts[c] = n;
+        min[c] = Math.min(min[c], otherMin);
+        max[c] = Math.max(max[c], otherMax);
+    }
+
+    public double getMin(int column) {
+        return min[column];
+    }
+
+    public double getMax(int column) {
+        return max[column];
+    }
+
+    public double getMean(int column) {
+        return mean[column];
+    }
+
+    /**
+     * Returns population variance of given column.
+     */
+    public double getVariance(int column) {
+        return counts[column] > 0 ? m2[column] / counts[column] : 0;
+    }
+
+    public double getStandardDeviation(int column) {
+        return Math.sqrt(getVariance(column));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Column statistics for ").append(getCount()).append(" rows").append(System.lineSeparator());
+        for (int c = 0; c < counts.length; c++) {
+            sb.append(c).append(": min=").append(min[c]).append(" max=").append(max[c])
+                    .append(" mean=").append(mean[c]).append(" variance=").append(getVariance(c))
+                    .append(System.lineSeparator());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.data.norm;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.List;
+import org.neuroph.core.data.ClassIndexDataSet;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.IndexedDataSet;
+import org.neuroph.core.data.PackedDataSet;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.core.exceptions.VectorSizeMismatchException;
+
+/**
+ * Scaling fitted by {@link StatisticsNormalizer}: each column has a value
+ * subtracted from it and a value it is divided by. The parameters can be saved
+ * next to the trained network and applied to new inputs without the training
+ * data, one vector at a time and without allocating anything.
+ */
+public class NormalizationParameters implements Normalizer, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int inputSize;
+    private final int outputSize;
+    private final double[] shift;
+    private final double[] divisor;
+
+    /**
+     * Creates parameters for inputs followed by outputs.
+     *
+     * @param outputSize number of normalized outputs, 0 if only inputs are
+     * normalized
+     */
+    public NormalizationParameters(int inputSize, int outputSize, double[] shift, double[] divisor) {
+        if (inputSize <= 0 || outputSize < 0) {
+            throw new IllegalArgumentException("Invalid number of columns: " + inputSize + " inputs, " + outputSize + " outputs");
+        }
+        if (shift.length != inputSize + outputSize || divisor.length != inputSize + outputSize) {
+            throw new IllegalArgumentException("Expected " + (inputSize + outputSize) + " values for shift and divisor!");
+        }
+        this.inputSize = inputSize;
+        this.outputSize = outputSize;
+        this.shift = shift.clone();
+        this.divisor = divisor.clone();
+    }
+
+    public int getInputSize() {
+        return inputSize;
+    }
+
+    /**
+     * Returns number of normalized outputs, 0 if outputs are left as they are.
+     */
+    public int getOutputSize() {
+        return outputSize;
+    }
+
+    public double getShift(int column) {
+        return shift[column];
+    }
+
+    public double getDivisor(int column) {
+        return divisor[column];
+    }
+
+    /**
+     * Normalizes raw input vector in place.
+     */
+    public void normalizeInput(double[] input) {
+        if (input.length != inputSize) {
+            throw new VectorSizeMismatchException("Input vector size does not match normalization parameters!");
+        }
+        for (int i = 0; i < inputSize; i++) {
+            input[i] = (input[i] - shift[i]) / divisor[i];
+        }
+    }
+
+    /**
+     * Returns network output value in the original units of given output.
+     */
+    public double denormalizeOutput(int index, double value) {
+        if (index >= outputSize) {
+            return value;
+        }
+        return value * divisor[inputSize + index] + shift[inputSize + index];
+    }
+
+    /**
+     * Normalizes data set in place with these parameters, for example test
+     * data that was not available when the parameters were fitted.
+     */
+    @Override
+    public void normalize(DataSet dataSet) {
+        if (dataSet.getInputSize() != inputSize || dataSet.isSupervised() && outputSize > 0 && dataSet.getOutputSize() != outputSize) {
+            throw new VectorSizeMismatchException("Data set size does not match normalization parameters!");
+        }
+        normalizeRows(dataSet, 0, dataSet.size());
+        normalizeTargets(dataSet);
+    }
+
+    /**
+     * Normalizes rows [fromRow, toRow) of the data set in place. Desired
+     * outputs of class index data sets and their views are left to
+     * {@link #normalizeTargets(DataSet)}, since they are shared by the rows
+     * and cannot be changed by several threads.
+     */
+    void normalizeRows(DataSet dataSet, int fromRow, int toRow) {
+        int columns = dataSet.isSupervised() ? inputSize + outputSize : inputSize;
+
+        if (dataSet instanceof PackedDataSet || dataSet instanceof ClassIndexDataSet) {
+            double[] data;
+            int stride;
+            if (dataSet instanceof PackedDataSet) {
+                data = ((PackedDataSet) dataSet).getData();
+                stride = ((PackedDataSet) dataSet).getStride();
+            } else {
+                data = ((ClassIndexDataSet) dataSet).getInputData();
+                stride = inputSize;
+                columns = inputSize;
+            }
+            for (int r = fromRow, offset = fromRow * stride; r < toRow; r++, offset += stride) {
+                for (int c = 0; c < columns; c++) {
+                    data[offset + c] = (data[offset + c] - shift[c]) / divisor[c];
+                }
+            }
+            return;
+        }
+
+        boolean outputs = columns > inputSize && !isClassIndexView(dataSet);
+        List<DataSetRow> rows = dataSet.getRows();
+        for (int r = fromRow; r < toRow; r++) {
+            DataSetRow row = rows.get(r);
+            double[] input = row.getInput();
+            for (int i = 0; i < inputSize; i++) {
+                input[i] = (input[i] - shift[i]) / divisor[i];
+            }
+            row.setInput(input);
+            if (outputs) {
+                normalizeDesiredOutput(row);
+            }
+        }
+    }
+
+    private void normalizeDesiredOutput(DataSetRow row) {
+        double[] output = row.getDesiredOutput();
+        for (int i = 0; i < outputSize; i++) {
+            output[i] = (output[i] - shift[inputSize + i]) / divisor[inputSize + i];
+        }
+        row.setDesiredOutput(output);
+    }
+
+    private static boolean isClassIndexView(DataSet dataSet) {
+        return dataSet instanceof IndexedDataSet && ((IndexedDataSet) dataSet).getDataSet() instanceof ClassIndexDataSet;
+    }
+
+    /**
+     * Normalizes desired outputs of class index data set, which are shared by
+     * the rows of each class and not changed by row normalization. Rows of a
+     * view of class index data set are normalized one by one on this thread,
+     * as they select new classes of the viewed data set.
+     */
+    void normalizeTargets(DataSet dataSet) {
+        if (outputSize == 0 || !dataSet.isSupervised()) {
+            return;
+        }
+        if (isClassIndexView(dataSet)) {
+            for (DataSetRow row : dataSet.getRows()) {
+                normalizeDesiredOutput(row);
+            }
+            return;
+        }
+        if (!(dataSet instanceof ClassIndexDataSet)) {
+            return;
+        }
+        ClassIndexDataSet compact = (ClassIndexDataSet) dataSet;
+        for (int k = 0; k < compact.getClassesCount(); k++) {
+            double[] target = compact.getTarget(k);
+            for (int i = 0; i < outputSize; i++) {
+                target[i] = (target[i] - shift[inputSize + i]) / divisor[inputSize + i];
+            }
+            compact.setTarget(k, target);
+        }
+    }
+
+    /**
+     * Saves parameters to file, usually next to the saved network.
+     */
+    public void save(String filePath) {
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(filePath)))) {
+            out.writeObject(this);
+        } catch (IOException ex) {
+            throw new NeurophException("Could not write normalization parameters to file!", ex);
+        }
+    }
+
+    public static NormalizationParameters load(String filePath) {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(filePath)))) {
+            return (NormalizationParameters) in.readObject();
+        } catch (FileNotFoundException ex) {
+            throw new NeurophException("Cannot find file: " + filePath, ex);
+        } catch (IOException ex) {
+            throw new NeurophException("Could not read normalization parameters file!", ex);
+        } catch (ClassNotFoundException ex) {
+            throw new NeurophException("Class not found while trying to read normalization parameters from file!", ex);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.data.norm;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import org.neuroph.core.data.DataSet;
+
+/**
+ * Statistics normalizer that works on blocks of rows in parallel. Column
+ * statistics, when not given, are collected for each block and merged by a
+ * fork/join reduction, and then the blocks are normalized concurrently.
+ *
+ * It can replace MaxNormalizer, MaxMinNormalizer, ZeroMeanNormalizer or
+ * DecimalScaleNormalizer with the matching {@link StatisticsNormalizer.Method}.
+ * Blocks are split the same way for the same number of rows and pool
+ * parallelism, so results do not change from run to run.
+ */
+public class ParallelNormalizer extends StatisticsNormalizer {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Smallest number of rows handled by one task.
+     */
+    static final int MIN_BLOCK_ROWS = 1024;
+
+    /**
+     * Number of blocks per thread, so that threads which finish early can
+     * steal work from the slow ones.
+     */
+    private static final int BLOCKS_PER_THREAD = 4;
+
+    private transient ForkJoinPool pool;
+
+    public ParallelNormalizer(Method method) {
+        this(null, method, ForkJoinPool.commonPool());
+    }
+
+    public ParallelNormalizer(ColumnStatistics statistics, Method method) {
+        this(statistics, method, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates normalizer running in the given pool.
+     *
+     * @param statistics statistics used for every data set, or null to
+     * collect them from each data set
+     */
+    public ParallelNormalizer(ColumnStatistics statistics, Method method, ForkJoinPool pool) {
+        super(statistics, method);
+        if (pool == null) {
+            throw new IllegalArgumentException("Pool cannot be null!");
+        }
+        this.pool = pool;
+    }
+
+    /**
+     * Returns pool the tasks run in, the common pool after deserialization.
+     */
+    private ForkJoinPool getPool() {
+        if (pool == null) {
+            pool = ForkJoinPool.commonPool();
+        }
+        return pool;
+    }
+
+    @Override
+    protected ColumnStatistics collectStatistics(DataSet dataSet) {
+        return getPool().invoke(new StatisticsTask(dataSet, 0, dataSet.size(), blockRows(dataSet)));
+    }
+
+    @Override
+    protected void normalizeRows(DataSet dataSet, NormalizationParameters fitted) {
+        getPool().invoke(new NormalizeTask(dataSet, 0, dataSet.size(), blockRows(dataSet), fitted));
+    }
+
+    private int blockRows(DataSet dataSet) {
+        return Math.max(MIN_BLOCK_ROWS, dataSet.size() / (getPool().getParallelism() * BLOCKS_PER_THREAD));
+    }
+
+    /**
+     * Collects statistics of rows [from, to) by splitting them in halves.
+     */
+    private static final class StatisticsTask extends RecursiveTask<ColumnStatistics> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DataSet dataSet;
+        private final int from;
+        private final int to;
+        private final int blockRows;
+
+        StatisticsTask(DataSet dataSet, int from, int to, int blockRows) {
+            this.dataSet = dataSet;
+            this.from = from;
+            this.to = to;
+            this.blockRows = blockRows;
+        }
+
+        @Override
+        protected ColumnStatistics compute() {
+            if (to - from <= blockRows) {
+                return ColumnStatistics.of(dataSet, from, to);
+            }
+            int middle = (from + to) >>> 1;
+            StatisticsTask right = new StatisticsTask(dataSet, middle, to, blockRows);
+            right.fork();
+            ColumnStatistics statistics = new StatisticsTask(dataSet, from, middle, blockRows).compute();
+            statistics.merge(right.join());
+            return statistics;
+        }
+    }
+
+    /**
+     * Normalizes rows [from, to) by splitting them in halves.
+     */
+    private static final class NormalizeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final DataSet dataSet;
+        private final int from;
+        private final int to;
+        private final int blockRows;
+        private final NormalizationParameters fitted;
+
+        NormalizeTask(DataSet dataSet, int from, int to, int blockRows, NormalizationParameters fitted) {
+            this.dataSet = dataSet;
+            this.from = from;
+            this.to = to;
+            this.blockRows = blockRows;
+            this.fitted = fitted;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= blockRows) {
+                fitted.normalizeRows(dataSet, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new NormalizeTask(dataSet, from, middle, blockRows, fitted),
+                    new NormalizeTask(dataSet, middle, to, blockRows, fitted));
+        }
+    }
+}
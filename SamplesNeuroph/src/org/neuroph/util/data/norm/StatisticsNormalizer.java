@@ -0,0 +1,182 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.data.norm;
+
+import java.io.Serializable;
+import org.neuroph.core.data.DataSet;
+
+/**
+ * Normalizer that takes its parameters from {@link ColumnStatistics} instead
+ * of scanning the data set, and changes the values in place. With statistics
+ * collected while the file was loaded, normalization is a single pass over the
+ * data; without them the statistics are collected from the data set first,
+ * which is still one pass less than MaxMinNormalizer or ZeroMeanNormalizer.
+ *
+ * The methods give the same results as the normalizers they are named after,
+ * except for STANDARD, which scales inputs to zero mean and unit variance.
+ */
+public class StatisticsNormalizer implements Normalizer, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Normalization methods.
+     */
+    public enum Method {
+
+        /**
+         * Divides inputs and outputs by column maximum, like MaxNormalizer.
+         */
+        MAX,
+        /**
+         * Scales inputs and outputs to [0, 1], like MaxMinNormalizer.
+         */
+        MAX_MIN,
+        /**
+         * Subtracts mean from inputs and divides them by column range, like
+         * ZeroMeanNormalizer.
+         */
+        ZERO_MEAN,
+        /**
+         * Divides inputs and outputs by the power of ten that brings the column
+         * maximum to at most 1, like DecimalScaleNormalizer.
+         */
+        DECIMAL_SCALE,
+        /**
+         * Subtracts mean from inputs and divides them by standard deviation.
+         */
+        STANDARD
+    }
+
+    private final ColumnStatistics statistics;
+    private final Method method;
+    private NormalizationParameters parameters;
+
+    /**
+     * Creates normalizer that collects statistics from each data set it
+     * normalizes.
+     */
+    public StatisticsNormalizer(Method method) {
+        this(null, method);
+    }
+
+    /**
+     * Creates normalizer that uses given statistics for every data set.
+     */
+    public StatisticsNormalizer(ColumnStatistics statistics, Method method) {
+        if (method == null) {
+            throw new IllegalArgumentException("Normalization method cannot be null!");
+        }
+        this.statistics = statistics;
+        this.method = method;
+    }
+
+    public ColumnStatistics getStatistics() {
+        return statistics;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    /**
+     * Returns parameters used for the last normalized data set, or null if
+     * nothing was normalized yet. Saved with the trained network, they scale
+     * new inputs the same way as the training data.
+     */
+    public NormalizationParameters getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public void normalize(DataSet dataSet) {
+        NormalizationParameters fitted = fit(dataSet);
+        normalizeRows(dataSet, fitted);
+        fitted.normalizeTargets(dataSet);
+        parameters = fitted;
+    }
+
+    /**
+     * Returns parameters that normalize given data set, without changing it.
+     */
+    public NormalizationParameters fit(DataSet dataSet) {
+        ColumnStatistics columnStatistics = statistics != null ? statistics : collectStatistics(dataSet);
+        int inputSize = dataSet.getInputSize();
+        int outputSize = dataSet.isSupervised() && method != Method.ZERO_MEAN && method != Method.STANDARD ? dataSet.getOutputSize() : 0;
+        if (columnStatistics.getColumnsCount() < inputSize + outputSize) {
+            throw new IllegalArgumentException("Statistics have less columns than the data set!");
+        }
+
+        double[] shift = new double[inputSize + outputSize];
+        double[] divisor = new double[inputSize + outputSize];
+        for (int c = 0; c < shift.length; c++) {
+            fitColumn(columnStatistics, c, shift, divisor);
+        }
+        return new NormalizationParameters(inputSize, outputSize, shift, divisor);
+    }
+
+    /**
+     * Collects statistics of the data set when none were given.
+     */
+    protected ColumnStatistics collectStatistics(DataSet dataSet) {
+        return ColumnStatistics.of(dataSet);
+    }
+
+    /**
+     * Normalizes all rows of the data set with fitted parameters.
+     */
+    protected void normalizeRows(DataSet dataSet, NormalizationParameters fitted) {
+        fitted.normalizeRows(dataSet, 0, dataSet.size());
+    }
+
+    /**
+     * Sets value subtracted from given column and value it is divided by after
+     * that. The core normalizers start their maximum search from
+     * Double.MIN_VALUE, which is kept here so that results are the same.
+     */
+    private void fitColumn(ColumnStatistics columnStatistics, int c, double[] shift, double[] divisor) {
+        double max = Math.max(columnStatistics.getMax(c), Double.MIN_VALUE);
+        switch (method) {
+            case MAX:
+                divisor[c] = max;
+                break;
+            case MAX_MIN:
+                shift[c] = Math.min(columnStatistics.getMin(c), Double.MAX_VALUE);
+                divisor[c] = max - shift[c];
+                break;
+            case ZERO_MEAN:
+                double range = columnStatistics.getMax(c) - columnStatistics.getMin(c);
+                shift[c] = columnStatistics.getMean(c);
+                divisor[c] = range == 0 ? 1 : range;
+                break;
+            case DECIMAL_SCALE:
+                double scale = 1;
+                while (max > 1) {
+                    max = max / 10;
+                    scale = scale * 10;
+                }
+                divisor[c] = scale;
+                break;
+            case STANDARD:
+                double deviation = columnStatistics.getStandardDeviation(c);
+                shift[c] = columnStatistics.getMean(c);
+                divisor[c] = deviation == 0 ? 1 : deviation;
+                break;
+            default:
+                throw new IllegalStateException("Unknown normalization method: " + method);
+        }
+    }
+}
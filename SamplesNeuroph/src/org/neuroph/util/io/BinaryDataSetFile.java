@@ -0,0 +1,472 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.PackedDataSet;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.util.data.norm.ColumnStatistics;
+
+/**
+ * Compact binary columnar data set file.
+ *
+ * The file starts with a fixed size header (magic, version, offset of the
+ * data, row count, input and output count and the fingerprint of the text file
+ * it was created from), followed by the delimiter and column names. The data
+ * follows as one block per column, each holding the values of all rows as
+ * little endian doubles, inputs first and desired outputs after them.
+ */
+public final class BinaryDataSetFile {
+
+    static final int MAGIC = 0x4E445343; // "NDSC"
+    static final int VERSION = 1;
+    static final int FIXED_HEADER_SIZE = 64;
+
+    /**
+     * Number of values of one column read at once.
+     */
+    static final int COLUMN_CHUNK_ROWS = 1 << 20;
+
+    private static final int CHECKSUM_SAMPLE_SIZE = 64 * 1024;
+
+    private BinaryDataSetFile() {
+    }
+
+    /**
+     * Identifies the text file and the load parameters a binary file was
+     * created from. The checksum covers the first and last 64KB of the file,
+     * which together with size and modification time detects changes without
+     * reading a multi gigabyte file on every load.
+     */
+    public static final class Source {
+
+        private final long length;
+        private final long lastModified;
+        private final long checksum;
+        private final String delimiter;
+        private final boolean loadColumnNames;
+
+        public Source(long length, long lastModified, long checksum, String delimiter, boolean loadColumnNames) {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.checksum = checksum;
+            this.delimiter = delimiter;
+            this.loadColumnNames = loadColumnNames;
+        }
+
+        /**
+         * Creates fingerprint of the given text file and load parameters.
+         */
+        public static Source of(Path file, String delimiter, boolean loadColumnNames) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long length = channel.size();
+                CRC32 crc = new CRC32();
+                ByteBuffer sample = ByteBuffer.allocate((int) Math.min(CHECKSUM_SAMPLE_SIZE, length));
+                readFully(channel, sample, 0);
+                crc.update(sample.array(), 0, sample.position());
+                if (length > CHECKSUM_SAMPLE_SIZE) {
+                    sample.clear();
+                    readFully(channel, sample, Math.max(CHECKSUM_SAMPLE_SIZE, length - CHECKSUM_SAMPLE_SIZE));
+                    crc.update(sample.array(), 0, sample.position());
+                }
+                return new Source(length, Files.getLastModifiedTime(file).toMillis(), crc.getValue(), delimiter, loadColumnNames);
+            }
+        }
+
+        public long getLength() {
+            return length;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getChecksum() {
+            return checksum;
+        }
+
+        public String getDelimiter() {
+            return delimiter;
+        }
+
+        public boolean isLoadColumnNames() {
+            return loadColumnNames;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Source)) {
+                return false;
+            }
+            Source other = (Source) obj;
+            return length == other.length && lastModified == other.lastModified && checksum == other.checksum
+                    && loadColumnNames == other.loadColumnNames && delimiter.equals(other.delimiter);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 31 * hash + (int) (length ^ (length >>> 32));
+            hash = 31 * hash + (int) (lastModified ^ (lastModified >>> 32));
+            hash = 31 * hash + (int) (checksum ^ (checksum >>> 32));
+            return hash;
+        }
+    }
+
+    /**
+     * Header of a binary data set file.
+     */
+    public static final class Header {
+
+        private final int rowsCount;
+        private final int inputsCount;
+        private final int outputsCount;
+        private final long dataOffset;
+        private final Source source;
+        private final String[] columnNames;
+
+        Header(int rowsCount, int inputsCount, int outputsCount, long dataOffset, Source source, String[] columnNames) {
+            this.rowsCount = rowsCount;
+            this.inputsCount = inputsCount;
+            this.outputsCount = outputsCount;
+            this.dataOffset = dataOffset;
+            this.source = source;
+            this.columnNames = columnNames;
+        }
+
+        public int getRowsCount() {
+            return rowsCount;
+        }
+
+        public int getInputsCount() {
+            return inputsCount;
+        }
+
+        public int getOutputsCount() {
+            return outputsCount;
+        }
+
+        public int getColumnsCount() {
+            return inputsCount + outputsCount;
+        }
+
+        public long getDataOffset() {
+            return dataOffset;
+        }
+
+        /**
+         * Returns offset of the first value of given column.
+         */
+        public long getColumnOffset(int column) {
+            return dataOffset + (long) column * rowsCount * 8;
+        }
+
+        public Source getSource() {
+            return source;
+        }
+
+        public String[] getColumnNames() {
+            return columnNames;
+        }
+    }
+
+    /**
+     * Writes data set to binary file.
+     *
+     * @param dataSet data set to write
+     * @param source fingerprint of the text file the data set was loaded from
+     * @param file file to write to, replaced if it exists
+     */
+    public static void write(DataSet dataSet, Source source, Path file) throws IOException {
+        int rowsCount = dataSet.size();
+        int inputsCount = dataSet.getInputSize();
+        int outputsCount = dataSet.getOutputSize();
+
+        ByteBuffer names = encodeNames(source.getDelimiter(), dataSet.getColumnNames());
+        long dataOffset = align(FIXED_HEADER_SIZE + names.remaining());
+
+        ByteBuffer header = ByteBuffer.allocate(FIXED_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).putLong(dataOffset);
+        header.putInt(rowsCount).putInt(inputsCount).putInt(outputsCount).putInt(source.isLoadColumnNames() ? 1 : 0);
+        header.putLong(source.getLength()).putLong(source.getLastModified()).putLong(source.getChecksum());
+        header.rewind();
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writeFully(channel, header, 0);
+            writeFully(channel, names, FIXED_HEADER_SIZE);
+
+            ByteBuffer block = ByteBuffer.allocateDirect(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+            long position = dataOffset;
+            // packed rows are read straight from their array instead of through row views
+            double[] packedData = dataSet instanceof PackedDataSet ? ((PackedDataSet) dataSet).getData() : null;
+            List<DataSetRow> rows = dataSet.getRows();
+            int stride = inputsCount + outputsCount;
+            for (int column = 0; column < stride; column++) {
+                boolean isInput = column < inputsCount;
+                int index = isInput ? column : column - inputsCount;
+                for (int r = 0; r < rowsCount; r++) {
+                    if (!block.hasRemaining()) {
+                        block.flip();
+                        position += writeFully(channel, block, position);
+                        block.clear();
+                    }
+                    if (packedData != null) {
+                        block.putDouble(packedData[r * stride + column]);
+                    } else {
+                        DataSetRow row = rows.get(r);
+                        block.putDouble(isInput ? row.getInput()[index] : row.getDesiredOutput()[index]);
+                    }
+                }
+            }
+            block.flip();
+            writeFully(channel, block, position);
+        }
+    }
+
+    /**
+     * Reads header of binary data set file.
+     *
+     * @return header, or null if the file is not a binary data set file of
+     * supported version
+     */
+    public static Header readHeader(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readHeader(channel);
+        }
+    }
+
+    /**
+     * Reads data set from binary file.
+     */
+    public static DataSet read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            if (header == null) {
+                throw new NeurophException("Not a binary data set file: " + file);
+            }
+
+            int rowsCount = header.getRowsCount();
+            int inputsCount = header.getInputsCount();
+            int outputsCount = header.getOutputsCount();
+            double[][] inputs = new double[rowsCount][inputsCount];
+            double[][] outputs = new double[rowsCount][outputsCount];
+
+            double[] column = new double[Math.min(rowsCount, COLUMN_CHUNK_ROWS)];
+            for (int c = 0; c < header.getColumnsCount(); c++) {
+                double[][] target = c < inputsCount ? inputs : outputs;
+                int index = c < inputsCount ? c : c - inputsCount;
+                int row = 0;
+                while (row < rowsCount) {
+                    int count = Math.min(column.length, rowsCount - row);
+                    readColumn(channel, header, c, row, count, column);
+                    for (int i = 0; i < count; i++) {
+                        target[row + i][index] = column[i];
+                    }
+                    row += count;
+                }
+            }
+
+            DataSet dataSet = new DataSet(inputsCount, outputsCount);
+            for (int i = 0; i < rowsCount; i++) {
+                if (outputsCount > 0) {
+                    dataSet.addRow(new DataSetRow(inputs[i], outputs[i]));
+                } else {
+                    dataSet.addRow(new DataSetRow(inputs[i]));
+                }
+            }
+            if (header.getColumnNames() != null) {
+                dataSet.setColumnNames(header.getColumnNames());
+            }
+            return dataSet;
+        }
+    }
+
+    /**
+     * Reads data set from binary file into one packed array.
+     */
+    public static PackedDataSet readPacked(Path file) throws IOException {
+        return readPacked(file, null);
+    }
+
+    /**
+     * Reads data set from binary file into one packed array, adding the values
+     * of each column to the given statistics as it is read.
+     *
+     * @param statistics statistics for all columns, or null
+     */
+    public static PackedDataSet readPacked(Path file, ColumnStatistics statistics) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Header header = readHeader(channel);
+            if (header == null) {
+                throw new NeurophException("Not a binary data set file: " + file);
+            }
+
+            int rowsCount = header.getRowsCount();
+            int stride = header.getColumnsCount();
+            if ((long) rowsCount * stride > Integer.MAX_VALUE - 8) {
+                throw new NeurophException("Data set is too big for packed data set: " + file);
+            }
+            double[] data = new double[rowsCount * stride];
+
+            double[] column = new double[Math.min(rowsCount, COLUMN_CHUNK_ROWS)];
+            for (int c = 0; c < stride; c++) {
+                int row = 0;
+                while (row < rowsCount) {
+                    int count = Math.min(column.length, rowsCount - row);
+                    readColumn(channel, header, c, row, count, column);
+                    for (int i = 0, offset = row * stride + c; i < count; i++, offset += stride) {
+                        data[offset] = column[i];
+                    }
+                    if (statistics != null) {
+                        statistics.addColumn(c, column, count);
+                    }
+                    row += count;
+                }
+            }
+
+            PackedDataSet dataSet = new PackedDataSet(header.getInputsCount(), header.getOutputsCount(), data, rowsCount);
+            if (header.getColumnNames() != null) {
+                dataSet.setColumnNames(header.getColumnNames());
+            }
+            return dataSet;
+        }
+    }
+
+    /**
+     * Reads values of given column for consecutive rows by mapping them.
+     *
+     * @param channel channel of binary data set file
+     * @param header header of the file
+     * @param column index of column, outputs following inputs
+     * @param fromRow first row to read
+     * @param count number of rows to read
+     * @param values array to read values to
+     */
+    public static void readColumn(FileChannel channel, Header header, int column, int fromRow, int count, double[] values) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        long position = header.getColumnOffset(column) + (long) fromRow * 8;
+        DoubleBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) count * 8)
+                .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+        window.get(values, 0, count);
+    }
+
+    static Header readHeader(FileChannel channel) throws IOException {
+        if (channel.size() < FIXED_HEADER_SIZE) {
+            return null;
+        }
+        ByteBuffer fixed = ByteBuffer.allocate(FIXED_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, fixed, 0);
+        fixed.flip();
+        if (fixed.getInt() != MAGIC || fixed.getInt() != VERSION) {
+            return null;
+        }
+
+        long dataOffset = fixed.getLong();
+        int rowsCount = fixed.getInt();
+        int inputsCount = fixed.getInt();
+        int outputsCount = fixed.getInt();
+        boolean loadColumnNames = fixed.getInt() != 0;
+        long length = fixed.getLong();
+        long lastModified = fixed.getLong();
+        long checksum = fixed.getLong();
+
+        long expectedSize = dataOffset + (long) rowsCount * (inputsCount + outputsCount) * 8;
+        if (dataOffset < FIXED_HEADER_SIZE || dataOffset > Integer.MAX_VALUE || channel.size() < expectedSize) {
+            return null;
+        }
+
+        ByteBuffer names = ByteBuffer.allocate((int) dataOffset - FIXED_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(channel, names, FIXED_HEADER_SIZE);
+        names.flip();
+        String delimiter = getString(names);
+        int namesCount = names.getInt();
+        String[] columnNames = new String[namesCount];
+        for (int i = 0; i < namesCount; i++) {
+            columnNames[i] = getString(names);
+        }
+
+        Source source = new Source(length, lastModified, checksum, delimiter, loadColumnNames);
+        return new Header(rowsCount, inputsCount, outputsCount, dataOffset, source, columnNames);
+    }
+
+    private static ByteBuffer encodeNames(String delimiter, String[] columnNames) {
+        String[] names = columnNames != null ? columnNames : new String[0];
+        int size = 4 + delimiter.getBytes(StandardCharsets.UTF_8).length + 4;
+        for (String name : names) {
+            size += 4 + name.getBytes(StandardCharsets.UTF_8).length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        putString(buffer, delimiter);
+        buffer.putInt(names.length);
+        for (String name : names) {
+            putString(buffer, name);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long align(long offset) {
+        return (offset + 7) & ~7L;
+    }
+
+    private static int writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, position + written);
+        }
+        return written;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                break;
+            }
+            offset += read;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.io;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.neuroph.core.data.DataSetChunkSource;
+import org.neuroph.core.data.PackedDataSet;
+import org.neuroph.core.exceptions.NeurophException;
+
+/**
+ * Chunk source reading a binary data set file written by
+ * {@link BinaryDataSetFile} in chunks of a fixed number of rows. Since the
+ * file has a known row count no scan is needed when it is opened, and a chunk
+ * is read column by column straight from the mapped file.
+ */
+public class BinaryFileChunkSource implements DataSetChunkSource {
+
+    public static final int DEFAULT_CHUNK_ROWS = 64 * 1024;
+
+    private final FileChannel channel;
+    private final BinaryDataSetFile.Header header;
+    private final int chunkRows;
+
+    public BinaryFileChunkSource(Path file) throws IOException {
+        this(file, DEFAULT_CHUNK_ROWS);
+    }
+
+    /**
+     * Opens binary data set file.
+     *
+     * @param chunkRows number of rows in one chunk, except for the last one
+     */
+    public BinaryFileChunkSource(Path file, int chunkRows) throws IOException {
+        if (chunkRows <= 0) {
+            throw new IllegalArgumentException("Number of rows in chunk must be > 0 : " + chunkRows);
+        }
+        this.chunkRows = chunkRows;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            this.header = BinaryDataSetFile.readHeader(channel);
+            if (header == null) {
+                throw new NeurophException("Not a binary data set file: " + file);
+            }
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public BinaryDataSetFile.Header getHeader() {
+        return header;
+    }
+
+    @Override
+    public int getInputSize() {
+        return header.getInputsCount();
+    }
+
+    @Override
+    public int getOutputSize() {
+        return header.getOutputsCount();
+    }
+
+    @Override
+    public int getRowsCount() {
+        return header.getRowsCount();
+    }
+
+    @Override
+    public int getChunksCount() {
+        return (int) (((long) header.getRowsCount() + chunkRows - 1) / chunkRows);
+    }
+
+    @Override
+    public int getChunkRowsCount(int chunkIdx) {
+        return Math.min(chunkRows, header.getRowsCount() - chunkIdx * chunkRows);
+    }
+
+    @Override
+    public void readChunk(int chunkIdx, PackedDataSet target) throws IOException {
+        int fromRow = chunkIdx * chunkRows;
+        int count = getChunkRowsCount(chunkIdx);
+        int stride = header.getColumnsCount();
+
+        target.resize(count);
+        double[] data = target.getData();
+        double[] column = new double[count];
+        for (int c = 0; c < stride; c++) {
+            BinaryDataSetFile.readColumn(channel, header, c, fromRow, count, column);
+            for (int i = 0, offset = c; i < count; i++, offset += stride) {
+                data[offset] = column[i];
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.PackedDataSet;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.util.data.norm.ColumnStatistics;
+
+/**
+ * Loads data sets from delimited text files through a binary cache.
+ *
+ * The first time a text file is loaded it is parsed with
+ * {@link ParallelDataSetLoader} and written next to it as a
+ * {@link BinaryDataSetFile} with the {@link #CACHE_FILE_SUFFIX} suffix. Later
+ * loads with the same parameters read the binary file instead, as long as the
+ * text file's size, modification time and checksum did not change.
+ */
+public final class CachedDataSetLoader {
+
+    public static final String CACHE_FILE_SUFFIX = ".cache";
+
+    private static final Logger LOGGER = Logger.getLogger(CachedDataSetLoader.class.getName());
+
+    private CachedDataSetLoader() {
+    }
+
+    public static DataSet createFromFile(String filePath, int inputsCount, int outputsCount, String delimiter) {
+        return createFromFile(filePath, inputsCount, outputsCount, delimiter, false);
+    }
+
+    /**
+     * Creates data set from delimited text file, using the binary cache if it
+     * is up to date and creating it otherwise. Arguments are the same as for
+     * DataSet.createFromFile.
+     */
+    public static DataSet createFromFile(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames) {
+        return load(filePath, inputsCount, outputsCount, delimiter, loadColumnNames, false, null);
+    }
+
+    /**
+     * Creates packed data set from delimited text file, using the binary cache
+     * the same way as {@link #createFromFile(String, int, int, String, boolean)}.
+     */
+    public static PackedDataSet createPackedFromFile(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames) {
+        return createPackedFromFile(filePath, inputsCount, outputsCount, delimiter, loadColumnNames, null);
+    }
+
+    /**
+     * Creates packed data set from delimited text file and adds its rows to
+     * the given column statistics while they are parsed or read from the
+     * cache.
+     *
+     * @param statistics statistics for inputsCount + outputsCount columns, or
+     * null
+     */
+    public static PackedDataSet createPackedFromFile(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames, ColumnStatistics statistics) {
+        return (PackedDataSet) load(filePath, inputsCount, outputsCount, delimiter, loadColumnNames, true, statistics);
+    }
+
+    private static DataSet load(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames, boolean packed, ColumnStatistics statistics) {
+        MappedDataSetLoader.validate(filePath, inputsCount, outputsCount, delimiter);
+
+        Path sourceFile = Paths.get(filePath);
+        Path cacheFile = getCacheFile(filePath);
+        if (!Files.exists(sourceFile)) {
+            throw new NeurophException("Could not find data set file!");
+        }
+
+        BinaryDataSetFile.Source source;
+        try {
+            source = BinaryDataSetFile.Source.of(sourceFile, delimiter, loadColumnNames);
+            if (isValid(cacheFile, source, inputsCount, outputsCount)) {
+                DataSet dataSet = packed ? BinaryDataSetFile.readPacked(cacheFile, statistics) : BinaryDataSetFile.read(cacheFile);
+                dataSet.setFilePath(filePath);
+                return dataSet;
+            }
+        } catch (IOException ex) {
+            throw new NeurophException("Error reading data set file!", ex);
+        }
+
+        DataSet dataSet = packed
+                ? ParallelDataSetLoader.createPackedFromFile(filePath, inputsCount, outputsCount, delimiter, loadColumnNames, ForkJoinPool.commonPool(), statistics)
+                : ParallelDataSetLoader.createFromFile(filePath, inputsCount, outputsCount, delimiter, loadColumnNames);
+        writeCache(dataSet, source, cacheFile);
+        return dataSet;
+    }
+
+    /**
+     * Returns path of the cache file for given text file.
+     */
+    public static Path getCacheFile(String filePath) {
+        return Paths.get(filePath + CACHE_FILE_SUFFIX);
+    }
+
+    /**
+     * Returns true if cache file exists and was created from the given source
+     * with the given number of inputs and outputs.
+     */
+    static boolean isValid(Path cacheFile, BinaryDataSetFile.Source source, int inputsCount, int outputsCount) throws IOException {
+        if (!Files.exists(cacheFile)) {
+            return false;
+        }
+        BinaryDataSetFile.Header header = BinaryDataSetFile.readHeader(cacheFile);
+        return header != null && header.getInputsCount() == inputsCount && header.getOutputsCount() == outputsCount
+                && source.equals(header.getSource());
+    }
+
+    /**
+     * Writes cache to temporary file and moves it in place, so other loaders
+     * never see partially written cache. Failing to write the cache is not an
+     * error, the data set was already loaded.
+     */
+    private static void writeCache(DataSet dataSet, BinaryDataSetFile.Source source, Path cacheFile) {
+        Path tempFile = null;
+        try {
+            Path directory = cacheFile.toAbsolutePath().getParent();
+            tempFile = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+            BinaryDataSetFile.write(dataSet, source, tempFile);
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Could not write data set cache " + cacheFile, ex);
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignore) {
+                }
+            }
+        }
+    }
+}
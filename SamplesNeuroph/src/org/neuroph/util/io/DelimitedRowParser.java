@@ -0,0 +1,263 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.neuroph.core.exceptions.NeurophException;
+
+/**
+ * Parses delimited numeric rows directly from the bytes of a buffer, without
+ * creating intermediate strings. Line and column semantics follow
+ * DataSet.createFromFile: lines whose first value is empty are skipped, values
+ * are trimmed and any columns after the requested ones are ignored.
+ *
+ * Parsed values are handed to a {@link RowHandler} in a single reused array,
+ * so handlers must copy the values they want to keep.
+ */
+public final class DelimitedRowParser {
+
+    /**
+     * Receives every parsed row.
+     */
+    public interface RowHandler {
+
+        /**
+         * @param values parsed values of one row, reused between calls
+         */
+        void handleRow(double[] values);
+    }
+
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final int columnsCount;
+    private final byte delimiter;
+    private final double[] values;
+
+    public DelimitedRowParser(int columnsCount, String delimiter) {
+        if (columnsCount <= 0) {
+            throw new IllegalArgumentException("Number of columns cannot be <= 0 : " + columnsCount);
+        }
+        if (!isSupported(delimiter)) {
+            throw new IllegalArgumentException("Only single character delimiters are supported: '" + delimiter + "'");
+        }
+        this.columnsCount = columnsCount;
+        this.delimiter = (byte) delimiter.charAt(0);
+        this.values = new double[columnsCount];
+    }
+
+    /**
+     * Returns true if the given delimiter can be matched byte by byte, which
+     * holds for single ASCII characters such as tab, comma or space.
+     */
+    public static boolean isSupported(String delimiter) {
+        return delimiter != null && delimiter.length() == 1 && delimiter.charAt(0) < 128
+                && delimiter.charAt(0) != '\n' && delimiter.charAt(0) != '\r';
+    }
+
+    public int getColumnsCount() {
+        return columnsCount;
+    }
+
+    /**
+     * Parses all lines in the given range of the buffer.
+     *
+     * @param buffer buffer to read from, using absolute positions only
+     * @param from position of the first byte of the first line
+     * @param to position after the last byte to read
+     * @param endOfInput true if the range ends the input, in which case a last
+     * line without line terminator is parsed too
+     * @param handler receives the parsed rows
+     * @return position after the last parsed line; when endOfInput is false
+     * this is the start of the unterminated line the caller should continue from
+     */
+    public int parse(ByteBuffer buffer, int from, int to, boolean endOfInput, RowHandler handler) {
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = findLineEnd(buffer, lineStart, to);
+            if (lineEnd == to && !endOfInput) {
+                return lineStart;
+            }
+            parseLine(buffer, lineStart, lineEnd, handler);
+            lineStart = lineEnd + 1;
+        }
+        return to;
+    }
+
+    /**
+     * Counts rows in the given range without parsing their values, skipping
+     * the same lines as {@link #parse(ByteBuffer, int, int, boolean, RowHandler)}.
+     */
+    public int countRows(ByteBuffer buffer, int from, int to) {
+        int rows = 0;
+        int lineStart = from;
+        while (lineStart < to) {
+            int lineEnd = findLineEnd(buffer, lineStart, to);
+            if (lineStart != lineEnd && buffer.get(lineStart) != delimiter) {
+                rows++;
+            }
+            lineStart = lineEnd + 1;
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the position of the first line terminator ('\n' or '\r') at or
+     * after the given position, or the end of range if there is none.
+     */
+    static int findLineEnd(ByteBuffer buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+        return to;
+    }
+
+    private void parseLine(ByteBuffer buffer, int lineStart, int lineEnd, RowHandler handler) {
+        // same as createFromFile: skip lines whose first value is empty
+        if (lineStart == lineEnd || buffer.get(lineStart) == delimiter) {
+            return;
+        }
+
+        int fieldStart = lineStart;
+        for (int column = 0; column < columnsCount; column++) {
+            if (fieldStart > lineEnd) {
+                throw new NeurophException("Row has less than " + columnsCount + " values: '" + toString(buffer, lineStart, lineEnd) + "'");
+            }
+            int fieldEnd = fieldStart;
+            while (fieldEnd < lineEnd && buffer.get(fieldEnd) != delimiter) {
+                fieldEnd++;
+            }
+            try {
+                values[column] = parseDouble(buffer, fieldStart, fieldEnd);
+            } catch (NumberFormatException ex) {
+                throw new NeurophException("Bad number format in data set file!", ex);
+            }
+            fieldStart = fieldEnd + 1;
+        }
+
+        handler.handleRow(values);
+    }
+
+    /**
+     * Parses a double from the bytes in the given range. Plain decimal numbers
+     * with up to 18 significant digits and a small exponent are converted
+     * exactly without allocation; anything else falls back to
+     * Double.parseDouble, so results are always identical to it.
+     *
+     * @throws NumberFormatException if the range does not hold a valid number
+     */
+    public static double parseDouble(ByteBuffer buffer, int from, int to) {
+        int start = from;
+        int end = to;
+        while (start < end && (buffer.get(start) & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer.get(end - 1) & 0xff) <= ' ') {
+            end--;
+        }
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean inFraction = false;
+        int exponent = 0;
+
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (mantissa != 0 || b != '0') {
+                    if (++significantDigits > 18) {
+                        return parseSlow(buffer, start, end);
+                    }
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (inFraction) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !inFraction) {
+                inFraction = true;
+            } else if ((b == 'e' || b == 'E') && digits > 0) {
+                i++;
+                boolean negativeExponent = false;
+                if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+                    negativeExponent = buffer.get(i) == '-';
+                    i++;
+                }
+                if (i == end) {
+                    return parseSlow(buffer, start, end);
+                }
+                for (; i < end; i++) {
+                    byte e = buffer.get(i);
+                    if (e < '0' || e > '9' || exponent > 1000) {
+                        return parseSlow(buffer, start, end);
+                    }
+                    exponent = exponent * 10 + (e - '0');
+                }
+                if (negativeExponent) {
+                    exponent = -exponent;
+                }
+            } else {
+                return parseSlow(buffer, start, end);
+            }
+        }
+
+        if (digits == 0) {
+            return parseSlow(buffer, start, end);
+        }
+
+        int scale = exponent - fractionDigits;
+        double value;
+        if (mantissa == 0) {
+            value = 0d;
+        } else if (mantissa <= MAX_EXACT_MANTISSA && scale >= -22 && scale <= 22) {
+            // both operands are exact doubles, so a single rounding gives the correct result
+            value = scale < 0 ? mantissa / POWERS_OF_TEN[-scale] : mantissa * POWERS_OF_TEN[scale];
+        } else {
+            return parseSlow(buffer, start, end);
+        }
+
+        return negative ? -value : value;
+    }
+
+    private static double parseSlow(ByteBuffer buffer, int from, int to) {
+        return Double.parseDouble(toString(buffer, from, to));
+    }
+
+    static String toString(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(from + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
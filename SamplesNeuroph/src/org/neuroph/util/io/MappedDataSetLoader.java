@@ -0,0 +1,245 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.PackedDataSet;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.util.data.norm.ColumnStatistics;
+
+/**
+ * Loads data sets from delimited text files by memory mapping them and parsing
+ * the numbers straight from the mapped bytes. It is a drop in replacement for
+ * DataSet.createFromFile with the same arguments and the same results, but
+ * without reading the file line by line into strings.
+ *
+ * Files bigger than the mapping window are mapped in consecutive windows
+ * aligned to line starts. Delimiters longer than one character, which
+ * createFromFile treats as regular expressions, are delegated to it.
+ */
+public final class MappedDataSetLoader {
+
+    /**
+     * Maximum number of bytes mapped at once.
+     */
+    static final int MAX_WINDOW_SIZE = 1 << 30;
+
+    private static final int LINE_END_SEARCH_SIZE = 64 * 1024;
+
+    private MappedDataSetLoader() {
+    }
+
+    public static DataSet createFromFile(String filePath, int inputsCount, int outputsCount, String delimiter) {
+        return createFromFile(filePath, inputsCount, outputsCount, delimiter, false);
+    }
+
+    /**
+     * Creates data set from delimited text file.
+     *
+     * @param filePath path to data set file
+     * @param inputsCount number of input values in each row
+     * @param outputsCount number of desired output values in each row
+     * @param delimiter value delimiter, for example "\t" or ","
+     * @param loadColumnNames true if the first line holds column names
+     * @return data set with all rows from file
+     */
+    public static DataSet createFromFile(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames) {
+        validate(filePath, inputsCount, outputsCount, delimiter);
+
+        if (!DelimitedRowParser.isSupported(delimiter)) {
+            return DataSet.createFromFile(filePath, inputsCount, outputsCount, delimiter, loadColumnNames);
+        }
+
+        final DataSet dataSet = new DataSet(inputsCount, outputsCount);
+        dataSet.setFilePath(filePath);
+
+        final int inputSize = inputsCount;
+        final int outputSize = outputsCount;
+        String[] columnNames = parse(filePath, inputsCount + outputsCount, delimiter, loadColumnNames, new DelimitedRowParser.RowHandler() {
+            @Override
+            public void handleRow(double[] values) {
+                double[] inputs = Arrays.copyOfRange(values, 0, inputSize);
+                if (outputSize > 0) {
+                    double[] outputs = Arrays.copyOfRange(values, inputSize, inputSize + outputSize);
+                    dataSet.addRow(new DataSetRow(inputs, outputs));
+                } else {
+                    dataSet.addRow(new DataSetRow(inputs));
+                }
+            }
+        });
+
+        if (columnNames != null) {
+            dataSet.setColumnNames(columnNames);
+        }
+
+        return dataSet;
+    }
+
+    /**
+     * Creates packed data set from delimited text file. Arguments are the same
+     * as for {@link #createFromFile(String, int, int, String, boolean)}.
+     */
+    public static PackedDataSet createPackedFromFile(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames) {
+        return createPackedFromFile(filePath, inputsCount, outputsCount, delimiter, loadColumnNames, null);
+    }
+
+    /**
+     * Creates packed data set from delimited text file and adds every parsed
+     * row to the given column statistics, so that the data set can be
+     * normalized without another pass over it.
+     *
+     * @param statistics statistics for inputsCount + outputsCount columns, or
+     * null
+     */
+    public static PackedDataSet createPackedFromFile(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames, final ColumnStatistics statistics) {
+        validate(filePath, inputsCount, outputsCount, delimiter);
+
+        if (!DelimitedRowParser.isSupported(delimiter)) {
+            PackedDataSet dataSet = PackedDataSet.from(DataSet.createFromFile(filePath, inputsCount, outputsCount, delimiter, loadColumnNames));
+            if (statistics != null) {
+                statistics.merge(ColumnStatistics.of(dataSet));
+            }
+            return dataSet;
+        }
+
+        final PackedDataSet dataSet = new PackedDataSet(inputsCount, outputsCount);
+        dataSet.setFilePath(filePath);
+
+        String[] columnNames = parse(filePath, inputsCount + outputsCount, delimiter, loadColumnNames, new DelimitedRowParser.RowHandler() {
+            @Override
+            public void handleRow(double[] values) {
+                dataSet.appendRow(values);
+                if (statistics != null) {
+                    statistics.add(values);
+                }
+            }
+        });
+
+        if (columnNames != null) {
+            dataSet.setColumnNames(columnNames);
+        }
+
+        return dataSet;
+    }
+
+    /**
+     * Maps the given file and hands every parsed row to the row handler.
+     *
+     * @return column names from the first line if loadColumnNames is true,
+     * null otherwise
+     */
+    public static String[] parse(String filePath, int columnsCount, String delimiter, boolean loadColumnNames, DelimitedRowParser.RowHandler handler) {
+        DelimitedRowParser parser = new DelimitedRowParser(columnsCount, delimiter);
+        String[] columnNames = null;
+
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long position = 0;
+            boolean headerPending = loadColumnNames;
+
+            while (position < fileSize) {
+                int windowSize = (int) Math.min(MAX_WINDOW_SIZE, fileSize - position);
+                boolean lastWindow = position + windowSize == fileSize;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, windowSize);
+
+                int start = 0;
+                if (headerPending) {
+                    int headerEnd = DelimitedRowParser.findLineEnd(window, 0, windowSize);
+                    columnNames = DelimitedRowParser.toString(window, 0, headerEnd).split(delimiter);
+                    start = skipLineTerminator(window, headerEnd, windowSize);
+                    headerPending = false;
+                }
+
+                int parsed = parser.parse(window, start, windowSize, lastWindow, handler);
+                if (parsed == 0 && !lastWindow) {
+                    throw new NeurophException("Line in data set file is longer than " + MAX_WINDOW_SIZE + " bytes!");
+                }
+                position += parsed;
+            }
+        } catch (NoSuchFileException ex) {
+            throw new NeurophException("Could not find data set file!", ex);
+        } catch (IOException ex) {
+            throw new NeurophException("Error reading data set file!", ex);
+        }
+
+        return columnNames;
+    }
+
+    static void validate(String filePath, int inputsCount, int outputsCount, String delimiter) {
+        if (filePath == null) {
+            throw new IllegalArgumentException("File name cannot be null!");
+        }
+        if (inputsCount <= 0) {
+            throw new IllegalArgumentException("Number of inputs cannot be <= 0 : " + inputsCount);
+        }
+        if (outputsCount < 0) {
+            throw new IllegalArgumentException("Number of outputs cannot be < 0 : " + outputsCount);
+        }
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException("Delimiter cannot be null or empty!");
+        }
+    }
+
+    /**
+     * Returns position of the first line terminator at or after given
+     * position, or file size if there is none.
+     */
+    static long findLineEnd(FileChannel channel, long position, long fileSize) throws IOException {
+        long start = position;
+        while (start < fileSize) {
+            int length = (int) Math.min(LINE_END_SEARCH_SIZE, fileSize - start);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            int lineEnd = DelimitedRowParser.findLineEnd(window, 0, length);
+            if (lineEnd < length) {
+                return start + lineEnd;
+            }
+            start += length;
+        }
+        return fileSize;
+    }
+
+    /**
+     * Returns start of the first line that starts at or after given position.
+     */
+    static long findLineStart(FileChannel channel, long position, long fileSize) throws IOException {
+        if (position <= 0) {
+            return 0;
+        }
+        if (position >= fileSize) {
+            return fileSize;
+        }
+        return Math.min(fileSize, findLineEnd(channel, position - 1, fileSize) + 1);
+    }
+
+    static int skipLineTerminator(ByteBuffer buffer, int position, int limit) {
+        if (position < limit && buffer.get(position) == '\r') {
+            position++;
+        }
+        if (position < limit && buffer.get(position) == '\n') {
+            position++;
+        }
+        return position;
+    }
+}
@@ -0,0 +1,298 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.PackedDataSet;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.util.data.norm.ColumnStatistics;
+
+/**
+ * Loads delimited text files by parsing them on several threads. The file is
+ * cut into byte ranges that start and end on line boundaries, the ranges are
+ * parsed concurrently by fork/join tasks, and their rows are put together in
+ * the same order as in the file. The result is the same as from
+ * {@link MappedDataSetLoader}, which is used directly for small files.
+ */
+public final class ParallelDataSetLoader {
+
+    /**
+     * Files smaller than this are parsed on the calling thread.
+     */
+    static final int MIN_PARALLEL_SIZE = 1024 * 1024;
+
+    /**
+     * Smallest byte range parsed by one task.
+     */
+    static final int MIN_RANGE_SIZE = 256 * 1024;
+
+    /**
+     * Number of ranges per thread, so that threads which finish early can
+     * steal work from the slow ones.
+     */
+    private static final int RANGES_PER_THREAD = 4;
+
+    private ParallelDataSetLoader() {
+    }
+
+    public static DataSet createFromFile(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames) {
+        return createFromFile(filePath, inputsCount, outputsCount, delimiter, loadColumnNames, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates data set from delimited text file, parsing it in the given pool.
+     * Other arguments are the same as for
+     * {@link MappedDataSetLoader#createFromFile(String, int, int, String, boolean)}.
+     */
+    public static DataSet createFromFile(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames, ForkJoinPool pool) {
+        MappedDataSetLoader.validate(filePath, inputsCount, outputsCount, delimiter);
+        if (!DelimitedRowParser.isSupported(delimiter) || isSmall(filePath)) {
+            return MappedDataSetLoader.createFromFile(filePath, inputsCount, outputsCount, delimiter, loadColumnNames);
+        }
+        return load(filePath, inputsCount, outputsCount, delimiter, loadColumnNames, pool, rangeSize(filePath, pool), false, null);
+    }
+
+    public static PackedDataSet createPackedFromFile(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames) {
+        return createPackedFromFile(filePath, inputsCount, outputsCount, delimiter, loadColumnNames, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates packed data set from delimited text file, parsing it in the
+     * given pool.
+     */
+    public static PackedDataSet createPackedFromFile(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames, ForkJoinPool pool) {
+        return createPackedFromFile(filePath, inputsCount, outputsCount, delimiter, loadColumnNames, pool, null);
+    }
+
+    /**
+     * Creates packed data set from delimited text file, parsing it in the
+     * given pool and collecting column statistics while parsing. Each range
+     * collects its own statistics, which are merged into the given ones.
+     *
+     * @param statistics statistics for inputsCount + outputsCount columns, or
+     * null
+     */
+    public static PackedDataSet createPackedFromFile(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames, ForkJoinPool pool, ColumnStatistics statistics) {
+        MappedDataSetLoader.validate(filePath, inputsCount, outputsCount, delimiter);
+        if (!DelimitedRowParser.isSupported(delimiter) || isSmall(filePath)) {
+            return MappedDataSetLoader.createPackedFromFile(filePath, inputsCount, outputsCount, delimiter, loadColumnNames, statistics);
+        }
+        return (PackedDataSet) load(filePath, inputsCount, outputsCount, delimiter, loadColumnNames, pool, rangeSize(filePath, pool), true, statistics);
+    }
+
+    private static boolean isSmall(String filePath) {
+        return Paths.get(filePath).toFile().length() < MIN_PARALLEL_SIZE;
+    }
+
+    private static int rangeSize(String filePath, ForkJoinPool pool) {
+        long fileSize = Paths.get(filePath).toFile().length();
+        long rangeSize = fileSize / ((long) pool.getParallelism() * RANGES_PER_THREAD);
+        return (int) Math.max(MIN_RANGE_SIZE, Math.min(MappedDataSetLoader.MAX_WINDOW_SIZE, rangeSize));
+    }
+
+    /**
+     * Parses the file in ranges of about the given size.
+     */
+    static DataSet load(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames, ForkJoinPool pool, int rangeSize, boolean packed, ColumnStatistics statistics) {
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long start = 0;
+            String[] columnNames = null;
+            if (loadColumnNames) {
+                long headerEnd = MappedDataSetLoader.findLineEnd(channel, 0, fileSize);
+                MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, headerEnd + 2));
+                columnNames = DelimitedRowParser.toString(header, 0, (int) headerEnd).split(delimiter);
+                start = MappedDataSetLoader.skipLineTerminator(header, (int) headerEnd, header.limit());
+            }
+
+            List<Long> offsets = new ArrayList<>();
+            offsets.add(start);
+            while (start < fileSize) {
+                start = MappedDataSetLoader.findLineStart(channel, start + rangeSize, fileSize);
+                if (start - offsets.get(offsets.size() - 1) > MappedDataSetLoader.MAX_WINDOW_SIZE) {
+                    throw new NeurophException("Line in data set file is longer than " + MappedDataSetLoader.MAX_WINDOW_SIZE + " bytes!");
+                }
+                offsets.add(start);
+            }
+
+            Range[] ranges = new Range[offsets.size() - 1];
+            for (int i = 0; i < ranges.length; i++) {
+                ranges[i] = new Range(offsets.get(i), offsets.get(i + 1));
+            }
+            pool.invoke(new ParseTask(channel, ranges, 0, ranges.length, inputsCount, outputsCount, delimiter, packed, statistics != null));
+            if (statistics != null) {
+                for (Range range : ranges) {
+                    statistics.merge(range.statistics);
+                }
+            }
+
+            DataSet dataSet;
+            if (packed) {
+                dataSet = join(ranges, inputsCount, outputsCount);
+            } else {
+                dataSet = new DataSet(inputsCount, outputsCount);
+                for (Range range : ranges) {
+                    dataSet.addAll(range.rows);
+                }
+            }
+            dataSet.setFilePath(filePath);
+            if (columnNames != null) {
+                dataSet.setColumnNames(columnNames);
+            }
+            return dataSet;
+        } catch (NoSuchFileException ex) {
+            throw new NeurophException("Could not find data set file!", ex);
+        } catch (IOException ex) {
+            throw new NeurophException("Error reading data set file!", ex);
+        }
+    }
+
+    /**
+     * Copies packed rows of all ranges into one array, in range order.
+     */
+    private static PackedDataSet join(Range[] ranges, int inputsCount, int outputsCount) {
+        int stride = inputsCount + outputsCount;
+        long rowsCount = 0;
+        for (Range range : ranges) {
+            rowsCount += range.packed.size();
+        }
+        if (rowsCount * stride > Integer.MAX_VALUE - 8) {
+            throw new NeurophException("Data set is too big for packed data set!");
+        }
+
+        double[] data = new double[(int) rowsCount * stride];
+        int offset = 0;
+        for (Range range : ranges) {
+            int length = range.packed.size() * stride;
+            System.arraycopy(range.packed.getData(), 0, data, offset, length);
+            offset += length;
+            range.packed = null;
+        }
+        return new PackedDataSet(inputsCount, outputsCount, data, (int) rowsCount);
+    }
+
+    /**
+     * Byte range of the file and the rows parsed from it.
+     */
+    private static final class Range {
+
+        final long start;
+        final long end;
+        PackedDataSet packed;
+        List<DataSetRow> rows;
+        ColumnStatistics statistics;
+
+        Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Parses ranges [from, to) by splitting them in halves until one is left.
+     */
+    private static final class ParseTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final Range[] ranges;
+        private final int from;
+        private final int to;
+        private final int inputsCount;
+        private final int outputsCount;
+        private final String delimiter;
+        private final boolean packed;
+        private final boolean collectStatistics;
+
+        ParseTask(FileChannel channel, Range[] ranges, int from, int to, int inputsCount, int outputsCount, String delimiter, boolean packed, boolean collectStatistics) {
+            this.channel = channel;
+            this.ranges = ranges;
+            this.from = from;
+            this.to = to;
+            this.inputsCount = inputsCount;
+            this.outputsCount = outputsCount;
+            this.delimiter = delimiter;
+            this.packed = packed;
+            this.collectStatistics = collectStatistics;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(channel, ranges, from, middle, inputsCount, outputsCount, delimiter, packed, collectStatistics),
+                        new ParseTask(channel, ranges, middle, to, inputsCount, outputsCount, delimiter, packed, collectStatistics));
+                return;
+            }
+            if (from == to) {
+                return;
+            }
+
+            Range range = ranges[from];
+            int length = (int) (range.end - range.start);
+            MappedByteBuffer buffer;
+            try {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, range.start, length);
+            } catch (IOException ex) {
+                throw new NeurophException("Error reading data set file!", ex);
+            }
+
+            DelimitedRowParser parser = new DelimitedRowParser(inputsCount + outputsCount, delimiter);
+            if (packed) {
+                final PackedDataSet rows = new PackedDataSet(inputsCount, outputsCount);
+                final ColumnStatistics statistics = collectStatistics ? new ColumnStatistics(inputsCount + outputsCount) : null;
+                parser.parse(buffer, 0, length, true, new DelimitedRowParser.RowHandler() {
+                    @Override
+                    public void handleRow(double[] values) {
+                        rows.appendRow(values);
+                        if (statistics != null) {
+                            statistics.add(values);
+                        }
+                    }
+                });
+                range.statistics = statistics;
+                range.packed = rows;
+            } else {
+                final List<DataSetRow> rows = new ArrayList<>();
+                parser.parse(buffer, 0, length, true, new DelimitedRowParser.RowHandler() {
+                    @Override
+                    public void handleRow(double[] values) {
+                        double[] inputs = Arrays.copyOfRange(values, 0, inputsCount);
+                        if (outputsCount > 0) {
+                            rows.add(new DataSetRow(inputs, Arrays.copyOfRange(values, inputsCount, inputsCount + outputsCount)));
+                        } else {
+                            rows.add(new DataSetRow(inputs));
+                        }
+                    }
+                });
+                range.rows = rows;
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import org.neuroph.core.data.DataSetChunkSource;
+import org.neuroph.core.data.PackedDataSet;
+import org.neuroph.core.exceptions.NeurophException;
+
+/**
+ * Chunk source reading a delimited text file in chunks of roughly equal byte
+ * size, each ending at a line end. Opening the source scans the file once to
+ * find the chunk boundaries and count their rows; reading a chunk maps its
+ * byte range and parses it like {@link MappedDataSetLoader}.
+ *
+ * The file must not change while the source is open.
+ */
+public class TextFileChunkSource implements DataSetChunkSource {
+
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final int inputsCount;
+    private final int outputsCount;
+    private final String delimiter;
+    private final long[] chunkOffsets;
+    private final int[] chunkRows;
+    private final int rowsCount;
+    private String[] columnNames;
+
+    public TextFileChunkSource(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames) throws IOException {
+        this(filePath, inputsCount, outputsCount, delimiter, loadColumnNames, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Opens text file and finds its chunks.
+     *
+     * @param chunkSize approximate number of bytes in one chunk
+     */
+    public TextFileChunkSource(String filePath, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames, int chunkSize) throws IOException {
+        MappedDataSetLoader.validate(filePath, inputsCount, outputsCount, delimiter);
+        if (!DelimitedRowParser.isSupported(delimiter)) {
+            throw new IllegalArgumentException("Only single character delimiters are supported: '" + delimiter + "'");
+        }
+        if (chunkSize <= 0 || chunkSize > MappedDataSetLoader.MAX_WINDOW_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be between 1 and " + MappedDataSetLoader.MAX_WINDOW_SIZE + " : " + chunkSize);
+        }
+
+        this.inputsCount = inputsCount;
+        this.outputsCount = outputsCount;
+        this.delimiter = delimiter;
+        this.channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ);
+
+        try {
+            long fileSize = channel.size();
+            long start = loadColumnNames ? readHeader(fileSize) : 0;
+
+            DelimitedRowParser parser = new DelimitedRowParser(inputsCount + outputsCount, delimiter);
+            List<Long> offsets = new ArrayList<>();
+            List<Integer> rows = new ArrayList<>();
+            long totalRows = 0;
+            while (start < fileSize) {
+                long end = MappedDataSetLoader.findLineStart(channel, start + chunkSize, fileSize);
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                int count = parser.countRows(chunk, 0, (int) (end - start));
+                offsets.add(start);
+                rows.add(count);
+                totalRows += count;
+                start = end;
+            }
+            offsets.add(fileSize);
+
+            if (totalRows > Integer.MAX_VALUE) {
+                throw new NeurophException("Data set file has more than " + Integer.MAX_VALUE + " rows!");
+            }
+            this.rowsCount = (int) totalRows;
+            this.chunkOffsets = new long[offsets.size()];
+            for (int i = 0; i < chunkOffsets.length; i++) {
+                chunkOffsets[i] = offsets.get(i);
+            }
+            this.chunkRows = new int[rows.size()];
+            for (int i = 0; i < chunkRows.length; i++) {
+                chunkRows[i] = rows.get(i);
+            }
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Reads column names and returns position of the first data line.
+     */
+    private long readHeader(long fileSize) throws IOException {
+        long headerEnd = MappedDataSetLoader.findLineEnd(channel, 0, fileSize);
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(fileSize, headerEnd + 2));
+        columnNames = DelimitedRowParser.toString(header, 0, (int) headerEnd).split(delimiter);
+        return MappedDataSetLoader.skipLineTerminator(header, (int) headerEnd, header.limit());
+    }
+
+    /**
+     * Returns column names from the first line, or null if the file was opened
+     * without them.
+     */
+    public String[] getColumnNames() {
+        return columnNames;
+    }
+
+    @Override
+    public int getInputSize() {
+        return inputsCount;
+    }
+
+    @Override
+    public int getOutputSize() {
+        return outputsCount;
+    }
+
+    @Override
+    public int getRowsCount() {
+        return rowsCount;
+    }
+
+    @Override
+    public int getChunksCount() {
+        return chunkRows.length;
+    }
+
+    @Override
+    public int getChunkRowsCount(int chunkIdx) {
+        return chunkRows[chunkIdx];
+    }
+
+    @Override
+    public void readChunk(int chunkIdx, final PackedDataSet target) throws IOException {
+        long start = chunkOffsets[chunkIdx];
+        int length = (int) (chunkOffsets[chunkIdx + 1] - start);
+        MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+
+        target.clear();
+        DelimitedRowParser parser = new DelimitedRowParser(inputsCount + outputsCount, delimiter);
+        parser.parse(chunk, 0, length, true, new DelimitedRowParser.RowHandler() {
+            @Override
+            public void handleRow(double[] values) {
+                target.appendRow(values);
+            }
+        });
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.data;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.eval.ClassifierEvaluator;
+import org.neuroph.eval.Evaluation;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.neuroph.util.data.norm.MaxNormalizer;
+import org.neuroph.util.io.MappedDataSetLoader;
+
+/**
+ * Checks that class index data set gives the same rows as packed data set for
+ * the classification samples.
+ */
+public class ClassIndexDataSetIT {
+
+    static PackedDataSet abalone;
+
+    public ClassIndexDataSetIT() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+        abalone = MappedDataSetLoader.createPackedFromFile("abalonerings.txt", 8, 29, "\t", true);
+    }
+
+    @Test
+    public void testRowsAndNormalization() {
+        PackedDataSet expected = MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true);
+        ClassIndexDataSet compact = ClassIndexDataSet.from(expected);
+        assertTrue(compact.getClassesCount() <= 10);
+
+        new MaxNormalizer().normalize(expected);
+        new MaxNormalizer().normalize(compact);
+
+        assertRowsEqual(expected, compact);
+    }
+
+    @Test
+    public void testShuffleAndSplit() {
+        PackedDataSet expected = abalone.copy();
+        ClassIndexDataSet compact = ClassIndexDataSet.from(abalone);
+        expected.shuffle(new Random(1));
+        compact.shuffle(new Random(1));
+        assertRowsEqual(expected, compact);
+
+        List<DataSet> subSets = compact.split(60, 40);
+        assertEquals((int) (0.6 * abalone.size()), subSets.get(0).size());
+        assertEquals((int) (0.4 * abalone.size()), subSets.get(1).size());
+        assertTrue(subSets.get(0) instanceof ClassIndexDataSet);
+    }
+
+    @Test
+    public void testManyClasses() {
+        ClassIndexDataSet compact = new ClassIndexDataSet(1, 1);
+        for (int i = 0; i < 1000; i++) {
+            compact.addRow(new double[]{i}, new double[]{i % 300});
+        }
+        assertEquals(300, compact.getClassesCount());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 300, compact.getClassIndex(i));
+            assertEquals(i % 300, compact.getRowAt(i).getDesiredOutput()[0], 0);
+        }
+
+        DataSetRow removed = compact.remove(0);
+        assertEquals(0, removed.getDesiredOutput()[0], 0);
+        assertEquals(1, compact.getRowAt(0).getDesiredOutput()[0], 0);
+        compact.getRowAt(0).setDesiredOutput(new double[]{299});
+        assertEquals(299, compact.getClassIndex(0));
+    }
+
+    @Test
+    public void testLearnAndEvaluate() {
+        ClassIndexDataSet compact = ClassIndexDataSet.from(abalone);
+        new MaxNormalizer().normalize(compact);
+
+        MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(8, 15, 10, 29);
+        MomentumBackpropagation learningRule = (MomentumBackpropagation) neuralNet.getLearningRule();
+        learningRule.setMaxIterations(5);
+        neuralNet.learn(compact);
+        assertEquals(5, learningRule.getCurrentIteration());
+
+        String[] classLabels = new String[29];
+        for (int i = 0; i < classLabels.length; i++) {
+            classLabels[i] = "c" + i;
+        }
+        Evaluation evaluation = new Evaluation();
+        evaluation.addEvaluator(new ClassifierEvaluator.MultiClass(classLabels));
+        evaluation.evaluateDataSet(neuralNet, compact);
+        assertEquals(compact.size(), evaluation.getEvaluator(ClassifierEvaluator.MultiClass.class).getResult().getTotal());
+    }
+
+    private static void assertRowsEqual(DataSet expected, DataSet actual) {
+        assertEquals(expected.size(), actual.size());
+        int i = 0;
+        for (DataSetRow row : actual) {
+            assertArrayEquals(expected.getRowAt(i).getInput(), row.getInput(), 0);
+            assertArrayEquals(expected.getRowAt(i).getDesiredOutput(), row.getDesiredOutput(), 0);
+            i++;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.data;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.util.io.MappedDataSetLoader;
+
+/**
+ * Checks that index views select the right rows of packed, class index and
+ * plain data sets without changing them.
+ */
+public class IndexedDataSetIT {
+
+    public IndexedDataSetIT() {
+    }
+
+    @Test
+    public void testShuffleKeepsDataSet() {
+        PackedDataSet packed = MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true);
+        double[] data = Arrays.copyOf(packed.getData(), packed.size() * packed.getStride());
+
+        IndexedDataSet view = new IndexedDataSet(packed);
+        view.shuffle(new Random(1));
+
+        assertArrayEquals(data, Arrays.copyOf(packed.getData(), data.length), 0);
+        boolean[] seen = new boolean[packed.size()];
+        for (int i = 0; i < view.size(); i++) {
+            assertFalse(seen[view.getRowIndex(i)]);
+            seen[view.getRowIndex(i)] = true;
+        }
+    }
+
+    @Test
+    public void testSplit() {
+        PackedDataSet packed = MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true);
+        ClassIndexDataSet compact = ClassIndexDataSet.from(packed);
+        DataSet rows = MappedDataSetLoader.createFromFile("wine.txt", 11, 10, "\t", true);
+
+        assertSplit(packed);
+        assertSplit(compact);
+        assertSplit(rows);
+    }
+
+    @Test
+    public void testPartition() {
+        PackedDataSet packed = MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true);
+        IndexedDataSet view = new IndexedDataSet(packed);
+        view.shuffle(new Random(1));
+
+        List<IndexedDataSet> parts = view.partition(7);
+        assertEquals(7, parts.size());
+        int row = 0;
+        for (IndexedDataSet part : parts) {
+            assertTrue(Math.abs(part.size() - view.size() / 7.0) < 1);
+            for (int i = 0; i < part.size(); i++) {
+                assertEquals(view.getRowIndex(row++), part.getRowIndex(i));
+            }
+        }
+        assertEquals(view.size(), row);
+    }
+
+    @Test
+    public void testShuffleKeepsSubSets() {
+        PackedDataSet packed = MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true);
+        IndexedDataSet view = new IndexedDataSet(packed);
+        List<DataSet> subSets = view.split(60, 40);
+        IndexedDataSet training = (IndexedDataSet) subSets.get(0);
+        int[] trainingRows = new int[training.size()];
+        for (int i = 0; i < trainingRows.length; i++) {
+            trainingRows[i] = training.getRowIndex(i);
+        }
+
+        view.shuffle(new Random(1));
+        view.split(50, 50);
+
+        for (int i = 0; i < trainingRows.length; i++) {
+            assertEquals(trainingRows[i], training.getRowIndex(i));
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddRow() {
+        DataSet rows = MappedDataSetLoader.createFromFile("bostonhouse.txt", 13, 1, ",", false);
+        new IndexedDataSet(rows).addRow(new double[13], new double[1]);
+    }
+
+    private static void assertSplit(DataSet dataSet) {
+        List<DataSet> subSets = new IndexedDataSet(dataSet).split(60, 40);
+        IndexedDataSet training = (IndexedDataSet) subSets.get(0);
+        IndexedDataSet test = (IndexedDataSet) subSets.get(1);
+        assertEquals((int) (0.6 * dataSet.size()), training.size());
+        assertEquals((int) (0.4 * dataSet.size()), test.size());
+
+        boolean[] seen = new boolean[dataSet.size()];
+        for (IndexedDataSet subSet : Arrays.asList(training, test)) {
+            Iterator<DataSetRow> iterator = subSet.iterator();
+            for (int i = 0; i < subSet.size(); i++) {
+                int rowIdx = subSet.getRowIndex(i);
+                assertFalse(seen[rowIdx]);
+                seen[rowIdx] = true;
+
+                double[] expected = dataSet.getRowAt(rowIdx).toArray();
+                assertArrayEquals(expected, iterator.next().toArray(), 0);
+                assertArrayEquals(expected, subSet.getRowAt(i).toArray(), 0);
+            }
+            assertFalse(iterator.hasNext());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.data;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.eval.ClassifierEvaluator;
+import org.neuroph.eval.Evaluation;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.neuroph.util.data.norm.MaxNormalizer;
+import org.neuroph.util.io.MappedDataSetLoader;
+
+/**
+ * Checks that packed data set behaves like DataSet where the samples use it.
+ */
+public class PackedDataSetIT {
+
+    static DataSet dataSet;
+
+    public PackedDataSetIT() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+        dataSet = MappedDataSetLoader.createFromFile("sonardata.txt", 60, 1, ",", false);
+    }
+
+    @Test
+    public void testRowsAndNormalization() {
+        DataSet expected = MappedDataSetLoader.createFromFile("sonardata.txt", 60, 1, ",", false);
+        PackedDataSet packed = PackedDataSet.from(expected);
+
+        new MaxNormalizer().normalize(expected);
+        new MaxNormalizer().normalize(packed);
+
+        assertEquals(expected.size(), packed.size());
+        int i = 0;
+        for (DataSetRow row : packed) {
+            assertArrayEquals(expected.getRowAt(i).getInput(), row.getInput(), 0);
+            assertArrayEquals(expected.getRowAt(i).getDesiredOutput(), row.getDesiredOutput(), 0);
+            i++;
+        }
+    }
+
+    @Test
+    public void testShuffleAndSplit() {
+        PackedDataSet packed = PackedDataSet.from(dataSet);
+        packed.shuffle(new Random(1));
+
+        double[] expectedSums = columnSums(dataSet);
+        assertArrayEquals(expectedSums, columnSums(packed), 1e-9);
+
+        List<DataSet> subSets = packed.split(60, 40);
+        assertEquals((int) (0.6 * dataSet.size()), subSets.get(0).size());
+        assertEquals((int) (0.4 * dataSet.size()), subSets.get(1).size());
+        assertTrue(subSets.get(0) instanceof PackedDataSet);
+    }
+
+    @Test
+    public void testLearnAndEvaluate() {
+        PackedDataSet packed = PackedDataSet.from(dataSet);
+        new MaxNormalizer().normalize(packed);
+
+        MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(60, 15, 10, 1);
+        MomentumBackpropagation learningRule = (MomentumBackpropagation) neuralNet.getLearningRule();
+        learningRule.setMaxIterations(20);
+        neuralNet.learn(packed);
+        assertEquals(20, learningRule.getCurrentIteration());
+
+        Evaluation evaluation = new Evaluation();
+        evaluation.addEvaluator(new ClassifierEvaluator.Binary(0.5));
+        evaluation.evaluateDataSet(neuralNet, packed);
+        assertEquals(packed.size(), evaluation.getEvaluator(ClassifierEvaluator.Binary.class).getResult().getTotal());
+    }
+
+    @Test
+    public void testRowViews() {
+        PackedDataSet packed = new PackedDataSet(2, 1);
+        packed.addRow(new double[]{1, 2}, new double[]{3});
+        packed.addRow(new DataSetRow(new double[]{4, 5}, new double[]{6}));
+
+        DataSetRow row = packed.get(1);
+        row.setInput(new double[]{7, 8});
+        assertArrayEquals(new double[]{1, 2, 3, 7, 8, 6}, Arrays.copyOf(packed.getData(), 6), 0);
+
+        DataSetRow removed = packed.remove(0);
+        assertArrayEquals(new double[]{1, 2}, removed.getInput(), 0);
+        assertEquals(1, packed.size());
+        assertArrayEquals(new double[]{7, 8}, packed.get(0).getInput(), 0);
+    }
+
+    private static double[] columnSums(DataSet dataSet) {
+        double[] sums = new double[dataSet.getInputSize()];
+        for (DataSetRow row : dataSet) {
+            double[] input = row.getInput();
+            for (int i = 0; i < sums.length; i++) {
+                sums[i] += input[i];
+            }
+        }
+        return sums;
+    }
+}
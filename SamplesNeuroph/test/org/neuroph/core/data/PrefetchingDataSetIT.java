@@ -0,0 +1,221 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.neuroph.util.data.norm.Normalizer;
+import org.neuroph.util.io.BinaryDataSetFile;
+import org.neuroph.util.io.BinaryFileChunkSource;
+import org.neuroph.util.io.MappedDataSetLoader;
+import org.neuroph.util.io.TextFileChunkSource;
+
+/**
+ * Checks that prefetching data set gives the same rows as the streaming one
+ * and stops its loading thread when a pass is left unfinished.
+ */
+public class PrefetchingDataSetIT {
+
+    public PrefetchingDataSetIT() {
+    }
+
+    @Test
+    public void testNormalizedRows() throws IOException {
+        PackedDataSet expected = MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true);
+        Normalizer normalizer = new ScaleNormalizer(columnMax(expected));
+        normalizer.normalize(expected);
+
+        try (PrefetchingDataSet prefetching = new PrefetchingDataSet(openWine(), 2)) {
+            prefetching.setNormalizer(normalizer);
+            for (int pass = 0; pass < 2; pass++) {
+                int i = 0;
+                for (DataSetRow row : prefetching) {
+                    assertArrayEquals(expected.getRowAt(i).toArray(), row.toArray(), 0);
+                    i++;
+                }
+                assertEquals(expected.size(), i);
+            }
+        }
+    }
+
+    @Test
+    public void testUnfinishedPass() throws Exception {
+        try (PrefetchingDataSet prefetching = new PrefetchingDataSet(openWine())) {
+            Iterator<DataSetRow> unfinished = prefetching.iterator();
+            unfinished.next();
+
+            int count = 0;
+            for (DataSetRow row : prefetching) {
+                count++;
+            }
+            assertEquals(prefetching.size(), count);
+            assertFalse(unfinished.hasNext());
+
+            prefetching.iterator().next();
+        }
+        Thread.sleep(100);
+        assertEquals(0, prefetchThreadsCount());
+    }
+
+    @Test
+    public void testUnfinishedBinaryPass() throws IOException {
+        PackedDataSet dataSet = MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true);
+        Path binaryFile = Files.createTempFile("wine", ".bin");
+        try {
+            BinaryDataSetFile.write(dataSet, BinaryDataSetFile.Source.of(Paths.get("wine.txt"), "\t", true), binaryFile);
+            try (PrefetchingDataSet prefetching = new PrefetchingDataSet(new BinaryFileChunkSource(binaryFile, 50), 2)) {
+                // leave passes while the loader is reading the file
+                for (int pass = 0; pass < 20; pass++) {
+                    Iterator<DataSetRow> unfinished = prefetching.iterator();
+                    for (int i = 0; i < pass * 10; i++) {
+                        unfinished.next();
+                    }
+                }
+
+                int i = 0;
+                for (DataSetRow row : prefetching) {
+                    assertArrayEquals(dataSet.getRowAt(i).toArray(), row.toArray(), 0);
+                    i++;
+                }
+                assertEquals(dataSet.size(), i);
+            }
+        } finally {
+            Files.deleteIfExists(binaryFile);
+        }
+    }
+
+    @Test(expected = NeurophException.class)
+    public void testLoadingError() throws IOException {
+        final TextFileChunkSource wine = openWine();
+        DataSetChunkSource failing = new DataSetChunkSource() {
+            @Override
+            public int getInputSize() {
+                return wine.getInputSize();
+            }
+
+            @Override
+            public int getOutputSize() {
+                return wine.getOutputSize();
+            }
+
+            @Override
+            public int getRowsCount() {
+                return wine.getRowsCount();
+            }
+
+            @Override
+            public int getChunksCount() {
+                return wine.getChunksCount();
+            }
+
+            @Override
+            public int getChunkRowsCount(int chunkIdx) {
+                return wine.getChunkRowsCount(chunkIdx);
+            }
+
+            @Override
+            public void readChunk(int chunkIdx, PackedDataSet target) throws IOException {
+                if (chunkIdx == 2) {
+                    throw new IOException("Disk failure");
+                }
+                wine.readChunk(chunkIdx, target);
+            }
+
+            @Override
+            public void close() throws IOException {
+                wine.close();
+            }
+        };
+
+        try (PrefetchingDataSet prefetching = new PrefetchingDataSet(failing)) {
+            for (DataSetRow row : prefetching) {
+                assertNotNull(row);
+            }
+        }
+    }
+
+    @Test
+    public void testLearn() throws IOException {
+        PackedDataSet dataSet = MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true);
+        try (PrefetchingDataSet prefetching = new PrefetchingDataSet(openWine())) {
+            prefetching.setNormalizer(new ScaleNormalizer(columnMax(dataSet)));
+            prefetching.setShuffleChunks(true);
+
+            MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(11, 20, 15, 10);
+            MomentumBackpropagation learningRule = (MomentumBackpropagation) neuralNet.getLearningRule();
+            learningRule.setMaxIterations(3);
+            neuralNet.learn(prefetching);
+            assertEquals(3, learningRule.getCurrentIteration());
+            assertFalse(Double.isNaN(learningRule.getTotalNetworkError()));
+        }
+    }
+
+    private static TextFileChunkSource openWine() throws IOException {
+        return new TextFileChunkSource("wine.txt", 11, 10, "\t", true, 32 * 1024);
+    }
+
+    private static int prefetchThreadsCount() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("DataSet prefetch") && thread.isAlive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static double[] columnMax(DataSet dataSet) {
+        double[] max = new double[dataSet.getInputSize()];
+        for (DataSetRow row : dataSet) {
+            double[] input = row.getInput();
+            for (int i = 0; i < max.length; i++) {
+                max[i] = Math.max(max[i], input[i]);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Divides inputs by fixed values, the same for every chunk.
+     */
+    private static class ScaleNormalizer implements Normalizer {
+
+        private final double[] scale;
+
+        ScaleNormalizer(double[] scale) {
+            this.scale = scale;
+        }
+
+        @Override
+        public void normalize(DataSet dataSet) {
+            for (DataSetRow row : dataSet) {
+                double[] input = row.getInput();
+                for (int i = 0; i < input.length; i++) {
+                    input[i] /= scale[i];
+                }
+                row.setInput(input);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.data;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.neuroph.util.io.BinaryDataSetFile;
+import org.neuroph.util.io.BinaryFileChunkSource;
+import org.neuroph.util.io.MappedDataSetLoader;
+import org.neuroph.util.io.TextFileChunkSource;
+
+/**
+ * Checks that streaming data set gives the same rows as loading the whole file.
+ */
+public class StreamingDataSetIT {
+
+    static PackedDataSet dataSet;
+    static Path binaryFile;
+
+    public StreamingDataSetIT() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws IOException {
+        dataSet = MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true);
+        binaryFile = Files.createTempFile("wine", ".bin");
+        BinaryDataSetFile.write(dataSet, BinaryDataSetFile.Source.of(Paths.get("wine.txt"), "\t", true), binaryFile);
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws IOException {
+        Files.deleteIfExists(binaryFile);
+    }
+
+    @Test
+    public void testTextFileRows() throws IOException {
+        try (StreamingDataSet streaming = new StreamingDataSet(new TextFileChunkSource("wine.txt", 11, 10, "\t", true, 16 * 1024))) {
+            assertTrue(streaming.getSource().getChunksCount() > 1);
+            assertRowsEqual(dataSet, streaming);
+            assertArrayEquals(dataSet.getRowAt(1234).toArray(), streaming.getRowAt(1234).toArray(), 0);
+        }
+    }
+
+    @Test
+    public void testBinaryFileRows() throws IOException {
+        try (StreamingDataSet streaming = new StreamingDataSet(new BinaryFileChunkSource(binaryFile, 1000))) {
+            assertEquals(5, streaming.getSource().getChunksCount());
+            assertRowsEqual(dataSet, streaming);
+            assertArrayEquals(dataSet.getRowAt(4500).toArray(), streaming.getRowAt(4500).toArray(), 0);
+        }
+    }
+
+    @Test
+    public void testShuffleChunks() throws IOException {
+        try (StreamingDataSet streaming = new StreamingDataSet(new BinaryFileChunkSource(binaryFile, 500))) {
+            streaming.setShuffleChunks(true);
+            streaming.setRandom(new Random(1));
+
+            Set<String> expected = new HashSet<>();
+            for (DataSetRow row : dataSet) {
+                expected.add(row.toString());
+            }
+            Set<String> actual = new HashSet<>();
+            DataSetRow first = null;
+            for (DataSetRow row : streaming) {
+                if (first == null) {
+                    first = new DataSetRow(row.getInput(), row.getDesiredOutput());
+                }
+                actual.add(row.toString());
+            }
+            assertEquals(expected, actual);
+            assertFalse(Arrays.equals(dataSet.getRowAt(0).toArray(), first.toArray()));
+        }
+    }
+
+    @Test
+    public void testLearn() throws IOException {
+        try (StreamingDataSet streaming = new StreamingDataSet(new TextFileChunkSource("wine.txt", 11, 10, "\t", true, 64 * 1024))) {
+            streaming.setShuffleChunks(true);
+
+            MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(11, 20, 15, 10);
+            MomentumBackpropagation learningRule = (MomentumBackpropagation) neuralNet.getLearningRule();
+            learningRule.setMaxIterations(3);
+            neuralNet.learn(streaming);
+            assertEquals(3, learningRule.getCurrentIteration());
+            assertFalse(Double.isNaN(learningRule.getTotalNetworkError()));
+        }
+    }
+
+    private static void assertRowsEqual(DataSet expected, DataSet actual) {
+        assertEquals(expected.size(), actual.size());
+        int i = 0;
+        for (DataSetRow row : actual) {
+            assertArrayEquals(expected.getRowAt(i).getInput(), row.getInput(), 0);
+            assertArrayEquals(expected.getRowAt(i).getDesiredOutput(), row.getDesiredOutput(), 0);
+            i++;
+        }
+        assertEquals(expected.size(), i);
+    }
+}
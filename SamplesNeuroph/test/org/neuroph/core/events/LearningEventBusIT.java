@@ -0,0 +1,178 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.core.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.learning.LearningRule;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.learning.MiniBatchBackpropagation;
+import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.io.MappedDataSetLoader;
+
+/**
+ * Checks that learning events reach listeners on the dispatching thread, in
+ * order and with the state of the learning rule when they were fired.
+ */
+public class LearningEventBusIT {
+
+    public LearningEventBusIT() {
+    }
+
+    @Test
+    public void testLearning() {
+        final List<Double> errors = new ArrayList<>();
+        Recorder recorder = new Recorder();
+        LearningEventBus bus = new LearningEventBus(recorder);
+        MiniBatchBackpropagation learningRule = learn(bus, new LearningEventListener() {
+            @Override
+            public void handleLearningEvent(LearningEvent event) {
+                if (event.getEventType() == LearningEvent.Type.EPOCH_ENDED) {
+                    errors.add(((MiniBatchBackpropagation) event.getSource()).getTotalNetworkError());
+                }
+            }
+        });
+        bus.close();
+
+        assertEquals(31, recorder.events.size());
+        for (int i = 0; i < 30; i++) {
+            LearningEventSnapshot snapshot = recorder.events.get(i);
+            assertEquals(LearningEvent.Type.EPOCH_ENDED, snapshot.getEventType());
+            assertEquals(i + 1, snapshot.getIteration());
+            assertEquals(errors.get(i), snapshot.getTotalNetworkError(), 0);
+            assertSame(learningRule, snapshot.getLearningRule());
+        }
+        assertEquals(LearningEvent.Type.LEARNING_STOPPED, recorder.events.get(30).getEventType());
+        assertEquals(30, recorder.events.get(30).getIteration());
+        assertEquals("learning-events", recorder.threadName);
+        assertEquals(0, bus.getCoalescedCount());
+    }
+
+    @Test
+    public void testIterationInterval() {
+        Recorder recorder = new Recorder();
+        LearningEventBus bus = new LearningEventBus(recorder);
+        bus.setIterationInterval(7);
+        learn(bus, null);
+        bus.close();
+
+        assertEquals(5, recorder.events.size());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(7 * (i + 1), recorder.events.get(i).getIteration());
+        }
+        assertEquals(LearningEvent.Type.LEARNING_STOPPED, recorder.events.get(4).getEventType());
+    }
+
+    @Test
+    public void testTimeInterval() {
+        Recorder recorder = new Recorder();
+        LearningEventBus bus = new LearningEventBus(recorder);
+        bus.setTimeInterval(60000);
+        LearningRule learningRule = new MomentumBackpropagation();
+        for (int i = 1; i <= 100; i++) {
+            bus.handleLearningEvent(new LearningEventSnapshot(learningRule, LearningEvent.Type.EPOCH_ENDED, i, 0, 0));
+        }
+        bus.flush();
+        assertEquals(1, recorder.events.size());
+        assertEquals(1, recorder.events.get(0).getIteration());
+        bus.close();
+    }
+
+    @Test
+    public void testCoalescing() throws InterruptedException {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        Recorder recorder = new Recorder() {
+            @Override
+            public void handleLearningEvent(LearningEvent event) {
+                if (blocked.getCount() > 0) {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                super.handleLearningEvent(event);
+            }
+        };
+        LearningEventBus bus = new LearningEventBus(2, recorder);
+        LearningRule learningRule = new MomentumBackpropagation();
+        bus.handleLearningEvent(new LearningEventSnapshot(learningRule, LearningEvent.Type.EPOCH_ENDED, 1, 0, 0));
+        blocked.await();
+        // the listener is blocked, but events are still taken without waiting
+        for (int i = 2; i <= 100; i++) {
+            bus.handleLearningEvent(new LearningEventSnapshot(learningRule, LearningEvent.Type.EPOCH_ENDED, i, 0, 0));
+        }
+        bus.handleLearningEvent(new LearningEventSnapshot(learningRule, LearningEvent.Type.LEARNING_STOPPED, 100, 0, 0));
+        release.countDown();
+        bus.close();
+
+        // 1 handled, 2 and 3 queued, 100 kept for the full queue
+        assertEquals(5, recorder.events.size());
+        int[] iterations = {1, 2, 3, 100, 100};
+        for (int i = 0; i < iterations.length; i++) {
+            assertEquals(iterations[i], recorder.events.get(i).getIteration());
+        }
+        assertEquals(LearningEvent.Type.LEARNING_STOPPED, recorder.events.get(4).getEventType());
+        assertEquals(96, bus.getCoalescedCount());
+    }
+
+    @Test
+    public void testFailingListener() {
+        Recorder recorder = new Recorder();
+        LearningEventBus bus = new LearningEventBus(new LearningEventListener() {
+            @Override
+            public void handleLearningEvent(LearningEvent event) {
+                throw new IllegalStateException("Listener failed");
+            }
+        }, recorder);
+        learn(bus, null);
+        bus.close();
+        assertEquals(31, recorder.events.size());
+    }
+
+    private static MiniBatchBackpropagation learn(LearningEventBus bus, LearningEventListener listener) {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+        MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(TransferFunctionType.SIGMOID, 4, 5, 3);
+        MiniBatchBackpropagation learningRule = new MiniBatchBackpropagation(16);
+        learningRule.setMaxIterations(30);
+        learningRule.addListener(bus);
+        if (listener != null) {
+            learningRule.addListener(listener);
+        }
+        neuralNet.setLearningRule(learningRule);
+        neuralNet.learn(dataSet);
+        return learningRule;
+    }
+
+    private static class Recorder implements LearningEventListener {
+
+        final List<LearningEventSnapshot> events = new ArrayList<>();
+        volatile String threadName;
+
+        @Override
+        public void handleLearningEvent(LearningEvent event) {
+            events.add((LearningEventSnapshot) event);
+            threadName = Thread.currentThread().getName();
+        }
+    }
+}
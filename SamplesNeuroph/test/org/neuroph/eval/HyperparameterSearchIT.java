@@ -0,0 +1,98 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.eval;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.IndexedDataSet;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.io.MappedDataSetLoader;
+
+/**
+ * Checks that successive halving trains the best candidates longest, and that
+ * results do not depend on the number of threads.
+ */
+public class HyperparameterSearchIT {
+
+    public HyperparameterSearchIT() {
+    }
+
+    @Test
+    public void testGridSearch() throws InterruptedException, ExecutionException {
+        HyperparameterSearch search = createSearch(3);
+        List<HyperparameterSearch.Candidate> grid = search.gridCandidates();
+        assertEquals(16, grid.size());
+
+        List<HyperparameterSearch.Candidate> ranked = search.search(grid);
+        assertEquals(16, ranked.size());
+        assertSame(ranked.get(0), search.getBest());
+
+        // 16 candidates for 5 epochs, 6 for 15 and 2 for 45
+        int[] epochCounts = new int[46];
+        for (HyperparameterSearch.Candidate candidate : ranked) {
+            epochCounts[candidate.getEpochs()]++;
+        }
+        assertEquals(10, epochCounts[5]);
+        assertEquals(4, epochCounts[15]);
+        assertEquals(2, epochCounts[45]);
+        for (int i = 1; i < ranked.size(); i++) {
+            HyperparameterSearch.Candidate previous = ranked.get(i - 1);
+            HyperparameterSearch.Candidate candidate = ranked.get(i);
+            assertTrue(previous.getEpochs() > candidate.getEpochs()
+                    || previous.getValidationError() <= candidate.getValidationError());
+        }
+    }
+
+    @Test
+    public void testSameForThreadsCount() throws InterruptedException, ExecutionException {
+        List<HyperparameterSearch.Candidate> single = createSearch(1).search(createSearch(1).randomCandidates(9));
+        List<HyperparameterSearch.Candidate> parallel = createSearch(4).search(createSearch(4).randomCandidates(9));
+        for (int i = 0; i < single.size(); i++) {
+            assertEquals(single.get(i).toString(), parallel.get(i).toString());
+        }
+    }
+
+    @Test
+    public void testRandomCandidates() {
+        List<HyperparameterSearch.Candidate> sampled = createSearch(1).randomCandidates(50);
+        assertEquals(50, sampled.size());
+        for (HyperparameterSearch.Candidate candidate : sampled) {
+            assertTrue(candidate.getLearningRate() >= 0.05 && candidate.getLearningRate() <= 0.5);
+            assertTrue(candidate.getMomentum() >= 0 && candidate.getMomentum() <= 0.7);
+        }
+    }
+
+    private static HyperparameterSearch createSearch(int threadsCount) {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+        IndexedDataSet rows = new IndexedDataSet(dataSet);
+        rows.shuffle(new Random(1));
+
+        HyperparameterSearch search = new HyperparameterSearch(rows.subSet(0, 105), rows.subSet(105, 45));
+        search.setHiddenLayers(new int[]{3}, new int[]{8});
+        search.setTransferFunctions(TransferFunctionType.SIGMOID, TransferFunctionType.TANH);
+        search.setLearningRates(0.05, 0.5);
+        search.setMomentums(0, 0.7);
+        search.setMinEpochs(5);
+        search.setMaxEpochs(45);
+        search.setThreadsCount(threadsCount);
+        search.setRandom(new Random(1));
+        return search;
+    }
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.eval;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.eval.classification.ConfusionMatrix;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.learning.MomentumBackpropagation;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.io.MappedDataSetLoader;
+
+/**
+ * Checks that stratified cross validation spreads every class evenly over the
+ * folds and that merged results count every row once.
+ */
+public class StratifiedCrossValidationIT {
+
+    public StratifiedCrossValidationIT() {
+    }
+
+    @Test
+    public void testMultiClass() throws InterruptedException, ExecutionException {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+        assertStratified(dataSet, new MultiLayerPerceptron(TransferFunctionType.TANH, 4, 2, 3), 10);
+    }
+
+    @Test
+    public void testBinary() throws InterruptedException, ExecutionException {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("pimadata.txt", 8, 1, "\t", false);
+        assertStratified(dataSet, new MultiLayerPerceptron(TransferFunctionType.SIGMOID, 8, 4, 1), 5);
+    }
+
+    private static void assertStratified(DataSet dataSet, MultiLayerPerceptron neuralNet, int foldsCount) throws InterruptedException, ExecutionException {
+        MomentumBackpropagation learningRule = new MomentumBackpropagation();
+        learningRule.setMaxIterations(20);
+        neuralNet.setLearningRule(learningRule);
+
+        StratifiedCrossValidation crossValidation = new StratifiedCrossValidation(neuralNet, dataSet, foldsCount);
+        crossValidation.setThreadsCount(3);
+        crossValidation.setRandom(new Random(1));
+        CrossValidationResult result = crossValidation.run();
+        assertNotNull(result.getAverages());
+
+        List<EvaluationResult> folds = crossValidation.getFoldResults();
+        assertEquals(foldsCount, folds.size());
+        ConfusionMatrix merged = crossValidation.getConfusionMatrix();
+        assertEquals(dataSet.size(), merged.getTotal());
+
+        int classesCount = merged.getClassLabels().length;
+        for (int k = 0; k < classesCount; k++) {
+            int classRows = 0;
+            for (int predicted = 0; predicted < classesCount; predicted++) {
+                classRows += merged.get(k, predicted);
+            }
+            for (EvaluationResult fold : folds) {
+                int foldRows = 0;
+                for (int predicted = 0; predicted < classesCount; predicted++) {
+                    foldRows += fold.getConfusionMatrix().get(k, predicted);
+                }
+                // every fold gets its share of each class, give or take a row
+                assertTrue(Math.abs(foldRows - classRows / (double) foldsCount) < 1);
+            }
+        }
+
+        double squaredErrorSum = 0;
+        for (EvaluationResult fold : folds) {
+            squaredErrorSum += fold.getMeanSquareError() * fold.getDataSet().size();
+        }
+        assertEquals(squaredErrorSum / dataSet.size(), crossValidation.getMeanSquareError(), 1e-12);
+    }
+}
@@ -0,0 +1,158 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.IndexedDataSet;
+import org.neuroph.core.learning.error.MeanSquaredError;
+import org.neuroph.eval.ClassifierEvaluator;
+import org.neuroph.eval.ErrorEvaluator;
+import org.neuroph.eval.Evaluation;
+import org.neuroph.nnet.learning.BaggingLearning;
+import org.neuroph.nnet.learning.MiniBatchBackpropagation;
+import org.neuroph.util.data.norm.ColumnStatistics;
+import org.neuroph.util.data.norm.Normalizer;
+import org.neuroph.util.data.norm.StatisticsNormalizer;
+import org.neuroph.util.io.CachedDataSetLoader;
+
+/**
+ * Checks bagging of multi layer perceptrons on the Sonar data set, and that
+ * results do not depend on the number of threads.
+ */
+public class EnsembleIT {
+
+    static IndexedDataSet dataSet;
+    static DataSet trainingSet;
+    static DataSet testSet;
+
+    public EnsembleIT() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+        ColumnStatistics statistics = new ColumnStatistics(61);
+        DataSet rows = CachedDataSetLoader.createPackedFromFile("sonardata.txt", 60, 1, ",", false, statistics);
+        Normalizer norm = new StatisticsNormalizer(statistics, StatisticsNormalizer.Method.MAX);
+        norm.normalize(rows);
+        dataSet = new IndexedDataSet(rows);
+        dataSet.shuffle(new Random(1));
+        trainingSet = dataSet.subSet(0, 125);
+        testSet = dataSet.subSet(125, dataSet.size() - 125);
+    }
+
+    @Test
+    public void testBagging() {
+        Ensemble ensemble = createEnsemble(2);
+        ensemble.learn(trainingSet);
+
+        // averaging can only lower the squared error of the members
+        double ensembleError = evaluate(ensemble);
+        double membersError = 0;
+        for (NeuralNetwork<?> member : ensemble.getMembers()) {
+            membersError += evaluate(member);
+        }
+        membersError /= ensemble.getMembers().size();
+        assertTrue(ensembleError + " < " + membersError, ensembleError < membersError);
+
+        List<IndexedDataSet> samples = ensemble.getLearningRule().getSamples();
+        assertEquals(5, samples.size());
+        for (IndexedDataSet sample : samples) {
+            assertEquals(trainingSet.size(), sample.size());
+            assertSame(dataSet.getDataSet(), sample.getDataSet());
+        }
+        assertFalse(samples.get(0).getRowIndex(0) == samples.get(1).getRowIndex(0)
+                && samples.get(0).getRowIndex(1) == samples.get(1).getRowIndex(1));
+    }
+
+    @Test
+    public void testThreadsCount() {
+        Ensemble single = createEnsemble(1);
+        single.setThreadsCount(1);
+        single.learn(trainingSet);
+        Ensemble parallel = createEnsemble(3);
+        parallel.setThreadsCount(3);
+        parallel.learn(trainingSet);
+
+        double[][] inputs = inputs(testSet);
+        double[][] singleOutputs = single.calculate(inputs);
+        double[][] parallelOutputs = parallel.calculate(inputs);
+        for (int r = 0; r < inputs.length; r++) {
+            assertArrayEquals(singleOutputs[r], parallelOutputs[r], 0);
+            parallel.setInput(inputs[r]);
+            parallel.calculate();
+            assertArrayEquals(singleOutputs[r], parallel.getOutput(), 0);
+        }
+        parallel.shutdown();
+    }
+
+    @Test
+    public void testVote() {
+        Ensemble ensemble = createEnsemble(2);
+        ensemble.learn(trainingSet);
+        ensemble.setCombination(Ensemble.Combination.VOTE);
+        for (double[] output : ensemble.calculate(inputs(testSet))) {
+            double votes = output[0] * 5;
+            assertEquals(Math.rint(votes), votes, 1e-9);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDifferentMembers() {
+        List<NeuralNetwork<?>> members = new ArrayList<>();
+        members.add(new MultiLayerPerceptron(60, 10, 1));
+        members.add(new MultiLayerPerceptron(60, 10, 2));
+        new Ensemble(members);
+    }
+
+    private static Ensemble createEnsemble(int threadsCount) {
+        Ensemble ensemble = new Ensemble(5, 60, 10, 1);
+        int seed = 0;
+        for (NeuralNetwork<?> member : ensemble.getMembers()) {
+            member.randomizeWeights(new Random(seed++));
+            MiniBatchBackpropagation learningRule = new MiniBatchBackpropagation(8);
+            learningRule.setLearningRate(0.2);
+            learningRule.setMaxIterations(100);
+            ((MultiLayerPerceptron) member).setLearningRule(learningRule);
+        }
+        BaggingLearning learningRule = ensemble.getLearningRule();
+        learningRule.setThreadsCount(threadsCount);
+        learningRule.setRandom(new Random(7));
+        return ensemble;
+    }
+
+    private static double evaluate(NeuralNetwork<?> neuralNet) {
+        Evaluation evaluation = new Evaluation();
+        evaluation.addEvaluator(new ErrorEvaluator(new MeanSquaredError()));
+        evaluation.addEvaluator(new ClassifierEvaluator.Binary(0.5));
+        evaluation.evaluateDataSet(neuralNet, testSet);
+        return evaluation.getEvaluator(ErrorEvaluator.class).getResult();
+    }
+
+    private static double[][] inputs(DataSet dataSet) {
+        double[][] inputs = new double[dataSet.size()][];
+        for (int r = 0; r < dataSet.size(); r++) {
+            inputs[r] = dataSet.get(r).getInput().clone();
+        }
+        return inputs;
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.flat;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.nnet.Kohonen;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.io.MappedDataSetLoader;
+import org.neuroph.util.random.WeightsRandomizer;
+
+/**
+ * Checks that a flat network computes the same outputs as the network it was
+ * compiled from.
+ */
+public class FlatNetworkIT {
+
+    public FlatNetworkIT() {
+    }
+
+    @Test
+    public void testForward() {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+        for (TransferFunctionType type : new TransferFunctionType[]{TransferFunctionType.TANH, TransferFunctionType.SIGMOID, TransferFunctionType.LINEAR, TransferFunctionType.GAUSSIAN}) {
+            MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(type, 4, 6, 5, 3);
+            neuralNet.randomizeWeights(new WeightsRandomizer(new Random(1)));
+            assertSameOutput(neuralNet, dataSet);
+        }
+    }
+
+    @Test
+    public void testWriteBack() {
+        MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(TransferFunctionType.TANH, 4, 5, 3);
+        FlatNetwork flatNetwork = FlatNetwork.compile(neuralNet);
+        for (int l = 1; l < flatNetwork.getLayersCount(); l++) {
+            double[] weights = flatNetwork.getWeights(l);
+            for (int k = 0; k < weights.length; k++) {
+                weights[k] = weights[k] / 2;
+            }
+        }
+        flatNetwork.writeBack();
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+        assertSameOutput(neuralNet, dataSet);
+    }
+
+    @Test
+    public void testCalculate() {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+        MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(TransferFunctionType.SIGMOID, 4, 8, 3);
+        FlatNetwork flatNetwork = FlatNetwork.compile(neuralNet);
+        assertEquals(3, flatNetwork.getLayersCount());
+        assertEquals(4, flatNetwork.getLayerSize(0));
+        assertEquals(8, flatNetwork.getLayerSize(1));
+        assertEquals(8 * 4 + 8, flatNetwork.getWeights(1).length);
+        assertEquals(3 * 8, flatNetwork.getBiasOffset(2));
+
+        for (DataSetRow row : dataSet) {
+            neuralNet.setInput(row.getInput());
+            neuralNet.calculate();
+            assertArrayEquals(neuralNet.getOutput(), flatNetwork.calculate(row.getInput()), 1e-12);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotLayered() {
+        FlatNetwork.compile(new Kohonen(4, 9));
+    }
+
+    private static void assertSameOutput(NeuralNetwork<?> neuralNet, DataSet dataSet) {
+        FlatNetwork flatNetwork = FlatNetwork.compile(neuralNet);
+        FlatNetwork.Batch batch = flatNetwork.newBatch(dataSet.size());
+        int r = 0;
+        for (DataSetRow row : dataSet) {
+            batch.setInput(r++, row.getInput());
+        }
+        flatNetwork.forward(batch, r);
+
+        double[] output = new double[flatNetwork.getOutputsCount()];
+        r = 0;
+        for (DataSetRow row : dataSet) {
+            neuralNet.setInput(row.getInput());
+            neuralNet.calculate();
+            batch.getOutput(r++, output);
+            assertArrayEquals(neuralNet.getOutput(), output, 1e-12);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.flat;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.IndexedDataSet;
+import org.neuroph.core.learning.error.MeanSquaredError;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.learning.FloatMiniBatchBackpropagation;
+import org.neuroph.nnet.learning.MiniBatchBackpropagation;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.data.norm.StatisticsNormalizer;
+import org.neuroph.util.io.MappedDataSetLoader;
+import org.neuroph.util.random.WeightsRandomizer;
+
+/**
+ * Compares single precision inference and learning with the double path on
+ * the bundled data sets.
+ */
+public class FloatNetworkIT {
+
+    public FloatNetworkIT() {
+    }
+
+    @Test
+    public void testIris() {
+        compare("irisdatanormalised.txt", 4, 3, ",", false, 8);
+    }
+
+    @Test
+    public void testWine() {
+        compare("wine.txt", 11, 10, "\t", true, 20);
+    }
+
+    @Test
+    public void testSonar() {
+        compare("sonardata.txt", 60, 1, ",", false, 15);
+    }
+
+    @Test
+    public void testPima() {
+        compare("pimadata.txt", 8, 1, "\t", false, 10);
+    }
+
+    @Test
+    public void testBanknote() {
+        compare("databanknote.txt", 4, 1, ",", false, 4);
+    }
+
+    private static void compare(String fileName, int inputsCount, int outputsCount, String delimiter, boolean header, int hiddenCount) {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile(fileName, inputsCount, outputsCount, delimiter, header);
+        new StatisticsNormalizer(StatisticsNormalizer.Method.MAX).normalize(dataSet);
+        IndexedDataSet trainingSet = new IndexedDataSet(dataSet);
+        trainingSet.shuffle(new Random(1));
+
+        // inference with the same weights
+        MultiLayerPerceptron neuralNet = createNetwork(inputsCount, hiddenCount, outputsCount);
+        FlatNetwork flatNetwork = FlatNetwork.compile(neuralNet);
+        FloatNetwork floatNetwork = new FloatNetwork(flatNetwork);
+        double maxDifference = 0;
+        for (DataSetRow row : dataSet) {
+            double[] expected = flatNetwork.calculate(row.getInput()).clone();
+            double[] actual = floatNetwork.calculate(row.getInput());
+            for (int i = 0; i < expected.length; i++) {
+                maxDifference = Math.max(maxDifference, Math.abs(expected[i] - actual[i]));
+            }
+        }
+        assertTrue(maxDifference < 1e-5);
+
+        // learning from the same initial weights
+        double doubleError = learn(new MiniBatchBackpropagation(16), trainingSet, inputsCount, hiddenCount, outputsCount);
+        FloatMiniBatchBackpropagation floatRule = new FloatMiniBatchBackpropagation(16);
+        double floatError = learn(floatRule, trainingSet, inputsCount, hiddenCount, outputsCount);
+        floatRule = new FloatMiniBatchBackpropagation(16);
+        floatRule.setDoubleAccumulation(true);
+        double accumulatedError = learn(floatRule, trainingSet, inputsCount, hiddenCount, outputsCount);
+
+        System.out.println(fileName + ": output difference " + maxDifference + ", error double " + doubleError
+                + ", float " + floatError + ", float with double sums " + accumulatedError);
+        assertEquals(doubleError, floatError, doubleError * 1e-3);
+        assertEquals(doubleError, accumulatedError, doubleError * 1e-3);
+    }
+
+    private static double learn(MiniBatchBackpropagation learningRule, DataSet trainingSet, int inputsCount, int hiddenCount, int outputsCount) {
+        MultiLayerPerceptron neuralNet = createNetwork(inputsCount, hiddenCount, outputsCount);
+        learningRule.setLearningRate(0.2);
+        learningRule.setMomentum(0.5);
+        learningRule.setMaxIterations(100);
+        neuralNet.setLearningRule(learningRule);
+        neuralNet.learn(trainingSet);
+
+        // evaluate the weights written back to the network in double
+        MeanSquaredError error = new MeanSquaredError();
+        for (DataSetRow row : trainingSet) {
+            neuralNet.setInput(row.getInput());
+            neuralNet.calculate();
+            error.addPatternError(neuralNet.getOutput(), row.getDesiredOutput());
+        }
+        return error.getTotalError();
+    }
+
+    private static MultiLayerPerceptron createNetwork(int inputsCount, int hiddenCount, int outputsCount) {
+        MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(TransferFunctionType.SIGMOID, inputsCount, hiddenCount, outputsCount);
+        neuralNet.randomizeWeights(new WeightsRandomizer(new Random(1)));
+        return neuralNet;
+    }
+}
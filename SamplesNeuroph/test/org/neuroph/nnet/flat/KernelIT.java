@@ -0,0 +1,100 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.flat;
+
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.random.WeightsRandomizer;
+
+/**
+ * Checks that the unrolled kernel gives the results of the scalar kernel.
+ */
+public class KernelIT {
+
+    public KernelIT() {
+    }
+
+    @Test
+    public void testOperations() {
+        Random random = new Random(1);
+        double[] matrix = randomArray(random, 7 * 13);
+        double[] vector = randomArray(random, 20);
+
+        double[] expected = new double[9];
+        double[] actual = new double[9];
+        Kernel.scalar().matrixVector(matrix, 7, 13, vector, 3, expected, 2);
+        Kernel.unrolled().matrixVector(matrix, 7, 13, vector, 3, actual, 2);
+        assertArrayEquals(expected, actual, 0);
+
+        Kernel.scalar().axpy(0.3, matrix, 5, expected, 1, 7);
+        Kernel.unrolled().axpy(0.3, matrix, 5, actual, 1, 7);
+        assertArrayEquals(expected, actual, 0);
+
+        assertEquals(Kernel.scalar().dot(matrix, 4, vector, 1, 19), Kernel.unrolled().dot(matrix, 4, vector, 1, 19), 1e-12);
+    }
+
+    @Test
+    public void testNetwork() {
+        MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(TransferFunctionType.TANH, 60, 15, 10, 1);
+        neuralNet.randomizeWeights(new WeightsRandomizer(new Random(1)));
+        FlatNetwork scalar = FlatNetwork.compile(neuralNet);
+        scalar.setKernel(Kernel.scalar());
+        FlatNetwork unrolled = FlatNetwork.compile(neuralNet);
+        unrolled.setKernel(Kernel.unrolled());
+
+        double[][] scalarGradients = scalar.newWeightArrays();
+        double[][] unrolledGradients = unrolled.newWeightArrays();
+        FlatNetwork.Batch scalarBatch = scalar.newBatch(5);
+        FlatNetwork.Batch unrolledBatch = unrolled.newBatch(5);
+        Random random = new Random(1);
+        for (int r = 0; r < 5; r++) {
+            double[] input = randomArray(random, 60);
+            scalarBatch.setInput(r, input);
+            unrolledBatch.setInput(r, input);
+        }
+        scalar.forward(scalarBatch, 5);
+        unrolled.forward(unrolledBatch, 5);
+        double[] error = {0.25};
+        for (int r = 0; r < 5; r++) {
+            scalarBatch.setOutputError(r, error);
+            unrolledBatch.setOutputError(r, error);
+        }
+        scalar.backward(scalarBatch, 5, scalarGradients);
+        unrolled.backward(unrolledBatch, 5, unrolledGradients);
+
+        for (int l = 1; l < scalar.getLayersCount(); l++) {
+            assertArrayEquals(scalarGradients[l], unrolledGradients[l], 0);
+        }
+    }
+
+    @Test
+    public void testMissingKernel() {
+        assertSame(Kernel.scalar(), Kernel.forName("org.neuroph.nnet.flat.MissingKernel"));
+        assertSame(Kernel.unrolled(), Kernel.forName("unrolled"));
+        assertEquals("unrolled", Kernel.forName(UnrolledKernel.class.getName()).toString());
+    }
+
+    private static double[] randomArray(Random random, int length) {
+        double[] array = new double[length];
+        for (int i = 0; i < length; i++) {
+            array[i] = random.nextDouble() - 0.5;
+        }
+        return array;
+    }
+}
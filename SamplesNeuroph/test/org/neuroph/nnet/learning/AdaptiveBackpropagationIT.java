@@ -0,0 +1,122 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.neuroph.nnet.learning.LearningTestUtils.*;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.events.LearningEventListener;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.flat.FlatNetwork;
+import org.neuroph.util.io.MappedDataSetLoader;
+
+/**
+ * Checks that Adam, RMSProp and AdaGrad reach the error of mini batch
+ * momentum learning in fewer epochs, and that they keep the events and stop
+ * conditions of the other learning rules.
+ */
+public class AdaptiveBackpropagationIT {
+
+    private static final double MAX_ERROR = 0.03;
+
+    public AdaptiveBackpropagationIT() {
+    }
+
+    @Test
+    public void testFasterThanMomentum() {
+        MiniBatchBackpropagation momentum = new MiniBatchBackpropagation(16);
+        momentum.setLearningRate(0.1);
+        momentum.setMomentum(0.7);
+        int momentumEpochs = learn(momentum, 5000);
+        assertTrue(momentum.getTotalNetworkError() < MAX_ERROR);
+
+        AdamBackpropagation adam = new AdamBackpropagation(16);
+        adam.setLearningRate(0.03);
+        assertFaster(adam, momentumEpochs);
+
+        RmsPropBackpropagation rmsProp = new RmsPropBackpropagation(16);
+        rmsProp.setLearningRate(0.05);
+        assertFaster(rmsProp, momentumEpochs);
+
+        AdaGradBackpropagation adaGrad = new AdaGradBackpropagation(16);
+        adaGrad.setLearningRate(0.5);
+        assertFaster(adaGrad, momentumEpochs);
+    }
+
+    @Test
+    public void testMaxIterations() {
+        AdamBackpropagation adam = new AdamBackpropagation(16);
+        adam.setLearningRate(0.0001);
+        assertEquals(20, learn(adam, 20));
+        assertTrue(adam.getTotalNetworkError() > MAX_ERROR);
+        // averages, square averages and powers, but no previous changes
+        assertNull(adam.getPreviousChanges());
+        assertEquals(3, adam.createCheckpoint().getState().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDecay() {
+        new RmsPropBackpropagation().setDecay(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidEpsilon() {
+        new AdamBackpropagation().setEpsilon(0);
+    }
+
+    private static void assertFaster(MiniBatchBackpropagation learningRule, int epochs) {
+        assertTrue(learn(learningRule, epochs) < epochs);
+        assertTrue(learningRule.getTotalNetworkError() < MAX_ERROR);
+    }
+
+    /**
+     * Learns iris data set and returns number of epochs, checking that an
+     * event was fired for each of them and that weights were copied back.
+     */
+    private static int learn(MiniBatchBackpropagation learningRule, int maxIterations) {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+        MultiLayerPerceptron neuralNet = createNetwork(1, 4, 5, 3);
+
+        learningRule.setMaxError(MAX_ERROR);
+        learningRule.setMaxIterations(maxIterations);
+        final AtomicInteger epochs = new AtomicInteger();
+        final AtomicInteger stops = new AtomicInteger();
+        learningRule.addListener(new LearningEventListener() {
+            @Override
+            public void handleLearningEvent(LearningEvent event) {
+                if (event.getEventType() == LearningEvent.Type.EPOCH_ENDED) {
+                    epochs.incrementAndGet();
+                } else if (event.getEventType() == LearningEvent.Type.LEARNING_STOPPED) {
+                    stops.incrementAndGet();
+                }
+            }
+        });
+        neuralNet.setLearningRule(learningRule);
+        neuralNet.learn(dataSet);
+
+        assertEquals(learningRule.getCurrentIteration(), epochs.get());
+        assertEquals(1, stops.get());
+        FlatNetwork learned = learningRule.getFlatNetwork();
+        FlatNetwork copied = FlatNetwork.compile(neuralNet);
+        for (int l = 1; l < learned.getLayersCount(); l++) {
+            assertArrayEquals(learned.getWeights(l), copied.getWeights(l), 0);
+        }
+        return epochs.get();
+    }
+}
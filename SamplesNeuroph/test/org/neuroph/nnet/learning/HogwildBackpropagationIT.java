@@ -0,0 +1,94 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.io.IOException;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.neuroph.nnet.learning.LearningTestUtils.*;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.IndexedDataSet;
+import org.neuroph.core.data.StreamingDataSet;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.io.MappedDataSetLoader;
+import org.neuroph.util.io.TextFileChunkSource;
+
+/**
+ * Checks that lock free parallel learning trains a network, with and without
+ * bounded staleness.
+ */
+public class HogwildBackpropagationIT {
+
+    public HogwildBackpropagationIT() {
+    }
+
+    @Test
+    public void testUnbounded() {
+        assertLearns(HogwildBackpropagation.UNBOUNDED);
+    }
+
+    @Test
+    public void testBoundedStaleness() {
+        assertLearns(0);
+    }
+
+    @Test
+    public void testMaxIterations() {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+        MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(TransferFunctionType.TANH, 4, 5, 3);
+        HogwildBackpropagation learningRule = new HogwildBackpropagation();
+        learningRule.setThreadsCount(3);
+        learningRule.setMaxError(0);
+        learningRule.setMaxIterations(7);
+        neuralNet.setLearningRule(learningRule);
+        neuralNet.learn(dataSet);
+        assertEquals(7, learningRule.getCurrentIteration());
+    }
+
+    @Test
+    public void testStreamingDataSet() throws IOException {
+        try (StreamingDataSet dataSet = new StreamingDataSet(new TextFileChunkSource("irisdatanormalised.txt", 4, 3, ",", false, 256))) {
+            dataSet.setShuffleChunks(true);
+            assertLearns(dataSet, HogwildBackpropagation.UNBOUNDED);
+        }
+    }
+
+    private static void assertLearns(int maxStaleness) {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+        // partitions get rows of every class
+        IndexedDataSet trainingSet = new IndexedDataSet(dataSet);
+        trainingSet.shuffle(new Random(1));
+        assertLearns(trainingSet, maxStaleness);
+    }
+
+    private static void assertLearns(DataSet trainingSet, int maxStaleness) {
+        MultiLayerPerceptron neuralNet = createNetwork(1, 4, 5, 3);
+        HogwildBackpropagation learningRule = new HogwildBackpropagation();
+        learningRule.setThreadsCount(4);
+        learningRule.setMaxStaleness(maxStaleness);
+        learningRule.setLearningRate(0.1);
+        learningRule.setMomentum(0);
+        learningRule.setMaxError(0.03);
+        learningRule.setMaxIterations(2000);
+        neuralNet.setLearningRule(learningRule);
+        neuralNet.learn(trainingSet);
+
+        assertTrue(learningRule.getCurrentIteration() < 2000);
+        assertTrue(learningRule.getTotalNetworkError() < 0.03);
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.Random;
+import org.neuroph.core.NeuralNetwork;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.learning.error.MeanSquaredError;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.data.norm.MaxNormalizer;
+import org.neuroph.util.io.MappedDataSetLoader;
+import org.neuroph.util.random.WeightsRandomizer;
+
+/**
+ * Networks, data sets and errors shared by the learning rule tests.
+ */
+final class LearningTestUtils {
+
+    private LearningTestUtils() {
+    }
+
+    /**
+     * Creates tanh network with weights randomized from the seed, so that
+     * networks created with the same seed learn the same way.
+     */
+    static MultiLayerPerceptron createNetwork(long seed, int... neuronsInLayers) {
+        MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(TransferFunctionType.TANH, neuronsInLayers);
+        neuralNet.randomizeWeights(new WeightsRandomizer(new Random(seed)));
+        return neuralNet;
+    }
+
+    /**
+     * Loads comma separated data set without column names and normalizes it
+     * with MaxNormalizer.
+     */
+    static DataSet loadNormalized(String filePath, int inputsCount, int outputsCount) {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile(filePath, inputsCount, outputsCount, ",", false);
+        new MaxNormalizer().normalize(dataSet);
+        return dataSet;
+    }
+
+    /**
+     * Returns error of the network on the data set, as reported by
+     * MeanSquaredError.
+     */
+    static double calculateError(NeuralNetwork<?> neuralNet, DataSet dataSet) {
+        MeanSquaredError error = new MeanSquaredError();
+        for (DataSetRow row : dataSet) {
+            neuralNet.setInput(row.getInput());
+            neuralNet.calculate();
+            error.addPatternError(neuralNet.getOutput(), row.getDesiredOutput());
+        }
+        return error.getTotalError();
+    }
+
+    static double[] toArray(Double[] values) {
+        double[] result = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            result[i] = values[i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.neuroph.nnet.learning.LearningTestUtils.*;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.PackedDataSet;
+import org.neuroph.core.data.StreamingDataSet;
+import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.events.LearningEventListener;
+import org.neuroph.nnet.Adaline;
+import org.neuroph.util.io.MappedDataSetLoader;
+import org.neuroph.util.io.TextFileChunkSource;
+
+/**
+ * Checks that least squares learning finds the weights of a linear model in
+ * one epoch, with an error no larger than that of LMS iterations.
+ */
+public class LeastSquaresLearningIT {
+
+    public LeastSquaresLearningIT() {
+    }
+
+    @Test
+    public void testExactSolution() {
+        Random random = new Random(1);
+        PackedDataSet dataSet = new PackedDataSet(2, 1);
+        for (int i = 0; i < 1000; i++) {
+            double x1 = random.nextDouble();
+            double x2 = random.nextDouble();
+            dataSet.addRow(new double[]{x1, x2}, new double[]{2 * x1 - 3 * x2 + 0.5});
+        }
+        Adaline neuralNet = new Adaline(2);
+        LeastSquaresLearning learningRule = new LeastSquaresLearning();
+        final AtomicInteger epochs = new AtomicInteger();
+        learningRule.addListener(new LearningEventListener() {
+            @Override
+            public void handleLearningEvent(LearningEvent event) {
+                if (event.getEventType() == LearningEvent.Type.EPOCH_ENDED) {
+                    epochs.incrementAndGet();
+                }
+            }
+        });
+        neuralNet.setLearningRule(learningRule);
+        neuralNet.learn(dataSet);
+
+        assertEquals(1, epochs.get());
+        assertEquals(1, learningRule.getCurrentIteration());
+        assertEquals(0, learningRule.getTotalNetworkError(), 1e-12);
+        neuralNet.setInput(0.3, 0.7);
+        neuralNet.calculate();
+        assertEquals(2 * 0.3 - 3 * 0.7 + 0.5, neuralNet.getOutput()[0], 1e-9);
+    }
+
+    @Test
+    public void testBetterThanLms() {
+        DataSet dataSet = loadNormalized("autodata.txt", 1, 1);
+
+        Adaline lmsNet = new Adaline(1);
+        LMS lms = new LMS();
+        lms.setMaxIterations(1000);
+        lmsNet.setLearningRule(lms);
+        lmsNet.learn(dataSet);
+
+        Adaline neuralNet = new Adaline(1);
+        LeastSquaresLearning learningRule = new LeastSquaresLearning();
+        neuralNet.setLearningRule(learningRule);
+        neuralNet.learn(dataSet);
+
+        double error = calculateError(neuralNet, dataSet);
+        assertEquals(error, learningRule.getTotalNetworkError(), 1e-9);
+        assertTrue(error <= calculateError(lmsNet, dataSet) + 1e-12);
+    }
+
+    @Test
+    public void testRidgeAndThreads() {
+        DataSet dataSet = loadNormalized("autodata.txt", 1, 1);
+        double[] plain = learnWeights(dataSet, 0, 1);
+        assertArrayEquals(plain, learnWeights(dataSet, 0, 3), 1e-12);
+
+        // ridge shrinks the input weight but not the bias
+        double[] ridge = learnWeights(dataSet, 10, 1);
+        assertTrue(Math.abs(ridge[0]) < Math.abs(plain[0]));
+    }
+
+    @Test
+    public void testStreamingDataSet() throws IOException {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("autodata.txt", 1, 1, ",", false);
+        double[] expected = learnWeights(dataSet, 0, 1);
+        try (StreamingDataSet streaming = new StreamingDataSet(new TextFileChunkSource("autodata.txt", 1, 1, ",", false, 256))) {
+            double[] weights = learnWeights(streaming, 0, 3);
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], weights[i], 1e-9 * Math.max(1, Math.abs(expected[i])));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeRidge() {
+        new LeastSquaresLearning(-1);
+    }
+
+    private static double[] learnWeights(DataSet dataSet, double ridge, int threadsCount) {
+        Adaline neuralNet = new Adaline(1);
+        LeastSquaresLearning learningRule = new LeastSquaresLearning(ridge);
+        learningRule.setThreadsCount(threadsCount);
+        neuralNet.setLearningRule(learningRule);
+        neuralNet.learn(dataSet);
+        Double[] weights = neuralNet.getWeights();
+        return new double[]{weights[0], weights[1]};
+    }
+}
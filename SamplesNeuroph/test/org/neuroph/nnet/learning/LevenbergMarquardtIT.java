@@ -0,0 +1,97 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.neuroph.nnet.learning.LearningTestUtils.*;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.events.LearningEventListener;
+import org.neuroph.nnet.MultiLayerPerceptron;
+
+/**
+ * Checks that Levenberg-Marquardt learning reaches a low error of a small
+ * regression network in far fewer epochs than momentum backpropagation.
+ */
+public class LevenbergMarquardtIT {
+
+    private static final double MAX_ERROR = 0.0025;
+
+    public LevenbergMarquardtIT() {
+    }
+
+    @Test
+    public void testFasterThanMomentum() {
+        DataSet dataSet = loadNormalized("bostonhouse.txt", 13, 1);
+
+        MultiLayerPerceptron neuralNet = createNetwork(1, 13, 2, 2, 1);
+        LevenbergMarquardt learningRule = new LevenbergMarquardt();
+        learningRule.setMaxError(MAX_ERROR);
+        learningRule.setMaxIterations(1000);
+        final AtomicInteger epochs = new AtomicInteger();
+        learningRule.addListener(new LearningEventListener() {
+            @Override
+            public void handleLearningEvent(LearningEvent event) {
+                if (event.getEventType() == LearningEvent.Type.EPOCH_ENDED) {
+                    epochs.incrementAndGet();
+                }
+            }
+        });
+        neuralNet.setLearningRule(learningRule);
+        neuralNet.learn(dataSet);
+
+        assertEquals(learningRule.getCurrentIteration(), epochs.get());
+        assertTrue(learningRule.getCurrentIteration() < 50);
+        assertTrue(learningRule.getTotalNetworkError() < MAX_ERROR);
+        // total error is the error of the learned weights
+        assertEquals(calculateError(neuralNet, dataSet), learningRule.getTotalNetworkError(), 1e-12);
+
+        MultiLayerPerceptron momentumNet = createNetwork(1, 13, 2, 2, 1);
+        MomentumBackpropagation momentum = new MomentumBackpropagation();
+        momentum.setLearningRate(0.1);
+        momentum.setMaxError(MAX_ERROR);
+        momentum.setMaxIterations(1000);
+        momentumNet.setLearningRule(momentum);
+        momentumNet.learn(dataSet);
+
+        assertTrue(momentum.getCurrentIteration() > 4 * learningRule.getCurrentIteration());
+    }
+
+    @Test
+    public void testThreadsCount() {
+        DataSet dataSet = loadNormalized("bostonhouse.txt", 13, 1);
+        double[] errors = new double[2];
+        int[] threadsCounts = {1, 3};
+        for (int i = 0; i < threadsCounts.length; i++) {
+            MultiLayerPerceptron neuralNet = createNetwork(1, 13, 2, 2, 1);
+            LevenbergMarquardt learningRule = new LevenbergMarquardt();
+            learningRule.setThreadsCount(threadsCounts[i]);
+            learningRule.setMaxIterations(5);
+            neuralNet.setLearningRule(learningRule);
+            neuralNet.learn(dataSet);
+            errors[i] = learningRule.getTotalNetworkError();
+        }
+        // only the order of the sums differs
+        assertEquals(errors[0], errors[1], errors[0] * 1e-6);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidDampingFactor() {
+        new LevenbergMarquardt().setDampingFactor(1);
+    }
+}
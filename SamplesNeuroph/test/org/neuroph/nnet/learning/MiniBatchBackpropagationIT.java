@@ -0,0 +1,95 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.neuroph.nnet.learning.LearningTestUtils.*;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.events.LearningEventListener;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.nnet.flat.FlatNetwork;
+import org.neuroph.util.io.MappedDataSetLoader;
+
+/**
+ * Checks that mini batch learning matches online learning for batches of one
+ * pattern and that it trains a network with larger batches.
+ */
+public class MiniBatchBackpropagationIT {
+
+    public MiniBatchBackpropagationIT() {
+    }
+
+    @Test
+    public void testSameAsOnline() {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+        MultiLayerPerceptron online = createNetwork(1, 4, 5, 3);
+        MultiLayerPerceptron miniBatch = createNetwork(1, 4, 5, 3);
+
+        MomentumBackpropagation onlineRule = new MomentumBackpropagation();
+        onlineRule.setMomentum(0);
+        onlineRule.setLearningRate(0.2);
+        onlineRule.setMaxIterations(5);
+        online.setLearningRule(onlineRule);
+        online.learn(dataSet);
+
+        MiniBatchBackpropagation miniBatchRule = new MiniBatchBackpropagation(1);
+        miniBatchRule.setMomentum(0);
+        miniBatchRule.setLearningRate(0.2);
+        miniBatchRule.setMaxIterations(5);
+        miniBatch.setLearningRule(miniBatchRule);
+        miniBatch.learn(dataSet);
+
+        assertArrayEquals(toArray(online.getWeights()), toArray(miniBatch.getWeights()), 1e-12);
+        assertEquals(onlineRule.getTotalNetworkError(), miniBatchRule.getTotalNetworkError(), 1e-12);
+    }
+
+    @Test
+    public void testMiniBatch() {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+        MultiLayerPerceptron neuralNet = createNetwork(1, 4, 5, 3);
+
+        MiniBatchBackpropagation learningRule = new MiniBatchBackpropagation(16);
+        learningRule.setLearningRate(0.1);
+        learningRule.setMomentum(0.7);
+        learningRule.setMaxError(0.03);
+        learningRule.setMaxIterations(2000);
+        final AtomicInteger epochs = new AtomicInteger();
+        learningRule.addListener(new LearningEventListener() {
+            @Override
+            public void handleLearningEvent(LearningEvent event) {
+                if (event.getEventType() == LearningEvent.Type.EPOCH_ENDED) {
+                    epochs.incrementAndGet();
+                }
+            }
+        });
+        neuralNet.setLearningRule(learningRule);
+        neuralNet.learn(dataSet);
+
+        assertEquals(learningRule.getCurrentIteration(), epochs.get());
+        assertTrue(learningRule.getCurrentIteration() < 2000);
+        assertTrue(learningRule.getTotalNetworkError() < 0.03);
+
+        // weights were copied back to the network
+        FlatNetwork learned = learningRule.getFlatNetwork();
+        FlatNetwork copied = FlatNetwork.compile(neuralNet);
+        for (int l = 1; l < learned.getLayersCount(); l++) {
+            assertArrayEquals(learned.getWeights(l), copied.getWeights(l), 0);
+        }
+    }
+}
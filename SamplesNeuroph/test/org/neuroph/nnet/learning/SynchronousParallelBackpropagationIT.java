@@ -0,0 +1,92 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.neuroph.nnet.learning.LearningTestUtils.*;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.IndexedDataSet;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.io.MappedDataSetLoader;
+import org.neuroph.util.random.WeightsRandomizer;
+
+/**
+ * Checks that synchronous parallel learning gives the same network whatever
+ * the number of threads.
+ */
+public class SynchronousParallelBackpropagationIT {
+
+    public SynchronousParallelBackpropagationIT() {
+    }
+
+    @Test
+    public void testRepeatable() throws IOException {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+        IndexedDataSet trainingSet = new IndexedDataSet(dataSet);
+        trainingSet.shuffle(new Random(1));
+
+        MultiLayerPerceptron expected = learn(trainingSet, 3);
+        assertArrayEquals(save(expected), save(learn(trainingSet, 3)));
+        assertArrayEquals(expected.getWeights(), learn(trainingSet, 1).getWeights());
+        assertArrayEquals(expected.getWeights(), learn(trainingSet, 8).getWeights());
+    }
+
+    @Test
+    public void testLearns() {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+        MultiLayerPerceptron neuralNet = createNetwork(1, 4, 5, 3);
+        SynchronousParallelBackpropagation learningRule = new SynchronousParallelBackpropagation(16);
+        learningRule.setThreadsCount(4);
+        learningRule.setLearningRate(0.1);
+        learningRule.setMomentum(0.7);
+        learningRule.setMaxError(0.03);
+        learningRule.setMaxIterations(2000);
+        neuralNet.setLearningRule(learningRule);
+        neuralNet.learn(dataSet);
+
+        assertTrue(learningRule.getCurrentIteration() < 2000);
+        assertTrue(learningRule.getTotalNetworkError() < 0.03);
+    }
+
+    private static MultiLayerPerceptron learn(DataSet trainingSet, int threadsCount) {
+        MultiLayerPerceptron neuralNet = new MultiLayerPerceptron(TransferFunctionType.SIGMOID, 4, 7, 3);
+        neuralNet.randomizeWeights(new WeightsRandomizer(new Random(42)));
+        SynchronousParallelBackpropagation learningRule = new SynchronousParallelBackpropagation(32);
+        learningRule.setThreadsCount(threadsCount);
+        learningRule.setShardsCount(5);
+        learningRule.setLearningRate(0.5);
+        learningRule.setMaxIterations(50);
+        neuralNet.setLearningRule(learningRule);
+        neuralNet.learn(trainingSet);
+        return neuralNet;
+    }
+
+    private static byte[] save(MultiLayerPerceptron neuralNet) throws IOException {
+        File file = File.createTempFile("synchronous", ".nnet");
+        try {
+            neuralNet.save(file.getPath());
+            return Files.readAllBytes(file.toPath());
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.nnet.learning;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import static org.neuroph.nnet.learning.LearningTestUtils.*;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.events.LearningEvent;
+import org.neuroph.core.events.LearningEventListener;
+import org.neuroph.core.exceptions.NeurophException;
+import org.neuroph.nnet.MultiLayerPerceptron;
+import org.neuroph.util.io.MappedDataSetLoader;
+
+/**
+ * Checks that learning resumed from a checkpoint ends with the same weights
+ * as learning that was not interrupted.
+ */
+public class TrainingCheckpointIT {
+
+    public TrainingCheckpointIT() {
+    }
+
+    @Test
+    public void testResumeMomentum() throws Exception {
+        assertResumed(new RuleFactory() {
+            @Override
+            public MiniBatchBackpropagation create() {
+                MiniBatchBackpropagation learningRule = new MiniBatchBackpropagation(16);
+                learningRule.setLearningRate(0.1);
+                learningRule.setMomentum(0.7);
+                return learningRule;
+            }
+        });
+    }
+
+    @Test
+    public void testResumeAdam() throws Exception {
+        assertResumed(new RuleFactory() {
+            @Override
+            public MiniBatchBackpropagation create() {
+                AdamBackpropagation learningRule = new AdamBackpropagation(16);
+                learningRule.setLearningRate(0.01);
+                return learningRule;
+            }
+        });
+    }
+
+    @Test
+    public void testResumeFloat() throws Exception {
+        assertResumed(new RuleFactory() {
+            @Override
+            public MiniBatchBackpropagation create() {
+                FloatMiniBatchBackpropagation learningRule = new FloatMiniBatchBackpropagation(16);
+                learningRule.setMomentum(0.7);
+                return learningRule;
+            }
+        });
+    }
+
+    @Test
+    public void testRandomState() throws IOException {
+        Random random = new Random(7);
+        random.nextDouble();
+        TrainingCheckpoint checkpoint = new TrainingCheckpoint(3, new double[]{1, 2}, Collections.<double[]>emptyList(), random);
+        File file = File.createTempFile("checkpoint", ".bin");
+        try {
+            checkpoint.write(file);
+            TrainingCheckpoint read = TrainingCheckpoint.read(file);
+            assertEquals(3, read.getIteration());
+            assertArrayEquals(new double[]{1, 2}, read.getWeights(), 0);
+            assertEquals(random.nextLong(), read.getRandom().nextLong());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test(expected = NeurophException.class)
+    public void testNotCheckpoint() throws IOException {
+        File file = File.createTempFile("checkpoint", ".bin");
+        try {
+            Files.write(file.toPath(), new byte[]{1, 2, 3});
+            TrainingCheckpoint.read(file);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private interface RuleFactory {
+
+        MiniBatchBackpropagation create();
+    }
+
+    /**
+     * Learns 20 epochs at once, and 10 epochs with checkpoints followed by 10
+     * epochs resumed from the last checkpoint.
+     */
+    private static void assertResumed(RuleFactory factory) throws Exception {
+        DataSet dataSet = MappedDataSetLoader.createPackedFromFile("irisdatanormalised.txt", 4, 3, ",", false);
+
+        MultiLayerPerceptron uninterrupted = createNetwork(1, 4, 5, 3);
+        MiniBatchBackpropagation learningRule = factory.create();
+        learningRule.setMaxIterations(20);
+        uninterrupted.setLearningRule(learningRule);
+        uninterrupted.learn(dataSet);
+
+        File file = File.createTempFile("checkpoint", ".bin");
+        try {
+            MultiLayerPerceptron first = createNetwork(1, 4, 5, 3);
+            MiniBatchBackpropagation firstRule = factory.create();
+            firstRule.setMaxIterations(10);
+            CheckpointWriter writer = new CheckpointWriter(file, 4);
+            firstRule.addListener(writer);
+            first.setLearningRule(firstRule);
+            first.learn(dataSet);
+            writer.close();
+
+            // other initial weights are replaced by the checkpoint
+            MultiLayerPerceptron resumed = createNetwork(2, 4, 5, 3);
+            MiniBatchBackpropagation resumedRule = factory.create();
+            resumedRule.setMaxIterations(20);
+            final AtomicInteger epochs = new AtomicInteger();
+            resumedRule.addListener(new LearningEventListener() {
+                @Override
+                public void handleLearningEvent(LearningEvent event) {
+                    if (event.getEventType() == LearningEvent.Type.EPOCH_ENDED) {
+                        epochs.incrementAndGet();
+                    }
+                }
+            });
+            TrainingCheckpoint checkpoint = TrainingCheckpoint.read(file);
+            assertEquals(10, checkpoint.getIteration());
+            resumedRule.resume(checkpoint);
+            resumed.setLearningRule(resumedRule);
+            resumed.learn(dataSet);
+
+            assertEquals(10, epochs.get());
+            assertEquals(20, resumedRule.getCurrentIteration());
+            assertArrayEquals(toArray(uninterrupted.getWeights()), toArray(resumed.getWeights()), 0);
+            assertFalse(new File(file.getPath() + ".tmp").exists());
+        } finally {
+            file.delete();
+        }
+    }
+}
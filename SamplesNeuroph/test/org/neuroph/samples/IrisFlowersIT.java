@@ -24,11 +24,13 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 import org.neuroph.core.NeuralNetwork;
 import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.IndexedDataSet;
 import org.neuroph.core.events.LearningEvent;
 import org.neuroph.nnet.MultiLayerPerceptron;
 import org.neuroph.nnet.learning.MomentumBackpropagation;
 import static org.neuroph.samples.BanknoteIT.trainingSet;
 import org.neuroph.util.TransferFunctionType;
+import org.neuroph.util.io.CachedDataSetLoader;
 
 /**
  *
@@ -49,10 +51,8 @@ public class IrisFlowersIT {
         int outputsCount = 3;
 
         // create training set from file
-        DataSet dataSet = DataSet.createFromFile(trainingSetFileName, inputsCount, outputsCount, ",");
-        dataSet.shuffle();
-
-        List<DataSet> subSets = dataSet.split(60, 40);
+        DataSet dataSet = CachedDataSetLoader.createPackedFromFile(trainingSetFileName, inputsCount, outputsCount, ",", false);
+        List<DataSet> subSets = new IndexedDataSet(dataSet).split(60, 40);
         trainingSet = subSets.get(0);
         testSet = subSets.get(1);
     }
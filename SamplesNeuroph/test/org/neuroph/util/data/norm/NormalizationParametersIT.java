@@ -0,0 +1,84 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.data.norm;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.PackedDataSet;
+import org.neuroph.util.io.MappedDataSetLoader;
+
+/**
+ * Checks that saved normalization parameters scale new data the same way as
+ * the data they were fitted to.
+ */
+public class NormalizationParametersIT {
+
+    public NormalizationParametersIT() {
+    }
+
+    @Test
+    public void testSaveAndNormalizeInput() throws IOException {
+        PackedDataSet raw = MappedDataSetLoader.createPackedFromFile("bostonhouse.txt", 13, 1, ",", false);
+        PackedDataSet normalized = raw.copy();
+        StatisticsNormalizer normalizer = new StatisticsNormalizer(StatisticsNormalizer.Method.MAX_MIN);
+        assertNull(normalizer.getParameters());
+        normalizer.normalize(normalized);
+
+        File file = File.createTempFile("boston", ".norm");
+        try {
+            normalizer.getParameters().save(file.getPath());
+            NormalizationParameters parameters = NormalizationParameters.load(file.getPath());
+            assertEquals(13, parameters.getInputSize());
+            assertEquals(1, parameters.getOutputSize());
+
+            double[] input = new double[13];
+            for (int i = 0; i < raw.size(); i++) {
+                raw.copyInput(i, input);
+                parameters.normalizeInput(input);
+                assertArrayEquals("row " + i, normalized.getRowAt(i).getInput(), input, 0);
+
+                double output = normalized.getRowAt(i).getDesiredOutput()[0];
+                assertEquals(raw.getRowAt(i).getDesiredOutput()[0], parameters.denormalizeOutput(0, output), 1e-12);
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testNormalizeDataSet() {
+        PackedDataSet training = MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true);
+        DataSet rows = MappedDataSetLoader.createFromFile("wine.txt", 11, 10, "\t", true);
+        DataSet inputs = new DataSet(11);
+        for (DataSetRow row : rows) {
+            inputs.addRow(row.getInput().clone());
+        }
+
+        StatisticsNormalizer normalizer = new StatisticsNormalizer(StatisticsNormalizer.Method.MAX);
+        normalizer.normalize(training);
+        normalizer.getParameters().normalize(rows);
+        normalizer.getParameters().normalize(inputs);
+
+        for (int i = 0; i < training.size(); i++) {
+            assertArrayEquals("row " + i, training.getRowAt(i).toArray(), rows.getRowAt(i).toArray(), 0);
+            assertArrayEquals("row " + i, training.getRowAt(i).getInput(), inputs.getRowAt(i).getInput(), 0);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.data.norm;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.core.data.ClassIndexDataSet;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.IndexedDataSet;
+import org.neuroph.core.data.PackedDataSet;
+import org.neuroph.util.io.MappedDataSetLoader;
+
+/**
+ * Checks that parallel normalizer gives the same results as the sequential
+ * statistics normalizer and the core normalizers, on a data set large enough
+ * to be split into many blocks.
+ */
+public class ParallelNormalizerIT {
+
+    private static final int COPIES = 3;
+
+    private static ForkJoinPool pool;
+
+    public ParallelNormalizerIT() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testStatistics() {
+        PackedDataSet dataSet = loadWine();
+        assertTrue(dataSet.size() > 8 * ParallelNormalizer.MIN_BLOCK_ROWS);
+
+        ColumnStatistics expected = ColumnStatistics.of(dataSet);
+        ColumnStatistics statistics = new ParallelNormalizer(null, StatisticsNormalizer.Method.MAX, pool).collectStatistics(dataSet);
+        assertEquals(expected.getCount(), statistics.getCount());
+        for (int c = 0; c < expected.getColumnsCount(); c++) {
+            assertEquals(expected.getMin(c), statistics.getMin(c), 0);
+            assertEquals(expected.getMax(c), statistics.getMax(c), 0);
+            assertEquals(expected.getMean(c), statistics.getMean(c), 1e-9 * Math.max(1, Math.abs(expected.getMean(c))));
+            assertEquals(expected.getVariance(c), statistics.getVariance(c), 1e-9 * Math.max(1, expected.getVariance(c)));
+        }
+    }
+
+    @Test
+    public void testSameAsCoreNormalizers() {
+        assertSameAsCore(new MaxNormalizer(), StatisticsNormalizer.Method.MAX, 0);
+        assertSameAsCore(new MaxMinNormalizer(), StatisticsNormalizer.Method.MAX_MIN, 0);
+        assertSameAsCore(new DecimalScaleNormalizer(), StatisticsNormalizer.Method.DECIMAL_SCALE, 0);
+        assertSameAsCore(new ZeroMeanNormalizer(), StatisticsNormalizer.Method.ZERO_MEAN, 1e-12);
+    }
+
+    @Test
+    public void testSameAsSequential() {
+        for (StatisticsNormalizer.Method method : StatisticsNormalizer.Method.values()) {
+            PackedDataSet expected = loadWine();
+            new StatisticsNormalizer(method).normalize(expected);
+
+            PackedDataSet packed = loadWine();
+            new ParallelNormalizer(null, method, pool).normalize(packed);
+            // merged statistics may differ from sequential ones in the last bits
+            for (int i = 0; i < expected.getData().length; i++) {
+                double value = expected.getData()[i];
+                assertEquals(method + " value " + i, value, packed.getData()[i], 1e-12 * Math.max(1, Math.abs(value)));
+            }
+        }
+    }
+
+    private static void assertSameAsCore(Normalizer core, StatisticsNormalizer.Method method, double delta) {
+        PackedDataSet packed = loadWine();
+        DataSet expected = new DataSet(11, 10);
+        DataSet rows = new DataSet(11, 10);
+        for (DataSetRow row : packed) {
+            expected.addRow(row.getInput().clone(), row.getDesiredOutput().clone());
+            rows.addRow(row.getInput().clone(), row.getDesiredOutput().clone());
+        }
+        ClassIndexDataSet compact = ClassIndexDataSet.from(packed);
+        IndexedDataSet view = new IndexedDataSet(ClassIndexDataSet.from(packed));
+        core.normalize(expected);
+
+        ColumnStatistics statistics = ColumnStatistics.of(packed);
+        new ParallelNormalizer(statistics, method, pool).normalize(packed);
+        new ParallelNormalizer(null, method, pool).normalize(rows);
+        new ParallelNormalizer(null, method, pool).normalize(compact);
+        new ParallelNormalizer(null, method, pool).normalize(view);
+
+        for (int i = 0; i < expected.size(); i++) {
+            DataSetRow row = expected.getRowAt(i);
+            String message = method + " row " + i;
+            assertArrayEquals(message, row.toArray(), packed.getRowAt(i).toArray(), delta);
+            assertArrayEquals(message, row.toArray(), rows.getRowAt(i).toArray(), delta);
+            assertArrayEquals(message, row.toArray(), compact.getRowAt(i).toArray(), delta);
+            assertArrayEquals(message, row.toArray(), view.getRowAt(i).toArray(), delta);
+        }
+    }
+
+    /**
+     * Loads wine data set repeated a few times.
+     */
+    private static PackedDataSet loadWine() {
+        PackedDataSet wine = MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true);
+        PackedDataSet dataSet = new PackedDataSet(11, 10);
+        double[] values = new double[wine.getStride()];
+        for (int k = 0; k < COPIES; k++) {
+            for (int i = 0; i < wine.size(); i++) {
+                System.arraycopy(wine.getData(), i * wine.getStride(), values, 0, values.length);
+                dataSet.appendRow(values);
+            }
+        }
+        return dataSet;
+    }
+}
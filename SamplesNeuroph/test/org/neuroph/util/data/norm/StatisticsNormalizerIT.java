@@ -0,0 +1,129 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.data.norm;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.core.data.ClassIndexDataSet;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.DataSetRow;
+import org.neuroph.core.data.PackedDataSet;
+import org.neuroph.util.io.CachedDataSetLoader;
+import org.neuroph.util.io.MappedDataSetLoader;
+
+/**
+ * Checks that statistics collected while loading match the data, and that
+ * statistics normalizer gives the same results as the core normalizers.
+ */
+public class StatisticsNormalizerIT {
+
+    public StatisticsNormalizerIT() {
+    }
+
+    @Test
+    public void testStatisticsWhileLoading() throws IOException {
+        ColumnStatistics parsed = new ColumnStatistics(21);
+        PackedDataSet dataSet = MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true, parsed);
+        assertStatisticsOf(dataSet, parsed);
+
+        Files.deleteIfExists(CachedDataSetLoader.getCacheFile("wine.txt"));
+        ColumnStatistics built = new ColumnStatistics(21);
+        CachedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true, built);
+        assertStatisticsOf(dataSet, built);
+
+        ColumnStatistics cached = new ColumnStatistics(21);
+        CachedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true, cached);
+        assertStatisticsOf(dataSet, cached);
+    }
+
+    @Test
+    public void testMerge() {
+        PackedDataSet dataSet = MappedDataSetLoader.createPackedFromFile("bostonhouse.txt", 13, 1, ",", false);
+        ColumnStatistics first = ColumnStatistics.of(dataSet.subSet(0, 100));
+        first.merge(ColumnStatistics.of(dataSet.subSet(100, dataSet.size() - 100)));
+        assertStatisticsOf(dataSet, first);
+    }
+
+    @Test
+    public void testSameAsCoreNormalizers() {
+        assertSameAsCore(new MaxNormalizer(), StatisticsNormalizer.Method.MAX, 0);
+        assertSameAsCore(new MaxMinNormalizer(), StatisticsNormalizer.Method.MAX_MIN, 0);
+        assertSameAsCore(new DecimalScaleNormalizer(), StatisticsNormalizer.Method.DECIMAL_SCALE, 0);
+        assertSameAsCore(new ZeroMeanNormalizer(), StatisticsNormalizer.Method.ZERO_MEAN, 1e-12);
+    }
+
+    @Test
+    public void testStandard() {
+        PackedDataSet dataSet = MappedDataSetLoader.createPackedFromFile("bostonhouse.txt", 13, 1, ",", false);
+        new StatisticsNormalizer(StatisticsNormalizer.Method.STANDARD).normalize(dataSet);
+
+        ColumnStatistics statistics = ColumnStatistics.of(dataSet);
+        for (int c = 0; c < 13; c++) {
+            assertEquals(0, statistics.getMean(c), 1e-9);
+            assertEquals(1, statistics.getVariance(c), 1e-9);
+        }
+    }
+
+    private static void assertSameAsCore(Normalizer core, StatisticsNormalizer.Method method, double delta) {
+        DataSet expected = MappedDataSetLoader.createFromFile("wine.txt", 11, 10, "\t", true);
+        core.normalize(expected);
+
+        ColumnStatistics statistics = new ColumnStatistics(21);
+        PackedDataSet packed = MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true, statistics);
+        DataSet rows = MappedDataSetLoader.createFromFile("wine.txt", 11, 10, "\t", true);
+        ClassIndexDataSet compact = ClassIndexDataSet.from(packed);
+
+        new StatisticsNormalizer(statistics, method).normalize(packed);
+        new StatisticsNormalizer(method).normalize(rows);
+        new StatisticsNormalizer(statistics, method).normalize(compact);
+
+        for (int i = 0; i < expected.size(); i++) {
+            DataSetRow row = expected.getRowAt(i);
+            String message = method + " row " + i;
+            assertArrayEquals(message, row.toArray(), packed.getRowAt(i).toArray(), delta);
+            assertArrayEquals(message, row.toArray(), rows.getRowAt(i).toArray(), delta);
+            assertArrayEquals(message, row.toArray(), compact.getRowAt(i).toArray(), delta);
+        }
+    }
+
+    private static void assertStatisticsOf(DataSet dataSet, ColumnStatistics statistics) {
+        int columns = dataSet.getInputSize() + dataSet.getOutputSize();
+        assertEquals(dataSet.size(), statistics.getCount());
+        for (int c = 0; c < columns; c++) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            double sum = 0;
+            for (DataSetRow row : dataSet) {
+                double value = row.toArray()[c];
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+                sum += value;
+            }
+            double mean = sum / dataSet.size();
+            double squares = 0;
+            for (DataSetRow row : dataSet) {
+                double delta = row.toArray()[c] - mean;
+                squares += delta * delta;
+            }
+            assertEquals(min, statistics.getMin(c), 0);
+            assertEquals(max, statistics.getMax(c), 0);
+            assertEquals(mean, statistics.getMean(c), 1e-9 * Math.max(1, Math.abs(mean)));
+            assertEquals(squares / dataSet.size(), statistics.getVariance(c), 1e-9 * Math.max(1, squares / dataSet.size()));
+        }
+    }
+}
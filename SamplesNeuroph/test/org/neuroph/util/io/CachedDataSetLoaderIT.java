@@ -0,0 +1,97 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.io;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.core.data.DataSet;
+
+/**
+ * Checks creation, reuse and invalidation of binary data set caches.
+ */
+public class CachedDataSetLoaderIT {
+
+    private Path directory;
+    private Path dataFile;
+
+    public CachedDataSetLoaderIT() {
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("neuroph-cache");
+        dataFile = directory.resolve("wine.txt");
+        Files.copy(Paths.get("wine.txt"), dataFile);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(CachedDataSetLoader.getCacheFile(dataFile.toString()));
+        Files.deleteIfExists(dataFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void testCacheIsCreatedAndReused() throws IOException {
+        Path cacheFile = CachedDataSetLoader.getCacheFile(dataFile.toString());
+        DataSet parsed = CachedDataSetLoader.createFromFile(dataFile.toString(), 11, 10, "\t", true);
+        assertTrue(Files.exists(cacheFile));
+
+        FileTime created = Files.getLastModifiedTime(cacheFile);
+        DataSet cached = CachedDataSetLoader.createFromFile(dataFile.toString(), 11, 10, "\t", true);
+        assertEquals(created, Files.getLastModifiedTime(cacheFile));
+
+        assertSameRows(parsed, cached);
+        assertArrayEquals(parsed.getColumnNames(), cached.getColumnNames());
+        assertEquals(dataFile.toString(), cached.getFilePath());
+    }
+
+    @Test
+    public void testCacheIsRebuiltWhenSourceChanges() throws IOException {
+        DataSet original = CachedDataSetLoader.createFromFile(dataFile.toString(), 11, 10, "\t", true);
+
+        Files.write(dataFile, "7\t0.27\t0.36\t20.7\t0.045\t45\t170\t1.001\t3\t0.45\t8.8\t6\t0\t0\t0\t0\t1\t0\t0\t0\t0\n".getBytes("US-ASCII"), StandardOpenOption.APPEND);
+        DataSet changed = CachedDataSetLoader.createFromFile(dataFile.toString(), 11, 10, "\t", true);
+        assertEquals(original.size() + 1, changed.size());
+
+        assertSameRows(MappedDataSetLoader.createFromFile(dataFile.toString(), 11, 10, "\t", true), changed);
+    }
+
+    @Test
+    public void testCacheIsRebuiltForOtherParameters() {
+        CachedDataSetLoader.createFromFile(dataFile.toString(), 11, 10, "\t", true);
+        DataSet dataSet = CachedDataSetLoader.createFromFile(dataFile.toString(), 12, 9, "\t", true);
+        assertEquals(12, dataSet.getInputSize());
+        assertEquals(9, dataSet.getOutputSize());
+        assertEquals(6.0, dataSet.getRowAt(0).getInput()[11], 0);
+    }
+
+    private static void assertSameRows(DataSet expected, DataSet actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.getRowAt(i).getInput(), actual.getRowAt(i).getInput(), 0);
+            assertArrayEquals(expected.getRowAt(i).getDesiredOutput(), actual.getRowAt(i).getDesiredOutput(), 0);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.core.data.DataSet;
+
+/**
+ * Checks that the mapped loader gives exactly the same data sets as
+ * DataSet.createFromFile for the bundled data files.
+ */
+public class MappedDataSetLoaderIT {
+
+    public MappedDataSetLoaderIT() {
+    }
+
+    @Test
+    public void testTabDelimitedWithHeader() {
+        assertSameAsCreateFromFile("wine.txt", 11, 10, "\t", true);
+        assertSameAsCreateFromFile("abalonerings.txt", 8, 29, "\t", true);
+    }
+
+    @Test
+    public void testCommaDelimitedWithoutHeader() {
+        assertSameAsCreateFromFile("sonardata.txt", 60, 1, ",", false);
+        assertSameAsCreateFromFile("ionospheredata.txt", 34, 1, ",", false);
+        assertSameAsCreateFromFile("bostonhouse.txt", 13, 1, ",", false);
+        assertSameAsCreateFromFile("autodata.txt", 1, 1, ",", false);
+    }
+
+    @Test
+    public void testParseDouble() {
+        String[] numbers = {"0", "-0", "7", "0.27", "1.001", "-12.5e3", "3E-5", " 42 ", "1.", ".5",
+            "0.1234567890123456789", "1e300", "NaN", "-Infinity", "4.9e-324"};
+        for (String number : numbers) {
+            ByteBuffer buffer = ByteBuffer.wrap(number.getBytes(StandardCharsets.US_ASCII));
+            double expected = Double.parseDouble(number);
+            double actual = DelimitedRowParser.parseDouble(buffer, 0, buffer.limit());
+            assertEquals(number, Double.doubleToRawLongBits(expected), Double.doubleToRawLongBits(actual));
+        }
+    }
+
+    private static void assertSameAsCreateFromFile(String fileName, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames) {
+        DataSet expected = DataSet.createFromFile(fileName, inputsCount, outputsCount, delimiter, loadColumnNames);
+        DataSet actual = MappedDataSetLoader.createFromFile(fileName, inputsCount, outputsCount, delimiter, loadColumnNames);
+
+        assertEquals(expected.size(), actual.size());
+        assertArrayEquals(expected.getColumnNames(), actual.getColumnNames());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.getRowAt(i).getInput(), actual.getRowAt(i).getInput(), 0);
+            assertArrayEquals(expected.getRowAt(i).getDesiredOutput(), actual.getRowAt(i).getDesiredOutput(), 0);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2013 Neuroph Project http://neuroph.sourceforge.net
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package org.neuroph.util.io;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import org.neuroph.core.data.DataSet;
+import org.neuroph.core.data.PackedDataSet;
+import org.neuroph.util.data.norm.ColumnStatistics;
+
+/**
+ * Checks that parsing byte ranges in parallel gives the same rows in the same
+ * order as the mapped loader.
+ */
+public class ParallelDataSetLoaderIT {
+
+    static ForkJoinPool pool;
+
+    public ParallelDataSetLoaderIT() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testSmallRanges() {
+        assertSameAsMapped("wine.txt", 11, 10, "\t", true, 1000);
+        assertSameAsMapped("abalonerings.txt", 8, 29, "\t", true, 4096);
+        assertSameAsMapped("sonardata.txt", 60, 1, ",", false, 777);
+        assertSameAsMapped("autodata.txt", 1, 1, ",", false, 1);
+    }
+
+    @Test
+    public void testWindowsLineEnds() throws IOException {
+        Path file = Files.createTempFile("crlf", ".txt");
+        try {
+            String text = new String(Files.readAllBytes(Paths.get("bostonhouse.txt")), StandardCharsets.US_ASCII);
+            Files.write(file, text.replace("\r\n", "\n").replace("\n", "\r\n").getBytes(StandardCharsets.US_ASCII));
+            for (int rangeSize = 1; rangeSize < 200; rangeSize += 7) {
+                assertSameAsMapped(file.toString(), 13, 1, ",", false, rangeSize);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testStatistics() {
+        ColumnStatistics expected = new ColumnStatistics(21);
+        MappedDataSetLoader.createPackedFromFile("wine.txt", 11, 10, "\t", true, expected);
+        ColumnStatistics actual = new ColumnStatistics(21);
+        ParallelDataSetLoader.load("wine.txt", 11, 10, "\t", true, pool, 4096, true, actual);
+
+        assertEquals(expected.getCount(), actual.getCount());
+        for (int c = 0; c < 21; c++) {
+            assertEquals(expected.getMin(c), actual.getMin(c), 0);
+            assertEquals(expected.getMax(c), actual.getMax(c), 0);
+            assertEquals(expected.getMean(c), actual.getMean(c), 1e-9);
+            assertEquals(expected.getVariance(c), actual.getVariance(c), 1e-9);
+        }
+    }
+
+    @Test
+    public void testSmallFileFallback() {
+        DataSet expected = MappedDataSetLoader.createFromFile("sonardata.txt", 60, 1, ",", false);
+        DataSet actual = ParallelDataSetLoader.createFromFile("sonardata.txt", 60, 1, ",", false, pool);
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    private static void assertSameAsMapped(String fileName, int inputsCount, int outputsCount, String delimiter, boolean loadColumnNames, int rangeSize) {
+        DataSet expected = MappedDataSetLoader.createFromFile(fileName, inputsCount, outputsCount, delimiter, loadColumnNames);
+
+        DataSet rows = ParallelDataSetLoader.load(fileName, inputsCount, outputsCount, delimiter, loadColumnNames, pool, rangeSize, false, null);
+        PackedDataSet packed = (PackedDataSet) ParallelDataSetLoader.load(fileName, inputsCount, outputsCount, delimiter, loadColumnNames, pool, rangeSize, true, null);
+
+        assertEquals(fileName, expected.size(), rows.size());
+        assertEquals(fileName, expected.size(), packed.size());
+        assertArrayEquals(expected.getColumnNames(), rows.getColumnNames());
+        assertArrayEquals(expected.getColumnNames(), packed.getColumnNames());
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.getRowAt(i).toArray(), rows.getRowAt(i).toArray(), 0);
+            assertArrayEquals(expected.getRowAt(i).toArray(), packed.getRowAt(i).toArray(), 0);
+        }
+    }
+}